@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.benchmark.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BaseEventCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the binary event codec with the JSON and the Java serialization the channels used
+ * before, run it with
+ * <pre>
+ * mvn -pl alpha/alpha-benchmark test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=org.apache.servicecomb.pack.alpha.benchmark.codec.BaseEventCodecBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaseEventCodecBenchmark {
+
+  private final BaseEventCodec codec = new BaseEventCodec();
+  private final ObjectMapper jsonMapper = new ObjectMapper();
+  private BaseEvent event;
+  private byte[] binary;
+  private byte[] json;
+  private byte[] serialized;
+
+  @Setup
+  public void setup() throws IOException {
+    event = newEvent();
+    binary = codec.encode(event);
+    json = jsonMapper.writeValueAsBytes(event);
+    serialized = serialize(event);
+  }
+
+  @Benchmark
+  public byte[] encodeBinary() {
+    return codec.encode(event);
+  }
+
+  @Benchmark
+  public BaseEvent decodeBinary() {
+    return codec.decode(binary);
+  }
+
+  @Benchmark
+  public byte[] encodeJson() throws IOException {
+    return jsonMapper.writeValueAsBytes(event);
+  }
+
+  @Benchmark
+  public BaseEvent decodeJson() throws IOException {
+    return jsonMapper.readValue(json, BaseEvent.class);
+  }
+
+  @Benchmark
+  public byte[] encodeJavaSerialization() throws IOException {
+    return serialize(event);
+  }
+
+  @Benchmark
+  public Object decodeJavaSerialization() throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+      return in.readObject();
+    }
+  }
+
+  private static BaseEvent newEvent() {
+    String globalTxId = UUID.randomUUID().toString();
+    return TxStartedEvent.builder()
+        .serviceName("booking")
+        .instanceId("booking-192.168.1.10")
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(UUID.randomUUID().toString())
+        .compensationMethod(
+            "public void org.apache.servicecomb.pack.demo.CarBookingService.cancel(CarBooking)")
+        .retryMethod("")
+        .forwardTimeout(30)
+        .payloads(new byte[256])
+        .build();
+  }
+
+  private static byte[] serialize(Object object) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static void main(String[] args) throws IOException, RunnerException {
+    BaseEvent event = newEvent();
+    System.out.printf("encoded size: binary %d bytes, json %d bytes, java serialization %d bytes%n",
+        new BaseEventCodec().encode(event).length,
+        new ObjectMapper().writeValueAsBytes(event).length,
+        serialize(event).length);
+    new Runner(new OptionsBuilder()
+        .include(BaseEventCodecBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -23,9 +23,19 @@ public interface CommandRepository {
 
   void saveCompensationCommands(String globalTxId);
 
+  void saveCompensationCommands(List<String> globalTxIds);
+
   void markCommandAsDone(String globalTxId, String localTxId);
 
+  void markCommandAsPending(String globalTxId, String localTxId);
+
+  void markCommandAsNew(String globalTxId, String localTxId);
+
+  void markCommandsAsDone(List<TxEvent> compensatedEvents);
+
   List<Command> findUncompletedCommands(String globalTxId);
 
-  List<Command> findFirstCommandToCompensate();
+  List<Command> findCommands(String globalTxId);
+
+  List<Command> findCommandsToCompensate(int pageSize);
 }
@@ -23,6 +23,9 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
@@ -40,7 +43,39 @@ public class CompositeOmegaCallback implements OmegaCallback {
   @Override
   public void compensate(TxEvent event) {
     Map<String, OmegaCallback> serviceCallbacks = callbacks.getOrDefault(event.serviceName(), emptyMap());
+    OmegaCallback omegaCallback = pickCallback(event, serviceCallbacks);
 
+    try {
+      omegaCallback.compensate(event);
+    } catch (CompensateConnectException e) {
+      serviceCallbacks.values().remove(omegaCallback);
+      throw e;
+    } catch (CompensateAckFailedException e) {
+      throw e;
+    } catch (Exception e) {
+      serviceCallbacks.values().remove(omegaCallback);
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> compensateAsync(TxEvent event) {
+    Map<String, OmegaCallback> serviceCallbacks = callbacks.getOrDefault(event.serviceName(), emptyMap());
+    OmegaCallback omegaCallback = pickCallback(event, serviceCallbacks);
+
+    CompletableFuture<Void> future = omegaCallback.compensateAsync(event);
+    future.whenComplete((v, e) -> {
+      if (e != null) {
+        Throwable cause = unwrap(e);
+        if (!(cause instanceof CompensateAckFailedException) && !(cause instanceof TimeoutException)) {
+          serviceCallbacks.values().remove(omegaCallback);
+        }
+      }
+    });
+    return future;
+  }
+
+  private OmegaCallback pickCallback(TxEvent event, Map<String, OmegaCallback> serviceCallbacks) {
     OmegaCallback omegaCallback = serviceCallbacks.get(event.instanceId());
     if (omegaCallback == null) {
       LOG.info("Cannot find the service with the instanceId {}, call the other instance.", event.instanceId());
@@ -53,17 +88,10 @@ public class CompositeOmegaCallback implements OmegaCallback {
     if(omegaCallback==null){
       throw new AlphaException("No such omega callback found for service " + event.serviceName());
     }
+    return omegaCallback;
+  }
 
-    try {
-      omegaCallback.compensate(event);
-    } catch (CompensateConnectException e) {
-      serviceCallbacks.values().remove(omegaCallback);
-      throw e;
-    } catch (CompensateAckFailedException e) {
-      throw e;
-    } catch (Exception e) {
-      serviceCallbacks.values().remove(omegaCallback);
-      throw e;
-    }
+  private static Throwable unwrap(Throwable e) {
+    return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
   }
 }
@@ -0,0 +1,464 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.pack.alpha.core;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coordinates sagas from the events persisted by {@link TxConsistentService} instead of polling
+ * the event table like {@link EventScanner}. Open global transactions are indexed in memory and
+ * every event is applied on a single worker thread, so an abort is compensated as soon as it is
+ * persisted and a timeout fires at its expiry time. The event table is only scanned, a page at a
+ * time, to rebuild the index when this node becomes the master and every catch up interval, which
+ * picks up the events persisted by the other nodes of a cluster. The compensations in flight are
+ * restored from the command table, so a catch up does not dispatch them again.
+ */
+public class EventCoordinator implements Runnable, TxEventListener {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
+  private final ScheduledExecutorService scheduler;
+
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(
+      runnable -> new Thread(runnable, "alpha-event-coordinator"));
+
+  private final TxEventRepository eventRepository;
+
+  private final CommandRepository commandRepository;
+
+  private final TxTimeoutRepository timeoutRepository;
+
+  private final OmegaCallback omegaCallback;
+
+  private final int masterCheckInterval;
+
+  private final int catchUpPageSize;
+
+  private final int catchUpInterval;
+
+  private final NodeStatus nodeStatus;
+
+  // open global transactions by globalTxId, only accessed from the worker thread
+  private final Map<String, GlobalTx> openTransactions = new HashMap<>();
+
+  private volatile boolean master;
+
+  private long lastCatchUpTime;
+
+  public EventCoordinator(ScheduledExecutorService scheduler,
+      TxEventRepository eventRepository,
+      CommandRepository commandRepository,
+      TxTimeoutRepository timeoutRepository,
+      OmegaCallback omegaCallback,
+      int masterCheckInterval,
+      int catchUpPageSize,
+      int catchUpInterval,
+      NodeStatus nodeStatus) {
+    this.scheduler = scheduler;
+    this.eventRepository = eventRepository;
+    this.commandRepository = commandRepository;
+    this.timeoutRepository = timeoutRepository;
+    this.omegaCallback = omegaCallback;
+    this.masterCheckInterval = masterCheckInterval;
+    this.catchUpPageSize = catchUpPageSize;
+    this.catchUpInterval = catchUpInterval;
+    this.nodeStatus = nodeStatus;
+  }
+
+  @Override
+  public void run() {
+    try {
+      scheduler.scheduleWithFixedDelay(this::checkMaster, 0, masterCheckInterval, MILLISECONDS);
+    } catch (Exception ex) {
+      LOG.warn("Got the exception {} when starting the event coordinator.", ex.getMessage(), ex);
+    }
+  }
+
+  @Override
+  public void onEvent(TxEvent event) {
+    // a node which is not the master picks up the persisted events when it catches up
+    if (master) {
+      submit(() -> process(event));
+    }
+  }
+
+  private void checkMaster() {
+    boolean isMaster = nodeStatus.isMaster();
+    if (isMaster && !master) {
+      master = true;
+      LOG.info("Became the master, catching up with the open global transactions.");
+      catchUpLater(true);
+    } else if (!isMaster && master) {
+      master = false;
+      submit(this::reset);
+    } else if (master && catchUpInterval > 0
+        && System.currentTimeMillis() - lastCatchUpTime >= catchUpInterval) {
+      catchUpLater(false);
+    }
+  }
+
+  private void catchUpLater(boolean takeover) {
+    lastCatchUpTime = System.currentTimeMillis();
+    submit(() -> catchUp(takeover));
+  }
+
+  private void submit(Runnable task) {
+    worker.execute(() -> {
+      try {
+        task.run();
+      } catch (Exception ex) {
+        // Need to catch the exception to keep the worker running.
+        LOG.warn("Got the exception {} when coordinating events.", ex.getMessage(), ex);
+      }
+    });
+  }
+
+  private void reset() {
+    openTransactions.values().forEach(GlobalTx::cancelTimeouts);
+    openTransactions.clear();
+  }
+
+  private void catchUp(boolean takeover) {
+    reset();
+    long nextEventId = 0;
+    int count = 0;
+    List<TxEvent> events;
+    do {
+      events = eventRepository.findOpenTransactionEventsByIdGreaterThan(nextEventId, catchUpPageSize);
+      for (TxEvent event : events) {
+        apply(event);
+        nextEventId = event.id();
+      }
+      count += events.size();
+    } while (events.size() == catchUpPageSize);
+    LOG.info("Caught up with {} events of {} open global transactions", count, openTransactions.size());
+
+    for (GlobalTx globalTx : new ArrayList<>(openTransactions.values())) {
+      globalTx.locals.values().stream()
+          .filter(local -> local.started != null && !local.settled)
+          .forEach(local -> scheduleTimeout(local, local.started));
+      if (globalTx.isAborted()) {
+        restoreCompensations(globalTx, takeover);
+      }
+      coordinate(globalTx);
+    }
+  }
+
+  // a pending command was dispatched by this node before and is waiting for the compensated event,
+  // the node taking over from another master cannot tell whether it was sent and sends it again
+  private void restoreCompensations(GlobalTx globalTx, boolean takeover) {
+    for (Command command : commandRepository.findCommands(globalTx.globalTxId)) {
+      globalTx.commanded.add(command.localTxId());
+      if (!takeover && TaskStatus.PENDING.name().equals(command.status())) {
+        globalTx.compensating = command.localTxId();
+      }
+    }
+  }
+
+  private void process(TxEvent event) {
+    if (!master) {
+      return;
+    }
+    GlobalTx globalTx = apply(event);
+    if (TxCompensatedEvent.name().equals(event.type())) {
+      updateCompensationStatus(globalTx, event);
+    }
+    if (globalTx != null) {
+      if (TxStartedEvent.name().equals(event.type()) || SagaStartedEvent.name().equals(event.type())) {
+        scheduleTimeout(globalTx.locals.get(event.localTxId()), event);
+      }
+      coordinate(globalTx);
+    }
+  }
+
+  private GlobalTx apply(TxEvent event) {
+    if (SagaEndedEvent.name().equals(event.type())) {
+      close(event.globalTxId());
+      return null;
+    }
+    GlobalTx globalTx = openTransactions.get(event.globalTxId());
+    if (globalTx == null) {
+      if (!TxStartedEvent.name().equals(event.type()) && !SagaStartedEvent.name().equals(event.type())) {
+        return null;
+      }
+      globalTx = new GlobalTx(event);
+      openTransactions.put(event.globalTxId(), globalTx);
+    }
+    globalTx.apply(event);
+    return globalTx;
+  }
+
+  private void coordinate(GlobalTx globalTx) {
+    if (!globalTx.isAborted()) {
+      return;
+    }
+    LocalTx next = globalTx.nextToCompensate();
+    if (next == null) {
+      markGlobalTxEnd(globalTx);
+    } else if (!next.localTxId.equals(globalTx.compensating)) {
+      compensate(globalTx, next);
+    }
+  }
+
+  private void compensate(GlobalTx globalTx, LocalTx local) {
+    if (!globalTx.commanded.contains(local.localTxId)) {
+      commandRepository.saveCompensationCommands(globalTx.globalTxId);
+      globalTx.commanded.addAll(globalTx.uncompensatedLocalTxIds());
+    }
+    LOG.info("Compensating transaction with globalTxId {} and localTxId {}",
+        globalTx.globalTxId,
+        local.localTxId);
+
+    globalTx.compensating = local.localTxId;
+    commandRepository.markCommandAsPending(globalTx.globalTxId, local.localTxId);
+    CompletableFuture<Void> future;
+    try {
+      future = omegaCallback.compensateAsync(local.started);
+    } catch (Exception e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+    String globalTxId = globalTx.globalTxId;
+    future.whenComplete((v, e) -> {
+      if (e != null) {
+        submit(() -> compensationFailed(globalTxId, local.localTxId, e));
+      }
+    });
+  }
+
+  // the compensation is dispatched again with the next event of the global transaction or catch up
+  private void compensationFailed(String globalTxId, String localTxId, Throwable cause) {
+    GlobalTx globalTx = openTransactions.get(globalTxId);
+    if (globalTx != null && localTxId.equals(globalTx.compensating)) {
+      LOG.warn("Failed to compensate transaction with globalTxId {} and localTxId {}",
+          globalTxId, localTxId, cause);
+      globalTx.compensating = null;
+      commandRepository.markCommandAsNew(globalTxId, localTxId);
+    }
+  }
+
+  private void updateCompensationStatus(GlobalTx globalTx, TxEvent event) {
+    commandRepository.markCommandAsDone(event.globalTxId(), event.localTxId());
+    LOG.info("Transaction with globalTxId {} and localTxId {} was compensated",
+        event.globalTxId(),
+        event.localTxId());
+    if (globalTx != null && event.localTxId().equals(globalTx.compensating)) {
+      globalTx.compensating = null;
+    }
+  }
+
+  private void markGlobalTxEnd(GlobalTx globalTx) {
+    eventRepository.save(toSagaEndedEvent(globalTx.origin));
+    close(globalTx.globalTxId);
+    LOG.info("Marked end of transaction with globalTxId {}", globalTx.globalTxId);
+  }
+
+  private void close(String globalTxId) {
+    GlobalTx globalTx = openTransactions.remove(globalTxId);
+    if (globalTx != null) {
+      globalTx.cancelTimeouts();
+    }
+  }
+
+  private void scheduleTimeout(LocalTx local, TxEvent event) {
+    if (event.expiryTime() == null || event.expiryTime().getTime() >= TxEvent.MAX_TIMESTAMP
+        || local.timeout != null) {
+      return;
+    }
+    long delay = Math.max(0, event.expiryTime().getTime() - System.currentTimeMillis());
+    local.timeout = scheduler.schedule(() -> submit(() -> abortTimeoutEvent(event)), delay, MILLISECONDS);
+  }
+
+  private void abortTimeoutEvent(TxEvent event) {
+    GlobalTx globalTx = openTransactions.get(event.globalTxId());
+    LocalTx local = globalTx == null ? null : globalTx.locals.get(event.localTxId());
+    if (!master || local == null || local.settled) {
+      return;
+    }
+    LOG.info("Found timeout event {} to abort", event);
+    timeoutRepository.save(txTimeoutOf(event));
+
+    TxEvent abortedEvent = toTxAbortedEvent(event);
+    eventRepository.save(abortedEvent);
+    if (TxStartedEvent.name().equals(event.type())) {
+      omegaCallback.compensate(event);
+    }
+    timeoutRepository.markTimeoutAsDone();
+    process(abortedEvent);
+  }
+
+  private TxEvent toTxAbortedEvent(TxEvent event) {
+    return new TxEvent(
+        event.serviceName(),
+        event.instanceId(),
+        event.globalTxId(),
+        event.localTxId(),
+        event.parentTxId(),
+        TxAbortedEvent.name(),
+        "",
+        ("Transaction timeout").getBytes());
+  }
+
+  private TxEvent toSagaEndedEvent(TxEvent event) {
+    return new TxEvent(
+        event.serviceName(),
+        event.instanceId(),
+        event.globalTxId(),
+        event.globalTxId(),
+        null,
+        SagaEndedEvent.name(),
+        "",
+        EMPTY_PAYLOAD);
+  }
+
+  private TxTimeout txTimeoutOf(TxEvent event) {
+    return new TxTimeout(
+        event.id(),
+        event.serviceName(),
+        event.instanceId(),
+        event.globalTxId(),
+        event.localTxId(),
+        event.parentTxId(),
+        event.type(),
+        event.expiryTime(),
+        TaskStatus.NEW.name());
+  }
+
+  private static final class GlobalTx {
+    private final String globalTxId;
+    private final TxEvent origin;
+    // in the order the sub transactions started, compensation runs in reverse
+    private final Map<String, LocalTx> locals = new LinkedHashMap<>();
+    private final Set<String> commanded = new HashSet<>();
+    private String compensating;
+    private long sequence;
+
+    private GlobalTx(TxEvent origin) {
+      this.globalTxId = origin.globalTxId();
+      this.origin = origin;
+    }
+
+    private void apply(TxEvent event) {
+      locals.computeIfAbsent(event.localTxId(), LocalTx::new).apply(event, ++sequence);
+    }
+
+    private boolean isAborted() {
+      return locals.values().stream()
+          .anyMatch(local -> local.isAborted() && (local.retries == 0 || local.localTxId.equals(globalTxId)));
+    }
+
+    private LocalTx nextToCompensate() {
+      LocalTx next = null;
+      for (LocalTx local : locals.values()) {
+        if (local.isUncompensated()) {
+          next = local;
+        }
+      }
+      return next;
+    }
+
+    private List<String> uncompensatedLocalTxIds() {
+      List<String> localTxIds = new ArrayList<>();
+      locals.values().stream()
+          .filter(LocalTx::isUncompensated)
+          .forEach(local -> localTxIds.add(local.localTxId));
+      return localTxIds;
+    }
+
+    private void cancelTimeouts() {
+      locals.values().forEach(LocalTx::cancelTimeout);
+    }
+  }
+
+  private static final class LocalTx {
+    private final String localTxId;
+    private TxEvent started;
+    private long lastStarted;
+    private long lastAborted;
+    private int retries = Integer.MAX_VALUE;
+    private boolean ended;
+    private boolean compensated;
+    // any event other than a started one means the sub transaction can no longer time out
+    private boolean settled;
+    private ScheduledFuture<?> timeout;
+
+    private LocalTx(String localTxId) {
+      this.localTxId = localTxId;
+    }
+
+    private void apply(TxEvent event, long sequence) {
+      String type = event.type();
+      if (TxStartedEvent.name().equals(type) || SagaStartedEvent.name().equals(type)) {
+        if (started == null) {
+          started = event;
+        }
+        retries = Math.min(retries, event.retries());
+        lastStarted = sequence;
+        return;
+      }
+      if (TxEndedEvent.name().equals(type)) {
+        ended = true;
+      } else if (TxAbortedEvent.name().equals(type)) {
+        lastAborted = sequence;
+      } else if (TxCompensatedEvent.name().equals(type)) {
+        compensated = true;
+      }
+      settled = true;
+      cancelTimeout();
+    }
+
+    // an abort is superseded when the sub transaction is started again by a retry
+    private boolean isAborted() {
+      return lastAborted > lastStarted;
+    }
+
+    private boolean isUncompensated() {
+      return started != null && TxStartedEvent.name().equals(started.type())
+          && ended && !compensated && retries == 0;
+    }
+
+    private void cancelTimeout() {
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+    }
+  }
+}
@@ -24,9 +24,13 @@ import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
 import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
-
+import java.util.function.Supplier;
+import org.apache.servicecomb.pack.alpha.core.metrics.MetricsBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +39,10 @@ public class EventScanner implements Runnable {
 
   private static final byte[] EMPTY_PAYLOAD = new byte[0];
 
+  public static final int DEFAULT_PAGE_SIZE = 100;
+
+  private static final int MAX_PAGES_PER_TICK = 10;
+
   private final ScheduledExecutorService scheduler;
 
   private final TxEventRepository eventRepository;
@@ -47,6 +55,10 @@ public class EventScanner implements Runnable {
 
   private final int eventPollingInterval;
 
+  private final int pageSize;
+
+  private final MetricsBean metrics;
+
   private long nextEndedEventId;
 
   private long nextCompensatedEventId;
@@ -59,13 +71,28 @@ public class EventScanner implements Runnable {
       TxTimeoutRepository timeoutRepository,
       OmegaCallback omegaCallback,
       int eventPollingInterval,NodeStatus nodeStatus) {
+    this(scheduler, eventRepository, commandRepository, timeoutRepository, omegaCallback,
+        eventPollingInterval, DEFAULT_PAGE_SIZE, nodeStatus, new MetricsBean());
+  }
+
+  public EventScanner(ScheduledExecutorService scheduler,
+      TxEventRepository eventRepository,
+      CommandRepository commandRepository,
+      TxTimeoutRepository timeoutRepository,
+      OmegaCallback omegaCallback,
+      int eventPollingInterval,
+      int pageSize,
+      NodeStatus nodeStatus,
+      MetricsBean metrics) {
     this.scheduler = scheduler;
     this.eventRepository = eventRepository;
     this.commandRepository = commandRepository;
     this.timeoutRepository = timeoutRepository;
     this.omegaCallback = omegaCallback;
     this.eventPollingInterval = eventPollingInterval;
+    this.pageSize = pageSize;
     this.nodeStatus = nodeStatus;
+    this.metrics = metrics;
   }
 
   @Override
@@ -83,14 +110,14 @@ public class EventScanner implements Runnable {
         () -> {
           // only pull the events when working in the master mode
           if(nodeStatus.isMaster()){
-            updateTimeoutStatus();
-            findTimeoutEvents();
-            abortTimeoutEvents();
-            saveUncompensatedEventsToCommands();
-            compensate();
-            updateCompensatedCommands();
-            deleteDuplicateSagaEndedEvents();
-            updateTransactionStatus();
+            timed("updateTimeoutStatus", this::updateTimeoutStatus);
+            timed("findTimeoutEvents", this::findTimeoutEvents);
+            timed("abortTimeoutEvents", this::abortTimeoutEvents);
+            timed("saveUncompensatedEventsToCommands", this::saveUncompensatedEventsToCommands);
+            timed("compensate", this::compensate);
+            timed("updateCompensatedCommands", this::updateCompensatedCommands);
+            timed("deleteDuplicateSagaEndedEvents", this::deleteDuplicateSagaEndedEvents);
+            timed("updateTransactionStatus", this::updateTransactionStatus);
           }
         },
         0,
@@ -98,12 +125,25 @@ public class EventScanner implements Runnable {
         MILLISECONDS);
   }
 
+  private void timed(String stage, Runnable runnable) {
+    long begin = System.currentTimeMillis();
+    runnable.run();
+    metrics.doScannerStageAvgTime(stage, System.currentTimeMillis() - begin);
+  }
+
   private void findTimeoutEvents() {
-    eventRepository.findTimeoutEvents()
-        .forEach(event -> {
-          LOG.info("Found timeout event {}", event);
-          timeoutRepository.save(txTimeoutOf(event));
-        });
+    drain(() -> {
+      List<TxEvent> events = eventRepository.findTimeoutEvents(pageSize);
+      List<TxTimeout> timeouts = new ArrayList<>(events.size());
+      events.forEach(event -> {
+        LOG.info("Found timeout event {}", event);
+        timeouts.add(txTimeoutOf(event));
+      });
+      if (!timeouts.isEmpty()) {
+        timeoutRepository.saveAll(timeouts);
+      }
+      return events.size();
+    });
   }
 
   private void updateTimeoutStatus() {
@@ -111,21 +151,46 @@ public class EventScanner implements Runnable {
   }
 
   private void saveUncompensatedEventsToCommands() {
-    eventRepository.findFirstUncompensatedEventByIdGreaterThan(nextEndedEventId, TxEndedEvent.name())
-        .forEach(event -> {
-          LOG.info("Found uncompensated event {}", event);
-          nextEndedEventId = event.id();
-          commandRepository.saveCompensationCommands(event.globalTxId());
-        });
+    drain(() -> {
+      List<TxEvent> events = eventRepository
+          .findUncompensatedEventsByIdGreaterThan(nextEndedEventId, TxEndedEvent.name(), pageSize);
+      Set<String> globalTxIds = new LinkedHashSet<>();
+      events.forEach(event -> {
+        LOG.info("Found uncompensated event {}", event);
+        nextEndedEventId = event.id();
+        globalTxIds.add(event.globalTxId());
+      });
+      if (!globalTxIds.isEmpty()) {
+        commandRepository.saveCompensationCommands(new ArrayList<>(globalTxIds));
+      }
+      return events.size();
+    });
   }
 
   private void updateCompensatedCommands() {
-    eventRepository.findFirstCompensatedEventByIdGreaterThan(nextCompensatedEventId)
-        .ifPresent(event -> {
-          LOG.info("Found compensated event {}", event);
-          nextCompensatedEventId = event.id();
-          updateCompensationStatus(event);
-        });
+    drain(() -> {
+      List<TxEvent> events = eventRepository
+          .findCompensatedEventsByIdGreaterThan(nextCompensatedEventId, pageSize);
+      if (!events.isEmpty()) {
+        events.forEach(event -> LOG.info("Found compensated event {}", event));
+        nextCompensatedEventId = events.get(events.size() - 1).id();
+        updateCompensationStatus(events);
+      }
+      return events.size();
+    });
+  }
+
+  /**
+   * Keeps fetching pages within one tick while they come back full, so that a backlog is drained
+   * without waiting a polling interval per page. The number of pages is bounded to leave room for
+   * the other stages.
+   */
+  private void drain(Supplier<Integer> page) {
+    int pages = 0;
+    int fetched;
+    do {
+      fetched = page.get();
+    } while (fetched >= pageSize && ++pages < MAX_PAGES_PER_TICK && nodeStatus.isMaster());
   }
 
   private void deleteDuplicateSagaEndedEvents() {
@@ -136,25 +201,33 @@ public class EventScanner implements Runnable {
     }
   }
 
-  private void updateCompensationStatus(TxEvent event) {
-    commandRepository.markCommandAsDone(event.globalTxId(), event.localTxId());
-    LOG.info("Transaction with globalTxId {} and localTxId {} was compensated",
-        event.globalTxId(),
-        event.localTxId());
-
-    markSagaEnded(event);
+  private void updateCompensationStatus(List<TxEvent> events) {
+    commandRepository.markCommandsAsDone(events);
+    Set<String> globalTxIds = new LinkedHashSet<>();
+    events.forEach(event -> {
+      LOG.info("Transaction with globalTxId {} and localTxId {} was compensated",
+          event.globalTxId(),
+          event.localTxId());
+      if (globalTxIds.add(event.globalTxId())) {
+        markSagaEnded(event);
+      }
+    });
   }
 
   private void abortTimeoutEvents() {
-    timeoutRepository.findFirstTimeout().forEach(timeout -> {
-      LOG.info("Found timeout event {} to abort", timeout);
-
-      eventRepository.save(toTxAbortedEvent(timeout));
-
-      if (timeout.type().equals(TxStartedEvent.name())) {
-        eventRepository.findTxStartedEvent(timeout.globalTxId(), timeout.localTxId())
-            .ifPresent(omegaCallback::compensate);
-      }
+    drain(() -> {
+      List<TxTimeout> timeouts = timeoutRepository.findTimeouts(pageSize);
+      timeouts.forEach(timeout -> {
+        LOG.info("Found timeout event {} to abort", timeout);
+
+        eventRepository.save(toTxAbortedEvent(timeout));
+
+        if (timeout.type().equals(TxStartedEvent.name())) {
+          eventRepository.findTxStartedEvent(timeout.globalTxId(), timeout.localTxId())
+              .ifPresent(omegaCallback::compensate);
+        }
+      });
+      return timeouts.size();
     });
   }
 
@@ -202,7 +275,9 @@ public class EventScanner implements Runnable {
   }
   
   private void compensate() {
-    commandRepository.findFirstCommandToCompensate()
+    // at most one command per global transaction is returned, the next one is only picked up
+    // after it is compensated, hence a single page per tick
+    commandRepository.findCommandsToCompensate(pageSize)
         .forEach(command -> {
           LOG.info("Compensating transaction with globalTxId {} and localTxId {}",
               command.globalTxId(),
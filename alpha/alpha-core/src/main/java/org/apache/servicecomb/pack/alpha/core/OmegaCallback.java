@@ -17,17 +17,43 @@
 
 package org.apache.servicecomb.pack.alpha.core;
 
+import java.util.concurrent.CompletableFuture;
 import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
 
 public interface OmegaCallback {
   void compensate(TxEvent event);
 
+  /**
+   * Sends the compensate command without waiting for omega to acknowledge it. The returned
+   * future completes once the ack arrives, or exceptionally if the compensation failed or the
+   * omega instance went away. Callbacks that cannot wait asynchronously fall back to
+   * {@link #compensate(TxEvent)} on the calling thread.
+   */
+  default CompletableFuture<Void> compensateAsync(TxEvent event) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    try {
+      compensate(event);
+      future.complete(null);
+    } catch (Exception e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
   default void disconnect() {
   }
 
   default void getAck(CompensateAckType type) {
   }
 
+  /**
+   * Routes the ack of one compensation to the caller waiting for it. Callbacks that only track a
+   * single outstanding compensation ignore the transaction ids.
+   */
+  default void getAck(String globalTxId, String localTxId, CompensateAckType type) {
+    getAck(type);
+  }
+
   default boolean isWaiting() {
     return false;
   }
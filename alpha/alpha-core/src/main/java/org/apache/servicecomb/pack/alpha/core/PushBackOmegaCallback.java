@@ -21,6 +21,7 @@ import static org.apache.servicecomb.pack.common.EventType.TxCompensateEvent;
 
 import java.lang.invoke.MethodHandles;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +52,12 @@ public class PushBackOmegaCallback implements OmegaCallback {
     }
   }
 
+  // the callers waiting asynchronously retry the failed compensations themselves
+  @Override
+  public CompletableFuture<Void> compensateAsync(TxEvent event) {
+    return underlying.compensateAsync(event);
+  }
+
   private void logError(TxEvent event, Exception e) {
     LOG.error(
         "Failed to {} service [{}] instance [{}] with method [{}], global tx id [{}] and local tx id [{}]",
@@ -34,10 +34,18 @@ public class TxConsistentService {
 
   private final TxEventRepository eventRepository;
 
+  private final TxEventListener eventListener;
+
   private final List<String> types = Arrays.asList(TxStartedEvent.name(), SagaEndedEvent.name());
 
   public TxConsistentService(TxEventRepository eventRepository) {
+    this(eventRepository, event -> {
+    });
+  }
+
+  public TxConsistentService(TxEventRepository eventRepository, TxEventListener eventListener) {
     this.eventRepository = eventRepository;
+    this.eventListener = eventListener;
   }
   public boolean handle(TxEvent event) {
     if (types.contains(event.type()) && isGlobalTxAborted(event)) {
@@ -47,6 +55,7 @@ public class TxConsistentService {
     }
 
     eventRepository.save(event);
+    eventListener.onEvent(event);
 
     return true;
   }
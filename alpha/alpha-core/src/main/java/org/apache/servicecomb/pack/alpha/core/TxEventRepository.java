@@ -51,11 +51,13 @@ public interface TxEventRepository {
    *  <li>{@link TxEvent#type} is {@link EventType#TxStartedEvent} or {@link EventType#SagaStartedEvent}</li>
    *  <li>Current time greater than {@link TxEvent#expiryTime}</li>
    *  <li>There are no corresponding {@link TxEvent} which type is <code>TxEndedEvent</code> or <code>SagaEndedEvent</code></li>
+   *  <li>There is no {@link TxTimeout} saved for it yet</li>
    * </ol>
    *
+   * @param pageSize maximum number of events to return
    * @return
    */
-  List<TxEvent> findTimeoutEvents();
+  List<TxEvent> findTimeoutEvents(int pageSize);
 
   /**
    * Find a {@link TxEvent} which satisfies below requirements:
@@ -85,7 +87,7 @@ public interface TxEventRepository {
   List<TxEvent> findTransactions(String globalTxId, String type);
 
   /**
-   * Find a {@link TxEvent} which satisfies below requirements:
+   * Find a page of {@link TxEvent}s, ordered by {@link TxEvent#surrogateId}, which satisfy below requirements:
    * <ol>
    *   <li>{@link TxEvent#type} equals to {@link EventType#TxEndedEvent}</li>
    *   <li>{@link TxEvent#surrogateId} greater than param <code>id</code></li>
@@ -95,12 +97,13 @@ public interface TxEventRepository {
    * </ol>
    *
    * @param id
+   * @param pageSize maximum number of events to return
    * @return
    */
-  List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type);
+  List<TxEvent> findUncompensatedEventsByIdGreaterThan(long id, String type, int pageSize);
 
   /**
-   * Find a {@link TxEvent} which satisfies below requirements:
+   * Find a page of {@link TxEvent}s, ordered by {@link TxEvent#surrogateId}, which satisfy below requirements:
    *
    * <ol>
    *   <li>{@link TxEvent#type} equals to {@link EventType#TxCompensatedEvent}</li>
@@ -108,9 +111,24 @@ public interface TxEventRepository {
    * </ol>
    *
    * @param id
+   * @param pageSize maximum number of events to return
+   * @return
+   */
+  List<TxEvent> findCompensatedEventsByIdGreaterThan(long id, int pageSize);
+
+  /**
+   * Find a page of {@link TxEvent}s, ordered by {@link TxEvent#surrogateId}, which satisfy below requirements:
+   *
+   * <ol>
+   *   <li>{@link TxEvent#surrogateId} greater than param <code>id</code></li>
+   *   <li>There is no <code>SagaEndedEvent</code> with the same {@link TxEvent#globalTxId}</li>
+   * </ol>
+   *
+   * @param id
+   * @param pageSize maximum number of events to return
    * @return
    */
-  Optional<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id);
+  List<TxEvent> findOpenTransactionEventsByIdGreaterThan(long id, int pageSize);
 
   /**
    * Delete duplicated {@link TxEvent}s which {@link TxEvent#type} equals param <code>type</code>.
@@ -20,6 +20,7 @@ package org.apache.servicecomb.pack.alpha.core.api;
 import java.util.List;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.apache.servicecomb.pack.alpha.core.metrics.AlphaMetrics;
 
@@ -33,7 +34,11 @@ public interface APIv1 {
   PagingGlobalTransactions getTransactions(String state, int page, int size)
       throws Exception;
 
+  PagingGlobalTransactions getTransactions(GlobalTransactionQuery query) throws Exception;
+
   Map<String, Long> getTransactionStatistics() throws Exception;
 
   List<GlobalTransaction> getSlowTransactions(int size) throws Exception;
+
+  List<GlobalTransaction> getSlowTransactions(String serviceName, int size) throws Exception;
 }
@@ -17,8 +17,19 @@
 
 package org.apache.servicecomb.pack.alpha.core.fsm.channel;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 
 public interface ActorEventChannel {
   void send(BaseEvent event);
+
+  /**
+   * Sends the event without waiting for the channel, the returned stage completes once the
+   * channel holds the event and fails if the channel did not take it.
+   */
+  default CompletionStage<Void> sendAsync(BaseEvent event) {
+    send(event);
+    return CompletableFuture.completedFuture(null);
+  }
 }
@@ -16,8 +16,22 @@
  */
 package org.apache.servicecomb.pack.alpha.core.fsm.channel;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 public interface MessagePublisher<T> {
 
     void publish(T data);
 
+    default CompletionStage<Void> publishAsync(T data) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            publish(data);
+            future.complete(null);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
 }
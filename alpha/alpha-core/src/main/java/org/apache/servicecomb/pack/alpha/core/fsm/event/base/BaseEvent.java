@@ -17,11 +17,16 @@
 
 package org.apache.servicecomb.pack.alpha.core.fsm.event.base;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.Map;
@@ -49,13 +54,23 @@ import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
 public abstract class BaseEvent implements Serializable {
 
   private static final long serialVersionUID = 7587021626678201246L;
-  private final ObjectMapper mapper = new ObjectMapper();
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  // the create time was a Date field, Java serialization keeps writing and reading it as one
+  private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("serviceName", String.class),
+      new ObjectStreamField("instanceId", String.class),
+      new ObjectStreamField("globalTxId", String.class),
+      new ObjectStreamField("parentTxId", String.class),
+      new ObjectStreamField("localTxId", String.class),
+      new ObjectStreamField("createTime", Date.class)
+  };
   private String serviceName;
   private String instanceId;
   private String globalTxId;
   private String parentTxId;
   private String localTxId;
-  private Date createTime = new Date();
+  // epoch milliseconds, 0 when the create time is unknown
+  private long createTime = System.currentTimeMillis();
 
   public BaseEvent() {
 
@@ -82,9 +97,19 @@ public abstract class BaseEvent implements Serializable {
   }
 
   public Date getCreateTime() {
+    return createTime != 0 ? new Date(createTime) : null;
+  }
+
+  @JsonIgnore
+  public long getCreateTimeMillis() {
     return createTime;
   }
 
+  @JsonIgnore
+  public void setCreateTimeMillis(long createTime) {
+    this.createTime = createTime;
+  }
+
   public String getGlobalTxId() {
     return globalTxId;
   }
@@ -110,19 +135,40 @@ public abstract class BaseEvent implements Serializable {
   }
 
   public void setCreateTime(Date createTime) {
-    this.createTime = createTime;
+    this.createTime = createTime != null ? createTime.getTime() : 0;
   }
 
   @Override
   public String toString() {
     try {
-      return mapper.writeValueAsString(this);
+      return MAPPER.writeValueAsString(this);
     } catch (JsonProcessingException e) {
       throw new RuntimeException(e);
     }
   }
 
   public Map<String,Object> toMap() throws Exception {
-    return mapper.readValue(mapper.writeValueAsString(this), Map.class);
+    return MAPPER.readValue(MAPPER.writeValueAsString(this), Map.class);
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("serviceName", serviceName);
+    fields.put("instanceId", instanceId);
+    fields.put("globalTxId", globalTxId);
+    fields.put("parentTxId", parentTxId);
+    fields.put("localTxId", localTxId);
+    fields.put("createTime", getCreateTime());
+    out.writeFields();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField fields = in.readFields();
+    serviceName = (String) fields.get("serviceName", null);
+    instanceId = (String) fields.get("instanceId", null);
+    globalTxId = (String) fields.get("globalTxId", null);
+    parentTxId = (String) fields.get("parentTxId", null);
+    localTxId = (String) fields.get("localTxId", null);
+    setCreateTime((Date) fields.get("createTime", null));
   }
 }
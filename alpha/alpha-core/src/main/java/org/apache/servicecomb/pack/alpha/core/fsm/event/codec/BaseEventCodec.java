@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.fsm.event.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Date;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedCheckEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.StopEvent;
+
+/**
+ * Binary format of the saga events crossing the event channels.
+ *
+ * <p>An encoded event starts with the {@link #MAGIC} byte, the format version and the type tag
+ * of the event, followed by the fields shared by all events and the fields of the event type,
+ * written with {@link BinaryOutput}. Tags are part of the format and must never be reused, the
+ * internal events of the saga actor are encoded too because the actor persists them.
+ *
+ * <p>{@link #decode(byte[])} still reads the JSON and the Java serialization the channels
+ * used before, so the messages already queued can be consumed while the nodes are upgraded. The
+ * Java serialization only resolves the event classes and the JDK types of their fields, any
+ * other class in the stream is rejected before it is instantiated.
+ */
+public class BaseEventCodec {
+
+  public static final byte MAGIC = (byte) 0xC5;
+  public static final byte VERSION = 1;
+
+  private static final byte SAGA_STARTED = 1;
+  private static final byte SAGA_ENDED = 2;
+  private static final byte SAGA_ABORTED = 3;
+  private static final byte SAGA_TIMEOUT = 4;
+  private static final byte TX_STARTED = 5;
+  private static final byte TX_ENDED = 6;
+  private static final byte TX_ABORTED = 7;
+  private static final byte TX_COMPENSATED = 8;
+  private static final byte TX_COMPENSATE_ACK_SUCCEED = 9;
+  private static final byte TX_COMPENSATE_ACK_FAILED = 10;
+  private static final byte COMPENSATE_ACK_TIMEOUT = 11;
+  private static final byte COMPONSITED_CHECK = 12;
+  private static final byte STOP = 13;
+
+  private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+  public byte[] encode(BaseEvent event) {
+    BinaryOutput out = new BinaryOutput();
+    out.writeByte(MAGIC);
+    out.writeByte(VERSION);
+    out.writeByte(tagOf(event));
+    out.writeString(event.getServiceName());
+    out.writeString(event.getInstanceId());
+    out.writeString(event.getGlobalTxId());
+    out.writeString(event.getParentTxId());
+    out.writeString(event.getLocalTxId());
+    out.writeTime(event.getCreateTimeMillis());
+    if (event instanceof SagaStartedEvent) {
+      out.writeInt(((SagaStartedEvent) event).getTimeout());
+    } else if (event instanceof SagaAbortedEvent) {
+      out.writeBytes(((SagaAbortedEvent) event).getPayloads());
+    } else if (event instanceof TxStartedEvent) {
+      TxStartedEvent txStartedEvent = (TxStartedEvent) event;
+      out.writeString(txStartedEvent.getCompensationMethod());
+      out.writeBytes(txStartedEvent.getPayloads());
+      out.writeString(txStartedEvent.getRetryMethod());
+      out.writeInt(txStartedEvent.getForwardRetries());
+      out.writeInt(txStartedEvent.getForwardTimeout());
+      out.writeInt(txStartedEvent.getReverseRetries());
+      out.writeInt(txStartedEvent.getReverseTimeout());
+      out.writeInt(txStartedEvent.getRetryDelayInMilliseconds());
+    } else if (event instanceof TxAbortedEvent) {
+      out.writeBytes(((TxAbortedEvent) event).getPayloads());
+    } else if (event instanceof TxCompensateAckFailedEvent) {
+      out.writeBytes(((TxCompensateAckFailedEvent) event).getPayloads());
+    } else if (event instanceof CompensateAckTimeoutEvent) {
+      out.writeBytes(((CompensateAckTimeoutEvent) event).getPayloads());
+    } else if (event instanceof ComponsitedCheckEvent) {
+      out.writeEnum(((ComponsitedCheckEvent) event).getPreComponsitedState());
+    }
+    return out.toByteArray();
+  }
+
+  public BaseEvent decode(byte[] bytes) {
+    if (bytes == null || bytes.length == 0) {
+      throw new IllegalArgumentException("Cannot decode an empty event");
+    }
+    try {
+      if (bytes[0] == MAGIC) {
+        return decodeBinary(new BinaryInput(bytes));
+      } else if (bytes.length > 1 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED) {
+        try (ObjectInputStream in = new EventObjectInputStream(new ByteArrayInputStream(bytes))) {
+          return (BaseEvent) in.readObject();
+        }
+      } else {
+        return JSON_MAPPER.readValue(bytes, BaseEvent.class);
+      }
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      throw new IllegalArgumentException("Cannot decode event: " + e.getMessage(), e);
+    }
+  }
+
+  private BaseEvent decodeBinary(BinaryInput in) {
+    in.readByte();
+    byte version = in.readByte();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported event format version " + version);
+    }
+    byte tag = in.readByte();
+    BaseEvent event = newEvent(tag);
+    event.setServiceName(in.readString());
+    event.setInstanceId(in.readString());
+    event.setGlobalTxId(in.readString());
+    event.setParentTxId(in.readString());
+    event.setLocalTxId(in.readString());
+    event.setCreateTimeMillis(in.readTime());
+    switch (tag) {
+      case SAGA_STARTED:
+        ((SagaStartedEvent) event).setTimeout(in.readInt());
+        break;
+      case SAGA_ABORTED:
+        ((SagaAbortedEvent) event).setPayloads(in.readBytes());
+        break;
+      case TX_STARTED:
+        TxStartedEvent txStartedEvent = (TxStartedEvent) event;
+        txStartedEvent.setCompensationMethod(in.readString());
+        txStartedEvent.setPayloads(in.readBytes());
+        txStartedEvent.setRetryMethod(in.readString());
+        txStartedEvent.setForwardRetries(in.readInt());
+        txStartedEvent.setForwardTimeout(in.readInt());
+        txStartedEvent.setReverseRetries(in.readInt());
+        txStartedEvent.setReverseTimeout(in.readInt());
+        txStartedEvent.setRetryDelayInMilliseconds(in.readInt());
+        break;
+      case TX_ABORTED:
+        ((TxAbortedEvent) event).setPayloads(in.readBytes());
+        break;
+      case TX_COMPENSATE_ACK_FAILED:
+        ((TxCompensateAckFailedEvent) event).setPayloads(in.readBytes());
+        break;
+      case COMPENSATE_ACK_TIMEOUT:
+        ((CompensateAckTimeoutEvent) event).setPayloads(in.readBytes());
+        break;
+      case COMPONSITED_CHECK:
+        ((ComponsitedCheckEvent) event).setPreComponsitedState(in.readEnum(TxState.class));
+        break;
+      default:
+        break;
+    }
+    return event;
+  }
+
+  private static byte tagOf(BaseEvent event) {
+    if (event instanceof SagaStartedEvent) {
+      return SAGA_STARTED;
+    } else if (event instanceof SagaEndedEvent) {
+      return SAGA_ENDED;
+    } else if (event instanceof SagaAbortedEvent) {
+      return SAGA_ABORTED;
+    } else if (event instanceof SagaTimeoutEvent) {
+      return SAGA_TIMEOUT;
+    } else if (event instanceof TxStartedEvent) {
+      return TX_STARTED;
+    } else if (event instanceof TxEndedEvent) {
+      return TX_ENDED;
+    } else if (event instanceof TxAbortedEvent) {
+      return TX_ABORTED;
+    } else if (event instanceof TxCompensatedEvent) {
+      return TX_COMPENSATED;
+    } else if (event instanceof TxCompensateAckSucceedEvent) {
+      return TX_COMPENSATE_ACK_SUCCEED;
+    } else if (event instanceof TxCompensateAckFailedEvent) {
+      return TX_COMPENSATE_ACK_FAILED;
+    } else if (event instanceof CompensateAckTimeoutEvent) {
+      return COMPENSATE_ACK_TIMEOUT;
+    } else if (event instanceof ComponsitedCheckEvent) {
+      return COMPONSITED_CHECK;
+    } else if (event instanceof StopEvent) {
+      return STOP;
+    }
+    throw new IllegalArgumentException("Cannot encode event " + event.getType());
+  }
+
+  private static BaseEvent newEvent(byte tag) {
+    switch (tag) {
+      case SAGA_STARTED:
+        return new SagaStartedEvent();
+      case SAGA_ENDED:
+        return new SagaEndedEvent();
+      case SAGA_ABORTED:
+        return new SagaAbortedEvent();
+      case SAGA_TIMEOUT:
+        return new SagaTimeoutEvent();
+      case TX_STARTED:
+        return new TxStartedEvent();
+      case TX_ENDED:
+        return new TxEndedEvent();
+      case TX_ABORTED:
+        return new TxAbortedEvent();
+      case TX_COMPENSATED:
+        return new TxCompensatedEvent();
+      case TX_COMPENSATE_ACK_SUCCEED:
+        return new TxCompensateAckSucceedEvent();
+      case TX_COMPENSATE_ACK_FAILED:
+        return new TxCompensateAckFailedEvent();
+      case COMPENSATE_ACK_TIMEOUT:
+        return new CompensateAckTimeoutEvent();
+      case COMPONSITED_CHECK:
+        return new ComponsitedCheckEvent();
+      case STOP:
+        return new StopEvent();
+      default:
+        throw new IllegalArgumentException("Unknown event tag " + tag);
+    }
+  }
+
+  private static final class EventObjectInputStream extends ObjectInputStream {
+
+    private static final String EVENT_PACKAGE = "org.apache.servicecomb.pack.alpha.core.fsm.event.";
+
+    EventObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc)
+        throws IOException, ClassNotFoundException {
+      String name = desc.getName();
+      if (name.startsWith(EVENT_PACKAGE)
+          || name.equals(TxState.class.getName())
+          || name.equals(Enum.class.getName())
+          || name.equals(Date.class.getName())
+          || name.equals("[B")) {
+        return super.resolveClass(desc);
+      }
+      throw new InvalidClassException(name, "not a saga event class");
+    }
+  }
+}
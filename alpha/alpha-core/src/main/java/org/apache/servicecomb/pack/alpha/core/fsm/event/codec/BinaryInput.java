@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.fsm.event.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Reads the primitives written by {@link BinaryOutput}, failing with an
+ * {@link IllegalArgumentException} on truncated or malformed input.
+ */
+public class BinaryInput {
+
+  private final ByteBuffer buffer;
+
+  public BinaryInput(byte[] bytes) {
+    this.buffer = ByteBuffer.wrap(bytes);
+  }
+
+  // formats append the fields added later, readers of older data check for them with it
+  public boolean hasRemaining() {
+    return buffer.hasRemaining();
+  }
+
+  public byte readByte() {
+    try {
+      return buffer.get();
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Truncated input", e);
+    }
+  }
+
+  public int readVarInt() {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = readByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint");
+  }
+
+  public int readInt() {
+    int value = readVarInt();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  public long readLong() {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (value >>> 1) ^ -(value & 1);
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint");
+  }
+
+  public boolean readBoolean() {
+    return readByte() != 0;
+  }
+
+  public byte[] readBytes() {
+    int length = readVarInt() - 1;
+    if (length < 0) {
+      return null;
+    }
+    checkRemaining(length);
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  public String readString() {
+    int length = readVarInt() - 1;
+    if (length < 0) {
+      return null;
+    }
+    checkRemaining(length);
+    String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  public <E extends Enum<E>> E readEnum(Class<E> type) {
+    String name = readString();
+    return name == null ? null : Enum.valueOf(type, name);
+  }
+
+  public Date readDate() {
+    if (readByte() == 0) {
+      return null;
+    }
+    checkRemaining(8);
+    return new Date(buffer.getLong());
+  }
+
+  /**
+   * Reads a date as epoch milliseconds, 0 for null.
+   */
+  public long readTime() {
+    if (readByte() == 0) {
+      return 0;
+    }
+    checkRemaining(8);
+    return buffer.getLong();
+  }
+
+  private void checkRemaining(int length) {
+    if (buffer.remaining() < length) {
+      throw new IllegalArgumentException("Truncated input");
+    }
+  }
+}
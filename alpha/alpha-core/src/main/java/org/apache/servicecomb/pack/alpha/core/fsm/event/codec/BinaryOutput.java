@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.fsm.event.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Writes the primitives of the binary formats, read back by {@link BinaryInput}. Strings and
+ * byte arrays are prefixed with a varint of their length plus one, so that zero stands for null,
+ * and ints and longs are written as zigzag varints.
+ */
+public class BinaryOutput extends ByteArrayOutputStream {
+
+  public BinaryOutput() {
+    super(256);
+  }
+
+  public void writeByte(int value) {
+    write(value);
+  }
+
+  public void writeVarInt(int value) {
+    while ((value & ~0x7F) != 0) {
+      write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    write(value);
+  }
+
+  public void writeInt(int value) {
+    writeVarInt((value << 1) ^ (value >> 31));
+  }
+
+  public void writeLong(long value) {
+    long zigzag = (value << 1) ^ (value >> 63);
+    while ((zigzag & ~0x7FL) != 0) {
+      write((int) ((zigzag & 0x7F) | 0x80));
+      zigzag >>>= 7;
+    }
+    write((int) zigzag);
+  }
+
+  public void writeBoolean(boolean value) {
+    write(value ? 1 : 0);
+  }
+
+  public void writeBytes(byte[] bytes) {
+    if (bytes == null) {
+      writeVarInt(0);
+    } else {
+      writeVarInt(bytes.length + 1);
+      write(bytes, 0, bytes.length);
+    }
+  }
+
+  public void writeString(String value) {
+    writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public void writeEnum(Enum<?> value) {
+    writeString(value == null ? null : value.name());
+  }
+
+  public void writeDate(Date date) {
+    if (date == null) {
+      write(0);
+    } else {
+      write(1);
+      writeFixedLong(date.getTime());
+    }
+  }
+
+  /**
+   * Writes epoch milliseconds in the layout of {@link #writeDate(Date)}, 0 standing for null.
+   */
+  public void writeTime(long time) {
+    if (time == 0) {
+      write(0);
+    } else {
+      write(1);
+      writeFixedLong(time);
+    }
+  }
+
+  private void writeFixedLong(long value) {
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      write((int) (value >>> shift));
+    }
+  }
+}
@@ -28,6 +28,10 @@ public class ComponsitedCheckEvent extends TxEvent {
     return preComponsitedState;
   }
 
+  public void setPreComponsitedState(TxState preComponsitedState) {
+    this.preComponsitedState = preComponsitedState;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
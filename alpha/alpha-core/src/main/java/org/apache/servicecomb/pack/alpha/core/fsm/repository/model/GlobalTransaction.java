@@ -107,6 +107,7 @@ public class GlobalTransaction {
     private Integer subTxSize;
     private List<SagaSubTransaction> subTransactions;
     private List<BaseEvent> events;
+    private List<Map<String,Object>> eventMaps;
     private SuspendedType suspendedType;
 
     private Builder() {
@@ -162,6 +163,14 @@ public class GlobalTransaction {
       return this;
     }
 
+    /**
+     * Events already converted by {@link BaseEvent#toMap()}, e.g. read back from a repository.
+     */
+    public Builder eventMaps(List<Map<String,Object>> eventMaps) {
+      this.eventMaps = eventMaps;
+      return this;
+    }
+
     public Builder suspendedType(SuspendedType suspendedType) {
       this.suspendedType = suspendedType;
       return this;
@@ -180,13 +189,18 @@ public class GlobalTransaction {
       globalTransaction.durationTime = this.endTime.getTime() - this.beginTime.getTime();
       globalTransaction.subTransactions = this.subTransactions;
       globalTransaction.suspendedType = this.suspendedType;
-      for(BaseEvent event : events){
-        try {
-          globalTransaction.events.add(event.toMap());
-        } catch (Exception e) {
-          throw new RuntimeException(e.getMessage(),e);
+      if (events != null) {
+        for(BaseEvent event : events){
+          try {
+            globalTransaction.events.add(event.toMap());
+          } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(),e);
+          }
         }
       }
+      if (eventMaps != null) {
+        globalTransaction.events.addAll(eventMaps);
+      }
       return globalTransaction;
     }
   }
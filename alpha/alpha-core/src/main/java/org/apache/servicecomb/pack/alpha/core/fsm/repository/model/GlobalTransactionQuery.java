@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.fsm.repository.model;
+
+import java.util.Date;
+
+/**
+ * Query of ended global transactions ordered by beginTime and globalTxId descending. Pages are
+ * read with the cursor returned in {@link PagingGlobalTransactions#getCursor()} instead of a page
+ * number, so that deep pages cost the same as the first one.
+ */
+public class GlobalTransactionQuery {
+
+  private String state;
+  private String serviceName;
+  private Date beginTimeFrom;
+  private Date beginTimeTo;
+  private int size;
+  private String cursor;
+  private boolean trackTotalHits;
+
+  public String getState() {
+    return state;
+  }
+
+  public String getServiceName() {
+    return serviceName;
+  }
+
+  /**
+   * Inclusive lower bound of beginTime, null for no bound.
+   */
+  public Date getBeginTimeFrom() {
+    return beginTimeFrom;
+  }
+
+  /**
+   * Exclusive upper bound of beginTime, null for no bound.
+   */
+  public Date getBeginTimeTo() {
+    return beginTimeTo;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public String getCursor() {
+    return cursor;
+  }
+
+  public boolean isTrackTotalHits() {
+    return trackTotalHits;
+  }
+
+  /**
+   * BeginTime of the last transaction of the previous page.
+   */
+  public long getCursorBeginTime() {
+    return Long.parseLong(cursor.substring(0, cursor.indexOf(':')));
+  }
+
+  /**
+   * GlobalTxId of the last transaction of the previous page.
+   */
+  public String getCursorGlobalTxId() {
+    return cursor.substring(cursor.indexOf(':') + 1);
+  }
+
+  public static String cursor(long beginTime, String globalTxId) {
+    return beginTime + ":" + globalTxId;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static final class Builder {
+
+    private String state;
+    private String serviceName;
+    private Date beginTimeFrom;
+    private Date beginTimeTo;
+    private int size = 50;
+    private String cursor;
+    private boolean trackTotalHits;
+
+    private Builder() {
+    }
+
+    public Builder state(String state) {
+      this.state = state;
+      return this;
+    }
+
+    public Builder serviceName(String serviceName) {
+      this.serviceName = serviceName;
+      return this;
+    }
+
+    public Builder beginTimeFrom(Date beginTimeFrom) {
+      this.beginTimeFrom = beginTimeFrom;
+      return this;
+    }
+
+    public Builder beginTimeTo(Date beginTimeTo) {
+      this.beginTimeTo = beginTimeTo;
+      return this;
+    }
+
+    public Builder size(int size) {
+      this.size = size;
+      return this;
+    }
+
+    public Builder cursor(String cursor) {
+      this.cursor = cursor;
+      return this;
+    }
+
+    public Builder trackTotalHits(boolean trackTotalHits) {
+      this.trackTotalHits = trackTotalHits;
+      return this;
+    }
+
+    public GlobalTransactionQuery build() {
+      if (size <= 0) {
+        throw new IllegalArgumentException("Size must be positive but was " + size);
+      }
+      if (cursor != null && cursor.indexOf(':') <= 0) {
+        throw new IllegalArgumentException("Malformed cursor " + cursor);
+      }
+      GlobalTransactionQuery query = new GlobalTransactionQuery();
+      query.state = blankToNull(this.state);
+      query.serviceName = blankToNull(this.serviceName);
+      query.beginTimeFrom = this.beginTimeFrom;
+      query.beginTimeTo = this.beginTimeTo;
+      query.size = this.size;
+      query.cursor = blankToNull(this.cursor);
+      query.trackTotalHits = this.trackTotalHits;
+      return query;
+    }
+
+    private static String blankToNull(String value) {
+      return value == null || value.trim().isEmpty() ? null : value;
+    }
+  }
+}
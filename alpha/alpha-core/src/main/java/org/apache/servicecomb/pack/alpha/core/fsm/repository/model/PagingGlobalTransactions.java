@@ -24,7 +24,11 @@ public class PagingGlobalTransactions {
   private int page;
   private int size;
   private long elapsed;
+  private String cursor;
 
+  /**
+   * Number of matching transactions, -1 when a {@link GlobalTransactionQuery} did not track it.
+   */
   public long getTotal() {
     return total;
   }
@@ -45,6 +49,13 @@ public class PagingGlobalTransactions {
     return globalTransactions;
   }
 
+  /**
+   * Cursor of the next page of a {@link GlobalTransactionQuery}, null on the last page.
+   */
+  public String getCursor() {
+    return cursor;
+  }
+
   private List<GlobalTransaction> globalTransactions;
 
   public static Builder builder() {
@@ -57,6 +68,7 @@ public class PagingGlobalTransactions {
     private int page;
     private int size;
     private long elapsed;
+    private String cursor;
     private List<GlobalTransaction> globalTransactions;
 
     private Builder() {
@@ -82,6 +94,11 @@ public class PagingGlobalTransactions {
       return this;
     }
 
+    public Builder cursor(String cursor) {
+      this.cursor = cursor;
+      return this;
+    }
+
     public Builder globalTransactions(List<GlobalTransaction> globalTransactions) {
       this.globalTransactions = globalTransactions;
       return this;
@@ -94,6 +111,7 @@ public class PagingGlobalTransactions {
       pagingGlobalTransactions.page = this.page;
       pagingGlobalTransactions.size = this.size;
       pagingGlobalTransactions.elapsed = this.elapsed;
+      pagingGlobalTransactions.cursor = this.cursor;
       return pagingGlobalTransactions;
     }
   }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.grpc;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCorrelatedAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCorrelatedTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventAckBatch;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Server side of the OnTxEventStream call shared by the saga specifications. Each event of a batch
+ * is handed to the event handler, and the acks of a batch are sent together once all its events
+ * are handled, correlated with their events by the correlation id set by omega.
+ *
+ * <p>The stream reads the next batch only once the acks of one of the in-flight batches are sent,
+ * so a client cannot pile up batches faster than the handler takes their events. The stream is
+ * completed after the acks of the batches received before.
+ */
+public class GrpcTxEventStreamObserver implements StreamObserver<GrpcTxEventBatch> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final GrpcAck ALLOW = GrpcAck.newBuilder().setAborted(false).build();
+  private static final GrpcAck REJECT = GrpcAck.newBuilder().setAborted(true).build();
+  private static final int MAX_INFLIGHT_BATCHES = 16;
+
+  private final ServerCallStreamObserver<GrpcTxEventAckBatch> responseObserver;
+  private final Function<GrpcTxEvent, CompletionStage<Boolean>> eventHandler;
+  // batches whose acks are not sent yet
+  private final Set<CompletableFuture<Void>> pendingBatches = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param eventHandler completes with false or exceptionally if the event is rejected
+   */
+  public GrpcTxEventStreamObserver(StreamObserver<GrpcTxEventAckBatch> responseObserver,
+      Function<GrpcTxEvent, CompletionStage<Boolean>> eventHandler) {
+    this.responseObserver = (ServerCallStreamObserver<GrpcTxEventAckBatch>) responseObserver;
+    this.eventHandler = eventHandler;
+    this.responseObserver.disableAutoInboundFlowControl();
+    this.responseObserver.request(MAX_INFLIGHT_BATCHES);
+  }
+
+  // acks of different batches complete on the handler threads and the observer is not thread safe
+  @Override
+  public void onNext(GrpcTxEventBatch batch) {
+    List<CompletableFuture<GrpcCorrelatedAck>> acks = new ArrayList<>(batch.getEventsCount());
+    for (GrpcCorrelatedTxEvent correlatedEvent : batch.getEventsList()) {
+      acks.add(handle(correlatedEvent.getEvent())
+          .handle((ok, ex) -> GrpcCorrelatedAck.newBuilder()
+              .setCorrelationId(correlatedEvent.getCorrelationId())
+              .setAck(ex == null && ok ? ALLOW : REJECT)
+              .build())
+          .toCompletableFuture());
+    }
+    CompletableFuture<Void> acked = CompletableFuture.allOf(acks.toArray(new CompletableFuture[0]))
+        .thenRun(() -> {
+          GrpcTxEventAckBatch.Builder ackBatch = GrpcTxEventAckBatch.newBuilder();
+          acks.forEach(ack -> ackBatch.addAcks(ack.join()));
+          synchronized (responseObserver) {
+            if (responseObserver.isCancelled()) {
+              LOG.warn("Dropped the acks of {} events, the stream was cancelled", acks.size());
+              return;
+            }
+            responseObserver.onNext(ackBatch.build());
+          }
+          responseObserver.request(1);
+        });
+    pendingBatches.add(acked);
+    acked.whenComplete((v, ex) -> pendingBatches.remove(acked));
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    LOG.error(throwable.getMessage());
+  }
+
+  @Override
+  public void onCompleted() {
+    CompletableFuture.allOf(pendingBatches.toArray(new CompletableFuture[0]))
+        .whenComplete((v, ex) -> {
+          synchronized (responseObserver) {
+            if (!responseObserver.isCancelled()) {
+              responseObserver.onCompleted();
+            }
+          }
+        });
+  }
+
+  private CompletionStage<Boolean> handle(GrpcTxEvent event) {
+    try {
+      return eventHandler.apply(event);
+    } catch (RuntimeException e) {
+      LOG.error("Failed to handle event {} of {}", event.getType(), event.getGlobalTxId(), e);
+      CompletableFuture<Boolean> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+  }
+}
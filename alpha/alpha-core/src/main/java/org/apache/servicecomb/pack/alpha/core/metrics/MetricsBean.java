@@ -18,6 +18,9 @@
 package org.apache.servicecomb.pack.alpha.core.metrics;
 
 import com.google.common.util.concurrent.AtomicDouble;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class MetricsBean {
@@ -30,9 +33,21 @@ public class MetricsBean {
   private AtomicLong actorAccepted = new AtomicLong();
   private AtomicLong actorRejected = new AtomicLong();
   private AtomicDouble actorAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicDouble routingAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong actorRecovered = new AtomicLong();
+  private AtomicLong actorRecoveredEvents = new AtomicLong();
+  private AtomicDouble actorRecoveryAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong actorSnapshotSaved = new AtomicLong();
+  private AtomicLong actorJournalFlushed = new AtomicLong();
+  private AtomicLong channelQueueDepth = new AtomicLong();
+  private AtomicDouble channelAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong channelConsumerLag = new AtomicLong();
   private AtomicLong sagaBeginCounter = new AtomicLong();
   private AtomicLong sagaEndCounter = new AtomicLong();
   private AtomicDouble sagaAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicDouble sagaDataAvgBytes = new AtomicDouble();//estimated heap bytes moving average
+  private AtomicLong sagaDataMaxBytes = new AtomicLong();
+  private AtomicLong sagaEventsDropped = new AtomicLong();
   private AtomicLong committed = new AtomicLong();
   private AtomicLong compensated = new AtomicLong();
   private AtomicLong suspended = new AtomicLong();
@@ -40,6 +55,16 @@ public class MetricsBean {
   private AtomicLong repositoryAccepted = new AtomicLong();
   private AtomicLong repositoryRejected = new AtomicLong();
   private AtomicDouble repositoryAvgTime = new AtomicDouble();//milliseconds moving average
+  private AtomicLong repositoryPending = new AtomicLong();
+  private AtomicLong repositoryInflight = new AtomicLong();
+  private AtomicLong repositoryRetried = new AtomicLong();
+  private AtomicLong repositoryChannelQueueDepth = new AtomicLong();
+  private AtomicLong repositoryChannelSpillBytes = new AtomicLong();
+  private AtomicDouble repositoryChannelAvgLag = new AtomicDouble();//milliseconds moving average
+  private Map<String, AtomicDouble> scannerStageAvgTime = new ConcurrentHashMap<>();//milliseconds moving average per stage
+  private AtomicLong archivedTransactions = new AtomicLong();
+  private AtomicLong archivedEvents = new AtomicLong();
+  private AtomicDouble archiveAvgTime = new AtomicDouble();//milliseconds moving average per batch
 
   public void doEventReceived() {
     eventReceived.incrementAndGet();
@@ -65,14 +90,26 @@ public class MetricsBean {
     actorReceived.incrementAndGet();
   }
 
+  public void doActorReceived(int size) {
+    actorReceived.getAndAdd(size);
+  }
+
   public void doActorAccepted() {
     actorAccepted.incrementAndGet();
   }
 
+  public void doActorAccepted(int size) {
+    actorAccepted.getAndAdd(size);
+  }
+
   public void doActorRejected() {
     actorRejected.incrementAndGet();
   }
 
+  public void doActorRejected(int size) {
+    actorRejected.getAndAdd(size);
+  }
+
   public void doActorAvgTime(long time) {
     if (actorAvgTime.get() == 0) {
       actorAvgTime.set(time);
@@ -81,6 +118,48 @@ public class MetricsBean {
     }
   }
 
+  public void doRoutingAvgTime(long time) {
+    if (routingAvgTime.get() == 0) {
+      routingAvgTime.set(time);
+    } else {
+      routingAvgTime.set((routingAvgTime.get() + time) / 2);
+    }
+  }
+
+  public void doActorRecovered(int events, long time) {
+    actorRecovered.incrementAndGet();
+    actorRecoveredEvents.getAndAdd(events);
+    if (actorRecoveryAvgTime.get() == 0) {
+      actorRecoveryAvgTime.set(time);
+    } else {
+      actorRecoveryAvgTime.set((actorRecoveryAvgTime.get() + time) / 2);
+    }
+  }
+
+  public void doActorSnapshotSaved() {
+    actorSnapshotSaved.incrementAndGet();
+  }
+
+  public void doActorJournalFlushed() {
+    actorJournalFlushed.incrementAndGet();
+  }
+
+  public void setChannelQueueDepth(long depth) {
+    channelQueueDepth.set(depth);
+  }
+
+  public void setChannelConsumerLag(long lag) {
+    channelConsumerLag.set(lag);
+  }
+
+  public void doChannelAvgTime(long time) {
+    if (channelAvgTime.get() == 0) {
+      channelAvgTime.set(time);
+    } else {
+      channelAvgTime.set((channelAvgTime.get() + time) / 2);
+    }
+  }
+
   public void doSagaBeginCounter() {
     sagaBeginCounter.incrementAndGet();
   }
@@ -97,6 +176,16 @@ public class MetricsBean {
     }
   }
 
+  public void doSagaData(long bytes, long droppedEvents) {
+    if (sagaDataAvgBytes.get() == 0) {
+      sagaDataAvgBytes.set(bytes);
+    } else {
+      sagaDataAvgBytes.set((sagaDataAvgBytes.get() + bytes) / 2);
+    }
+    sagaDataMaxBytes.accumulateAndGet(bytes, Math::max);
+    sagaEventsDropped.getAndAdd(droppedEvents);
+  }
+
   public void doCommitted() {
     committed.incrementAndGet();
   }
@@ -125,6 +214,38 @@ public class MetricsBean {
     repositoryRejected.incrementAndGet();
   }
 
+  public void doRepositoryRejected(int size) {
+    repositoryRejected.getAndAdd(size);
+  }
+
+  public void doRepositoryRetried(int size) {
+    repositoryRetried.getAndAdd(size);
+  }
+
+  public void setRepositoryPending(long pending) {
+    repositoryPending.set(pending);
+  }
+
+  public void setRepositoryInflight(long inflight) {
+    repositoryInflight.set(inflight);
+  }
+
+  public void setRepositoryChannelQueueDepth(long depth) {
+    repositoryChannelQueueDepth.set(depth);
+  }
+
+  public void setRepositoryChannelSpillBytes(long bytes) {
+    repositoryChannelSpillBytes.set(bytes);
+  }
+
+  public void doRepositoryChannelAvgLag(long time) {
+    if (repositoryChannelAvgLag.get() == 0) {
+      repositoryChannelAvgLag.set(time);
+    } else {
+      repositoryChannelAvgLag.set((repositoryChannelAvgLag.get() + time) / 2);
+    }
+  }
+
   public void doRepositoryAvgTime(long time) {
     if (repositoryAvgTime.get() == 0) {
       repositoryAvgTime.set(time);
@@ -133,6 +254,28 @@ public class MetricsBean {
     }
   }
 
+  public void doScannerStageAvgTime(String stage, long time) {
+    AtomicDouble stageAvgTime = scannerStageAvgTime.computeIfAbsent(stage, k -> new AtomicDouble());
+    if (stageAvgTime.get() == 0) {
+      stageAvgTime.set(time);
+    } else {
+      stageAvgTime.set((stageAvgTime.get() + time) / 2);
+    }
+  }
+
+  public void doArchived(int transactions, int events) {
+    archivedTransactions.getAndAdd(transactions);
+    archivedEvents.getAndAdd(events);
+  }
+
+  public void doArchiveAvgTime(long time) {
+    if (archiveAvgTime.get() == 0) {
+      archiveAvgTime.set(time);
+    } else {
+      archiveAvgTime.set((archiveAvgTime.get() + time) / 2);
+    }
+  }
+
   public long getEventReceived() {
     return eventReceived.get();
   }
@@ -165,6 +308,42 @@ public class MetricsBean {
     return (double) Math.round(actorAvgTime.get() * 100) / 100;
   }
 
+  public double getRoutingAvgTime() {
+    return (double) Math.round(routingAvgTime.get() * 100) / 100;
+  }
+
+  public long getActorRecovered() {
+    return actorRecovered.get();
+  }
+
+  public long getActorRecoveredEvents() {
+    return actorRecoveredEvents.get();
+  }
+
+  public double getActorRecoveryAvgTime() {
+    return (double) Math.round(actorRecoveryAvgTime.get() * 100) / 100;
+  }
+
+  public long getActorSnapshotSaved() {
+    return actorSnapshotSaved.get();
+  }
+
+  public long getActorJournalFlushed() {
+    return actorJournalFlushed.get();
+  }
+
+  public long getChannelQueueDepth() {
+    return channelQueueDepth.get();
+  }
+
+  public long getChannelConsumerLag() {
+    return channelConsumerLag.get();
+  }
+
+  public double getChannelAvgTime() {
+    return (double) Math.round(channelAvgTime.get() * 100) / 100;
+  }
+
   public long getSagaBeginCounter() {
     return sagaBeginCounter.get();
   }
@@ -177,6 +356,18 @@ public class MetricsBean {
     return (double) Math.round(sagaAvgTime.get() * 100) / 100;
   }
 
+  public double getSagaDataAvgBytes() {
+    return (double) Math.round(sagaDataAvgBytes.get() * 100) / 100;
+  }
+
+  public long getSagaDataMaxBytes() {
+    return sagaDataMaxBytes.get();
+  }
+
+  public long getSagaEventsDropped() {
+    return sagaEventsDropped.get();
+  }
+
   public long getRepositoryReceived() {
     return repositoryReceived.get();
   }
@@ -193,6 +384,49 @@ public class MetricsBean {
     return (double) Math.round(repositoryAvgTime.get() * 100) / 100;
   }
 
+  public long getRepositoryPending() {
+    return repositoryPending.get();
+  }
+
+  public long getRepositoryInflight() {
+    return repositoryInflight.get();
+  }
+
+  public long getRepositoryRetried() {
+    return repositoryRetried.get();
+  }
+
+  public long getRepositoryChannelQueueDepth() {
+    return repositoryChannelQueueDepth.get();
+  }
+
+  public long getRepositoryChannelSpillBytes() {
+    return repositoryChannelSpillBytes.get();
+  }
+
+  public double getRepositoryChannelAvgLag() {
+    return (double) Math.round(repositoryChannelAvgLag.get() * 100) / 100;
+  }
+
+  public Map<String, Double> getScannerStageAvgTime() {
+    Map<String, Double> stageAvgTimes = new TreeMap<>();
+    scannerStageAvgTime.forEach((stage, avgTime) ->
+        stageAvgTimes.put(stage, (double) Math.round(avgTime.get() * 100) / 100));
+    return stageAvgTimes;
+  }
+
+  public long getArchivedTransactions() {
+    return archivedTransactions.get();
+  }
+
+  public long getArchivedEvents() {
+    return archivedEvents.get();
+  }
+
+  public double getArchiveAvgTime() {
+    return (double) Math.round(archiveAvgTime.get() * 100) / 100;
+  }
+
   public long getCommitted() {
     return committed.get();
   }
@@ -27,11 +27,15 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
 
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
 import org.apache.servicecomb.pack.common.EventType;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -156,6 +160,33 @@ public class CompositeOmegaCallbackTest {
     assertThat(callbacks.get(serviceName2).values(), Matchers.containsInAnyOrder(callback2One, callback2Two));
   }
 
+  @Test
+  public void removeCallbackWhenAsyncCompensationCannotBeDelivered() throws Exception {
+    CompletableFuture<Void> ack = new CompletableFuture<>();
+    when(callback1Two.compensateAsync(any(TxEvent.class))).thenReturn(ack);
+    TxEvent event = eventOf(serviceName1, instanceId1Two, TxStartedEvent);
+
+    CompletableFuture<Void> result = compositeOmegaCallback.compensateAsync(event);
+    assertThat(callbacks.get(serviceName1).values(), containsInAnyOrder(callback1One, callback1Two));
+
+    ack.completeExceptionally(new CompensateConnectException("Omega connect exception"));
+
+    assertThat(result.isCompletedExceptionally(), is(true));
+    assertThat(callbacks.get(serviceName1).values(), containsInAnyOrder(callback1One));
+  }
+
+  @Test
+  public void keepCallbackWhenAsyncCompensationTimesOut() throws Exception {
+    CompletableFuture<Void> ack = new CompletableFuture<>();
+    when(callback1Two.compensateAsync(any(TxEvent.class))).thenReturn(ack);
+    TxEvent event = eventOf(serviceName1, instanceId1Two, TxStartedEvent);
+
+    compositeOmegaCallback.compensateAsync(event).completeExceptionally(new TimeoutException());
+
+    assertThat(ack.isCompletedExceptionally(), is(true));
+    assertThat(callbacks.get(serviceName1).values(), containsInAnyOrder(callback1One, callback1Two));
+  }
+
   private TxEvent eventOf(String serviceName, String instanceId, EventType eventType) {
     return new TxEvent(
         serviceName,
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.pack.alpha.core;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.apache.servicecomb.pack.common.EventType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class EventCoordinatorTest {
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final TxEventRepository eventRepository = mock(TxEventRepository.class);
+  private final CommandRepository commandRepository = mock(CommandRepository.class);
+  private final TxTimeoutRepository timeoutRepository = mock(TxTimeoutRepository.class);
+  private final OmegaCallback omegaCallback = mock(OmegaCallback.class);
+  private final NodeStatus nodeStatus = new NodeStatus(NodeStatus.TypeEnum.MASTER);
+  private final AtomicLong eventId = new AtomicLong();
+
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId1 = UUID.randomUUID().toString();
+  private final String localTxId2 = UUID.randomUUID().toString();
+  private final String localTxId3 = UUID.randomUUID().toString();
+
+  private final EventCoordinator coordinator = new EventCoordinator(scheduler, eventRepository,
+      commandRepository, timeoutRepository, omegaCallback, 10, 2, 0, nodeStatus);
+
+  @Before
+  public void setUp() {
+    when(eventRepository.findOpenTransactionEventsByIdGreaterThan(anyLong(), anyInt()))
+        .thenReturn(Collections.emptyList());
+    when(omegaCallback.compensateAsync(any(TxEvent.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void compensateEndedSubTransactionsInReverseOrderOnAbort() {
+    startAsMaster();
+    TxEvent started1 = eventOf(TxStartedEvent, localTxId1, 0);
+    TxEvent started2 = eventOf(TxStartedEvent, localTxId2, 0);
+    coordinator.onEvent(eventOf(SagaStartedEvent, globalTxId, 0));
+    coordinator.onEvent(started1);
+    coordinator.onEvent(eventOf(TxEndedEvent, localTxId1, 0));
+    coordinator.onEvent(started2);
+    coordinator.onEvent(eventOf(TxEndedEvent, localTxId2, 0));
+    coordinator.onEvent(eventOf(TxStartedEvent, localTxId3, 0));
+    coordinator.onEvent(eventOf(TxAbortedEvent, localTxId3, 0));
+
+    verify(omegaCallback, timeout(1000)).compensateAsync(started2);
+    verify(commandRepository).saveCompensationCommands(globalTxId);
+    verify(commandRepository).markCommandAsPending(globalTxId, localTxId2);
+    verify(omegaCallback, never()).compensateAsync(started1);
+
+    coordinator.onEvent(eventOf(TxCompensatedEvent, localTxId2, 0));
+    verify(omegaCallback, timeout(1000)).compensateAsync(started1);
+
+    coordinator.onEvent(eventOf(TxCompensatedEvent, localTxId1, 0));
+    verify(eventRepository, timeout(1000)).save(argThat(event -> SagaEndedEvent.name().equals(event.type())));
+
+    InOrder inOrder = inOrder(commandRepository);
+    inOrder.verify(commandRepository).markCommandAsDone(globalTxId, localTxId2);
+    inOrder.verify(commandRepository).markCommandAsDone(globalTxId, localTxId1);
+  }
+
+  @Test
+  public void endGlobalTransactionWithoutCompletedSubTransactionsOnAbort() {
+    startAsMaster();
+    coordinator.onEvent(eventOf(SagaStartedEvent, globalTxId, 0));
+    coordinator.onEvent(eventOf(TxStartedEvent, localTxId1, 0));
+    coordinator.onEvent(eventOf(TxAbortedEvent, localTxId1, 0));
+
+    verify(eventRepository, timeout(1000)).save(argThat(event -> SagaEndedEvent.name().equals(event.type())));
+    verify(omegaCallback, never()).compensateAsync(any(TxEvent.class));
+  }
+
+  @Test
+  public void doNotEndGlobalTransactionWhenAbortedSubTransactionIsRetried() throws Exception {
+    startAsMaster();
+    coordinator.onEvent(eventOf(SagaStartedEvent, globalTxId, 0));
+    coordinator.onEvent(eventOf(TxStartedEvent, localTxId1, 1));
+    coordinator.onEvent(eventOf(TxAbortedEvent, localTxId1, 0));
+    coordinator.onEvent(eventOf(TxStartedEvent, localTxId1, 0));
+    coordinator.onEvent(eventOf(TxEndedEvent, localTxId1, 0));
+
+    Thread.sleep(200);
+    verify(eventRepository, never()).save(any(TxEvent.class));
+    verify(omegaCallback, never()).compensateAsync(any(TxEvent.class));
+  }
+
+  @Test
+  public void abortTimeoutSubTransaction() {
+    startAsMaster();
+    TxEvent started = new TxEvent(eventId.incrementAndGet(), "service", "instance", new Date(),
+        globalTxId, localTxId1, globalTxId, TxStartedEvent.name(), "compensate", new Date(), "", 0,
+        new byte[0]);
+    coordinator.onEvent(eventOf(SagaStartedEvent, globalTxId, 0));
+    coordinator.onEvent(started);
+
+    verify(timeoutRepository, timeout(1000)).save(any(TxTimeout.class));
+    verify(eventRepository, timeout(1000)).save(argThat(event -> TxAbortedEvent.name().equals(event.type())));
+    verify(omegaCallback).compensate(started);
+    verify(eventRepository, timeout(1000)).save(argThat(event -> SagaEndedEvent.name().equals(event.type())));
+  }
+
+  @Test
+  public void catchUpOpenTransactionsWhenBecomingMaster() {
+    nodeStatus.setTypeEnum(NodeStatus.TypeEnum.SLAVE);
+    TxEvent sagaStarted = eventOf(SagaStartedEvent, globalTxId, 0);
+    TxEvent started1 = eventOf(TxStartedEvent, localTxId1, 0);
+    TxEvent ended1 = eventOf(TxEndedEvent, localTxId1, 0);
+    TxEvent started2 = eventOf(TxStartedEvent, localTxId2, 0);
+    TxEvent aborted2 = eventOf(TxAbortedEvent, localTxId2, 0);
+    when(eventRepository.findOpenTransactionEventsByIdGreaterThan(0, 2))
+        .thenReturn(Arrays.asList(sagaStarted, started1));
+    when(eventRepository.findOpenTransactionEventsByIdGreaterThan(started1.id(), 2))
+        .thenReturn(Arrays.asList(ended1, started2));
+    when(eventRepository.findOpenTransactionEventsByIdGreaterThan(started2.id(), 2))
+        .thenReturn(Collections.singletonList(aborted2));
+    coordinator.run();
+
+    coordinator.onEvent(eventOf(TxStartedEvent, localTxId3, 0));
+    verify(eventRepository, never()).findOpenTransactionEventsByIdGreaterThan(anyLong(), anyInt());
+
+    nodeStatus.setTypeEnum(NodeStatus.TypeEnum.MASTER);
+    verify(omegaCallback, timeout(1000)).compensateAsync(started1);
+    verify(commandRepository).saveCompensationCommands(globalTxId);
+  }
+
+  @Test
+  public void doNotResendPendingCompensationWhenCatchingUp() throws Exception {
+    EventCoordinator coordinator = coordinatorCatchingUpEvery(50);
+    TxEvent started1 = eventOf(TxStartedEvent, localTxId1, 0);
+    List<TxEvent> events = Arrays.asList(eventOf(SagaStartedEvent, globalTxId, 0), started1,
+        eventOf(TxEndedEvent, localTxId1, 0), eventOf(TxStartedEvent, localTxId2, 0),
+        eventOf(TxAbortedEvent, localTxId2, 0));
+    Command pending = mock(Command.class);
+    when(pending.localTxId()).thenReturn(localTxId1);
+    when(pending.status()).thenReturn(TaskStatus.PENDING.name());
+    when(commandRepository.findCommands(globalTxId)).thenReturn(Collections.singletonList(pending));
+    catchUpWith(events);
+    coordinator.run();
+
+    // taking over sends the pending compensation again
+    verify(omegaCallback, timeout(1000)).compensateAsync(started1);
+    verify(eventRepository, timeout(1000).atLeast(4))
+        .findOpenTransactionEventsByIdGreaterThan(0, 2);
+    verify(omegaCallback).compensateAsync(started1);
+    verify(commandRepository, never()).saveCompensationCommands(globalTxId);
+  }
+
+  @Test
+  public void resendCompensationWhichFailed() {
+    EventCoordinator coordinator = coordinatorCatchingUpEvery(50);
+    TxEvent started1 = eventOf(TxStartedEvent, localTxId1, 0);
+    CompletableFuture<Void> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new AlphaException("omega is gone"));
+    when(omegaCallback.compensateAsync(started1))
+        .thenReturn(failed)
+        .thenReturn(CompletableFuture.completedFuture(null));
+    catchUpWith(Arrays.asList(eventOf(SagaStartedEvent, globalTxId, 0), started1,
+        eventOf(TxEndedEvent, localTxId1, 0), eventOf(TxStartedEvent, localTxId2, 0),
+        eventOf(TxAbortedEvent, localTxId2, 0)));
+    coordinator.run();
+
+    verify(commandRepository, timeout(1000)).markCommandAsNew(globalTxId, localTxId1);
+    verify(omegaCallback, timeout(1000).times(2)).compensateAsync(started1);
+  }
+
+  private EventCoordinator coordinatorCatchingUpEvery(int catchUpInterval) {
+    return new EventCoordinator(scheduler, eventRepository, commandRepository, timeoutRepository,
+        omegaCallback, 10, 2, catchUpInterval, nodeStatus);
+  }
+
+  private void catchUpWith(List<TxEvent> events) {
+    when(eventRepository.findOpenTransactionEventsByIdGreaterThan(anyLong(), anyInt()))
+        .thenAnswer(invocation -> events.stream()
+            .filter(event -> event.id() > invocation.<Long>getArgument(0))
+            .limit(invocation.<Integer>getArgument(1))
+            .collect(Collectors.toList()));
+  }
+
+  private void startAsMaster() {
+    coordinator.run();
+    verify(eventRepository, timeout(1000)).findOpenTransactionEventsByIdGreaterThan(0, 2);
+  }
+
+  private TxEvent eventOf(EventType type, String localTxId, int retries) {
+    return new TxEvent(eventId.incrementAndGet(), "service", "instance", new Date(), globalTxId, localTxId,
+        globalTxId.equals(localTxId) ? null : globalTxId, type.name(), "compensate", 0, "", retries,
+        new byte[0]);
+  }
+}
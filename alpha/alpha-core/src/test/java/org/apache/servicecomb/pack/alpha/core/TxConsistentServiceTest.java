@@ -54,7 +54,7 @@ public class TxConsistentServiceTest {
     }
 
     @Override
-    public List<TxEvent> findTimeoutEvents() {
+    public List<TxEvent> findTimeoutEvents(int pageSize) {
       return emptyList();
     }
 
@@ -73,13 +73,18 @@ public class TxConsistentServiceTest {
     }
 
     @Override
-    public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
+    public List<TxEvent> findUncompensatedEventsByIdGreaterThan(long id, String type, int pageSize) {
       return emptyList();
     }
 
     @Override
-    public Optional<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
-      return Optional.empty();
+    public List<TxEvent> findCompensatedEventsByIdGreaterThan(long id, int pageSize) {
+      return emptyList();
+    }
+
+    @Override
+    public List<TxEvent> findOpenTransactionEventsByIdGreaterThan(long id, int pageSize) {
+      return emptyList();
     }
 
     @Override
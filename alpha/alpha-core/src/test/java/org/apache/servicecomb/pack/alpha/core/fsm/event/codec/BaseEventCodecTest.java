@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.fsm.event.codec;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedCheckEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.StopEvent;
+import org.junit.Test;
+
+public class BaseEventCodecTest {
+
+  private final BaseEventCodec codec = new BaseEventCodec();
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void encodesSagaStartedEvent() {
+    SagaStartedEvent event = SagaStartedEvent.builder()
+        .serviceName("service")
+        .instanceId("instance")
+        .globalTxId(globalTxId)
+        .createTime(new Date(1000L))
+        .timeout(30)
+        .build();
+
+    SagaStartedEvent decoded = (SagaStartedEvent) codec.decode(codec.encode(event));
+
+    assertCommonFields(decoded, event);
+    assertThat(decoded.getTimeout(), is(30));
+  }
+
+  @Test
+  public void encodesTxStartedEvent() {
+    TxStartedEvent event = TxStartedEvent.builder()
+        .serviceName("service")
+        .instanceId("instance")
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .compensationMethod("compensate")
+        .retryMethod("retry")
+        .forwardRetries(-1)
+        .forwardTimeout(10)
+        .reverseRetries(3)
+        .reverseTimeout(20)
+        .retryDelayInMilliseconds(500)
+        .payloads(new byte[] {1, 2, 3})
+        .build();
+
+    TxStartedEvent decoded = (TxStartedEvent) codec.decode(codec.encode(event));
+
+    assertCommonFields(decoded, event);
+    assertThat(decoded.getCompensationMethod(), is("compensate"));
+    assertThat(decoded.getRetryMethod(), is("retry"));
+    assertThat(decoded.getForwardRetries(), is(-1));
+    assertThat(decoded.getForwardTimeout(), is(10));
+    assertThat(decoded.getReverseRetries(), is(3));
+    assertThat(decoded.getReverseTimeout(), is(20));
+    assertThat(decoded.getRetryDelayInMilliseconds(), is(500));
+    assertArrayEquals(decoded.getPayloads(), new byte[] {1, 2, 3});
+  }
+
+  @Test
+  public void encodesPayloadsAndNullFields() {
+    SagaAbortedEvent event = SagaAbortedEvent.builder()
+        .globalTxId(globalTxId)
+        .payloads(new byte[] {4, 5})
+        .build();
+    event.setServiceName(null);
+    event.setCreateTime(null);
+
+    SagaAbortedEvent decoded = (SagaAbortedEvent) codec.decode(codec.encode(event));
+
+    assertCommonFields(decoded, event);
+    assertThat(decoded.getServiceName(), is(nullValue()));
+    assertThat(decoded.getCreateTime(), is(nullValue()));
+    assertArrayEquals(decoded.getPayloads(), new byte[] {4, 5});
+  }
+
+  @Test
+  public void encodesCompensateAckEvents() {
+    TxCompensateAckSucceedEvent succeed = TxCompensateAckSucceedEvent.builder()
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .build();
+    TxCompensateAckFailedEvent failed = TxCompensateAckFailedEvent.builder()
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .payloads(new byte[] {6})
+        .build();
+
+    assertCommonFields(codec.decode(codec.encode(succeed)), succeed);
+    TxCompensateAckFailedEvent decoded = (TxCompensateAckFailedEvent) codec
+        .decode(codec.encode(failed));
+    assertCommonFields(decoded, failed);
+    assertArrayEquals(decoded.getPayloads(), new byte[] {6});
+  }
+
+  @Test
+  public void encodesInternalEvents() {
+    CompensateAckTimeoutEvent timeout = CompensateAckTimeoutEvent.builder()
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .payloads(new byte[] {7})
+        .build();
+    ComponsitedCheckEvent check = ComponsitedCheckEvent.builder()
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .preState(TxState.FAILED)
+        .build();
+    StopEvent stop = StopEvent.builder().build();
+
+    CompensateAckTimeoutEvent decodedTimeout = (CompensateAckTimeoutEvent) codec
+        .decode(codec.encode(timeout));
+    assertCommonFields(decodedTimeout, timeout);
+    assertArrayEquals(decodedTimeout.getPayloads(), new byte[] {7});
+    ComponsitedCheckEvent decodedCheck = (ComponsitedCheckEvent) codec.decode(codec.encode(check));
+    assertCommonFields(decodedCheck, check);
+    assertThat(decodedCheck.getPreComponsitedState(), is(TxState.FAILED));
+    assertThat(codec.decode(codec.encode(stop)), instanceOf(StopEvent.class));
+  }
+
+  @Test
+  public void isSmallerThanJson() throws Exception {
+    TxStartedEvent event = TxStartedEvent.builder()
+        .serviceName("service")
+        .instanceId("instance")
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .compensationMethod("compensate")
+        .payloads(new byte[64])
+        .build();
+
+    assertTrue(codec.encode(event).length < new ObjectMapper().writeValueAsBytes(event).length / 2);
+  }
+
+  @Test
+  public void decodesJson() throws Exception {
+    TxEndedEvent event = TxEndedEvent.builder()
+        .serviceName("service")
+        .instanceId("instance")
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .build();
+
+    BaseEvent decoded = codec.decode(new ObjectMapper().writeValueAsBytes(event));
+
+    assertThat(decoded, instanceOf(TxEndedEvent.class));
+    assertCommonFields(decoded, event);
+  }
+
+  @Test
+  public void decodesJavaSerialization() throws Exception {
+    SagaEndedEvent event = SagaEndedEvent.builder()
+        .serviceName("service")
+        .instanceId("instance")
+        .globalTxId(globalTxId)
+        .build();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(event);
+    }
+
+    BaseEvent decoded = codec.decode(bytes.toByteArray());
+
+    assertThat(decoded, instanceOf(SagaEndedEvent.class));
+    assertCommonFields(decoded, event);
+  }
+
+  @Test
+  public void decodesJavaSerializationOfPayloadsAndStates() throws Exception {
+    ComponsitedCheckEvent event = ComponsitedCheckEvent.builder()
+        .globalTxId(globalTxId)
+        .localTxId(localTxId)
+        .preState(TxState.COMMITTED)
+        .build();
+    TxStartedEvent txStartedEvent = TxStartedEvent.builder()
+        .globalTxId(globalTxId)
+        .localTxId(localTxId)
+        .payloads(new byte[] {1, 2})
+        .build();
+
+    ComponsitedCheckEvent decoded = (ComponsitedCheckEvent) codec.decode(serialize(event));
+    TxStartedEvent decodedTxStarted = (TxStartedEvent) codec.decode(serialize(txStartedEvent));
+
+    assertThat(decoded.getPreComponsitedState(), is(TxState.COMMITTED));
+    assertArrayEquals(new byte[] {1, 2}, decodedTxStarted.getPayloads());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsJavaSerializationOfOtherClasses() throws Exception {
+    Map<String, Object> gadget = new HashMap<>();
+    gadget.put("globalTxId", globalTxId);
+    codec.decode(serialize(gadget));
+  }
+
+  @Test
+  public void keepsCreateTimeFormats() throws Exception {
+    TxEndedEvent event = TxEndedEvent.builder()
+        .globalTxId(globalTxId)
+        .build();
+    event.setCreateTimeMillis(1000L);
+
+    Map<String, Object> json = event.toMap();
+    assertThat(json.get("createTime"), is(1000));
+    assertFalse(json.containsKey("createTimeMillis"));
+    // events written with Java serialization by earlier releases hold the create time as a Date
+    assertThat(ObjectStreamClass.lookup(BaseEvent.class).getField("createTime").getType(),
+        is((Object) Date.class));
+  }
+
+  private static byte[] serialize(Object object) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(object);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownVersion() {
+    byte[] bytes = codec.encode(SagaEndedEvent.builder().globalTxId(globalTxId).build());
+    bytes[1] = BaseEventCodec.VERSION + 1;
+    codec.decode(bytes);
+  }
+
+  private void assertCommonFields(BaseEvent decoded, BaseEvent event) {
+    assertThat(decoded.getType(), is(event.getType()));
+    assertThat(decoded.getServiceName(), is(event.getServiceName()));
+    assertThat(decoded.getInstanceId(), is(event.getInstanceId()));
+    assertThat(decoded.getGlobalTxId(), is(event.getGlobalTxId()));
+    assertThat(decoded.getParentTxId(), is(event.getParentTxId()));
+    assertThat(decoded.getLocalTxId(), is(event.getLocalTxId()));
+    assertThat(decoded.getCreateTime(), is(event.getCreateTime()));
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.core.grpc;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.CompletableFuture;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCorrelatedTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventAckBatch;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+public class GrpcTxEventStreamObserverTest {
+
+  @SuppressWarnings("unchecked")
+  private final ServerCallStreamObserver<GrpcTxEventAckBatch> responseObserver =
+      mock(ServerCallStreamObserver.class);
+
+  @Test
+  public void acksEachEventOfTheBatch() {
+    StreamObserver<GrpcTxEventBatch> requestObserver = new GrpcTxEventStreamObserver(
+        responseObserver,
+        event -> CompletableFuture.completedFuture(!"reject".equals(event.getLocalTxId())));
+    requestObserver.onNext(GrpcTxEventBatch.newBuilder()
+        .addEvents(correlated(1L, "accept"))
+        .addEvents(correlated(2L, "reject"))
+        .build());
+    requestObserver.onCompleted();
+
+    ArgumentCaptor<GrpcTxEventAckBatch> acks = ArgumentCaptor.forClass(GrpcTxEventAckBatch.class);
+    InOrder inOrder = inOrder(responseObserver);
+    inOrder.verify(responseObserver).onNext(acks.capture());
+    inOrder.verify(responseObserver).onCompleted();
+    assertThat(acks.getValue().getAcks(0).getCorrelationId(), is(1L));
+    assertThat(acks.getValue().getAcks(0).getAck().getAborted(), is(false));
+    assertThat(acks.getValue().getAcks(1).getCorrelationId(), is(2L));
+    assertThat(acks.getValue().getAcks(1).getAck().getAborted(), is(true));
+  }
+
+  @Test
+  public void rejectsEventsWhoseHandlerThrows() {
+    StreamObserver<GrpcTxEventBatch> requestObserver = new GrpcTxEventStreamObserver(
+        responseObserver, event -> {
+          throw new IllegalStateException("no omega callback");
+        });
+    requestObserver.onNext(GrpcTxEventBatch.newBuilder().addEvents(correlated(1L, "local")).build());
+
+    ArgumentCaptor<GrpcTxEventAckBatch> acks = ArgumentCaptor.forClass(GrpcTxEventAckBatch.class);
+    verify(responseObserver).onNext(acks.capture());
+    assertThat(acks.getValue().getAcks(0).getAck().getAborted(), is(true));
+    verify(responseObserver).request(1);
+  }
+
+  private GrpcCorrelatedTxEvent correlated(long correlationId, String localTxId) {
+    return GrpcCorrelatedTxEvent.newBuilder()
+        .setCorrelationId(correlationId)
+        .setEvent(GrpcTxEvent.newBuilder()
+            .setGlobalTxId("globalTxId")
+            .setLocalTxId(localTxId))
+        .build();
+  }
+}
@@ -71,4 +71,26 @@ public class MetricsBeanTest {
     assertEquals(metric.getRepositoryRejected(),1l);
   }
 
+  @Test
+  public void testScannerStageAvgTime(){
+    MetricsBean metric = new MetricsBean();
+    metric.doScannerStageAvgTime("compensate", 4);
+    metric.doScannerStageAvgTime("compensate", 2);
+    metric.doScannerStageAvgTime("findTimeoutEvents", 1);
+    assertEquals(metric.getScannerStageAvgTime().get("compensate"), 3.0, 0);
+    assertEquals(metric.getScannerStageAvgTime().get("findTimeoutEvents"), 1.0, 0);
+  }
+
+  @Test
+  public void testArchived(){
+    MetricsBean metric = new MetricsBean();
+    metric.doArchived(2, 10);
+    metric.doArchived(1, 4);
+    metric.doArchiveAvgTime(4);
+    metric.doArchiveAvgTime(2);
+    assertEquals(metric.getArchivedTransactions(), 3);
+    assertEquals(metric.getArchivedEvents(), 14);
+    assertEquals(metric.getArchiveAvgTime(), 3.0, 0);
+  }
+
 }
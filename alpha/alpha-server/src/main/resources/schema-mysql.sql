@@ -67,6 +67,63 @@ CREATE TABLE IF NOT EXISTS TxTimeout (
   INDEX saga_timeouts_index (surrogateId, expiryTime, globalTxId, localTxId, status)
 ) DEFAULT CHARSET=utf8;
 
+CREATE TABLE IF NOT EXISTS GlobalTxState (
+  surrogateId bigint NOT NULL AUTO_INCREMENT,
+  globalTxId varchar(36) NOT NULL UNIQUE,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  startedEventId bigint NOT NULL,
+  subTxEnded boolean NOT NULL DEFAULT FALSE,
+  aborted boolean NOT NULL DEFAULT FALSE,
+  compensated boolean NOT NULL DEFAULT FALSE,
+  ended boolean NOT NULL DEFAULT FALSE,
+  creationTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  lastModified datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (surrogateId),
+  INDEX saga_global_tx_state_index (ended, aborted, compensated, startedEventId),
+  INDEX saga_global_tx_state_ended_index (ended, lastModified)
+) DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS LocalTxState (
+  surrogateId bigint NOT NULL AUTO_INCREMENT,
+  globalTxId varchar(36) NOT NULL,
+  localTxId varchar(36) NOT NULL,
+  startedEventId bigint NOT NULL,
+  lastEventId bigint NOT NULL,
+  expiryTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  retries int(11) NOT NULL DEFAULT '0',
+  settled boolean NOT NULL DEFAULT FALSE,
+  ended boolean NOT NULL DEFAULT FALSE,
+  aborted boolean NOT NULL DEFAULT FALSE,
+  compensated boolean NOT NULL DEFAULT FALSE,
+  lastModified datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (surrogateId),
+  UNIQUE INDEX saga_local_tx_state_tx_index (globalTxId, localTxId),
+  INDEX saga_local_tx_state_timeout_index (settled, expiryTime),
+  INDEX saga_local_tx_state_aborted_index (aborted, globalTxId)
+) DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS TxStateMark (
+  name varchar(36) NOT NULL,
+  lastEventId bigint NOT NULL,
+  lastModified datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (name)
+) DEFAULT CHARSET=utf8;
+
+CREATE TABLE IF NOT EXISTS GlobalTxArchive (
+  surrogateId bigint NOT NULL AUTO_INCREMENT,
+  globalTxId varchar(36) NOT NULL UNIQUE,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  state varchar(12) NOT NULL,
+  eventCount bigint NOT NULL DEFAULT '0',
+  creationTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  endTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  archivedTime datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (surrogateId),
+  INDEX saga_global_tx_archive_index (serviceName, endTime)
+) DEFAULT CHARSET=utf8;
+
 CREATE TABLE IF NOT EXISTS tcc_global_tx_event (
   surrogateId bigint NOT NULL AUTO_INCREMENT,
   globalTxId varchar(36) NOT NULL,
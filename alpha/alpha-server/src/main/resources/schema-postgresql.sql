@@ -69,6 +69,62 @@ CREATE TABLE IF NOT EXISTS TxTimeout (
 
 CREATE INDEX IF NOT EXISTS saga_timeouts_index ON TxTimeout (surrogateId, expiryTime, globalTxId, localTxId, status);
 
+CREATE TABLE IF NOT EXISTS GlobalTxState (
+  surrogateId BIGSERIAL PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL UNIQUE,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  startedEventId bigint NOT NULL,
+  subTxEnded boolean NOT NULL DEFAULT FALSE,
+  aborted boolean NOT NULL DEFAULT FALSE,
+  compensated boolean NOT NULL DEFAULT FALSE,
+  ended boolean NOT NULL DEFAULT FALSE,
+  creationTime timestamp(6) NOT NULL DEFAULT CURRENT_DATE,
+  lastModified timestamp(6) NOT NULL DEFAULT CURRENT_DATE
+);
+
+CREATE INDEX IF NOT EXISTS saga_global_tx_state_index ON GlobalTxState (ended, aborted, compensated, startedEventId);
+CREATE INDEX IF NOT EXISTS saga_global_tx_state_ended_index ON GlobalTxState (ended, lastModified);
+
+CREATE TABLE IF NOT EXISTS LocalTxState (
+  surrogateId BIGSERIAL PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL,
+  localTxId varchar(36) NOT NULL,
+  startedEventId bigint NOT NULL,
+  lastEventId bigint NOT NULL,
+  expiryTime timestamp(6) NOT NULL,
+  retries int NOT NULL DEFAULT 0,
+  settled boolean NOT NULL DEFAULT FALSE,
+  ended boolean NOT NULL DEFAULT FALSE,
+  aborted boolean NOT NULL DEFAULT FALSE,
+  compensated boolean NOT NULL DEFAULT FALSE,
+  lastModified timestamp(6) NOT NULL DEFAULT CURRENT_DATE,
+  UNIQUE (globalTxId, localTxId)
+);
+
+CREATE INDEX IF NOT EXISTS saga_local_tx_state_timeout_index ON LocalTxState (settled, expiryTime);
+CREATE INDEX IF NOT EXISTS saga_local_tx_state_aborted_index ON LocalTxState (aborted, globalTxId);
+
+CREATE TABLE IF NOT EXISTS TxStateMark (
+  name varchar(36) NOT NULL PRIMARY KEY,
+  lastEventId bigint NOT NULL,
+  lastModified timestamp(6) NOT NULL DEFAULT CURRENT_DATE
+);
+
+CREATE TABLE IF NOT EXISTS GlobalTxArchive (
+  surrogateId BIGSERIAL PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL UNIQUE,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  state varchar(12) NOT NULL,
+  eventCount bigint NOT NULL DEFAULT 0,
+  creationTime timestamp(6) NOT NULL DEFAULT CURRENT_DATE,
+  endTime timestamp(6) NOT NULL DEFAULT CURRENT_DATE,
+  archivedTime timestamp(6) NOT NULL DEFAULT CURRENT_DATE
+);
+
+CREATE INDEX IF NOT EXISTS saga_global_tx_archive_index ON GlobalTxArchive (serviceName, endTime);
+
 CREATE TABLE IF NOT EXISTS tcc_global_tx_event (
   surrogateId BIGSERIAL PRIMARY KEY,
   globalTxId varchar(36) NOT NULL,
@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.UUID;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionService;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaData;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka.SagaDataExtension;
 import org.apache.servicecomb.pack.alpha.server.AlphaApplication;
@@ -80,6 +81,9 @@ public class AlphaIntegrationWithSpecSagaAkkaTest {
   @Autowired
   private Map<String, Map<String, OmegaCallback>> omegaCallbacks;
 
+  @Autowired
+  SlowTransactionService slowTransactionService;
+
   @MockBean
   ElasticsearchRestTemplate elasticsearchRestTemplate;
 
@@ -133,6 +137,8 @@ public class AlphaIntegrationWithSpecSagaAkkaTest {
     assertEquals(sagaData.getTxEntities().get(localTxId_1).getState(),TxState.COMMITTED);
     assertEquals(sagaData.getTxEntities().get(localTxId_2).getState(),TxState.COMMITTED);
     assertEquals(sagaData.getTxEntities().get(localTxId_3).getState(),TxState.COMMITTED);
+    await().atMost(5, SECONDS).until(() -> slowTransactionService.getSlowTransactions(null, 1000)
+        .stream().anyMatch(transaction -> transaction.getGlobalTxId().equals(globalTxId)));
   }
 
   @Test
@@ -28,6 +28,8 @@ import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
 import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
@@ -37,14 +39,20 @@ import com.google.protobuf.ByteString;
 import io.grpc.ManagedChannel;
 import io.grpc.netty.NettyChannelBuilder;
 import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 import javax.annotation.PostConstruct;
 
 import org.apache.servicecomb.pack.alpha.core.*;
@@ -84,7 +92,8 @@ import org.springframework.test.context.junit4.SpringRunner;
         "alpha.spec.names=saga-db",
         "alpha.spec.saga.db.datasource.username=sa",
         "alpha.spec.saga.db.datasource.url=jdbc:hsqldb:mem:saga",
-        "alpha.spec.saga.db.cluster.enabled=false"
+        "alpha.spec.saga.db.cluster.enabled=false",
+        "alpha.spec.saga.db.state.mark-interval=1h"
        })
 public class AlphaIntegrationWithSpecSagaDbTest {
   private static final int port = 8090;
@@ -137,6 +146,24 @@ public class AlphaIntegrationWithSpecSagaDbTest {
   @Autowired
   private TxConsistentService consistentService;
 
+  @Autowired
+  private GlobalTxArchiveStore archiveStore;
+
+  @Autowired
+  private GlobalTxArchiveRepository archiveRepo;
+
+  @Autowired
+  private GlobalTxStateRepository globalTxStateRepo;
+
+  @Autowired
+  private LocalTxStateRepository localTxStateRepo;
+
+  @Autowired
+  private TxStateMarkRepository markRepo;
+
+  @Autowired
+  private TxStateProjection stateProjection;
+
   private static final AtomicInteger receivedCommandsCounter = new AtomicInteger();
   private static final Queue<GrpcCompensateCommand> receivedCommands = new ConcurrentLinkedQueue<>();
 
@@ -485,6 +512,92 @@ public class AlphaIntegrationWithSpecSagaDbTest {
     assertThat(receivedCommands.isEmpty(), is(true));
   }
 
+  @Test
+  public void maintainsTransactionStateOfCompensatedSaga() {
+    asyncStub.onConnected(compensateResponseObserver).onNext(serviceConfig);
+    blockingStub.onTxEvent(someGrpcEvent(SagaStartedEvent, globalTxId, globalTxId, null));
+    blockingStub.onTxEvent(someGrpcEvent(TxStartedEvent, globalTxId, localTxId, globalTxId));
+    blockingStub.onTxEvent(someGrpcEvent(TxEndedEvent, globalTxId, localTxId, globalTxId));
+
+    assertThat(transactionIdsOf(eventRepo.findPendingEvents()), hasItem(globalTxId));
+    assertThat(transactionIdsOf(eventRepo.findCompensatingEvents()), not(hasItem(globalTxId)));
+
+    String anotherLocalTxId = UUID.randomUUID().toString();
+    blockingStub.onTxEvent(someGrpcEvent(TxStartedEvent, globalTxId, anotherLocalTxId, globalTxId));
+    blockingStub.onTxEvent(someGrpcEvent(TxAbortedEvent, globalTxId, anotherLocalTxId, globalTxId));
+
+    await().atMost(2, SECONDS).until(
+        () -> transactionIdsOf(eventRepo.findRollBackedEvents()).contains(globalTxId));
+    assertThat(transactionIdsOf(eventRepo.findPendingEvents()), not(hasItem(globalTxId)));
+    assertThat(transactionIdsOf(eventRepo.findCommittedEvents()), not(hasItem(globalTxId)));
+    assertThat(receivedCommandsCounter.get(), is(1));
+    assertThat(receivedCommands.poll().getLocalTxId(), is(localTxId));
+  }
+
+  @Test
+  public void createsTransactionStateOnceForConcurrentStartedEvents() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> saves = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        int retries = i + 1;
+        saves.add(executor.submit(
+            () -> eventRepository.save(someStartedEvent(SagaStartedEvent, globalTxId, null, 0))));
+        saves.add(executor.submit(
+            () -> eventRepository.save(someStartedEvent(TxStartedEvent, localTxId, globalTxId, retries))));
+      }
+      for (Future<?> save : saves) {
+        save.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(globalTxStateRepo.findByGlobalTxId(globalTxId).isPresent(), is(true));
+    List<LocalTxState> localTxStates = StreamSupport.stream(localTxStateRepo.findAll().spliterator(), false)
+        .filter(localTxState -> localTxState.globalTxId().equals(globalTxId))
+        .collect(Collectors.toList());
+    assertThat(localTxStates.size(), is(2));
+    assertThat(localTxStates.stream()
+        .filter(localTxState -> localTxState.localTxId().equals(localTxId))
+        .findFirst().get().retries(), is(1));
+  }
+
+  @Test
+  public void replaysEventsSavedAfterTheStoredMark() {
+    stateProjection.markLastEvent();
+    TxEvent event = eventRepo.save(someStartedEvent(SagaStartedEvent, globalTxId, null, 0));
+    assertThat(globalTxStateRepo.findByGlobalTxId(globalTxId).isPresent(), is(false));
+
+    stateProjection.replay();
+
+    assertThat(globalTxStateRepo.findByGlobalTxId(globalTxId).isPresent(), is(true));
+    assertThat(markRepo.findById(TxStateProjection.MARK_NAME).get().lastEventId(), is(event.id()));
+  }
+
+  @Test
+  public void archivesEndedTransactions() {
+    asyncStub.onConnected(compensateResponseObserver).onNext(serviceConfig);
+    blockingStub.onTxEvent(someGrpcEvent(SagaStartedEvent, globalTxId, globalTxId, null));
+    blockingStub.onTxEvent(someGrpcEvent(TxStartedEvent, globalTxId, localTxId, globalTxId));
+    blockingStub.onTxEvent(someGrpcEvent(TxEndedEvent, globalTxId, localTxId, globalTxId));
+    blockingStub.onTxEvent(someGrpcEvent(SagaEndedEvent, globalTxId, globalTxId, null));
+
+    List<GlobalTxArchive> archives = archiveStore.archive(new Date(System.currentTimeMillis() + 1000), 1000);
+
+    assertThat(archives.stream().map(GlobalTxArchive::globalTxId).collect(Collectors.toList()),
+        hasItem(globalTxId));
+    assertThat(eventRepo.findByGlobalTxId(globalTxId).isEmpty(), is(true));
+    GlobalTxArchive archive = archiveRepo.findByGlobalTxId(globalTxId).get();
+    assertThat(archive.state(), is(GlobalTxArchive.COMMITTED));
+    assertThat(archive.eventCount(), is(4L));
+    assertThat(archive.serviceName(), is(serviceName));
+  }
+
+  private List<String> transactionIdsOf(List<TxEvent> events) {
+    return events.stream().map(TxEvent::globalTxId).collect(Collectors.toList());
+  }
+
   private boolean waitTillTimeoutDone() {
     for (TxTimeout txTimeout : timeoutEntityRepository.findAll()) {
       if (txTimeout.status().equals(DONE.name())) {
@@ -522,6 +635,11 @@ public class AlphaIntegrationWithSpecSagaDbTest {
         payload.getBytes());
   }
 
+  private TxEvent someStartedEvent(EventType type, String localTxId, String parentTxId, int retries) {
+    return new TxEvent(serviceName, instanceId, globalTxId, localTxId, parentTxId, type.name(),
+        compensationMethod, 0, "", retries, payload.getBytes());
+  }
+
   private GrpcTxEvent someGrpcEventWithTimeout(EventType type, String localTxId, String parentTxId, int timeout) {
     return eventOf(type, globalTxId, localTxId, parentTxId, payload.getBytes(), getClass().getCanonicalName(), timeout,
         "", 0, 0, 0, 0);
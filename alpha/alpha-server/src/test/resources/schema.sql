@@ -60,6 +60,54 @@ CREATE TABLE IF NOT EXISTS TxTimeout (
   version bigint NOT NULL
 );
 
+CREATE TABLE IF NOT EXISTS GlobalTxState (
+  surrogateId bigint GENERATED BY DEFAULT AS IDENTITY(START WITH 1, INCREMENT BY 1) PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL UNIQUE,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  startedEventId bigint NOT NULL,
+  subTxEnded boolean DEFAULT FALSE NOT NULL,
+  aborted boolean DEFAULT FALSE NOT NULL,
+  compensated boolean DEFAULT FALSE NOT NULL,
+  ended boolean DEFAULT FALSE NOT NULL,
+  creationTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  lastModified TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS LocalTxState (
+  surrogateId bigint GENERATED BY DEFAULT AS IDENTITY(START WITH 1, INCREMENT BY 1) PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL,
+  localTxId varchar(36) NOT NULL,
+  startedEventId bigint NOT NULL,
+  lastEventId bigint NOT NULL,
+  expiryTime TIMESTAMP NOT NULL,
+  retries int DEFAULT 0 NOT NULL,
+  settled boolean DEFAULT FALSE NOT NULL,
+  ended boolean DEFAULT FALSE NOT NULL,
+  aborted boolean DEFAULT FALSE NOT NULL,
+  compensated boolean DEFAULT FALSE NOT NULL,
+  lastModified TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  UNIQUE (globalTxId, localTxId)
+);
+
+CREATE TABLE IF NOT EXISTS TxStateMark (
+  name varchar(36) NOT NULL PRIMARY KEY,
+  lastEventId bigint NOT NULL,
+  lastModified TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS GlobalTxArchive (
+  surrogateId bigint GENERATED BY DEFAULT AS IDENTITY(START WITH 1, INCREMENT BY 1) PRIMARY KEY,
+  globalTxId varchar(36) NOT NULL UNIQUE,
+  serviceName varchar(36) NOT NULL,
+  instanceId varchar(36) NOT NULL,
+  state varchar(12) NOT NULL,
+  eventCount bigint DEFAULT 0 NOT NULL,
+  creationTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  endTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+  archivedTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
 CREATE TABLE IF NOT EXISTS tcc_global_tx_event (
   surrogateId bigint GENERATED BY DEFAULT AS IDENTITY(START WITH 1, INCREMENT BY 1) PRIMARY KEY,
   globalTxId varchar(36) NOT NULL,
@@ -22,6 +22,7 @@ import akka.actor.ActorSystem;
 import akka.actor.Props;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
 import java.util.Map;
@@ -38,12 +39,17 @@ import org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.memory.MemoryAct
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.memory.MemorySagaEventConsumer;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.AlphaMetricsEndpointImpl;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionTracker;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.RepositoryChannelProperties;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SpecSagaAkkaProperties;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.NoneTransactionRepository;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepositoryChannel;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.channel.BufferedTransactionRepositoryChannel;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.channel.DefaultTransactionRepositoryChannel;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.elasticsearch.ElasticsearchTransactionRepository;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.file.FileTransactionRepository;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka.AkkaConfigPropertyAdapter;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka.SagaDataExtension;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka.SpringAkkaExtension;
@@ -85,7 +91,8 @@ public class AlphaSpecSagaAkkaAutoConfiguration {
   @Bean
   public ActorSystem actorSystem(ConfigurableApplicationContext applicationContext,
       ConfigurableEnvironment environment, MetricsService metricsService,
-      TransactionRepositoryChannel repositoryChannel) {
+      TransactionRepositoryChannel repositoryChannel,
+      SlowTransactionTracker slowTransactionTracker) {
     ActorSystem system = ActorSystem
         .create("alpha-cluster", akkaConfiguration(applicationContext, environment));
 
@@ -93,9 +100,25 @@ public class AlphaSpecSagaAkkaAutoConfiguration {
     SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(system)
         .setRepositoryChannel(repositoryChannel);
     SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(system).setMetricsService(metricsService);
+    SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(system)
+        .setSlowTransactionTracker(slowTransactionTracker);
     return system;
   }
 
+  @Bean
+  public SlowTransactionTracker slowTransactionTracker(
+      SpecSagaAkkaProperties specSagaAkkaProperties) {
+    return new SlowTransactionTracker(specSagaAkkaProperties.getSlowTransaction());
+  }
+
+  @Bean
+  public SlowTransactionService slowTransactionService(ActorSystem actorSystem,
+      SlowTransactionTracker slowTransactionTracker,
+      SpecSagaAkkaProperties specSagaAkkaProperties) {
+    return new SlowTransactionService(actorSystem, slowTransactionTracker,
+        specSagaAkkaProperties.getSlowTransaction());
+  }
+
   @Bean
   public Config akkaConfiguration(ConfigurableApplicationContext applicationContext,
       ConfigurableEnvironment environment) {
@@ -105,8 +128,12 @@ public class AlphaSpecSagaAkkaAutoConfiguration {
   }
 
   @Bean(name = "sagaShardRegionActor")
-  public ActorRef sagaShardRegionActor(ActorSystem actorSystem) {
-    return actorSystem.actorOf(Props.create(SagaShardRegionActor.class));
+  public ActorRef sagaShardRegionActor(ActorSystem actorSystem,
+      SpecSagaAkkaProperties specSagaAkkaProperties, MetricsService metricsService) {
+    return actorSystem.actorOf(Props.create(SagaShardRegionActor.class,
+        specSagaAkkaProperties.getSharding(), specSagaAkkaProperties.getSnapshot(),
+        specSagaAkkaProperties.getLazyPersistence(), specSagaAkkaProperties.getSagaData(),
+        metricsService));
   }
 
   @Bean
@@ -126,10 +153,13 @@ public class AlphaSpecSagaAkkaAutoConfiguration {
   public TransactionRepository transactionRepository(
       SpecSagaAkkaProperties specSagaAkkaProperties,
       ElasticsearchRestTemplate elasticsearchRestTemplate,
-      MetricsService metricsService) {
+      MetricsService metricsService) throws IOException {
     if (specSagaAkkaProperties.getRepository().getName().equals("elasticsearch")) {
       return new ElasticsearchTransactionRepository(specSagaAkkaProperties.getRepository()
           .getElasticsearch(), elasticsearchRestTemplate, metricsService);
+    } else if (specSagaAkkaProperties.getRepository().getName().equals("file")) {
+      return new FileTransactionRepository(specSagaAkkaProperties.getRepository().getFile(),
+          metricsService);
     } else {
       return new NoneTransactionRepository();
     }
@@ -137,8 +167,16 @@ public class AlphaSpecSagaAkkaAutoConfiguration {
 
   @Bean
   TransactionRepositoryChannel memoryTransactionRepositoryChannel(TransactionRepository repository,
-      MetricsService metricsService) {
-    return new DefaultTransactionRepositoryChannel(repository, metricsService);
+      SpecSagaAkkaProperties specSagaAkkaProperties, MetricsService metricsService)
+      throws IOException {
+    RepositoryChannelProperties channelProperties = specSagaAkkaProperties.getRepository()
+        .getChannel();
+    if (channelProperties.getName().equals("buffered")) {
+      return new BufferedTransactionRepositoryChannel(repository, metricsService,
+          channelProperties);
+    } else {
+      return new DefaultTransactionRepositoryChannel(repository, metricsService);
+    }
   }
 
   @Bean
@@ -148,7 +186,9 @@ public class AlphaSpecSagaAkkaAutoConfiguration {
       return new KafkaActorEventChannel(specSagaAkkaProperties, metricsService);
     } else {
       return new MemoryActorEventChannel(metricsService,
-          specSagaAkkaProperties.getChannel().getMemory().getMaxLength());
+          specSagaAkkaProperties.getChannel().getMemory().getMaxLength(),
+          specSagaAkkaProperties.getChannel().getMemory().getPartitions(),
+          specSagaAkkaProperties.getChannel().getMemory().getWaitStrategy());
     }
   }
 
@@ -161,21 +201,22 @@ public class AlphaSpecSagaAkkaAutoConfiguration {
     if (specSagaAkkaProperties.getChannel().getName().equals("kafka")) {
       return new KafkaSagaEventConsumer(actorSystem,
           sagaShardRegionActor, metricsService,
-          specSagaAkkaProperties.getChannel().getKafka().getBootstrapServers(),
-          specSagaAkkaProperties.getChannel().getKafka().getTopic(),
-          specSagaAkkaProperties.getChannel().getKafka().getConsumer());
+          specSagaAkkaProperties.getChannel().getKafka());
     } else {
       return new MemorySagaEventConsumer(actorSystem, sagaShardRegionActor, metricsService,
-          (MemoryActorEventChannel) actorEventChannel);
+          (MemoryActorEventChannel) actorEventChannel,
+          specSagaAkkaProperties.getChannel().getMemory().getBatchSize());
     }
   }
 
   @Bean
-  GrpcSagaEventService grpcSagaEventService(ActorEventChannel actorEventChannel,
+  GrpcSagaEventService grpcSagaEventService(SpecSagaAkkaProperties specSagaAkkaProperties,
+      ActorEventChannel actorEventChannel,
       Map<String, Map<String, OmegaCallback>> omegaCallbacks) {
     ServerMeta serverMeta = ServerMeta.newBuilder()
         .putMeta(AlphaMetaKeys.AkkaEnabled.name(), String.valueOf(true)).build();
-    return new GrpcSagaEventService(actorEventChannel, omegaCallbacks, serverMeta);
+    return new GrpcSagaEventService(actorEventChannel, omegaCallbacks, serverMeta,
+        specSagaAkkaProperties.getCompensation().getMaxInflight());
   }
 
   @Bean
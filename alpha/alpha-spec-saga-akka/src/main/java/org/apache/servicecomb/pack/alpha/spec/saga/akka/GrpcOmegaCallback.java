@@ -20,6 +20,14 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka;
 import com.google.protobuf.ByteString;
 import io.grpc.stub.StreamObserver;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
 import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
@@ -29,20 +37,52 @@ import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Delivers compensate commands to one connected omega instance without blocking the caller.
+ * Outstanding compensations are tracked by global and local transaction id so that each ack
+ * settles exactly the compensation it belongs to. At most {@code maxInflight} commands are
+ * outstanding at a time, commands issued beyond that are queued and sent in order as earlier
+ * ones are acked, failed or timed out.
+ */
 class GrpcOmegaCallback implements OmegaCallback {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private final StreamObserver<GrpcCompensateCommand> observer;
-  private CompensateAckCountDownLatch compensateAckCountDownLatch;
+  private final int maxInflight;
+  private final Map<String, PendingCompensation> pendings = new LinkedHashMap<>();
+  private final Queue<PendingCompensation> queued = new ArrayDeque<>();
+  private int inflight;
+  private boolean disconnected;
 
-  GrpcOmegaCallback(StreamObserver<GrpcCompensateCommand> observer) {
+  GrpcOmegaCallback(StreamObserver<GrpcCompensateCommand> observer, int maxInflight) {
     this.observer = observer;
+    this.maxInflight = Math.max(1, maxInflight);
   }
 
   @Override
   public void compensate(TxEvent event) {
-    compensateAckCountDownLatch = new CompensateAckCountDownLatch(1);
     try {
+      compensateAsync(event).get();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> compensateAsync(TxEvent event) {
+    String key = keyOf(event.globalTxId(), event.localTxId());
+    PendingCompensation pending;
+    synchronized (this) {
+      pending = pendings.get(key);
+      if (pending != null) {
+        // the same compensation is still outstanding, its ack settles this caller too
+        return pending.ack;
+      }
       GrpcCompensateCommand command = GrpcCompensateCommand.newBuilder()
           .setGlobalTxId(event.globalTxId())
           .setLocalTxId(event.localTxId())
@@ -50,40 +90,120 @@ class GrpcOmegaCallback implements OmegaCallback {
           .setCompensationMethod(event.compensationMethod())
           .setPayloads(ByteString.copyFrom(event.payloads()))
           .build();
-      observer.onNext(command);
-      compensateAckCountDownLatch.await();
-      if (compensateAckCountDownLatch.getType() == CompensateAckType.Disconnected) {
-        throw new CompensateConnectException("Omega connect exception");
-      }else{
-        LOG.debug("compensate ack "+ compensateAckCountDownLatch.getType().name());
-        if(compensateAckCountDownLatch.getType() == CompensateAckType.Failed){
-          throw new CompensateAckFailedException("An exception is thrown inside the compensation method");
-        }
+      pending = new PendingCompensation(key, command);
+      if (disconnected) {
+        pending.ack.completeExceptionally(new CompensateConnectException("Omega connect exception"));
+        return pending.ack;
+      }
+      pendings.put(key, pending);
+      // a settled compensation, whether by ack, disconnect or the caller's timeout, frees its slot
+      final PendingCompensation settling = pending;
+      pending.ack.whenComplete((v, e) -> settled(settling));
+      if (inflight < maxInflight) {
+        send(pending);
+      } else {
+        queued.offer(pending);
       }
-    } catch (InterruptedException e) {
-      throw new RuntimeException(e);
-    } finally {
-      compensateAckCountDownLatch = null;
     }
+    return pending.ack;
   }
 
   @Override
   public void disconnect() {
     observer.onCompleted();
-    if (compensateAckCountDownLatch != null) {
-      compensateAckCountDownLatch.countDown(CompensateAckType.Disconnected);
+    List<PendingCompensation> unsettled;
+    synchronized (this) {
+      disconnected = true;
+      unsettled = new ArrayList<>(pendings.values());
     }
+    unsettled.forEach(pending -> pending.ack
+        .completeExceptionally(new CompensateConnectException("Omega connect exception")));
   }
 
   @Override
   public void getAck(CompensateAckType type) {
-    if (compensateAckCountDownLatch != null) {
-      compensateAckCountDownLatch.countDown(type);
+    // an ack without transaction ids settles the oldest outstanding compensation
+    PendingCompensation pending = null;
+    synchronized (this) {
+      for (PendingCompensation candidate : pendings.values()) {
+        if (candidate.sent) {
+          pending = candidate;
+          break;
+        }
+      }
+    }
+    settle(pending, type);
+  }
+
+  @Override
+  public void getAck(String globalTxId, String localTxId, CompensateAckType type) {
+    PendingCompensation pending;
+    synchronized (this) {
+      pending = pendings.get(keyOf(globalTxId, localTxId));
+    }
+    if (pending == null) {
+      LOG.warn("No outstanding compensation for ack {} [{}] {}", type.name(), globalTxId, localTxId);
     }
+    settle(pending, type);
   }
 
   @Override
-  public boolean isWaiting(){
-    return compensateAckCountDownLatch == null ? false : true;
+  public synchronized boolean isWaiting() {
+    return inflight > 0;
+  }
+
+  private void settle(PendingCompensation pending, CompensateAckType type) {
+    if (pending != null) {
+      LOG.debug("compensate ack " + type.name());
+      if (type == CompensateAckType.Succeed) {
+        pending.ack.complete(null);
+      } else if (type == CompensateAckType.Failed) {
+        pending.ack.completeExceptionally(
+            new CompensateAckFailedException("An exception is thrown inside the compensation method"));
+      } else {
+        pending.ack.completeExceptionally(new CompensateConnectException("Omega connect exception"));
+      }
+    }
+  }
+
+  private synchronized void settled(PendingCompensation pending) {
+    pendings.remove(pending.key, pending);
+    if (pending.sent) {
+      inflight--;
+      PendingCompensation next;
+      while (inflight < maxInflight && (next = queued.poll()) != null) {
+        if (!next.ack.isDone()) {
+          send(next);
+        }
+      }
+    } else {
+      queued.remove(pending);
+    }
+  }
+
+  private void send(PendingCompensation pending) {
+    pending.sent = true;
+    inflight++;
+    try {
+      observer.onNext(pending.command);
+    } catch (RuntimeException e) {
+      pending.ack.completeExceptionally(new CompensateConnectException(e.getMessage()));
+    }
+  }
+
+  private static String keyOf(String globalTxId, String localTxId) {
+    return globalTxId + "/" + localTxId;
+  }
+
+  private static final class PendingCompensation {
+    private final String key;
+    private final GrpcCompensateCommand command;
+    private final CompletableFuture<Void> ack = new CompletableFuture<>();
+    private boolean sent;
+
+    private PendingCompensation(String key, GrpcCompensateCommand command) {
+      this.key = key;
+      this.command = command;
+    }
   }
 }
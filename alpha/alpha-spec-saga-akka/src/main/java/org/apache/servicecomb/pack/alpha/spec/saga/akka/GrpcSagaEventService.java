@@ -19,22 +19,25 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka;
 
 import static java.util.Collections.emptyMap;
 
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import java.lang.invoke.MethodHandles;
-import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
-import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
-import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.grpc.GrpcTxEventStreamObserver;
 import org.apache.servicecomb.pack.common.EventType;
 import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
 import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
 import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
 import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventAckBatch;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
 import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
 import org.slf4j.Logger;
@@ -48,12 +51,15 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
   private final Map<String, Map<String, OmegaCallback>> omegaCallbacks;
   private final ActorEventChannel actorEventChannel;
   private final ServerMeta serverMeta;
+  private final int maxInflightCompensations;
 
   public GrpcSagaEventService(ActorEventChannel actorEventChannel,
-      Map<String, Map<String, OmegaCallback>> omegaCallbacks, ServerMeta serverMeta) {
+      Map<String, Map<String, OmegaCallback>> omegaCallbacks, ServerMeta serverMeta,
+      int maxInflightCompensations) {
     this.actorEventChannel = actorEventChannel;
     this.omegaCallbacks = omegaCallbacks;
     this.serverMeta = serverMeta;
+    this.maxInflightCompensations = maxInflightCompensations;
   }
 
   @Override
@@ -64,7 +70,7 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
 
       @Override
       public void onNext(GrpcServiceConfig grpcServiceConfig) {
-        grpcOmegaCallback = new GrpcOmegaCallback(responseObserver);
+        grpcOmegaCallback = new GrpcOmegaCallback(responseObserver, maxInflightCompensations);
         omegaCallbacks
             .computeIfAbsent(grpcServiceConfig.getServiceName(), key -> new ConcurrentHashMap<>())
             .put(grpcServiceConfig.getInstanceId(), grpcOmegaCallback);
@@ -96,108 +102,45 @@ public class GrpcSagaEventService extends TxEventServiceImplBase {
     responseObserver.onCompleted();
   }
 
+  // the ack is sent from the channel callback, so a gRPC thread does not wait for the channel to
+  // acknowledge the event
   @Override
   public void onTxEvent(GrpcTxEvent message, StreamObserver<GrpcAck> responseObserver) {
+    handleTxEvent(message).whenComplete((ok, ex) -> {
+      if (ex != null) {
+        responseObserver.onError(Status.UNAVAILABLE
+            .withDescription("Failed to send event " + message.getType() + " of " + message.getGlobalTxId())
+            .withCause(ex)
+            .asRuntimeException());
+      } else {
+        responseObserver.onNext(ok ? ALLOW : REJECT);
+        responseObserver.onCompleted();
+      }
+    });
+  }
+
+  @Override
+  public StreamObserver<GrpcTxEventBatch> onTxEventStream(StreamObserver<GrpcTxEventAckBatch> responseObserver) {
+    return new GrpcTxEventStreamObserver(responseObserver, this::handleTxEvent);
+  }
+
+  private CompletionStage<Boolean> handleTxEvent(GrpcTxEvent message) {
     if(LOG.isDebugEnabled()){
       LOG.debug("onText {}",message);
     }
-    boolean ok = true;
-    BaseEvent event = null;
-    if (message.getType().equals(EventType.SagaStartedEvent.name())) {
-      event = org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent.builder()
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .globalTxId(message.getGlobalTxId())
-          .createTime(new Date())
-          .timeout(message.getTimeout()).build();
-    } else if (message.getType().equals(EventType.SagaEndedEvent.name())) {
-      event = org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent.builder()
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .createTime(new Date())
-          .globalTxId(message.getGlobalTxId()).build();
-    } else if (message.getType().equals(EventType.SagaAbortedEvent.name())) {
-      event = org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent.builder()
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .globalTxId(message.getGlobalTxId())
-          .createTime(new Date())
-          .payloads(message.getPayloads().toByteArray()).build();
-    } else if (message.getType().equals(EventType.SagaTimeoutEvent.name())) {
-      event = org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent.builder()
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .createTime(new Date())
-          .globalTxId(message.getGlobalTxId()).build();
-    } else if (message.getType().equals(EventType.TxStartedEvent.name())) {
-      event = org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent.builder()
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .globalTxId(message.getGlobalTxId())
-          .localTxId(message.getLocalTxId())
-          .parentTxId(message.getParentTxId().isEmpty() ? null : message.getParentTxId())
-          .compensationMethod(message.getCompensationMethod())
-          .retryMethod(message.getRetryMethod())
-          .forwardRetries(message.getForwardRetries())
-          .forwardTimeout(message.getForwardTimeout())
-          .reverseRetries(message.getReverseRetries())
-          .reverseTimeout(message.getReverseTimeout())
-          .retryDelayInMilliseconds(message.getRetryDelayInMilliseconds())
-          .createTime(new Date())
-          .payloads(message.getPayloads().toByteArray()).build();
-    } else if (message.getType().equals(EventType.TxEndedEvent.name())) {
-      event = org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent.builder()
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .globalTxId(message.getGlobalTxId())
-          .parentTxId(message.getParentTxId())
-          .localTxId(message.getLocalTxId()).build();
-    } else if (message.getType().equals(EventType.TxAbortedEvent.name())) {
-      event = org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent.builder()
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .globalTxId(message.getGlobalTxId())
-          .parentTxId(message.getParentTxId())
-          .localTxId(message.getLocalTxId())
-          .createTime(new Date())
-          .payloads(message.getPayloads().toByteArray()).build();
-    } else if (message.getType().equals(EventType.TxCompensatedEvent.name())) {
-      event = org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent.builder()
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .globalTxId(message.getGlobalTxId())
-          .parentTxId(message.getParentTxId())
-          .createTime(new Date())
-          .localTxId(message.getLocalTxId()).build();
-    } else if (message.getType().equals(EventType.TxCompensateAckSucceedEvent.name())) {
-      event = TxCompensateAckSucceedEvent.builder()
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .globalTxId(message.getGlobalTxId())
-          .parentTxId(message.getParentTxId())
-          .createTime(new Date())
-          .localTxId(message.getLocalTxId()).build();
+    EventType type = GrpcTxEventDecoder.typeOf(message);
+    BaseEvent event = type != null ? GrpcTxEventDecoder.decode(type, message) : null;
+    if (event == null) {
+      return CompletableFuture.completedFuture(false);
+    }
+    if (type == EventType.TxCompensateAckSucceedEvent) {
       omegaCallbacks.get(message.getServiceName()).get(message.getInstanceId())
-          .getAck(CompensateAckType.Succeed);
-    } else if (message.getType().equals(EventType.TxCompensateAckFailedEvent.name())) {
-      event = TxCompensateAckFailedEvent.builder()
-          .payloads(message.getPayloads().toByteArray())
-          .serviceName(message.getServiceName())
-          .instanceId(message.getInstanceId())
-          .globalTxId(message.getGlobalTxId())
-          .parentTxId(message.getParentTxId())
-          .createTime(new Date())
-          .localTxId(message.getLocalTxId()).build();
+          .getAck(message.getGlobalTxId(), message.getLocalTxId(), CompensateAckType.Succeed);
+    } else if (type == EventType.TxCompensateAckFailedEvent) {
       omegaCallbacks.get(message.getServiceName()).get(message.getInstanceId())
-          .getAck(CompensateAckType.Failed);
-    } else {
-      ok = false;
+          .getAck(message.getGlobalTxId(), message.getLocalTxId(), CompensateAckType.Failed);
     }
-    if (event != null) {
-      actorEventChannel.send(event);
-    }
-    responseObserver.onNext(ok ? ALLOW : REJECT);
-    responseObserver.onCompleted();
+    return actorEventChannel.sendAsync(event).thenApply(done -> true);
   }
 
   @Override
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensatedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+
+/**
+ * Turns the gRPC events of omega into saga events. The type is looked up once and the event
+ * is filled through its setters, its create time is the time it is decoded.
+ */
+public final class GrpcTxEventDecoder {
+
+  private static final Map<String, EventType> EVENT_TYPES = new HashMap<>();
+
+  static {
+    for (EventType type : EventType.values()) {
+      EVENT_TYPES.put(type.name(), type);
+    }
+  }
+
+  private GrpcTxEventDecoder() {
+  }
+
+  /**
+   * Returns the type of the event, null if it is unknown.
+   */
+  public static EventType typeOf(GrpcTxEvent message) {
+    return EVENT_TYPES.get(message.getType());
+  }
+
+  /**
+   * Returns the saga event of the message, null if the type has none.
+   */
+  public static BaseEvent decode(EventType type, GrpcTxEvent message) {
+    switch (type) {
+      case SagaStartedEvent:
+        SagaStartedEvent sagaStartedEvent = sagaEvent(new SagaStartedEvent(), message);
+        sagaStartedEvent.setTimeout(message.getTimeout());
+        return sagaStartedEvent;
+      case SagaEndedEvent:
+        return sagaEvent(new SagaEndedEvent(), message);
+      case SagaAbortedEvent:
+        SagaAbortedEvent sagaAbortedEvent = sagaEvent(new SagaAbortedEvent(), message);
+        sagaAbortedEvent.setPayloads(message.getPayloads().toByteArray());
+        return sagaAbortedEvent;
+      case SagaTimeoutEvent:
+        return sagaEvent(new SagaTimeoutEvent(), message);
+      case TxStartedEvent:
+        TxStartedEvent txStartedEvent = txEvent(new TxStartedEvent(), message);
+        if (message.getParentTxId().isEmpty()) {
+          txStartedEvent.setParentTxId(null);
+        }
+        txStartedEvent.setCompensationMethod(message.getCompensationMethod());
+        txStartedEvent.setRetryMethod(message.getRetryMethod());
+        txStartedEvent.setForwardRetries(message.getForwardRetries());
+        txStartedEvent.setForwardTimeout(message.getForwardTimeout());
+        txStartedEvent.setReverseRetries(message.getReverseRetries());
+        txStartedEvent.setReverseTimeout(message.getReverseTimeout());
+        txStartedEvent.setRetryDelayInMilliseconds(message.getRetryDelayInMilliseconds());
+        txStartedEvent.setPayloads(message.getPayloads().toByteArray());
+        return txStartedEvent;
+      case TxEndedEvent:
+        return txEvent(new TxEndedEvent(), message);
+      case TxAbortedEvent:
+        TxAbortedEvent txAbortedEvent = txEvent(new TxAbortedEvent(), message);
+        txAbortedEvent.setPayloads(message.getPayloads().toByteArray());
+        return txAbortedEvent;
+      case TxCompensatedEvent:
+        return txEvent(new TxCompensatedEvent(), message);
+      case TxCompensateAckSucceedEvent:
+        return txEvent(new TxCompensateAckSucceedEvent(), message);
+      case TxCompensateAckFailedEvent:
+        TxCompensateAckFailedEvent ackFailedEvent = txEvent(new TxCompensateAckFailedEvent(),
+            message);
+        ackFailedEvent.setPayloads(message.getPayloads().toByteArray());
+        return ackFailedEvent;
+      default:
+        return null;
+    }
+  }
+
+  private static <T extends BaseEvent> T sagaEvent(T event, GrpcTxEvent message) {
+    event.setServiceName(message.getServiceName());
+    event.setInstanceId(message.getInstanceId());
+    event.setGlobalTxId(message.getGlobalTxId());
+    return event;
+  }
+
+  private static <T extends BaseEvent> T txEvent(T event, GrpcTxEvent message) {
+    sagaEvent(event, message);
+    event.setParentTxId(message.getParentTxId());
+    event.setLocalTxId(message.getLocalTxId());
+    return event;
+  }
+}
@@ -17,16 +17,29 @@
 
 package org.apache.servicecomb.pack.alpha.spec.saga.akka;
 
-import akka.actor.PoisonPill;
+import akka.actor.ActorRef;
+import akka.actor.Cancellable;
 import akka.actor.Props;
 import akka.cluster.sharding.ShardRegion;
+import akka.persistence.SaveSnapshotFailure;
+import akka.persistence.SaveSnapshotSuccess;
+import akka.persistence.SnapshotSelectionCriteria;
 import akka.persistence.fsm.AbstractPersistentFSM;
+import akka.persistence.fsm.PersistentFSM.PersistentFSMSnapshot;
+import akka.persistence.fsm.PersistentFSM.StateChangeEvent;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.servicecomb.pack.alpha.core.AlphaException;
@@ -51,32 +64,100 @@ import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.SagaStartedDomain
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.UpdateTxEventDomain;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaData;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.TxEntity;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.LazyPersistenceProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SagaDataProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SnapshotProperties;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka.SagaDataExtension;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka.SpringAkkaExtension;
 import org.apache.servicecomb.pack.common.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.Function1;
+import scala.Option;
+import scala.collection.JavaConverters;
+import scala.collection.immutable.Seq;
 import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+import scala.runtime.BoxedUnit;
 
 public class SagaActor extends
     AbstractPersistentFSM<SagaActorState, SagaData, DomainEvent> {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  // states armed with the saga timeout when the saga has one
+  private static final Set<SagaActorState> TIMED_STATES = EnumSet.of(SagaActorState.READY,
+      SagaActorState.PARTIALLY_ACTIVE, SagaActorState.PARTIALLY_COMMITTED);
   private String persistenceId;
   private long sagaBeginTime;
   private long sagaEndTime;
+  // compensations waiting out their retry delay, an ack received meanwhile drops the retry
+  private final Set<String> retryingTxIds = new HashSet<>();
+  private final SnapshotProperties snapshotProperties;
+  private final long recoveryBeginTime = System.currentTimeMillis();
+  private int recoveredEvents;
+  private int eventsSinceSnapshot;
+  private boolean snapshotRequested;
+  // when the state timeout of the saga was last armed, it restarts with every saga event
+  private long timeoutArmedTime = System.currentTimeMillis();
+  private final LazyPersistenceProperties lazyPersistenceProperties;
+  // events of a lazily persisted saga not written to the journal yet
+  private final List<Object> deferredEvents = new ArrayList<>();
+  private boolean journaling;
+  private Cancellable flushTimer;
+  private final SagaDataProperties sagaDataProperties;
+
+  // sent to itself to take a snapshot once the state and the data of the current event are applied
+  private enum SnapshotTick {
+    INSTANCE
+  }
+
+  // sent to itself when a lazily persisted saga reaches the max age
+  private enum FlushTick {
+    INSTANCE
+  }
+
+  /**
+   * Stops the saga actor on passivation and on shard handoff. Unlike a PoisonPill it writes the
+   * deferred events of a lazily persisted saga to the journal first, the actor stops once they
+   * are persisted and another node recovers the saga from them.
+   */
+  public enum FlushAndStop {
+    INSTANCE
+  }
 
   public static Props props(String persistenceId) {
-    return Props.create(SagaActor.class, persistenceId);
+    return props(persistenceId, new SnapshotProperties());
+  }
+
+  public static Props props(String persistenceId, SnapshotProperties snapshotProperties) {
+    return props(persistenceId, snapshotProperties, new LazyPersistenceProperties());
+  }
+
+  public static Props props(String persistenceId, SnapshotProperties snapshotProperties,
+      LazyPersistenceProperties lazyPersistenceProperties) {
+    return props(persistenceId, snapshotProperties, lazyPersistenceProperties,
+        new SagaDataProperties());
+  }
+
+  public static Props props(String persistenceId, SnapshotProperties snapshotProperties,
+      LazyPersistenceProperties lazyPersistenceProperties, SagaDataProperties sagaDataProperties) {
+    return Props.create(SagaActor.class, persistenceId, snapshotProperties,
+        lazyPersistenceProperties, sagaDataProperties);
   }
 
-  public SagaActor(String persistenceId) {
+  public SagaActor(String persistenceId, SnapshotProperties snapshotProperties,
+      LazyPersistenceProperties lazyPersistenceProperties, SagaDataProperties sagaDataProperties) {
+    this.snapshotProperties = snapshotProperties;
+    this.lazyPersistenceProperties = lazyPersistenceProperties;
+    this.sagaDataProperties = sagaDataProperties;
+    this.journaling = !lazyPersistenceProperties.isEnabled();
     if (persistenceId != null) {
       this.persistenceId = persistenceId;
     } else {
       this.persistenceId = getSelf().path().name();
     }
 
-    startWith(SagaActorState.IDLE, SagaData.builder().build());
+    startWith(SagaActorState.IDLE,
+        SagaData.builder().maxEvents(sagaDataProperties.getMaxEvents()).build());
 
     when(SagaActorState.IDLE,
         matchEvent(SagaStartedEvent.class,
@@ -237,6 +318,7 @@ public class SagaActor extends
             }
         ).event(TxCompensateAckSucceedEvent.class, SagaData.class,
             (event, data) -> {
+              retryingTxIds.remove(event.getLocalTxId());
               UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event);
               return stay().applying(domainEvent).andThen(exec(_data -> {
                 self().tell(ComponsitedCheckEvent.builder()
@@ -251,6 +333,7 @@ public class SagaActor extends
             }
         ).event(TxCompensateAckFailedEvent.class, SagaData.class,
             (event, data) -> {
+              retryingTxIds.remove(event.getLocalTxId());
               UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event);
               return stay().applying(domainEvent).andThen(exec(_data -> {
                 self().tell(ComponsitedCheckEvent.builder()
@@ -265,6 +348,7 @@ public class SagaActor extends
             }
         ).event(CompensateAckTimeoutEvent.class, SagaData.class,
             (event, data) -> {
+              retryingTxIds.remove(event.getLocalTxId());
               UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event);
               return stay().applying(domainEvent).andThen(exec(_data -> {
                 self().tell(ComponsitedCheckEvent.builder()
@@ -319,11 +403,26 @@ public class SagaActor extends
             (event, data) -> {
               UpdateTxEventDomain domainEvent = new UpdateTxEventDomain(event);
               return stay().applying(domainEvent).andThen(exec(_data -> {
-                TxEntity txEntity = _data.getTxEntities().get(event.getLocalTxId());
-                // call compensate
-                compensation(domainEvent, txEntity, _data);
+                // compensated right away, or after the compensation in flight settled
+                compensateNext(domainEvent, _data);
               }));
             }
+        ).event(CompensationRetry.class, SagaData.class,
+            (event, data) -> {
+              // dropped if the compensation was acked during the delay
+              if (retryingTxIds.contains(event.failure.getLocalTxId())) {
+                self().tell(event.failure, self());
+              }
+              return stay();
+            }
+        ).event(CompensationFailed.class, SagaData.class,
+            (event, data) -> {
+              TxEntity txEntity = data.getTxEntities().get(event.localTxId);
+              if (txEntity != null) {
+                compensationFailed(txEntity, event.cause);
+              }
+              return stay();
+            }
         ).event(Arrays.asList(StateTimeout()), SagaData.class,
             (event, data) -> {
               SagaEndedDomain domainEvent = new SagaEndedDomain(SagaActorState.SUSPENDED, SuspendedType.TIMEOUT);
@@ -360,11 +459,49 @@ public class SagaActor extends
     );
 
     whenUnhandled(
-        matchAnyEvent((event, data) -> {
+        matchEvent(SnapshotTick.class,
+            (tick, data) -> {
+              snapshotRequested = false;
+              saveSagaSnapshot(data);
+              return stayWithinTimeout(data);
+            }
+        ).event(SaveSnapshotSuccess.class,
+            (success, data) -> {
+              long sequenceNr = success.metadata().sequenceNr();
+              if (snapshotProperties.isDeleteEvents()) {
+                deleteMessages(sequenceNr);
+                deleteSnapshots(SnapshotSelectionCriteria.create(sequenceNr - 1, Long.MAX_VALUE));
+              }
+              SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(context().system())
+                  .doSnapshotSaved();
+              return stayWithinTimeout(data);
+            }
+        ).event(FlushTick.class,
+            (tick, data) -> {
+              if (!journaling && !data.isTerminated()) {
+                flushDeferredEvents();
+              }
+              return stayWithinTimeout(data);
+            }
+        ).event(FlushAndStop.class,
+            (stop, data) -> {
+              if (!journaling && !data.isTerminated()) {
+                flushDeferredEvents(() -> getContext().stop(getSelf()));
+              } else {
+                getContext().stop(getSelf());
+              }
+              return stay();
+            }
+        ).event(SaveSnapshotFailure.class,
+            (failure, data) -> {
+              LOG.warn("snapshot [{}] failed", data.getGlobalTxId(), failure.cause());
+              return stayWithinTimeout(data);
+            }
+        ).anyEvent((event, data) -> {
           if (event instanceof BaseEvent){
             LOG.debug("Unhandled event {}", event);
           }
-          return stay();
+          return stayWithinTimeout(data);
         })
     );
 
@@ -382,6 +519,8 @@ public class SagaActor extends
               to == SagaActorState.SUSPENDED ||
               to == SagaActorState.COMPENSATED) {
             self().tell(org.apache.servicecomb.pack.alpha.core.fsm.event.internal.StopEvent.builder().build(), self());
+          } else if (snapshotProperties.getStates().contains(to)) {
+            requestSnapshot();
           }
         })
     );
@@ -413,7 +552,7 @@ public class SagaActor extends
 
       // destroy self from cluster shard region
       getContext().getParent()
-          .tell(new ShardRegion.Passivate(PoisonPill.getInstance()), getSelf());
+          .tell(new ShardRegion.Passivate(FlushAndStop.INSTANCE), getSelf());
 
       //  clear self mailbox from persistence
       //  已经停止的Actor使用以下两个命令清理，但是 highestSequenceNr 不会被删除，需要手工清理
@@ -455,8 +594,10 @@ public class SagaActor extends
       //    end
       //  end
       //  return delkeys;
-      deleteMessages(lastSequenceNr());
-      deleteSnapshot(snapshotSequenceNr());
+      if (lastSequenceNr() > 0) {
+        deleteMessages(lastSequenceNr());
+        deleteSnapshots(SnapshotSelectionCriteria.create(lastSequenceNr(), Long.MAX_VALUE));
+      }
     }catch(Exception e){
       LOG.error("stop [{}] fail",data.getGlobalTxId());
       throw e;
@@ -467,10 +608,18 @@ public class SagaActor extends
   public SagaData applyEvent(DomainEvent event, SagaData data) {
     LOG.debug("apply domain event {}", event.getEvent());
     try{
+      timeoutArmedTime = System.currentTimeMillis();
       if (this.recoveryRunning()) {
+        recoveredEvents++;
         LOG.info("recovery {}",event.getEvent());
-      }else if (LOG.isDebugEnabled()) {
-        LOG.debug("persistence {}", event.getEvent());
+      } else {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("persistence {}", event.getEvent());
+        }
+        if (snapshotProperties.getEventInterval() > 0
+            && ++eventsSinceSnapshot >= snapshotProperties.getEventInterval()) {
+          requestSnapshot();
+        }
       }
       if (event.getEvent() != null && !(event
           .getEvent() instanceof ComponsitedCheckEvent)) {
@@ -513,33 +662,27 @@ public class SagaActor extends
         } else if (domainEvent.getState() == TxState.FAILED) {
           txEntity.setState(domainEvent.getState());
           txEntity.setThrowablePayLoads(domainEvent.getThrowablePayLoads());
-          data.getTxEntities().forEachReverse((k, v) -> {
-            if (v.getState() == TxState.COMMITTED) {
-              // call compensate
-              if (!compensation(domainEvent, v, data)) {
-                return;
-              }
-            }
-          });
+          releasePayloads(txEntity, data);
+          compensateNext(domainEvent, data);
         } else if (domainEvent.getState() == TxState.COMPENSATED_SUCCEED) {
-          data.getCompensationRunningCounter().decrementAndGet();
+          // an ack may arrive for a sub transaction the walk has not reached yet
+          if (txEntity.getState() == TxState.COMPENSATION_SENT) {
+            data.getCompensationRunningCounter().decrementAndGet();
+          }
           txEntity.setState(TxState.COMPENSATED_SUCCEED);
+          releasePayloads(txEntity, data);
           LOG.info("compensate is succeed [{}] {}", txEntity.getGlobalTxId(), txEntity.getLocalTxId());
+          // the reverse walk continues with the next sub transaction
+          compensateNext(domainEvent, data);
         } else if (domainEvent.getState() == TxState.COMPENSATED_FAILED) {
-          data.getCompensationRunningCounter().decrementAndGet();
+          if (txEntity.getState() == TxState.COMPENSATION_SENT) {
+            data.getCompensationRunningCounter().decrementAndGet();
+          }
           txEntity.setState(TxState.COMPENSATED_FAILED);
           txEntity.setThrowablePayLoads(domainEvent.getThrowablePayLoads());
-          if (txEntity.getReverseRetries() > 0 &&
-              txEntity.getRetriesCounter().get() < txEntity.getReverseRetries()) {
-            data.getTxEntities().forEachReverse((k, v) -> {
-              if (v.getState() == TxState.COMMITTED || v.getState() == TxState.COMPENSATED_FAILED) {
-                // call compensate
-                if (!compensation(domainEvent, v, data)){
-                  return;
-                }
-              }
-            });
-          } else {
+          // retries the failed compensation, or carries on with the remaining sub transactions
+          compensateNext(domainEvent, data);
+          if (!isRetryable(txEntity)) {
             data.setSuspendedType(SuspendedType.COMPENSATE_FAILED);
             self().tell(ComponsitedCheckEvent.builder()
                 .serviceName(txEntity.getServiceName())
@@ -553,14 +696,7 @@ public class SagaActor extends
       } else if (event instanceof SagaEndedDomain) {
         SagaEndedDomain domainEvent = (SagaEndedDomain) event;
         if (domainEvent.getState() == SagaActorState.FAILED) {
-          data.getTxEntities().forEachReverse((k, v) -> {
-            if (v.getState() == TxState.COMMITTED) {
-              // call compensate
-              if (!compensation(domainEvent, v, data)){
-                return;
-              }
-            }
-          });
+          compensateNext(domainEvent, data);
         } else if (domainEvent.getState() == SagaActorState.SUSPENDED) {
           data.setEndTime(event.getEvent() != null ? event.getEvent().getCreateTime() : new Date());
           data.setSuspendedType(domainEvent.getSuspendedType());
@@ -583,8 +719,118 @@ public class SagaActor extends
   @Override
   public void onRecoveryCompleted() {
     if(stateName() != SagaActorState.IDLE){
-      LOG.info("recovery completed [{}] state={}", stateData().getGlobalTxId(), stateName());
+      long recoveryTime = System.currentTimeMillis() - recoveryBeginTime;
+      LOG.info("recovery completed [{}] state={} events={} time={}ms",
+          stateData().getGlobalTxId(), stateName(), recoveredEvents, recoveryTime);
+      timeoutArmedTime = System.currentTimeMillis();
+      SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(context().system())
+          .doRecovered(recoveredEvents, recoveryTime);
+    }
+    // a saga with a journal keeps writing to it
+    if (lastSequenceNr() > 0) {
+      journaling = true;
+    }
+  }
+
+  @Override
+  public void postStop() throws Exception {
+    if (flushTimer != null) {
+      flushTimer.cancel();
+    }
+    super.postStop();
+  }
+
+  /**
+   * A lazily persisted saga applies its events at once and keeps them in memory until it enters
+   * one of the flush states or outlives the max age, then writes them and all later events to
+   * the journal. The sagas ending before are never written.
+   */
+  @Override
+  public <A> void persistAll(Seq<A> events, Function1<A, BoxedUnit> handler) {
+    if (!journaling && (isFlushRequired(events) || System.currentTimeMillis() - sagaBeginTime
+        >= lazyPersistenceProperties.getMaxAge().toMillis())) {
+      flushDeferredEvents();
     }
+    if (journaling) {
+      super.persistAll(events, handler);
+    } else {
+      if (deferredEvents.isEmpty()) {
+        flushTimer = context().system().scheduler().scheduleOnce(
+            Duration.create(lazyPersistenceProperties.getMaxAge().toMillis(), TimeUnit.MILLISECONDS),
+            self(), FlushTick.INSTANCE, context().dispatcher(), self());
+      }
+      JavaConverters.seqAsJavaList(events).forEach(event -> {
+        deferredEvents.add(event);
+        handler.apply(event);
+      });
+    }
+  }
+
+  private <A> boolean isFlushRequired(Seq<A> events) {
+    return JavaConverters.seqAsJavaList(events).stream()
+        .anyMatch(event -> event instanceof StateChangeEvent && lazyPersistenceProperties
+            .getFlushStates().contains(
+                SagaActorState.valueOf(((StateChangeEvent) event).stateIdentifier())));
+  }
+
+  private void flushDeferredEvents() {
+    flushDeferredEvents(() -> {
+    });
+  }
+
+  // the callback runs once the last deferred event is written to the journal
+  private void flushDeferredEvents(Runnable flushed) {
+    journaling = true;
+    if (flushTimer != null) {
+      flushTimer.cancel();
+    }
+    if (!deferredEvents.isEmpty()) {
+      LOG.debug("flush [{}] {} events", stateData().getGlobalTxId(), deferredEvents.size());
+      List<Object> events = new ArrayList<>(deferredEvents);
+      Object lastEvent = events.get(events.size() - 1);
+      super.persistAll(JavaConverters.asScalaBuffer(events).toList(), event -> {
+        if (event == lastEvent) {
+          flushed.run();
+        }
+        return BoxedUnit.UNIT;
+      });
+      deferredEvents.clear();
+      SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER.get(context().system()).doJournalFlushed();
+    } else {
+      flushed.run();
+    }
+  }
+
+  private void requestSnapshot() {
+    if (!snapshotRequested) {
+      snapshotRequested = true;
+      self().tell(SnapshotTick.INSTANCE, self());
+    }
+  }
+
+  // the state timeout is kept with the snapshot, as the journal keeps it with the state changes
+  private void saveSagaSnapshot(SagaData data) {
+    SagaActorState state = stateName();
+    if (!journaling || data.getGlobalTxId() == null || data.isTerminated() || state == SagaActorState.COMMITTED
+        || state == SagaActorState.SUSPENDED || state == SagaActorState.COMPENSATED) {
+      return;
+    }
+    Option<FiniteDuration> timeout = Option.empty();
+    if (data.getExpirationTime() != null && TIMED_STATES.contains(state)) {
+      timeout = Option.apply(Duration.create(data.getTimeout(), TimeUnit.MILLISECONDS));
+    }
+    eventsSinceSnapshot = 0;
+    saveSnapshot(new PersistentFSMSnapshot<>(state.identifier(), data, timeout));
+  }
+
+  // any message cancels the state timeout, this arms it again for the time it had left so that
+  // the snapshot replies and the unhandled messages do not keep a saga from timing out
+  private State<SagaActorState, SagaData, DomainEvent> stayWithinTimeout(SagaData data) {
+    if (data.getExpirationTime() != null && TIMED_STATES.contains(stateName())) {
+      long remaining = timeoutArmedTime + data.getTimeout() - System.currentTimeMillis();
+      return stay().forMax(Duration.create(Math.max(remaining, 1), TimeUnit.MILLISECONDS));
+    }
+    return stay();
   }
 
   @Override
@@ -598,60 +844,142 @@ public class SagaActor extends
     return persistenceId;
   }
 
+  // the payloads are only needed to call the compensation method
+  private void releasePayloads(TxEntity txEntity, SagaData data) {
+    if (sagaDataProperties.isReleasePayloads()) {
+      txEntity.setPayloads(null);
+      data.getEventLog().releasePayloads(txEntity.getLocalTxId());
+    }
+  }
+
+  /**
+   * Compensates the last started sub transaction that is committed or whose compensation failed
+   * with retries left. Nothing is sent while a compensation is in flight or waiting for its retry,
+   * the walk continues when it settles, so the sub transactions are compensated one at a time in
+   * the reverse order they started.
+   */
+  private void compensateNext(DomainEvent event, SagaData data) {
+    if (data.getTxEntities().hasCompensationSentTx()) {
+      return;
+    }
+    TxEntity[] next = new TxEntity[1];
+    data.getTxEntities().forEachReverse((k, v) -> {
+      if (next[0] == null
+          && (v.getState() == TxState.COMMITTED
+          || v.getState() == TxState.COMPENSATED_FAILED && isRetryable(v))) {
+        next[0] = v;
+      }
+    });
+    if (next[0] != null) {
+      compensation(event, next[0], data);
+    }
+  }
+
+  private static boolean isRetryable(TxEntity txEntity) {
+    return txEntity.getReverseRetries() > 0 &&
+        txEntity.getRetriesCounter().get() < txEntity.getReverseRetries();
+  }
+
   //call omega compensate method
-  private boolean compensation(DomainEvent event, TxEntity txEntity, SagaData data) {
+  private void compensation(DomainEvent event, TxEntity txEntity, SagaData data) {
     // increments the compensation running counter by one
     data.getCompensationRunningCounter().incrementAndGet();
     txEntity.setState(TxState.COMPENSATION_SENT);
+    LOG.info("compensate {} {} [{}] {}", txEntity.getServiceName(), txEntity.getInstanceId(), txEntity.getGlobalTxId(), txEntity.getLocalTxId());
+    CompletableFuture<Void> ack;
     try {
-      LOG.info("compensate {} {} [{}] {}", txEntity.getServiceName(), txEntity.getInstanceId(), txEntity.getGlobalTxId(), txEntity.getLocalTxId());
-      SpringAkkaExtension.SPRING_EXTENSION_PROVIDER.get(context().system()).compensate(txEntity);
+      ack = SpringAkkaExtension.SPRING_EXTENSION_PROVIDER.get(context().system()).compensate(txEntity);
     } catch (Exception ex) {
-      LOG.error("compensate failed [{}] {}", txEntity.getGlobalTxId(), txEntity.getLocalTxId(), ex);
-      if (txEntity.getReverseRetries() > 0 &&
-          txEntity.getRetriesCounter().incrementAndGet() < txEntity.getReverseRetries()) {
-        LOG.info("Retry compensate {}/{} [{}] {} after {} ms",
-            txEntity.getRetriesCounter().get() + 1,
-            txEntity.getReverseRetries(),
-            txEntity.getGlobalTxId(),
-            txEntity.getLocalTxId(),
-            txEntity.getRetryDelayInMilliseconds());
-        try {
-          Thread.sleep(txEntity.getRetryDelayInMilliseconds());
-        } catch (InterruptedException e) {
-          LOG.error(e.getMessage(), e);
-        }
+      compensationFailed(txEntity, ex);
+      return;
+    }
+    // the ack itself reaches this actor as a TxCompensateAck event through the event channel,
+    // only failures have to be fed back from the callback thread
+    final ActorRef self = self();
+    final String localTxId = txEntity.getLocalTxId();
+    ack.whenComplete((v, ex) -> {
+      if (ex != null) {
+        self.tell(new CompensationFailed(localTxId,
+            ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex), self);
       }
-      if (ex instanceof TimeoutException) {
-        StringWriter writer = new StringWriter();
-        ex.printStackTrace(new PrintWriter(writer));
-        String stackTrace = writer.toString();
-        if (stackTrace.length() > Environment.getInstance().getPayloadsMaxLength()) {
-          stackTrace = stackTrace.substring(0, Environment.getInstance().getPayloadsMaxLength());
-        }
-        CompensateAckTimeoutEvent compensateAckTimeoutEvent = CompensateAckTimeoutEvent.builder()
-            .createTime(new Date(System.currentTimeMillis()))
-            .globalTxId(txEntity.getGlobalTxId())
-            .parentTxId(txEntity.getParentTxId())
-            .localTxId(txEntity.getLocalTxId())
-            .serviceName(txEntity.getServiceName())
-            .instanceId(txEntity.getInstanceId())
-            .payloads(stackTrace.getBytes())
-            .build();
-        self().tell(compensateAckTimeoutEvent, self());
+    });
+  }
+
+  private void compensationFailed(TxEntity txEntity, Throwable ex) {
+    LOG.error("compensate failed [{}] {}", txEntity.getGlobalTxId(), txEntity.getLocalTxId(), ex);
+    long retryDelay = 0;
+    if (txEntity.getReverseRetries() > 0 &&
+        txEntity.getRetriesCounter().incrementAndGet() < txEntity.getReverseRetries()) {
+      LOG.info("Retry compensate {}/{} [{}] {} after {} ms",
+          txEntity.getRetriesCounter().get() + 1,
+          txEntity.getReverseRetries(),
+          txEntity.getGlobalTxId(),
+          txEntity.getLocalTxId(),
+          txEntity.getRetryDelayInMilliseconds());
+      retryDelay = txEntity.getRetryDelayInMilliseconds();
+    }
+    BaseEvent failure = null;
+    if (ex instanceof TimeoutException) {
+      StringWriter writer = new StringWriter();
+      ex.printStackTrace(new PrintWriter(writer));
+      String stackTrace = writer.toString();
+      if (stackTrace.length() > Environment.getInstance().getPayloadsMaxLength()) {
+        stackTrace = stackTrace.substring(0, Environment.getInstance().getPayloadsMaxLength());
       }
-      if (ex instanceof AlphaException) {
-        self().tell(TxCompensateAckFailedEvent.builder()
-            .serviceName(txEntity.getServiceName())
-            .instanceId(txEntity.getInstanceId())
-            .globalTxId(txEntity.getGlobalTxId())
-            .localTxId(txEntity.getLocalTxId())
-            .parentTxId(txEntity.getParentTxId())
-            .payloads(ex.getMessage().getBytes())
-            .build(), self());
+      failure = CompensateAckTimeoutEvent.builder()
+          .createTime(new Date(System.currentTimeMillis()))
+          .globalTxId(txEntity.getGlobalTxId())
+          .parentTxId(txEntity.getParentTxId())
+          .localTxId(txEntity.getLocalTxId())
+          .serviceName(txEntity.getServiceName())
+          .instanceId(txEntity.getInstanceId())
+          .payloads(stackTrace.getBytes())
+          .build();
+    } else if (ex instanceof AlphaException) {
+      failure = TxCompensateAckFailedEvent.builder()
+          .serviceName(txEntity.getServiceName())
+          .instanceId(txEntity.getInstanceId())
+          .globalTxId(txEntity.getGlobalTxId())
+          .localTxId(txEntity.getLocalTxId())
+          .parentTxId(txEntity.getParentTxId())
+          .payloads(ex.getMessage().getBytes())
+          .build();
+    }
+    if (failure != null) {
+      // the retry is driven by the failure event, so delay it on the scheduler instead of
+      // sleeping on the dispatcher thread
+      if (retryDelay > 0) {
+        retryingTxIds.add(txEntity.getLocalTxId());
+        context().system().scheduler().scheduleOnce(
+            Duration.create(retryDelay, TimeUnit.MILLISECONDS), self(), new CompensationRetry(failure),
+            context().dispatcher(), self());
+      } else {
+        self().tell(failure, self());
       }
-      return false;
     }
-    return true;
   }
-}
\ No newline at end of file
+
+  /**
+   * Internal message that delivers the failure of a compensation once its retry delay elapsed.
+   */
+  private static final class CompensationRetry {
+    private final BaseEvent failure;
+
+    private CompensationRetry(BaseEvent failure) {
+      this.failure = failure;
+    }
+  }
+
+  /**
+   * Internal message that hands a failed compensation back to the actor thread.
+   */
+  private static final class CompensationFailed {
+    private final String localTxId;
+    private final Throwable cause;
+
+    private CompensationFailed(String localTxId, Throwable cause) {
+      this.localTxId = localTxId;
+      this.cause = cause;
+    }
+  }
+}
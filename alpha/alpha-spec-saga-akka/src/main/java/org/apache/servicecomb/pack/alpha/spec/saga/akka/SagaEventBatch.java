@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka;
+
+import java.util.List;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+
+/**
+ * Events handed to the {@link SagaShardRegionActor} in one message, they are routed in list order.
+ * The events may belong to different global transactions, so the batch is split into one message
+ * per event before it reaches the cluster sharding region, which has no entity id for a batch.
+ */
+public final class SagaEventBatch {
+
+  private final List<BaseEvent> events;
+
+  public SagaEventBatch(List<BaseEvent> events) {
+    this.events = events;
+  }
+
+  public List<BaseEvent> getEvents() {
+    return events;
+  }
+}
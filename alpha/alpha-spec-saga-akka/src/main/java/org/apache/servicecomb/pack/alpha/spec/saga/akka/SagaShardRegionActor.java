@@ -22,9 +22,18 @@ import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.cluster.sharding.ClusterSharding;
 import akka.cluster.sharding.ClusterShardingSettings;
+import akka.cluster.sharding.ShardCoordinator;
 import akka.cluster.sharding.ShardRegion;
+import com.google.common.hash.Hashing;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.LazyPersistenceProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SagaDataProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ShardingProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ShardingProperties.ShardHash;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SnapshotProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,8 +41,26 @@ public class SagaShardRegionActor extends AbstractActor {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private final ActorRef sagaActorRegion;
+  private final MetricsService metricsService;
+
+  /**
+   * Routes the events of a global transaction to the shard picked by the hash of the global
+   * transaction id. {@link ShardHash#HASH_CODE} keeps the shard ids of the earlier releases,
+   * {@link ShardHash#MURMUR3} spreads the similar ids evenly.
+   */
+  static class SagaMessageExtractor implements ShardRegion.MessageExtractor {
+
+    private final int numberOfShards;
+    private final ShardHash shardHash;
+
+    SagaMessageExtractor(int numberOfShards, ShardHash shardHash) {
+      if (numberOfShards < 1) {
+        throw new IllegalArgumentException("numberOfShards must be positive: " + numberOfShards);
+      }
+      this.numberOfShards = numberOfShards;
+      this.shardHash = shardHash;
+    }
 
-  static ShardRegion.MessageExtractor messageExtractor = new ShardRegion.MessageExtractor() {
     @Override
     public String entityId(Object message) {
       if (message instanceof BaseEvent) {
@@ -50,47 +77,76 @@ public class SagaShardRegionActor extends AbstractActor {
 
     @Override
     public String shardId(Object message) {
-      int numberOfShards = 10; // NOTE: Greater than the number of alpha nodes
       if (message instanceof BaseEvent) {
-        String actorId = ((BaseEvent) message).getGlobalTxId();
-        return String.valueOf(actorId.hashCode() % numberOfShards);
+        return shardIdOf(((BaseEvent) message).getGlobalTxId());
       } else if (message instanceof ShardRegion.StartEntity) {
-        String actorId = ((ShardRegion.StartEntity) message).entityId();
-        return String.valueOf(actorId.hashCode() % numberOfShards);
+        return shardIdOf(((ShardRegion.StartEntity) message).entityId());
       } else {
         return null;
       }
     }
-  };
 
-  public SagaShardRegionActor() {
+    String shardIdOf(String actorId) {
+      if (shardHash == ShardHash.MURMUR3) {
+        int hash = Hashing.murmur3_32().hashString(actorId, StandardCharsets.UTF_8).asInt();
+        return String.valueOf(Math.floorMod(hash, numberOfShards));
+      }
+      // negative for the negative hash codes, as before
+      return String.valueOf(actorId.hashCode() % numberOfShards);
+    }
+  }
+
+  public SagaShardRegionActor(ShardingProperties shardingProperties,
+      SnapshotProperties snapshotProperties, LazyPersistenceProperties lazyPersistenceProperties,
+      SagaDataProperties sagaDataProperties, MetricsService metricsService) {
+    this.metricsService = metricsService;
     ActorSystem system = getContext().getSystem();
     ClusterShardingSettings settings = ClusterShardingSettings.create(system);
     sagaActorRegion = ClusterSharding.get(system)
         .start(
             SagaActor.class.getSimpleName(),
-            SagaActor.props(null),
+            SagaActor.props(null, snapshotProperties, lazyPersistenceProperties,
+                sagaDataProperties),
             settings,
-            messageExtractor);
+            new SagaMessageExtractor(shardingProperties.getNumberOfShards(),
+                shardingProperties.getShardHash()),
+            new ShardCoordinator.LeastShardAllocationStrategy(
+                shardingProperties.isRebalanceEnabled() ? shardingProperties.getRebalanceThreshold()
+                    : Integer.MAX_VALUE,
+                shardingProperties.getMaxSimultaneousRebalance()),
+            SagaActor.FlushAndStop.INSTANCE);
   }
 
   @Override
   public Receive createReceive() {
     return receiveBuilder()
-        .matchAny(event -> {
-          if(event instanceof BaseEvent){
-            final BaseEvent evt = (BaseEvent) event;
-            if (LOG.isDebugEnabled()) {
-              LOG.debug("=> [{}] {} {}", evt.getGlobalTxId(), evt.getType(), evt.getLocalTxId());
-            }
-
-            sagaActorRegion.tell(event, getSelf());
-            if (LOG.isDebugEnabled()) {
-              LOG.debug("<= [{}] {} {}", evt.getGlobalTxId(), evt.getType(), evt.getLocalTxId());
-            }
-          }
-          getSender().tell("confirm", getSelf());
+        .match(BaseEvent.class, event -> {
+          long beginTime = System.currentTimeMillis();
+          route(event);
+          metricsService.metrics().doRoutingAvgTime(System.currentTimeMillis() - beginTime);
+          confirm();
+        })
+        .match(SagaEventBatch.class, batch -> {
+          long beginTime = System.currentTimeMillis();
+          batch.getEvents().forEach(this::route);
+          metricsService.metrics().doRoutingAvgTime(System.currentTimeMillis() - beginTime);
+          confirm();
         })
         .build();
   }
+
+  private void route(BaseEvent event) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("=> [{}] {} {}", event.getGlobalTxId(), event.getType(), event.getLocalTxId());
+    }
+    sagaActorRegion.tell(event, getSelf());
+  }
+
+  // only the consumers asking for the delivery wait for a reply, the others tell without a sender
+  private void confirm() {
+    ActorRef sender = getSender();
+    if (!sender.equals(getContext().getSystem().deadLetters()) && !sender.equals(getSelf())) {
+      sender.tell("confirm", getSelf());
+    }
+  }
 }
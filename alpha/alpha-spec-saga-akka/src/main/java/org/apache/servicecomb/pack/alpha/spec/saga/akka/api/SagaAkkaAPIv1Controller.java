@@ -17,11 +17,13 @@
 
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.api;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.api.APIv1;
 import org.apache.servicecomb.pack.alpha.core.metrics.AlphaMetrics;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -54,13 +56,35 @@ public class SagaAkkaAPIv1Controller {
     return ResponseEntity.ok(apIv1.getTransactions(null,page,size));
   }
 
+  @GetMapping(value = "/transaction/search")
+  public ResponseEntity<PagingGlobalTransactions> searchTransactions(
+      @RequestParam(value = "state", required = false) String state,
+      @RequestParam(value = "serviceName", required = false) String serviceName,
+      @RequestParam(value = "beginTimeFrom", required = false) Long beginTimeFrom,
+      @RequestParam(value = "beginTimeTo", required = false) Long beginTimeTo,
+      @RequestParam(value = "size", required = false, defaultValue = "50") int size,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "trackTotalHits", required = false, defaultValue = "false") boolean trackTotalHits)
+      throws Exception {
+    return ResponseEntity.ok(apIv1.getTransactions(GlobalTransactionQuery.builder()
+        .state(state)
+        .serviceName(serviceName)
+        .beginTimeFrom(beginTimeFrom == null ? null : new Date(beginTimeFrom))
+        .beginTimeTo(beginTimeTo == null ? null : new Date(beginTimeTo))
+        .size(size)
+        .cursor(cursor)
+        .trackTotalHits(trackTotalHits)
+        .build()));
+  }
+
   @GetMapping(value = "/transaction/statistics")
   public ResponseEntity<Map<String,Long>> getTransactionStatistics() throws Exception {
     return ResponseEntity.ok(apIv1.getTransactionStatistics());
   }
 
   @GetMapping(value = "/transaction/slow")
-  public ResponseEntity<List<GlobalTransaction>> getSlowTransactions(@RequestParam(name="size", defaultValue = "10") int size) throws Exception {
-    return ResponseEntity.ok(apIv1.getSlowTransactions(size));
+  public ResponseEntity<List<GlobalTransaction>> getSlowTransactions(@RequestParam(name="size", defaultValue = "10") int size,
+      @RequestParam(name = "serviceName", required = false) String serviceName) throws Exception {
+    return ResponseEntity.ok(apIv1.getSlowTransactions(serviceName, size));
   }
 }
@@ -21,9 +21,11 @@ import java.util.List;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.api.APIv1;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.apache.servicecomb.pack.alpha.core.metrics.AlphaMetrics;
 import org.apache.servicecomb.pack.alpha.core.metrics.AlphaMetricsEndpoint;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionService;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -35,6 +37,9 @@ public class SagaAkkaAPIv1Impl implements APIv1 {
   @Autowired(required = false)
   TransactionRepository transactionRepository;
 
+  @Autowired
+  SlowTransactionService slowTransactionService;
+
   public AlphaMetrics getMetrics() {
     AlphaMetrics alphaMetrics = new AlphaMetrics();
     alphaMetrics.setMetrics(alphaMetricsEndpoint.getMetrics());
@@ -56,11 +61,20 @@ public class SagaAkkaAPIv1Impl implements APIv1 {
     return pagingGlobalTransactions;
   }
 
+  public PagingGlobalTransactions getTransactions(GlobalTransactionQuery query)
+      throws Exception {
+    return transactionRepository.getGlobalTransactions(query);
+  }
+
   public Map<String, Long> getTransactionStatistics() {
     return transactionRepository.getTransactionStatistics();
   }
 
   public List<GlobalTransaction> getSlowTransactions(int size) {
-    return transactionRepository.getSlowGlobalTransactionsTopN(size);
+    return getSlowTransactions(null, size);
+  }
+
+  public List<GlobalTransaction> getSlowTransactions(String serviceName, int size) {
+    return slowTransactionService.getSlowTransactions(serviceName, size);
   }
 }
@@ -17,6 +17,8 @@
 
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.channel;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
@@ -49,4 +51,33 @@ public abstract class AbstractActorEventChannel implements ActorEventChannel {
     metricsService.metrics().doEventAvgTime(end - begin);
   }
 
+  // channels backed by an asynchronous client override it to hand the event over without blocking
+  protected CompletionStage<Void> sendToAsync(BaseEvent event) {
+    this.sendTo(event);
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletionStage<Void> sendAsync(BaseEvent event) {
+    long begin = System.currentTimeMillis();
+    metricsService.metrics().doEventReceived();
+    CompletionStage<Void> sent;
+    try {
+      sent = this.sendToAsync(event);
+    } catch (Exception ex) {
+      CompletableFuture<Void> failed = new CompletableFuture<>();
+      failed.completeExceptionally(ex);
+      sent = failed;
+    }
+    return sent.whenComplete((done, ex) -> {
+      if (ex == null) {
+        metricsService.metrics().doEventAccepted();
+      } else {
+        logger.error("send Exception = [{}]", ex.getMessage(), ex);
+        metricsService.metrics().doEventRejected();
+      }
+      metricsService.metrics().doEventAvgTime(System.currentTimeMillis() - begin);
+    });
+  }
+
 }
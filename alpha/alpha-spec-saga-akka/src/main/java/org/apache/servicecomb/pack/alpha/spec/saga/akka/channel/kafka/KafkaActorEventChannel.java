@@ -23,6 +23,7 @@ import java.lang.invoke.MethodHandles;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.CreateTopicsResult;
@@ -71,9 +72,7 @@ public class KafkaActorEventChannel extends AbstractActorEventChannel {
 
     // create producer
     this.kafkaMessagePublisher = new KafkaMessagePublisher(
-        specSagaAkkaProperties.getChannel().getKafka().getBootstrapServers(),
-        specSagaAkkaProperties.getChannel().getKafka().getTopic(),
-        specSagaAkkaProperties.getChannel().getKafka().getProducer());
+        specSagaAkkaProperties.getChannel().getKafka());
     LOG.info("Kafka Channel Init");
   }
 
@@ -81,4 +80,9 @@ public class KafkaActorEventChannel extends AbstractActorEventChannel {
   public void sendTo(BaseEvent event) {
     kafkaMessagePublisher.publish(event);
   }
+
+  @Override
+  protected CompletionStage<Void> sendToAsync(BaseEvent event) {
+    return kafkaMessagePublisher.publishAsync(event);
+  }
 }
@@ -19,46 +19,103 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.kafka;
 
 import com.google.common.collect.Maps;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.MessagePublisher;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BaseEventCodec;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ChannelKafkaProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 public class KafkaMessagePublisher implements MessagePublisher<BaseEvent> {
 
     private static final Logger LOG = LoggerFactory.getLogger(KafkaMessagePublisher.class);
 
     private String topic;
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final BaseEventCodec codec = new BaseEventCodec();
+    private final Semaphore inflight;
 
-    public KafkaMessagePublisher(String bootstrap_servers, String topic, Map<String,String> producerConfigMap) {
-        this.topic = topic;
+    public KafkaMessagePublisher(ChannelKafkaProperties kafkaProperties) {
+        this(kafkaProperties, createKafkaTemplate(kafkaProperties));
+    }
+
+    KafkaMessagePublisher(ChannelKafkaProperties kafkaProperties,
+        KafkaTemplate<String, byte[]> kafkaTemplate) {
+        this.topic = kafkaProperties.getTopic();
+        this.inflight = new Semaphore(kafkaProperties.getMaxInflight());
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    private static KafkaTemplate<String, byte[]> createKafkaTemplate(
+        ChannelKafkaProperties kafkaProperties) {
         Map<String, Object> map = Maps.newHashMap();
-        producerConfigMap.forEach((k, v) -> map.put(k, v));
-        map.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG,bootstrap_servers);
+        map.put(ProducerConfig.LINGER_MS_CONFIG, kafkaProperties.getLinger().toMillis());
+        map.put(ProducerConfig.BATCH_SIZE_CONFIG, kafkaProperties.getProducerBatchSize());
+        map.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, kafkaProperties.getCompressionType());
+        map.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, kafkaProperties.getMaxBlock().toMillis());
+        if (kafkaProperties.getProducer() != null) {
+            kafkaProperties.getProducer().forEach((k, v) -> map.put(k, v));
+        }
+        map.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers());
         map.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        map.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        this.kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(map));
+        map.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(map));
     }
 
     @Override
     public void publish(BaseEvent data) {
-        if(LOG.isDebugEnabled()){
-            LOG.debug("send [{}] {} {}", data.getGlobalTxId(), data.getType(), data.getLocalTxId());
-        }
         try {
-            kafkaTemplate.send(topic, data.getGlobalTxId(), data).get();
+            publishAsync(data).toCompletableFuture().get();
         } catch (InterruptedException | ExecutionException | UnsupportedOperationException e) {
-            if (e.getCause() instanceof InterruptedException) {
+            if (e instanceof InterruptedException || e.getCause() instanceof InterruptedException) {
                 Thread.currentThread().interrupt();
             }
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Hands the event to the producer, which batches the events of a partition, and completes
+     * the returned stage from the producer callback once the broker acknowledged the event.
+     * An event beyond the max inflight events fails at once. The calling gRPC thread only blocks
+     * while the producer fetches the topic metadata or waits for buffer space, at most for the
+     * configured max block time.
+     */
+    @Override
+    public CompletionStage<Void> publishAsync(BaseEvent data) {
+        if(LOG.isDebugEnabled()){
+            LOG.debug("send [{}] {} {}", data.getGlobalTxId(), data.getType(), data.getLocalTxId());
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!inflight.tryAcquire()) {
+            future.completeExceptionally(new RejectedExecutionException(
+                "Too many events waiting for Kafka, rejected [" + data.getGlobalTxId() + "]"));
+            return future;
+        }
+        try {
+            kafkaTemplate.send(topic, data.getGlobalTxId(), codec.encode(data)).addCallback(
+                result -> {
+                    inflight.release();
+                    future.complete(null);
+                },
+                ex -> {
+                    inflight.release();
+                    future.completeExceptionally(ex);
+                });
+        } catch (RuntimeException e) {
+            inflight.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 }
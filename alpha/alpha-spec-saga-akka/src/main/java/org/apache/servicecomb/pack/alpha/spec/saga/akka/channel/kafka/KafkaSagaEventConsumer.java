@@ -19,91 +19,153 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.kafka;
 
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
+import akka.actor.Cancellable;
+import akka.kafka.CommitterSettings;
 import akka.kafka.ConsumerMessage;
+import akka.kafka.ConsumerMessage.CommittableMessage;
+import akka.kafka.ConsumerMessage.CommittableOffsetBatch;
 import akka.kafka.ConsumerSettings;
 import akka.kafka.Subscriptions;
+import akka.kafka.javadsl.Committer;
 import akka.kafka.javadsl.Consumer;
 import akka.pattern.Patterns;
 import akka.stream.ActorMaterializer;
 import akka.stream.Materializer;
-import akka.stream.javadsl.Sink;
-import akka.util.Timeout;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import akka.stream.javadsl.Keep;
 import com.typesafe.config.Config;
 import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BaseEventCodec;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaEventBatch;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.AbstractEventConsumer;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ChannelKafkaProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import scala.concurrent.Await;
-import scala.concurrent.Future;
-import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
 
+/**
+ * Consumes every assigned topic partition in its own sub-stream. The events of a global
+ * transaction share a partition because they are keyed by the global transaction id, so a
+ * sub-stream asking the shard region for its batches in order keeps their order, and the
+ * offsets of a batch are committed only once the shard region has accepted it.
+ */
 public class KafkaSagaEventConsumer extends AbstractEventConsumer {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-  final String groupId = "servicecomb-pack";
-  final ObjectMapper jsonMapper = new ObjectMapper();
+  final BaseEventCodec codec = new BaseEventCodec();
+  private final Duration askTimeout;
+  private final Consumer.DrainingControl<?> control;
+  private final Cancellable lagSampler;
 
   public KafkaSagaEventConsumer(ActorSystem actorSystem, ActorRef sagaShardRegionActor,
-      MetricsService metricsService, String bootstrap_servers, String topic, Map<String,String> consumerConfigMap) {
+      MetricsService metricsService, ChannelKafkaProperties kafkaProperties) {
     super(actorSystem, sagaShardRegionActor, metricsService);
-
+    this.askTimeout = kafkaProperties.getAskTimeout();
 
     // init consumer
     final Materializer materializer = ActorMaterializer.create(actorSystem);
     final Config consumerConfig = actorSystem.settings().config().getConfig("akka.kafka.consumer");
-    final ConsumerSettings<String, String> consumerSettings =
+    ConsumerSettings<String, byte[]> consumerSettings =
         ConsumerSettings
-            .create(consumerConfig, new StringDeserializer(), new StringDeserializer())
-            .withBootstrapServers(bootstrap_servers)
-            .withGroupId(groupId)
+            .create(consumerConfig, new StringDeserializer(), new ByteArrayDeserializer())
+            .withBootstrapServers(kafkaProperties.getBootstrapServers())
+            .withGroupId(kafkaProperties.getGroupId())
             .withProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false")
-            .withProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
-            .withProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, "StringDeserializer.class")
-            .withProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, "StringDeserializer.class");
-    consumerConfigMap.forEach((k,v) -> consumerSettings.withProperty(k,v));
-    Consumer.committableSource(consumerSettings, Subscriptions.topics(topic))
-        .mapAsync(20, event -> {
-          BaseEvent bean = jsonMapper.readValue(event.record().value(), BaseEvent.class);
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("receive [{}] {} {}", bean.getGlobalTxId(), bean.getType(), bean.getLocalTxId());
-          }
-          return sendSagaActor(bean).thenApply(done -> event.committableOffset());
-        })
-        .batch(
-            100,
-            ConsumerMessage::createCommittableOffsetBatch,
-            ConsumerMessage.CommittableOffsetBatch::updated
-        )
-        .mapAsync(20, offset -> offset.commitJavadsl())
-        .to(Sink.ignore())
+            .withProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    if (kafkaProperties.getConsumer() != null) {
+      for (Map.Entry<String, String> entry : kafkaProperties.getConsumer().entrySet()) {
+        consumerSettings = consumerSettings.withProperty(entry.getKey(), entry.getValue());
+      }
+    }
+    final CommitterSettings committerSettings = CommitterSettings.create(actorSystem)
+        .withMaxBatch(kafkaProperties.getCommitBatchSize());
+    this.control = Consumer
+        .committablePartitionedSource(consumerSettings,
+            Subscriptions.topics(kafkaProperties.getTopic()))
+        .flatMapMerge(kafkaProperties.getMaxPartitions(), partition -> partition.second()
+            .groupedWithin(kafkaProperties.getBatchSize(), kafkaProperties.getBatchWindow())
+            .mapAsync(kafkaProperties.getParallelism(), this::sendSagaActor))
+        .toMat(Committer.sink(committerSettings), Keep.both())
+        .mapMaterializedValue(Consumer::createDrainingControl)
         .run(materializer);
+    this.control.isShutdown().whenComplete((done, ex) -> {
+      if (ex != null) {
+        LOG.error("Kafka saga event consumer stopped", ex);
+      }
+    });
+
+    long lagInterval = kafkaProperties.getLagInterval().toMillis();
+    this.lagSampler = actorSystem.scheduler().schedule(
+        FiniteDuration.create(lagInterval, TimeUnit.MILLISECONDS),
+        FiniteDuration.create(lagInterval, TimeUnit.MILLISECONDS),
+        this::sampleConsumerLag, actorSystem.dispatcher());
+  }
+
+  public void shutdown() {
+    lagSampler.cancel();
+    control.drainAndShutdown(actorSystem.dispatcher());
+  }
+
+  // the batch is asked for without blocking, its offsets are committed when the shard region confirms it
+  private CompletionStage<CommittableOffsetBatch> sendSagaActor(
+      List<CommittableMessage<String, byte[]>> messages) {
+    List<BaseEvent> events = new ArrayList<>(messages.size());
+    for (CommittableMessage<String, byte[]> message : messages) {
+      BaseEvent event = codec.decode(message.record().value());
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("receive [{}] {} {}", event.getGlobalTxId(), event.getType(), event.getLocalTxId());
+      }
+      events.add(event);
+    }
+    long begin = System.currentTimeMillis();
+    metricsService.metrics().doActorReceived(events.size());
+    Object message = events.size() == 1 ? events.get(0) : new SagaEventBatch(events);
+    return Patterns.ask(sagaShardRegionActor, message, askTimeout)
+        .handle((reply, ex) -> {
+          if (ex != null) {
+            LOG.error(ex.getMessage(), ex);
+            metricsService.metrics().doActorRejected(events.size());
+            throw new IllegalStateException("Shard region did not accept " + events.size() + " events", ex);
+          }
+          metricsService.metrics().doActorAccepted(events.size());
+          metricsService.metrics().doActorAvgTime(System.currentTimeMillis() - begin);
+          CommittableOffsetBatch offsets = ConsumerMessage.emptyCommittableOffsetBatch();
+          for (CommittableMessage<String, byte[]> committable : messages) {
+            offsets = offsets.updated(committable.committableOffset());
+          }
+          return offsets;
+        });
+  }
+
+  private void sampleConsumerLag() {
+    control.getMetrics().thenAccept(metrics -> metricsService.metrics()
+        .setChannelConsumerLag(consumerLag(metrics)));
   }
 
-  private CompletionStage<String> sendSagaActor(BaseEvent event) {
-    try {
-      long begin = System.currentTimeMillis();
-      metricsService.metrics().doActorReceived();
-      // Use the synchronous method call to ensure that Kafka's Offset is set after the delivery is successful.
-      Timeout timeout = new Timeout(Duration.create(10, "seconds"));
-      Future<Object> future = Patterns.ask(sagaShardRegionActor, event, timeout);
-      Await.result(future, timeout.duration());
-      long end = System.currentTimeMillis();
-      metricsService.metrics().doActorAccepted();
-      metricsService.metrics().doActorAvgTime(end - begin);
-      return CompletableFuture.completedFuture("OK");
-    } catch (Exception ex) {
-      LOG.error(ex.getMessage(),ex);
-      metricsService.metrics().doActorRejected();
-      throw new CompletionException(ex);
+  // sums the records-lag of every assigned partition reported by the Kafka consumer
+  static long consumerLag(Map<MetricName, Metric> metrics) {
+    long lag = 0;
+    for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+      MetricName name = entry.getKey();
+      if ("records-lag".equals(name.name()) && name.tags().containsKey("partition")) {
+        Object value = entry.getValue().metricValue();
+        if (value instanceof Number && !Double.isNaN(((Number) value).doubleValue())) {
+          lag += ((Number) value).longValue();
+        }
+      }
     }
+    return lag;
   }
 }
@@ -17,36 +17,156 @@
 
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.memory;
 
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.IgnoreExceptionHandler;
+import com.lmax.disruptor.LiteBlockingWaitStrategy;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
 import java.lang.invoke.MethodHandles;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.AbstractActorEventChannel;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Buffers the events in bounded ring buffers partitioned by the global transaction id, so the events
+ * of one saga stay in order while the sagas are consumed by one thread per partition. Senders block
+ * while the partition of their saga is full.
+ */
 public class MemoryActorEventChannel extends AbstractActorEventChannel {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
-  private final LinkedBlockingQueue<BaseEvent> eventQueue;
-  private int size;
 
-  public MemoryActorEventChannel(MetricsService metricsService, int size) {
-    super(metricsService);
-    this.size = size > 0 ? size : Integer.MAX_VALUE;
-    eventQueue = new LinkedBlockingQueue(this.size);
+  static final int DEFAULT_PARTITION_SIZE = 16384;
+
+  private final List<RingBuffer<EventHolder>> partitions;
+
+  private final List<BatchEventProcessor<EventHolder>> processors;
+
+  private Consumer<List<BaseEvent>> consumer;
+
+  private int batchSize;
+
+  public MemoryActorEventChannel(MetricsService metricsService, int maxLength) {
+    this(metricsService, maxLength, -1, "blocking");
   }
 
-  public LinkedBlockingQueue<BaseEvent> getEventQueue() {
-    return eventQueue;
+  public MemoryActorEventChannel(MetricsService metricsService, int maxLength, int partitionCount,
+      String waitStrategy) {
+    super(metricsService);
+    int count = partitionCount > 0 ? partitionCount : Runtime.getRuntime().availableProcessors();
+    int partitionSize = maxLength > 0
+        ? ceilingPowerOfTwo((maxLength + count - 1) / count) : DEFAULT_PARTITION_SIZE;
+    this.partitions = new ArrayList<>(count);
+    this.processors = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      RingBuffer<EventHolder> partition = RingBuffer
+          .createMultiProducer(EventHolder::new, partitionSize, waitStrategyOf(waitStrategy));
+      BatchEventProcessor<EventHolder> processor = new BatchEventProcessor<>(partition,
+          partition.newBarrier(), new PartitionHandler());
+      processor.setExceptionHandler(new IgnoreExceptionHandler());
+      // senders wait for the processor from the beginning, nothing is overwritten before it starts
+      partition.addGatingSequences(processor.getSequence());
+      partitions.add(partition);
+      processors.add(processor);
+    }
+    LOG.info("Memory channel with {} partitions of {} events", count, partitionSize);
   }
 
   @Override
   public void sendTo(BaseEvent event) {
+    RingBuffer<EventHolder> partition = partitions
+        .get(Math.floorMod(event.getGlobalTxId().hashCode(), partitions.size()));
+    long sequence = partition.next();
     try {
-      eventQueue.put(event);
-    } catch (Exception e) {
-      throw new RuntimeException(e);
+      partition.get(sequence).event = event;
+    } finally {
+      partition.publish(sequence);
+    }
+  }
+
+  /**
+   * Starts one thread per partition handing the events to the consumer in lists of at most
+   * {@code batchSize} events, the lists are reused once the consumer returns.
+   */
+  public void start(Consumer<List<BaseEvent>> consumer, int batchSize) {
+    this.consumer = consumer;
+    this.batchSize = Math.max(batchSize, 1);
+    for (int i = 0; i < processors.size(); i++) {
+      Thread thread = new Thread(processors.get(i), "MemorySagaEventConsumer-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  public void stop() {
+    processors.forEach(BatchEventProcessor::halt);
+  }
+
+  public int getPartitionCount() {
+    return partitions.size();
+  }
+
+  public long getQueueDepth() {
+    long depth = 0;
+    for (RingBuffer<EventHolder> partition : partitions) {
+      depth += partition.getBufferSize() - partition.remainingCapacity();
+    }
+    return depth;
+  }
+
+  static int ceilingPowerOfTwo(int value) {
+    return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  static WaitStrategy waitStrategyOf(String name) {
+    switch (name) {
+      case "blocking":
+        return new BlockingWaitStrategy();
+      case "lite-blocking":
+        return new LiteBlockingWaitStrategy();
+      case "sleeping":
+        return new SleepingWaitStrategy();
+      case "yielding":
+        return new YieldingWaitStrategy();
+      default:
+        throw new IllegalArgumentException("Unknown wait strategy " + name);
+    }
+  }
+
+  static class EventHolder {
+    BaseEvent event;
+  }
+
+  private class PartitionHandler implements EventHandler<EventHolder> {
+
+    private final List<BaseEvent> events = new ArrayList<>();
+
+    @Override
+    public void onEvent(EventHolder holder, long sequence, boolean endOfBatch) {
+      BaseEvent event = holder.event;
+      holder.event = null;
+      events.add(event);
+      if (event.getCreateTimeMillis() != 0) {
+        metricsService.metrics()
+            .doChannelAvgTime(System.currentTimeMillis() - event.getCreateTimeMillis());
+      }
+      if (endOfBatch || events.size() >= batchSize) {
+        try {
+          consumer.accept(events);
+        } finally {
+          events.clear();
+          metricsService.metrics().setChannelQueueDepth(getQueueDepth());
+        }
+      }
     }
   }
 }
@@ -20,7 +20,10 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.memory;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaEventBatch;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.AbstractEventConsumer;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
 import org.slf4j.Logger;
@@ -32,38 +35,30 @@ public class MemorySagaEventConsumer extends AbstractEventConsumer {
   final MemoryActorEventChannel channel;
 
   public MemorySagaEventConsumer(ActorSystem actorSystem, ActorRef sagaShardRegionActor, MetricsService metricsService,
-      MemoryActorEventChannel channel) {
+      MemoryActorEventChannel channel, int batchSize) {
     super(actorSystem, sagaShardRegionActor, metricsService);
     this.channel = channel;
-    new Thread(new MemorySagaEventConsumer.EventConsumer(), "MemorySagaEventConsumer").start();
+    channel.start(this::sendSagaActor, batchSize);
   }
 
-  class EventConsumer implements Runnable {
-
-    @Override
-    public void run() {
-      while (true) {
-        try {
-          BaseEvent event = channel.getEventQueue().peek();
-          if (event != null) {
-            if (LOG.isDebugEnabled()) {
-              LOG.debug("event {}", event);
-            }
-            long begin = System.currentTimeMillis();
-            metricsService.metrics().doActorReceived();
-            sagaShardRegionActor.tell(event, sagaShardRegionActor);
-            long end = System.currentTimeMillis();
-            metricsService.metrics().doActorAccepted();
-            metricsService.metrics().doActorAvgTime(end - begin);
-            channel.getEventQueue().poll();
-          } else {
-            Thread.sleep(10);
-          }
-        } catch (Exception ex) {
-          metricsService.metrics().doActorRejected();
-          LOG.error(ex.getMessage(), ex);
-        }
+  private void sendSagaActor(List<BaseEvent> events) {
+    try {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("events {}", events);
+      }
+      long begin = System.currentTimeMillis();
+      metricsService.metrics().doActorReceived(events.size());
+      if (events.size() == 1) {
+        sagaShardRegionActor.tell(events.get(0), ActorRef.noSender());
+      } else {
+        sagaShardRegionActor.tell(new SagaEventBatch(new ArrayList<>(events)), ActorRef.noSender());
       }
+      long end = System.currentTimeMillis();
+      metricsService.metrics().doActorAccepted(events.size());
+      metricsService.metrics().doActorAvgTime(end - begin);
+    } catch (Exception ex) {
+      metricsService.metrics().doActorRejected(events.size());
+      LOG.error(ex.getMessage(), ex);
     }
   }
 }
@@ -20,9 +20,12 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.rabbit;
 import java.lang.invoke.MethodHandles;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.MessagePublisher;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BaseEventCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeTypeUtils;
 
 public class RabbitMessagePublisher implements MessagePublisher<BaseEvent> {
 
@@ -31,6 +34,7 @@ public class RabbitMessagePublisher implements MessagePublisher<BaseEvent> {
 
     private RabbitMessageChannel producerMessage;
     private int partitionCount;
+    private final BaseEventCodec codec = new BaseEventCodec();
 
     public RabbitMessagePublisher(int partitionCount, RabbitMessageChannel producerMessage) {
 
@@ -48,7 +52,9 @@ public class RabbitMessagePublisher implements MessagePublisher<BaseEvent> {
             LOG.debug("send message [{}] to [{}]", data, partitionIndex);
         }
         // the headerName must consistent with partition key expression of spring cloud stream
-        producerMessage.messageChannel().send(MessageBuilder.withPayload(data).setHeader("partitionKey", partitionIndex).build());
+        producerMessage.messageChannel().send(MessageBuilder.withPayload(codec.encode(data))
+            .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM_VALUE)
+            .setHeader("partitionKey", partitionIndex).build());
 
     }
 }
@@ -26,6 +26,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BaseEventCodec;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.AbstractEventConsumer;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
 import org.slf4j.Logger;
@@ -37,6 +38,7 @@ import scala.concurrent.duration.Duration;
 
 public class RabbitSagaEventConsumer extends AbstractEventConsumer {
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private final BaseEventCodec codec = new BaseEventCodec();
     public RabbitSagaEventConsumer(ActorSystem actorSystem, ActorRef sagaShardRegionActor,
                                    MetricsService metricsService) {
         super(actorSystem, sagaShardRegionActor, metricsService);
@@ -44,8 +46,8 @@ public class RabbitSagaEventConsumer extends AbstractEventConsumer {
     }
 
     @StreamListener(RabbitMessageChannel.SERVICE_COMB_PACK_CONSUMER)
-    public void receive(BaseEvent baseEvent) {
-        sendSagaActor(baseEvent);
+    public void receive(byte[] message) {
+        sendSagaActor(codec.decode(message));
     }
 
 
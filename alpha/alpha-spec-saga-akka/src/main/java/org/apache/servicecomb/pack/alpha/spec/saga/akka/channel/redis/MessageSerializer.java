@@ -16,72 +16,35 @@
  */
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.redis;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.lang.invoke.MethodHandles;
 import java.util.Optional;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BaseEventCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.serializer.RedisSerializer;
-import org.springframework.data.redis.serializer.SerializationException;
 
 public class MessageSerializer {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-  private static MessageSerializerImpl serializer = null;
-
-  public MessageSerializer() {
-    serializer = new MessageSerializerImpl();
-  }
+  private final BaseEventCodec codec = new BaseEventCodec();
 
   public Optional<byte[]> serializer(Object data) {
-    return Optional.ofNullable(serializer.serialize(data));
+    try {
+      return Optional.of(codec.encode((BaseEvent) data));
+    } catch (Exception e) {
+      LOG.error("serialize Exception = [{}]", e.getMessage(), e);
+    }
+    return Optional.empty();
   }
 
+  // also reads the Java serialized events published before the binary codec
   public Optional<Object> deserialize(byte[] bytes) {
-    return Optional.ofNullable(serializer.deserialize(bytes));
-  }
-
-  private class MessageSerializerImpl implements RedisSerializer<Object> {
-
-    @Override
-    public byte[] serialize(Object data) throws SerializationException {
-      try {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        ObjectOutputStream outputStream = new ObjectOutputStream(byteArrayOutputStream);
-        outputStream.writeObject(data);
-
-        byte[] bytes = byteArrayOutputStream.toByteArray();
-
-        outputStream.close();
-
-        return bytes;
-      } catch (Exception e) {
-        LOG.error("serialize Exception = [{}]", e.getMessage(), e);
-      }
-
-      return null;
-    }
-
-    @Override
-    public Object deserialize(byte[] bytes) throws SerializationException {
-      try {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
-        ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream);
-
-        Object object = objectInputStream.readObject();
-
-        objectInputStream.close();
-
-        return object;
-      } catch (Exception e) {
-        LOG.error("deserialize Exception = [{}]", e.getMessage(), e);
-      }
-
-      return null;
+    try {
+      return Optional.of(codec.decode(bytes));
+    } catch (Exception e) {
+      LOG.error("deserialize Exception = [{}]", e.getMessage(), e);
     }
+    return Optional.empty();
   }
 }
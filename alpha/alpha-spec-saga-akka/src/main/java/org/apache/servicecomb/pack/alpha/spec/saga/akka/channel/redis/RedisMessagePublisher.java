@@ -18,10 +18,12 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.redis;
 
 
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
 import org.apache.servicecomb.pack.alpha.core.fsm.channel.MessagePublisher;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
 
@@ -31,6 +33,7 @@ public class RedisMessagePublisher implements MessagePublisher<BaseEvent> {
 
   private RedisTemplate<String, Object> redisTemplate;
   private ChannelTopic channelTopic;
+  private MessageSerializer messageSerializer = new MessageSerializer();
 
   public RedisMessagePublisher(RedisTemplate<String, Object> redisTemplate,
       ChannelTopic channelTopic) {
@@ -43,7 +46,10 @@ public class RedisMessagePublisher implements MessagePublisher<BaseEvent> {
     if (LOG.isDebugEnabled()) {
       LOG.debug("send message [{}] to [{}]", data, channelTopic.getTopic());
     }
-    redisTemplate.convertAndSend(channelTopic.getTopic(), data);
+    byte[] channel = channelTopic.getTopic().getBytes(StandardCharsets.UTF_8);
+    byte[] message = messageSerializer.serializer(data)
+        .orElseThrow(() -> new IllegalArgumentException("Cannot serialize " + data.getType()));
+    redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, message));
 
   }
 }
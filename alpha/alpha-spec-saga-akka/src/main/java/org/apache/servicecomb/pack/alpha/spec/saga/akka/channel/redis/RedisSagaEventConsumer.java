@@ -53,7 +53,7 @@ public class RedisSagaEventConsumer extends AbstractEventConsumer implements Mes
         try {
           long begin = System.currentTimeMillis();
           metricsService.metrics().doActorReceived();
-          sagaShardRegionActor.tell(event, sagaShardRegionActor);
+          sagaShardRegionActor.tell(event, ActorRef.noSender());
           long end = System.currentTimeMillis();
           metricsService.metrics().doActorAccepted();
           metricsService.metrics().doActorAvgTime(end - begin);
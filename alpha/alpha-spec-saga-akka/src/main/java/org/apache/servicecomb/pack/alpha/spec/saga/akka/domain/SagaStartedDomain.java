@@ -17,8 +17,8 @@
 
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.domain;
 
-import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 
@@ -30,10 +30,8 @@ public class SagaStartedDomain implements DomainEvent {
   public SagaStartedDomain(SagaStartedEvent event) {
     this.event = event;
     if (event.getTimeout() > 0) {
-      Calendar calendar = Calendar.getInstance();
-      calendar.setTime(event.getCreateTime());
-      calendar.add(Calendar.SECOND, event.getTimeout());
-      this.expirationTime = calendar.getTime();
+      this.expirationTime = new Date(
+          event.getCreateTimeMillis() + TimeUnit.SECONDS.toMillis(event.getTimeout()));
     }
   }
 
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics;
+
+import java.util.ArrayList;
+import java.util.Date;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+
+/**
+ * Summary of an ended global transaction kept by {@link SlowTransactionTracker}, without the
+ * sub transactions and events so that it is cheap to hold and to send to other alpha nodes.
+ */
+public class SlowTransaction {
+
+  private final String globalTxId;
+  private final TransactionType type;
+  private final String serviceName;
+  private final String instanceId;
+  private final long beginTime;
+  private final long endTime;
+  private final String state;
+  private final Integer subTxSize;
+  private final SuspendedType suspendedType;
+
+  private SlowTransaction(GlobalTransaction transaction) {
+    this.globalTxId = transaction.getGlobalTxId();
+    this.type = transaction.getType();
+    this.serviceName = transaction.getServiceName();
+    this.instanceId = transaction.getInstanceId();
+    this.beginTime = transaction.getBeginTime().getTime();
+    this.endTime = transaction.getEndTime().getTime();
+    this.state = transaction.getState();
+    this.subTxSize = transaction.getSubTxSize();
+    this.suspendedType = transaction.getSuspendedType();
+  }
+
+  public static SlowTransaction of(GlobalTransaction transaction) {
+    return new SlowTransaction(transaction);
+  }
+
+  public String getGlobalTxId() {
+    return globalTxId;
+  }
+
+  public String getServiceName() {
+    return serviceName;
+  }
+
+  public long getEndTime() {
+    return endTime;
+  }
+
+  public long getDurationTime() {
+    return endTime - beginTime;
+  }
+
+  public GlobalTransaction toGlobalTransaction() {
+    return GlobalTransaction.builder()
+        .globalTxId(globalTxId)
+        .type(type)
+        .serviceName(serviceName)
+        .instanceId(instanceId)
+        .beginTime(new Date(beginTime))
+        .endTime(new Date(endTime))
+        .state(state)
+        .subTxSize(subTxSize)
+        .subTransactions(new ArrayList<>())
+        .suspendedType(suspendedType)
+        .build();
+  }
+}
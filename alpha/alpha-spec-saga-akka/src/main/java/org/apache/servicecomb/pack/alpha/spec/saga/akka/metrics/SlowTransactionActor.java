@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics;
+
+import akka.actor.AbstractActor;
+import akka.actor.Props;
+import java.util.List;
+
+/**
+ * Answers the slowest transactions of this alpha node to {@link SlowTransactionService} of the
+ * other nodes in the cluster.
+ */
+public class SlowTransactionActor extends AbstractActor {
+
+  public static final String NAME = "slow-transaction";
+
+  private final SlowTransactionTracker tracker;
+
+  public SlowTransactionActor(SlowTransactionTracker tracker) {
+    this.tracker = tracker;
+  }
+
+  public static Props props(SlowTransactionTracker tracker) {
+    return Props.create(SlowTransactionActor.class, tracker);
+  }
+
+  @Override
+  public Receive createReceive() {
+    return receiveBuilder()
+        .match(Query.class, query -> getSender().tell(
+            new Reply(tracker.top(query.getServiceName(), query.getSize())), getSelf()))
+        .build();
+  }
+
+  public static class Query {
+
+    private final String serviceName;
+    private final int size;
+
+    public Query(String serviceName, int size) {
+      this.serviceName = serviceName;
+      this.size = size;
+    }
+
+    public String getServiceName() {
+      return serviceName;
+    }
+
+    public int getSize() {
+      return size;
+    }
+  }
+
+  public static class Reply {
+
+    private final List<SlowTransaction> transactions;
+
+    public Reply(List<SlowTransaction> transactions) {
+      this.transactions = transactions;
+    }
+
+    public List<SlowTransaction> getTransactions() {
+      return transactions;
+    }
+  }
+}
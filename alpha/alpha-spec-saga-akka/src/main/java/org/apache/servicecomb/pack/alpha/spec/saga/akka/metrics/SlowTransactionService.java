@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics;
+
+import akka.actor.ActorSystem;
+import akka.cluster.Cluster;
+import akka.cluster.Member;
+import akka.cluster.MemberStatus;
+import akka.pattern.Patterns;
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SlowTransactionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the slowest transactions tracked by every alpha node of the cluster. A node that does
+ * not answer within the timeout is left out of the result.
+ */
+public class SlowTransactionService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final ActorSystem system;
+  private final SlowTransactionTracker tracker;
+  private final Duration timeout;
+
+  public SlowTransactionService(ActorSystem system, SlowTransactionTracker tracker,
+      SlowTransactionProperties properties) {
+    this.system = system;
+    this.tracker = tracker;
+    this.timeout = properties.getTimeout();
+    system.actorOf(SlowTransactionActor.props(tracker), SlowTransactionActor.NAME);
+  }
+
+  public List<GlobalTransaction> getSlowTransactions(String serviceName, int size) {
+    Cluster cluster = Cluster.get(system);
+    List<CompletableFuture<List<SlowTransaction>>> replies = new ArrayList<>();
+    replies.add(CompletableFuture.completedFuture(tracker.top(serviceName, size)));
+    for (Member member : cluster.state().getMembers()) {
+      if (member.status() == MemberStatus.up() && !member.address().equals(cluster.selfAddress())) {
+        replies.add(Patterns.ask(
+            system.actorSelection(member.address() + "/user/" + SlowTransactionActor.NAME),
+            new SlowTransactionActor.Query(serviceName, size), timeout)
+            .toCompletableFuture()
+            .thenApply(reply -> ((SlowTransactionActor.Reply) reply).getTransactions())
+            .exceptionally(e -> {
+              LOG.warn("Slow transactions of {} not received: {}", member.address(),
+                  e.getMessage());
+              return Collections.emptyList();
+            }));
+      }
+    }
+    // a transaction replayed on another node after a rebalance keeps its slowest record
+    Map<String, SlowTransaction> transactions = new HashMap<>();
+    for (CompletableFuture<List<SlowTransaction>> reply : replies) {
+      reply.join().forEach(transaction -> transactions.merge(transaction.getGlobalTxId(),
+          transaction, (a, b) -> a.getDurationTime() >= b.getDurationTime() ? a : b));
+    }
+    return transactions.values().stream()
+        .sorted(SlowTransactionTracker.DURATION.reversed())
+        .limit(size)
+        .map(SlowTransaction::toGlobalTransaction)
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SlowTransactionProperties;
+
+/**
+ * Keeps the slowest global transactions ended on this alpha node in a ring of time windows.
+ * Each window holds a bounded min-heap of the slowest transactions overall and one for each
+ * service, so that recording a transaction costs O(log size) and a query only merges the heaps
+ * of the live windows, whatever the number of stored transactions.
+ */
+public class SlowTransactionTracker {
+
+  static final Comparator<SlowTransaction> DURATION = Comparator
+      .comparingLong(SlowTransaction::getDurationTime);
+
+  private final int size;
+  private final long windowMillis;
+  private final Window[] windows;
+
+  public SlowTransactionTracker(SlowTransactionProperties properties) {
+    this.size = properties.getSize();
+    this.windowMillis = properties.getWindow().toMillis();
+    this.windows = new Window[properties.getWindows()];
+    for (int i = 0; i < windows.length; i++) {
+      windows[i] = new Window();
+    }
+  }
+
+  public void offer(GlobalTransaction transaction) {
+    long endTime = transaction.getEndTime().getTime();
+    long start = endTime - Math.floorMod(endTime, windowMillis);
+    Window window = windows[(int) Math.floorMod(start / windowMillis, (long) windows.length)];
+    SlowTransaction slowTransaction = SlowTransaction.of(transaction);
+    synchronized (window) {
+      if (window.start < start) {
+        window.reset(start);
+      } else if (window.start > start) {
+        // the window already moved on to a later period
+        return;
+      }
+      offer(window.overall, slowTransaction);
+      offer(window.services.computeIfAbsent(slowTransaction.getServiceName(),
+          serviceName -> new PriorityQueue<>(DURATION)), slowTransaction);
+    }
+  }
+
+  /**
+   * Slowest transactions ended in the live windows, the slowest first.
+   *
+   * @param serviceName only the transactions of this service, null for all of them
+   * @param size number of transactions returned, at most the size kept in each window
+   */
+  public List<SlowTransaction> top(String serviceName, int size) {
+    long now = System.currentTimeMillis();
+    long oldest = now - Math.floorMod(now, windowMillis) - (windows.length - 1) * windowMillis;
+    List<SlowTransaction> transactions = new ArrayList<>();
+    for (Window window : windows) {
+      synchronized (window) {
+        if (window.start >= oldest) {
+          PriorityQueue<SlowTransaction> heap = serviceName == null ? window.overall
+              : window.services.get(serviceName);
+          if (heap != null) {
+            transactions.addAll(heap);
+          }
+        }
+      }
+    }
+    transactions.sort(DURATION.reversed());
+    return new ArrayList<>(transactions.subList(0, Math.min(size, transactions.size())));
+  }
+
+  private void offer(PriorityQueue<SlowTransaction> heap, SlowTransaction transaction) {
+    if (heap.size() < size) {
+      heap.offer(transaction);
+    } else if (heap.peek().getDurationTime() < transaction.getDurationTime()) {
+      heap.poll();
+      heap.offer(transaction);
+    }
+  }
+
+  private static class Window {
+
+    private long start = Long.MIN_VALUE;
+    private final PriorityQueue<SlowTransaction> overall = new PriorityQueue<>(DURATION);
+    private final Map<String, PriorityQueue<SlowTransaction>> services = new HashMap<>();
+
+    private void reset(long start) {
+      this.start = start;
+      overall.clear();
+      services.clear();
+    }
+  }
+}
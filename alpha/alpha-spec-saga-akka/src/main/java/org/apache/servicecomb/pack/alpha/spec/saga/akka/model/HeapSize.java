@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.model;
+
+import java.util.Set;
+
+/**
+ * Rough heap sizes of the values held by the saga data, for a 64 bit JVM with compressed
+ * references.
+ */
+final class HeapSize {
+
+  private HeapSize() {
+  }
+
+  static long of(String value) {
+    return value != null ? 40L + 2L * value.length() : 0;
+  }
+
+  /**
+   * Counts an array once however many objects share it.
+   */
+  static long of(byte[] value, Set<byte[]> countedArrays) {
+    return value != null && countedArrays.add(value) ? 16L + value.length : 0;
+  }
+}
@@ -18,9 +18,11 @@
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.model;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Date;
-import java.util.LinkedList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
@@ -39,7 +41,7 @@ public class SagaData implements Serializable {
   private SagaActorState lastState;
   private AtomicLong compensationRunningCounter = new AtomicLong();
   private TxEntities txEntities = new TxEntities();
-  private List<BaseEvent> events = new LinkedList<>();
+  private SagaEventLog eventLog = new SagaEventLog();
 
   public String getServiceName() {
     return serviceName;
@@ -139,11 +141,35 @@ public class SagaData implements Serializable {
   }
 
   public void logEvent(BaseEvent event){
-    this.events.add(event);
+    this.eventLog.add(event);
   }
 
   public List<BaseEvent> getEvents() {
-    return events;
+    return eventLog.asList();
+  }
+
+  public SagaEventLog getEventLog() {
+    return eventLog;
+  }
+
+  public void setEventLog(SagaEventLog eventLog) {
+    this.eventLog = eventLog;
+  }
+
+  /**
+   * Rough heap footprint of the saga, payloads shared by the events and the entities are
+   * counted once.
+   */
+  public long estimateHeapBytes() {
+    Set<byte[]> countedArrays = Collections.newSetFromMap(new IdentityHashMap<>());
+    long[] bytes = {160
+        + HeapSize.of(serviceName)
+        + HeapSize.of(instanceId)
+        + HeapSize.of(globalTxId)
+        + eventLog.estimateHeapBytes(countedArrays)};
+    txEntities.forEach((localTxId, txEntity) ->
+        bytes[0] += 64 + txEntity.estimateHeapBytes(countedArrays));
+    return bytes[0];
   }
 
   public static Builder builder() {
@@ -212,6 +238,11 @@ public class SagaData implements Serializable {
       return this;
     }
 
+    public Builder maxEvents(int maxEvents) {
+      sagaData.setEventLog(new SagaEventLog(maxEvents));
+      return this;
+    }
+
     public SagaData build() {
       return sagaData;
     }
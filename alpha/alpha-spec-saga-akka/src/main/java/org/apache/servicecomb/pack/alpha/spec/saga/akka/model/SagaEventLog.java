@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Set;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+
+/**
+ * Array backed log of the events of a saga. With a cap it keeps the latest events only and
+ * counts the dropped ones, so a saga with a very long life does not grow without limit.
+ */
+public class SagaEventLog implements Serializable {
+
+  private static final BaseEvent[] EMPTY = {};
+  private static final int MIN_CAPACITY = 8;
+  // object header, references and the create time of an event
+  private static final long EVENT_OVERHEAD = 96;
+
+  private final int maxEvents;
+  private BaseEvent[] events = EMPTY;
+  private int head;
+  private int size;
+  private long droppedEvents;
+
+  public SagaEventLog() {
+    this(0);
+  }
+
+  /**
+   * @param maxEvents the number of events kept, 0 keeps all of them
+   */
+  public SagaEventLog(int maxEvents) {
+    this.maxEvents = maxEvents;
+  }
+
+  public void add(BaseEvent event) {
+    if (maxEvents > 0 && size == maxEvents) {
+      // overwrite the oldest event
+      events[head] = event;
+      head = (head + 1) % events.length;
+      droppedEvents++;
+      return;
+    }
+    if (size == events.length) {
+      grow();
+    }
+    events[(head + size) % events.length] = event;
+    size++;
+  }
+
+  public BaseEvent get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return events[(head + index) % events.length];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getMaxEvents() {
+    return maxEvents;
+  }
+
+  public long getDroppedEvents() {
+    return droppedEvents;
+  }
+
+  public void setDroppedEvents(long droppedEvents) {
+    this.droppedEvents = droppedEvents;
+  }
+
+  /**
+   * Read only view of the kept events from the oldest to the latest.
+   */
+  public List<BaseEvent> asList() {
+    return new AbstractList<BaseEvent>() {
+      @Override
+      public BaseEvent get(int index) {
+        return SagaEventLog.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Returns the payloads the kept {@link TxStartedEvent} of a sub transaction carries, the
+   * entity of the sub transaction shares them instead of holding its own copy.
+   */
+  public byte[] startedPayloads(String localTxId) {
+    TxStartedEvent event = startedEvent(localTxId);
+    return event != null ? event.getPayloads() : null;
+  }
+
+  /**
+   * Drops the payloads of the {@link TxStartedEvent} of a sub transaction.
+   */
+  public void releasePayloads(String localTxId) {
+    TxStartedEvent event = startedEvent(localTxId);
+    if (event != null) {
+      event.setPayloads(null);
+    }
+  }
+
+  long estimateHeapBytes(Set<byte[]> countedArrays) {
+    long bytes = 16L + 4L * events.length;
+    for (int i = 0; i < size; i++) {
+      BaseEvent event = get(i);
+      bytes += EVENT_OVERHEAD
+          + HeapSize.of(event.getServiceName())
+          + HeapSize.of(event.getInstanceId())
+          + HeapSize.of(event.getGlobalTxId())
+          + HeapSize.of(event.getParentTxId())
+          + HeapSize.of(event.getLocalTxId())
+          + HeapSize.of(payloadsOf(event), countedArrays);
+    }
+    return bytes;
+  }
+
+  private TxStartedEvent startedEvent(String localTxId) {
+    for (int i = size - 1; i >= 0; i--) {
+      BaseEvent event = get(i);
+      if (event instanceof TxStartedEvent && localTxId.equals(event.getLocalTxId())) {
+        return (TxStartedEvent) event;
+      }
+    }
+    return null;
+  }
+
+  private static byte[] payloadsOf(BaseEvent event) {
+    if (event instanceof TxStartedEvent) {
+      return ((TxStartedEvent) event).getPayloads();
+    } else if (event instanceof TxAbortedEvent) {
+      return ((TxAbortedEvent) event).getPayloads();
+    } else if (event instanceof SagaAbortedEvent) {
+      return ((SagaAbortedEvent) event).getPayloads();
+    } else if (event instanceof TxCompensateAckFailedEvent) {
+      return ((TxCompensateAckFailedEvent) event).getPayloads();
+    } else if (event instanceof CompensateAckTimeoutEvent) {
+      return ((CompensateAckTimeoutEvent) event).getPayloads();
+    }
+    return null;
+  }
+
+  private void grow() {
+    int capacity = Math.max(MIN_CAPACITY, events.length * 2);
+    if (maxEvents > 0) {
+      capacity = Math.min(capacity, maxEvents);
+    }
+    BaseEvent[] grown = new BaseEvent[capacity];
+    for (int i = 0; i < size; i++) {
+      grown[i] = events[(head + i) % events.length];
+    }
+    events = grown;
+    head = 0;
+  }
+}
@@ -17,62 +17,123 @@
 
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.model;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.ListIterator;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
 
+/**
+ * Sub transactions of a saga in the order they started. The entities report their state
+ * changes, so the number of entities in each state is known without walking over them.
+ */
 public class TxEntities {
 
-  private LinkedHashMap<String, TxEntity> entities = new LinkedHashMap<>();
+  private static final int MIN_CAPACITY = 8;
+
+  private final Map<String, Integer> positions = new HashMap<>();
+  private String[] keys = new String[0];
+  private TxEntity[] entities = new TxEntity[0];
+  private int size;
+  private final int[] stateCounts = new int[TxState.values().length];
+  // compensation failures that have retries left
+  private int retryableFailures;
 
   public void forEach(BiConsumer<String, TxEntity> action) {
-    entities.forEach(action);
+    for (int i = 0, n = size; i < n; i++) {
+      action.accept(keys[i], entities[i]);
+    }
   }
 
   public void forEachReverse(BiConsumer<String, TxEntity> action) {
-    ListIterator<Map.Entry<String, TxEntity>> iterator = new ArrayList<>(entities.entrySet()).listIterator(entities.size());
-    while (iterator.hasPrevious()) {
-      Map.Entry<String, TxEntity> entry = iterator.previous();
-      action.accept(entry.getKey(),entry.getValue());
+    for (int i = size - 1; i >= 0; i--) {
+      action.accept(keys[i], entities[i]);
     }
   }
 
   public TxEntity get(String localTxId) {
-    return entities.get(localTxId);
+    Integer position = positions.get(localTxId);
+    return position != null ? entities[position] : null;
   }
 
   public boolean exists(String localTxId) {
-    return entities.containsKey(localTxId);
+    return positions.containsKey(localTxId);
   }
 
   public TxEntity put(String localTxId, TxEntity txEntity) {
-    return entities.put(localTxId, txEntity);
+    Integer position = positions.get(localTxId);
+    TxEntity previous = null;
+    if (position != null) {
+      // a replaced entity keeps the place of the previous one
+      previous = entities[position];
+      release(previous);
+      entities[position] = txEntity;
+    } else {
+      if (size == entities.length) {
+        int capacity = Math.max(MIN_CAPACITY, size * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        entities = Arrays.copyOf(entities, capacity);
+      }
+      positions.put(localTxId, size);
+      keys[size] = localTxId;
+      entities[size++] = txEntity;
+    }
+    txEntity.setOwner(this);
+    count(txEntity, txEntity.getState());
+    return previous;
   }
 
   public int size() {
-    return entities.size();
+    return size;
+  }
+
+  public int count(TxState state) {
+    return stateCounts[state.ordinal()];
   }
 
   public boolean hasCommittedTx() {
-    return entities.entrySet().stream()
-        .filter(map -> map.getValue().getState() == TxState.COMMITTED)
-        .count() > 0;
+    return count(TxState.COMMITTED) > 0;
   }
 
   public boolean hasCompensationSentTx() {
-    return entities.entrySet().stream()
-        .filter(map -> map.getValue().getState() == TxState.COMPENSATION_SENT)
-        .count() > 0;
+    return count(TxState.COMPENSATION_SENT) > 0;
   }
 
   public boolean hasCompensationFailedTx() {
-    return entities.entrySet().stream()
-        .filter(map -> map.getValue().getState() == TxState.COMPENSATED_FAILED
-            && map.getValue().getReverseRetries() > 0
-            && map.getValue().getReverseRetries() > map.getValue().getRetriesCounter().get())
-        .count() > 0;
+    return retryableFailures > 0;
+  }
+
+  void stateChanged(TxEntity txEntity, TxState previous, TxState state) {
+    uncount(txEntity, previous);
+    count(txEntity, state);
+  }
+
+  private void release(TxEntity txEntity) {
+    uncount(txEntity, txEntity.getState());
+    txEntity.setOwner(null);
+  }
+
+  // the retries counter of a failed compensation only moves after the compensation is sent
+  // again, so whether it can be retried is decided when it fails
+  private void count(TxEntity txEntity, TxState state) {
+    if (state != null) {
+      stateCounts[state.ordinal()]++;
+    }
+    txEntity.setRetryableFailure(state == TxState.COMPENSATED_FAILED
+        && txEntity.getReverseRetries() > 0
+        && txEntity.getReverseRetries() > txEntity.getRetriesCounter().get());
+    if (txEntity.isRetryableFailure()) {
+      retryableFailures++;
+    }
+  }
+
+  private void uncount(TxEntity txEntity, TxState state) {
+    if (state != null) {
+      stateCounts[state.ordinal()]--;
+    }
+    if (txEntity.isRetryableFailure()) {
+      retryableFailures--;
+      txEntity.setRetryableFailure(false);
+    }
   }
-}
\ No newline at end of file
+}
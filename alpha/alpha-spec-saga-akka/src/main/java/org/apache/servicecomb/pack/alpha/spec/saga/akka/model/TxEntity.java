@@ -19,6 +19,7 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka.model;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
 
@@ -38,6 +39,9 @@ public class TxEntity implements Serializable {
   private int reverseTimeout;
   private int retryDelayInMilliseconds = 5;
   private AtomicInteger retriesCounter = new AtomicInteger();
+  // the entities holding it, told about the state changes
+  private transient TxEntities owner;
+  private transient boolean retryableFailure;
 
   public String getServiceName() {
     return serviceName;
@@ -100,7 +104,11 @@ public class TxEntity implements Serializable {
   }
 
   public void setState(TxState state) {
+    TxState previous = this.state;
     this.state = state;
+    if (owner != null) {
+      owner.stateChanged(this, previous, state);
+    }
   }
 
   public String getCompensationMethod() {
@@ -155,6 +163,31 @@ public class TxEntity implements Serializable {
     return retriesCounter;
   }
 
+  void setOwner(TxEntities owner) {
+    this.owner = owner;
+  }
+
+  boolean isRetryableFailure() {
+    return retryableFailure;
+  }
+
+  void setRetryableFailure(boolean retryableFailure) {
+    this.retryableFailure = retryableFailure;
+  }
+
+  long estimateHeapBytes(Set<byte[]> countedArrays) {
+    // object header, fields, dates and the retries counter
+    return 128
+        + HeapSize.of(serviceName)
+        + HeapSize.of(instanceId)
+        + HeapSize.of(globalTxId)
+        + HeapSize.of(parentTxId)
+        + HeapSize.of(localTxId)
+        + HeapSize.of(compensationMethod)
+        + HeapSize.of(payloads, countedArrays)
+        + HeapSize.of(throwablePayLoads, countedArrays);
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -16,6 +16,7 @@
  */
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
 
+import java.time.Duration;
 import java.util.Map;
 
 public class ChannelKafkaProperties {
@@ -25,6 +26,33 @@ public class ChannelKafkaProperties {
   private short replicationFactor;
   private Map<String,String> consumer;
   private Map<String,String> producer;
+  // how long the producer waits for more events to fill a batch
+  private Duration linger = Duration.ofMillis(5);
+  // bytes of events the producer sends to a partition in one request
+  private int producerBatchSize = 65536;
+  // compression of the producer batches, one of none, gzip, snappy, lz4, zstd
+  private String compressionType = "lz4";
+  // events published and not yet acknowledged by Kafka, further events are rejected at once
+  private int maxInflight = 10000;
+  // how long sending an event may block the calling thread while the producer fetches the topic
+  // metadata or waits for buffer space, the event fails afterwards
+  private Duration maxBlock = Duration.ofMillis(500);
+  // consumer group shared by the alpha nodes
+  private String groupId = "servicecomb-pack";
+  // topic partitions consumed in parallel by one node
+  private int maxPartitions = 16;
+  // batches of one partition waiting for the shard region at the same time
+  private int parallelism = 4;
+  // events of one partition handed to the shard region in one message
+  private int batchSize = 100;
+  // how long a partition waits to fill a batch
+  private Duration batchWindow = Duration.ofMillis(10);
+  // how long the shard region may take to accept a batch before the stream fails
+  private Duration askTimeout = Duration.ofSeconds(10);
+  // offsets committed to Kafka at most in one request
+  private int commitBatchSize = 1000;
+  // how often the consumer lag is sampled into the metrics
+  private Duration lagInterval = Duration.ofSeconds(5);
 
   public String getTopic() {
     return topic;
@@ -73,4 +101,108 @@ public class ChannelKafkaProperties {
   public void setProducer(Map<String, String> producer) {
     this.producer = producer;
   }
-}
\ No newline at end of file
+
+  public String getGroupId() {
+    return groupId;
+  }
+
+  public void setGroupId(String groupId) {
+    this.groupId = groupId;
+  }
+
+  public int getMaxPartitions() {
+    return maxPartitions;
+  }
+
+  public void setMaxPartitions(int maxPartitions) {
+    this.maxPartitions = maxPartitions;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public Duration getBatchWindow() {
+    return batchWindow;
+  }
+
+  public void setBatchWindow(Duration batchWindow) {
+    this.batchWindow = batchWindow;
+  }
+
+  public Duration getAskTimeout() {
+    return askTimeout;
+  }
+
+  public void setAskTimeout(Duration askTimeout) {
+    this.askTimeout = askTimeout;
+  }
+
+  public int getCommitBatchSize() {
+    return commitBatchSize;
+  }
+
+  public void setCommitBatchSize(int commitBatchSize) {
+    this.commitBatchSize = commitBatchSize;
+  }
+
+  public Duration getLagInterval() {
+    return lagInterval;
+  }
+
+  public void setLagInterval(Duration lagInterval) {
+    this.lagInterval = lagInterval;
+  }
+
+  public Duration getLinger() {
+    return linger;
+  }
+
+  public void setLinger(Duration linger) {
+    this.linger = linger;
+  }
+
+  public int getProducerBatchSize() {
+    return producerBatchSize;
+  }
+
+  public void setProducerBatchSize(int producerBatchSize) {
+    this.producerBatchSize = producerBatchSize;
+  }
+
+  public String getCompressionType() {
+    return compressionType;
+  }
+
+  public void setCompressionType(String compressionType) {
+    this.compressionType = compressionType;
+  }
+
+  public int getMaxInflight() {
+    return maxInflight;
+  }
+
+  public void setMaxInflight(int maxInflight) {
+    this.maxInflight = maxInflight;
+  }
+
+  public Duration getMaxBlock() {
+    return maxBlock;
+  }
+
+  public void setMaxBlock(Duration maxBlock) {
+    this.maxBlock = maxBlock;
+  }
+}
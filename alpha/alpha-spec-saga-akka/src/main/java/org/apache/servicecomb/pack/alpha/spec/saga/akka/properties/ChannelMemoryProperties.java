@@ -18,7 +18,15 @@
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
 
 public class ChannelMemoryProperties {
+  // events buffered by all partitions, rounded up to a power of two per partition,
+  // -1 buffers 16384 events per partition
   private int maxLength;
+  // partitions of the channel each consumed by its own thread, -1 uses one per processor
+  private int partitions = -1;
+  // how an idle consumer waits for events, one of blocking, lite-blocking, sleeping, yielding
+  private String waitStrategy = "blocking";
+  // events handed to the shard region in one message, 1 hands them over one by one
+  private int batchSize = 100;
 
   public int getMaxLength() {
     return maxLength;
@@ -27,4 +35,28 @@ public class ChannelMemoryProperties {
   public void setMaxLength(int maxLength) {
     this.maxLength = maxLength;
   }
-}
\ No newline at end of file
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  public void setPartitions(int partitions) {
+    this.partitions = partitions;
+  }
+
+  public String getWaitStrategy() {
+    return waitStrategy;
+  }
+
+  public void setWaitStrategy(String waitStrategy) {
+    this.waitStrategy = waitStrategy;
+  }
+}
@@ -14,25 +14,17 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
 
-package org.apache.servicecomb.pack.alpha.spec.saga.akka;
+public class CompensationProperties {
+  // compensate commands outstanding on one omega instance, further commands wait in line
+  private int maxInflight = 256;
 
-import java.util.concurrent.CountDownLatch;
-import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
-
-public class CompensateAckCountDownLatch extends CountDownLatch {
-  private CompensateAckType type;
-
-  public CompensateAckCountDownLatch(int count) {
-    super(count);
-  }
-
-  public CompensateAckType getType() {
-    return type;
+  public int getMaxInflight() {
+    return maxInflight;
   }
 
-  public void countDown(CompensateAckType type) {
-    this.type = type;
-    super.countDown();
+  public void setMaxInflight(int maxInflight) {
+    this.maxInflight = maxInflight;
   }
-}
\ No newline at end of file
+}
@@ -24,7 +24,18 @@ public class ElasticsearchProperties {
   //  Size of bulk request, When this value is greater than 0, the batch data will be lost when the jvm crashes.
   //  In the future, we can use Kafka to solve this problem instead of storing it directly in the ES.
   private int batchSize = 100;
+  // Size in bytes of bulk request, 0 means no limit
+  private long batchBytes = 5 * 1024 * 1024;
+  // Interval in milliseconds to send queued documents that have not filled a bulk request
   private int refreshTime = 5000;
+  // Maximum number of bulk requests sent concurrently
+  private int concurrentRequests = 2;
+  // Number of retries for documents rejected by a bulk request
+  private int maxRetries = 3;
+  // Backoff in milliseconds before the first retry, doubled on each following retry
+  private int retryBackoff = 100;
+  // Maximum number of documents queued or being sent, further transactions are rejected, 0 means no limit
+  private int maxPending = 10000;
 
   public String getUris() {
     return uris;
@@ -42,6 +53,14 @@ public class ElasticsearchProperties {
     this.batchSize = batchSize;
   }
 
+  public long getBatchBytes() {
+    return batchBytes;
+  }
+
+  public void setBatchBytes(long batchBytes) {
+    this.batchBytes = batchBytes;
+  }
+
   public int getRefreshTime() {
     return refreshTime;
   }
@@ -49,4 +68,36 @@ public class ElasticsearchProperties {
   public void setRefreshTime(int refreshTime) {
     this.refreshTime = refreshTime;
   }
+
+  public int getConcurrentRequests() {
+    return concurrentRequests;
+  }
+
+  public void setConcurrentRequests(int concurrentRequests) {
+    this.concurrentRequests = concurrentRequests;
+  }
+
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  public void setMaxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  public int getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  public void setRetryBackoff(int retryBackoff) {
+    this.retryBackoff = retryBackoff;
+  }
+
+  public int getMaxPending() {
+    return maxPending;
+  }
+
+  public void setMaxPending(int maxPending) {
+    this.maxPending = maxPending;
+  }
 }
\ No newline at end of file
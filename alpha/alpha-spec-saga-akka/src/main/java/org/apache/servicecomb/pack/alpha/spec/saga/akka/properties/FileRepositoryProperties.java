@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
+
+import java.time.Duration;
+
+public class FileRepositoryProperties {
+
+  // Directory of the transaction log segment files
+  private String dir = "repository/transactions";
+  // Size in bytes at which the newest segment is rolled
+  private long segmentSize = 64 * 1024 * 1024;
+  // Segments not written for longer than this are deleted, 0 keeps them forever
+  private Duration retention = Duration.ofDays(7);
+  // Segments whose live records take less than this ratio of their size are compacted
+  private double compactionRatio = 0.5;
+  // Interval of deleting and compacting segments
+  private Duration maintenanceInterval = Duration.ofMinutes(1);
+
+  public String getDir() {
+    return dir;
+  }
+
+  public void setDir(String dir) {
+    this.dir = dir;
+  }
+
+  public long getSegmentSize() {
+    return segmentSize;
+  }
+
+  public void setSegmentSize(long segmentSize) {
+    this.segmentSize = segmentSize;
+  }
+
+  public Duration getRetention() {
+    return retention;
+  }
+
+  public void setRetention(Duration retention) {
+    this.retention = retention;
+  }
+
+  public double getCompactionRatio() {
+    return compactionRatio;
+  }
+
+  public void setCompactionRatio(double compactionRatio) {
+    this.compactionRatio = compactionRatio;
+  }
+
+  public Duration getMaintenanceInterval() {
+    return maintenanceInterval;
+  }
+
+  public void setMaintenanceInterval(Duration maintenanceInterval) {
+    this.maintenanceInterval = maintenanceInterval;
+  }
+}
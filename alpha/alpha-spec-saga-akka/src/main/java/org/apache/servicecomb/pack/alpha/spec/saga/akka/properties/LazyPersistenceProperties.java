@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
+
+public class LazyPersistenceProperties {
+  // keep the events of a saga in memory and write them to the journal only when it needs them,
+  // the sagas of a crashed node are lost until omega sends their events again
+  private boolean enabled = false;
+
+  // write the events of a saga entering one of these states, the final states are useless as
+  // the actor deletes its journal when it stops
+  private List<SagaActorState> flushStates = new ArrayList<>(
+      Arrays.asList(SagaActorState.FAILED));
+
+  // write the events of a saga running longer than this
+  private Duration maxAge = Duration.ofSeconds(10);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public List<SagaActorState> getFlushStates() {
+    return flushStates;
+  }
+
+  public void setFlushStates(List<SagaActorState> flushStates) {
+    this.flushStates = flushStates;
+  }
+
+  public Duration getMaxAge() {
+    return maxAge;
+  }
+
+  public void setMaxAge(Duration maxAge) {
+    this.maxAge = maxAge;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
+
+public class RepositoryChannelProperties {
+
+  // Channel type, buffered sends transactions from writer threads and spills them to disk
+  private String name = "default";
+  // Capacity of the in-memory queue of the buffered channel
+  private int queueSize = 10000;
+  // Number of writer threads, transactions are written in order only with one writer
+  private int writers = 1;
+  // Directory of the spill segment files
+  private String spillDir = "repository/spill";
+  // Size in bytes of a spill segment file
+  private int segmentSize = 64 * 1024 * 1024;
+  // Interval in milliseconds to retry a spilled transaction the repository failed to accept
+  private int retryInterval = 1000;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public void setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public int getWriters() {
+    return writers;
+  }
+
+  public void setWriters(int writers) {
+    this.writers = writers;
+  }
+
+  public String getSpillDir() {
+    return spillDir;
+  }
+
+  public void setSpillDir(String spillDir) {
+    this.spillDir = spillDir;
+  }
+
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+  public void setSegmentSize(int segmentSize) {
+    this.segmentSize = segmentSize;
+  }
+
+  public int getRetryInterval() {
+    return retryInterval;
+  }
+
+  public void setRetryInterval(int retryInterval) {
+    this.retryInterval = retryInterval;
+  }
+}
@@ -22,6 +22,10 @@ public class RepositoryProperties {
 
   private ElasticsearchProperties elasticsearch;
 
+  private FileRepositoryProperties file = new FileRepositoryProperties();
+
+  private RepositoryChannelProperties channel = new RepositoryChannelProperties();
+
   public String getName() {
     return name;
   }
@@ -38,4 +42,20 @@ public class RepositoryProperties {
       ElasticsearchProperties elasticsearch) {
     this.elasticsearch = elasticsearch;
   }
+
+  public FileRepositoryProperties getFile() {
+    return file;
+  }
+
+  public void setFile(FileRepositoryProperties file) {
+    this.file = file;
+  }
+
+  public RepositoryChannelProperties getChannel() {
+    return channel;
+  }
+
+  public void setChannel(RepositoryChannelProperties channel) {
+    this.channel = channel;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
+
+public class SagaDataProperties {
+  // events kept in memory for each saga, the oldest ones are dropped beyond it, 0 keeps all
+  private int maxEvents = 1000;
+
+  // drop the payloads of a sub transaction once it can no longer be compensated, the events
+  // sent to the repository then carry no payloads for it
+  private boolean releasePayloads = false;
+
+  public int getMaxEvents() {
+    return maxEvents;
+  }
+
+  public void setMaxEvents(int maxEvents) {
+    this.maxEvents = maxEvents;
+  }
+
+  public boolean isReleasePayloads() {
+    return releasePayloads;
+  }
+
+  public void setReleasePayloads(boolean releasePayloads) {
+    this.releasePayloads = releasePayloads;
+  }
+}
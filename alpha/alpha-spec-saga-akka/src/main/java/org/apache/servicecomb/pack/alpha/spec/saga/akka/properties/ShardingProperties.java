@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
+
+public class ShardingProperties {
+
+  public enum ShardHash {
+    // String.hashCode() of the global transaction id, the routing of the earlier releases
+    HASH_CODE,
+    // murmur3 of the global transaction id, spreads similar ids evenly and is never negative
+    MURMUR3
+  }
+
+  // shards of the saga actors, keep it at about ten times the number of alpha nodes,
+  // all nodes of a cluster must use the same value
+  private int numberOfShards = 10;
+
+  // hash picking the shard of a global transaction, all nodes of a cluster must use the same one,
+  // changing it moves the running sagas to other shards and needs a full cluster restart
+  private ShardHash shardHash = ShardHash.HASH_CODE;
+
+  // move shards from the nodes holding the most shards to the nodes holding the least,
+  // the default of Akka Cluster Sharding
+  private boolean rebalanceEnabled = true;
+
+  // least shard allocation, rebalance when the shard counts of two nodes differ by more than this
+  private int rebalanceThreshold = 1;
+
+  // least shard allocation, shards rebalanced at the same time
+  private int maxSimultaneousRebalance = 3;
+
+  public int getNumberOfShards() {
+    return numberOfShards;
+  }
+
+  public void setNumberOfShards(int numberOfShards) {
+    this.numberOfShards = numberOfShards;
+  }
+
+  public ShardHash getShardHash() {
+    return shardHash;
+  }
+
+  public void setShardHash(ShardHash shardHash) {
+    this.shardHash = shardHash;
+  }
+
+  public boolean isRebalanceEnabled() {
+    return rebalanceEnabled;
+  }
+
+  public void setRebalanceEnabled(boolean rebalanceEnabled) {
+    this.rebalanceEnabled = rebalanceEnabled;
+  }
+
+  public int getRebalanceThreshold() {
+    return rebalanceThreshold;
+  }
+
+  public void setRebalanceThreshold(int rebalanceThreshold) {
+    this.rebalanceThreshold = rebalanceThreshold;
+  }
+
+  public int getMaxSimultaneousRebalance() {
+    return maxSimultaneousRebalance;
+  }
+
+  public void setMaxSimultaneousRebalance(int maxSimultaneousRebalance) {
+    this.maxSimultaneousRebalance = maxSimultaneousRebalance;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
+
+import java.time.Duration;
+
+public class SlowTransactionProperties {
+
+  // Slowest transactions kept in each window, overall and for each service
+  private int size = 100;
+  // Length of a window, transactions are put into the window of their end time
+  private Duration window = Duration.ofMinutes(1);
+  // Number of windows kept, older ones are dropped as time moves on
+  private int windows = 60;
+  // Time to wait for the other alpha nodes of the cluster to answer a query
+  private Duration timeout = Duration.ofSeconds(3);
+
+  public int getSize() {
+    return size;
+  }
+
+  public void setSize(int size) {
+    this.size = size;
+  }
+
+  public Duration getWindow() {
+    return window;
+  }
+
+  public void setWindow(Duration window) {
+    this.window = window;
+  }
+
+  public int getWindows() {
+    return windows;
+  }
+
+  public void setWindows(int windows) {
+    this.windows = windows;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+}
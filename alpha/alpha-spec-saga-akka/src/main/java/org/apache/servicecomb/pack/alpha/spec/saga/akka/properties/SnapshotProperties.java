@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.properties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
+
+public class SnapshotProperties {
+  // snapshot a saga actor after this many persisted domain events, 0 disables it
+  private int eventInterval = 20;
+
+  // snapshot a saga actor when it enters one of these states, the final states are skipped
+  // because the actor deletes its journal when it stops
+  private List<SagaActorState> states = new ArrayList<>(
+      Arrays.asList(SagaActorState.PARTIALLY_COMMITTED, SagaActorState.FAILED));
+
+  // delete the journal and the older snapshots up to a saved snapshot
+  private boolean deleteEvents = true;
+
+  public int getEventInterval() {
+    return eventInterval;
+  }
+
+  public void setEventInterval(int eventInterval) {
+    this.eventInterval = eventInterval;
+  }
+
+  public List<SagaActorState> getStates() {
+    return states;
+  }
+
+  public void setStates(List<SagaActorState> states) {
+    this.states = states;
+  }
+
+  public boolean isDeleteEvents() {
+    return deleteEvents;
+  }
+
+  public void setDeleteEvents(boolean deleteEvents) {
+    this.deleteEvents = deleteEvents;
+  }
+}
@@ -26,6 +26,12 @@ public class SpecSagaAkkaProperties {
 
   private ChannelProperties channel;
   private RepositoryProperties repository;
+  private CompensationProperties compensation = new CompensationProperties();
+  private ShardingProperties sharding = new ShardingProperties();
+  private SnapshotProperties snapshot = new SnapshotProperties();
+  private LazyPersistenceProperties lazyPersistence = new LazyPersistenceProperties();
+  private SagaDataProperties sagaData = new SagaDataProperties();
+  private SlowTransactionProperties slowTransaction = new SlowTransactionProperties();
 
   public ChannelProperties getChannel() {
     return channel;
@@ -43,4 +49,53 @@ public class SpecSagaAkkaProperties {
       RepositoryProperties repository) {
     this.repository = repository;
   }
-}
\ No newline at end of file
+
+  public CompensationProperties getCompensation() {
+    return compensation;
+  }
+
+  public void setCompensation(
+      CompensationProperties compensation) {
+    this.compensation = compensation;
+  }
+
+  public ShardingProperties getSharding() {
+    return sharding;
+  }
+
+  public void setSharding(ShardingProperties sharding) {
+    this.sharding = sharding;
+  }
+
+  public SnapshotProperties getSnapshot() {
+    return snapshot;
+  }
+
+  public void setSnapshot(SnapshotProperties snapshot) {
+    this.snapshot = snapshot;
+  }
+
+  public LazyPersistenceProperties getLazyPersistence() {
+    return lazyPersistence;
+  }
+
+  public void setLazyPersistence(LazyPersistenceProperties lazyPersistence) {
+    this.lazyPersistence = lazyPersistence;
+  }
+
+  public SagaDataProperties getSagaData() {
+    return sagaData;
+  }
+
+  public void setSagaData(SagaDataProperties sagaData) {
+    this.sagaData = sagaData;
+  }
+
+  public SlowTransactionProperties getSlowTransaction() {
+    return slowTransaction;
+  }
+
+  public void setSlowTransaction(SlowTransactionProperties slowTransaction) {
+    this.slowTransaction = slowTransaction;
+  }
+}
@@ -18,9 +18,9 @@
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.repository;
 
 import java.lang.invoke.MethodHandles;
-import java.util.List;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,12 +50,13 @@ public class NoneTransactionRepository implements TransactionRepository {
   }
 
   @Override
-  public Map<String,Long> getTransactionStatistics() {
+  public PagingGlobalTransactions getGlobalTransactions(GlobalTransactionQuery query)
+      throws Exception {
     throw new UnsupportedOperationException("NoneTransactionRepository Unsupported!");
   }
 
   @Override
-  public List<GlobalTransaction> getSlowGlobalTransactionsTopN(int n) {
+  public Map<String,Long> getTransactionStatistics() {
     throw new UnsupportedOperationException("NoneTransactionRepository Unsupported!");
   }
 }
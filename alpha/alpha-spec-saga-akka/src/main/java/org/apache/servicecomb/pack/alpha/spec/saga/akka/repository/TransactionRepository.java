@@ -17,9 +17,9 @@
 
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.repository;
 
-import java.util.List;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 
 public interface TransactionRepository {
@@ -35,7 +35,8 @@ public interface TransactionRepository {
   PagingGlobalTransactions getGlobalTransactions(int page, int size)
       throws Exception;
 
-  Map<String,Long> getTransactionStatistics();
+  PagingGlobalTransactions getGlobalTransactions(GlobalTransactionQuery query)
+      throws Exception;
 
-  List<GlobalTransaction> getSlowGlobalTransactionsTopN(int n);
+  Map<String,Long> getTransactionStatistics();
 }
@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.channel;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.RepositoryChannelProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.AbstractTransactionRepositoryChannel;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends transactions to the repository from dedicated writer threads, so that a Saga actor never
+ * waits on the repository. When the bounded queue is full or the repository fails, transactions
+ * are appended to a {@link SpillFile} and replayed in order by a single thread once the repository
+ * accepts them again. New transactions are spilled as well until the spill file is drained.
+ *
+ * <p>A repository applies back-pressure by rejecting a transaction with
+ * {@link RejectedExecutionException}. The writer then retries it every retry-interval, so the
+ * queue fills up and the following transactions are spilled behind it.
+ */
+public class BufferedTransactionRepositoryChannel extends AbstractTransactionRepositoryChannel {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int TIME_BYTES = 8;
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final BlockingQueue<PendingTransaction> queue;
+  private final SpillFile spillFile;
+  private final int retryInterval;
+  private final List<Thread> threads = new ArrayList<>();
+  private final AtomicInteger writing = new AtomicInteger();
+  private volatile boolean spilling;
+  private volatile boolean running = true;
+
+  public BufferedTransactionRepositoryChannel(TransactionRepository repository,
+      MetricsService metricsService, RepositoryChannelProperties channelProperties)
+      throws IOException {
+    super(repository, metricsService);
+    this.queue = new ArrayBlockingQueue<>(channelProperties.getQueueSize());
+    this.spillFile = new SpillFile(Paths.get(channelProperties.getSpillDir()),
+        channelProperties.getSegmentSize());
+    this.retryInterval = channelProperties.getRetryInterval();
+    this.spilling = !spillFile.isEmpty();
+    metricsService.metrics().setRepositoryChannelSpillBytes(spillFile.pendingBytes());
+    for (int i = 0; i < Math.max(1, channelProperties.getWriters()); i++) {
+      threads.add(new Thread(new Writer(), "repository-channel-writer-" + i));
+    }
+    threads.add(new Thread(new Replayer(), "repository-channel-replayer"));
+    threads.forEach(thread -> {
+      thread.setDaemon(true);
+      thread.start();
+    });
+  }
+
+  @Override
+  public void sendTo(GlobalTransaction transaction) {
+    PendingTransaction pending = new PendingTransaction(transaction, System.currentTimeMillis());
+    if (!spilling && queue.offer(pending)) {
+      metricsService.metrics().setRepositoryChannelQueueDepth(queue.size());
+    } else {
+      spill(pending);
+    }
+  }
+
+  /**
+   * Stops the writer threads and spills the queued transactions, they are replayed on the next
+   * start. Called by Spring on shutdown.
+   */
+  public void close() {
+    running = false;
+    threads.forEach(Thread::interrupt);
+    for (Thread thread : threads) {
+      try {
+        thread.join(retryInterval);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    spillQueue();
+    spillFile.close();
+  }
+
+  private void spill(PendingTransaction pending) {
+    synchronized (spillFile) {
+      try {
+        byte[] json = mapper.writeValueAsBytes(pending.transaction);
+        spillFile.append(ByteBuffer.allocate(TIME_BYTES + json.length)
+            .putLong(pending.enqueueTime)
+            .put(json)
+            .array());
+        spilling = true;
+        spillFile.notifyAll();
+      } catch (IOException e) {
+        LOG.error("Failed to spill transaction {}", pending.transaction.getGlobalTxId(), e);
+        metricsService.metrics().doRepositoryRejected();
+      }
+      metricsService.metrics().setRepositoryChannelSpillBytes(spillFile.pendingBytes());
+    }
+  }
+
+  private void spillQueue() {
+    synchronized (spillFile) {
+      PendingTransaction pending;
+      while ((pending = queue.poll()) != null) {
+        spill(pending);
+      }
+      metricsService.metrics().setRepositoryChannelQueueDepth(0);
+    }
+  }
+
+  private void persisted(long enqueueTime) {
+    metricsService.metrics()
+        .doRepositoryChannelAvgLag(System.currentTimeMillis() - enqueueTime);
+  }
+
+  class Writer implements Runnable {
+
+    @Override
+    public void run() {
+      while (running) {
+        PendingTransaction pending;
+        try {
+          pending = queue.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        writing.incrementAndGet();
+        metricsService.metrics().setRepositoryChannelQueueDepth(queue.size());
+        try {
+          sendWhileRejected(pending);
+          persisted(pending.enqueueTime);
+        } catch (InterruptedException e) {
+          // closed while the repository is full, the transaction is replayed on the next start
+          spill(pending);
+          Thread.currentThread().interrupt();
+          return;
+        } catch (Exception e) {
+          LOG.warn("Repository failed to accept transaction {}, spill to disk",
+              pending.transaction.getGlobalTxId(), e);
+          // keep the queued transactions behind the failed one
+          synchronized (spillFile) {
+            spill(pending);
+            spillQueue();
+          }
+        } finally {
+          writing.decrementAndGet();
+        }
+        if (spilling && queue.isEmpty()) {
+          synchronized (spillFile) {
+            spillFile.notifyAll();
+          }
+        }
+      }
+    }
+  }
+
+  private void sendWhileRejected(PendingTransaction pending) throws Exception {
+    while (true) {
+      try {
+        repository.send(pending.transaction);
+        return;
+      } catch (RejectedExecutionException e) {
+        if (!running) {
+          throw new InterruptedException("Channel is closed");
+        }
+        LOG.debug("Repository is full, retry transaction {} in {} ms",
+            pending.transaction.getGlobalTxId(), retryInterval);
+        Thread.sleep(retryInterval);
+      }
+    }
+  }
+
+  class Replayer implements Runnable {
+
+    @Override
+    public void run() {
+      while (running) {
+        try {
+          byte[] record;
+          synchronized (spillFile) {
+            // transactions queued before the spill started are written first
+            while ((record = spillFile.peek()) == null || !queue.isEmpty() || writing.get() > 0) {
+              if (record == null) {
+                spilling = false;
+              }
+              spillFile.wait(retryInterval);
+            }
+          }
+          long enqueueTime = ByteBuffer.wrap(record).getLong();
+          GlobalTransaction transaction;
+          try {
+            transaction = mapper.readValue(record, TIME_BYTES, record.length - TIME_BYTES,
+                GlobalTransaction.class);
+          } catch (IOException e) {
+            LOG.error("Failed to decode spilled transaction, skip it", e);
+            metricsService.metrics().doRepositoryRejected();
+            commit();
+            continue;
+          }
+          try {
+            repository.send(transaction);
+          } catch (RejectedExecutionException e) {
+            LOG.debug("Repository is full, retry spilled transaction {} in {} ms",
+                transaction.getGlobalTxId(), retryInterval);
+            Thread.sleep(retryInterval);
+            continue;
+          } catch (Exception e) {
+            LOG.warn("Repository failed to accept spilled transaction {}, retry in {} ms",
+                transaction.getGlobalTxId(), retryInterval, e);
+            Thread.sleep(retryInterval);
+            continue;
+          }
+          commit();
+          persisted(enqueueTime);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        } catch (IOException e) {
+          LOG.error("Failed to read spill file, retry in {} ms", retryInterval, e);
+          try {
+            Thread.sleep(retryInterval);
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+      }
+    }
+
+    private void commit() {
+      synchronized (spillFile) {
+        spillFile.commit();
+        metricsService.metrics().setRepositoryChannelSpillBytes(spillFile.pendingBytes());
+      }
+    }
+  }
+
+  static final class PendingTransaction {
+
+    private final GlobalTransaction transaction;
+    private final long enqueueTime;
+
+    PendingTransaction(GlobalTransaction transaction, long enqueueTime) {
+      this.transaction = transaction;
+      this.enqueueTime = enqueueTime;
+    }
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.channel;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.stream.Stream;
+
+/**
+ * Append-only queue of records stored in memory-mapped segment files. Each record is written as
+ * its length followed by its bytes, a consumed record gets its length negated so that it is not
+ * replayed again after a restart, and a segment is deleted once all its records are consumed.
+ */
+public class SpillFile {
+
+  private static final String SUFFIX = ".spill";
+  private static final int HEADER_BYTES = 4;
+  private static final MethodHandle UNMAPPER = unmapper();
+  private final Path dir;
+  private final int segmentSize;
+  private final Deque<Long> segmentIds = new ArrayDeque<>();
+  private Segment readSegment;
+  private Segment writeSegment;
+  private long pendingBytes;
+  private boolean closed;
+
+  public SpillFile(Path dir, int segmentSize) throws IOException {
+    this.dir = Files.createDirectories(dir);
+    this.segmentSize = segmentSize;
+    try (Stream<Path> files = Files.list(dir)) {
+      files.map(file -> file.getFileName().toString())
+          .filter(name -> name.endsWith(SUFFIX))
+          .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+          .sorted()
+          .forEach(segmentIds::add);
+    }
+    if (segmentIds.isEmpty()) {
+      segmentIds.add(0L);
+      writeSegment = Segment.create(segmentPath(0L), segmentSize);
+      readSegment = writeSegment;
+    } else {
+      for (long segmentId : segmentIds) {
+        Segment segment = Segment.open(segmentPath(segmentId));
+        pendingBytes += segment.scan();
+        if (readSegment == null) {
+          readSegment = segment;
+        } else if (writeSegment != readSegment) {
+          // segments between the read and the write segment are mapped again when they are read
+          writeSegment.unmap();
+        }
+        writeSegment = segment;
+      }
+    }
+  }
+
+  public synchronized void append(byte[] record) throws IOException {
+    checkOpen();
+    int length = HEADER_BYTES + record.length;
+    if (writeSegment.buffer.capacity() - writeSegment.writePosition < length) {
+      long segmentId = segmentIds.getLast() + 1;
+      writeSegment.buffer.force();
+      if (writeSegment != readSegment) {
+        writeSegment.unmap();
+      }
+      writeSegment = Segment.create(segmentPath(segmentId), Math.max(segmentSize, length));
+      segmentIds.add(segmentId);
+    }
+    ByteBuffer buffer = writeSegment.buffer.duplicate();
+    int position = writeSegment.writePosition;
+    // write the bytes before the length, a reader never sees a partially written record
+    buffer.position(position + HEADER_BYTES);
+    buffer.put(record);
+    buffer.putInt(position, record.length);
+    writeSegment.writePosition += length;
+    pendingBytes += length;
+  }
+
+  /**
+   * Returns the oldest record that is not consumed yet, or null if there is none.
+   */
+  public synchronized byte[] peek() throws IOException {
+    checkOpen();
+    while (true) {
+      int length = readSegment.readPosition + HEADER_BYTES <= readSegment.buffer.capacity()
+          ? readSegment.buffer.getInt(readSegment.readPosition) : 0;
+      if (length > 0) {
+        byte[] record = new byte[length];
+        ByteBuffer buffer = readSegment.buffer.duplicate();
+        buffer.position(readSegment.readPosition + HEADER_BYTES);
+        buffer.get(record);
+        return record;
+      } else if (length < 0) {
+        readSegment.readPosition += HEADER_BYTES - length;
+      } else if (readSegment == writeSegment) {
+        return null;
+      } else {
+        readSegment.unmap();
+        Files.deleteIfExists(segmentPath(segmentIds.removeFirst()));
+        long segmentId = segmentIds.getFirst();
+        readSegment = segmentIds.size() == 1 ? writeSegment : Segment.open(segmentPath(segmentId));
+      }
+    }
+  }
+
+  /**
+   * Marks the record returned by {@link #peek()} as consumed.
+   */
+  public synchronized void commit() {
+    if (closed) {
+      return;
+    }
+    int length = readSegment.buffer.getInt(readSegment.readPosition);
+    if (length > 0) {
+      readSegment.buffer.putInt(readSegment.readPosition, -length);
+      readSegment.readPosition += HEADER_BYTES + length;
+      pendingBytes -= HEADER_BYTES + length;
+    }
+  }
+
+  public synchronized boolean isEmpty() {
+    return pendingBytes == 0;
+  }
+
+  /**
+   * Bytes of records that are not consumed yet, including their headers.
+   */
+  public synchronized long pendingBytes() {
+    return pendingBytes;
+  }
+
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    readSegment.buffer.force();
+    writeSegment.buffer.force();
+    readSegment.unmap();
+    if (writeSegment != readSegment) {
+      writeSegment.unmap();
+    }
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Spill file " + dir + " is closed");
+    }
+  }
+
+  private Path segmentPath(long segmentId) {
+    return dir.resolve(String.format("%020d%s", segmentId, SUFFIX));
+  }
+
+  static final class Segment {
+
+    private final MappedByteBuffer buffer;
+    private int readPosition;
+    private int writePosition;
+
+    private Segment(MappedByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    static Segment create(Path path, int size) throws IOException {
+      try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+        file.setLength(size);
+        return new Segment(file.getChannel().map(MapMode.READ_WRITE, 0, size));
+      }
+    }
+
+    static Segment open(Path path) throws IOException {
+      try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+        FileChannel channel = file.getChannel();
+        return new Segment(channel.map(MapMode.READ_WRITE, 0, channel.size()));
+      }
+    }
+
+    /**
+     * Moves the read position to the first record that is not consumed and the write position
+     * after the last record, returns the bytes of the records that are not consumed.
+     */
+    long scan() {
+      long pending = 0;
+      int position = 0;
+      readPosition = -1;
+      while (position + HEADER_BYTES <= buffer.capacity()) {
+        int length = buffer.getInt(position);
+        if (length == 0) {
+          break;
+        }
+        if (length > 0) {
+          pending += HEADER_BYTES + length;
+          if (readPosition < 0) {
+            readPosition = position;
+          }
+        }
+        position += HEADER_BYTES + Math.abs(length);
+      }
+      writePosition = position;
+      if (readPosition < 0) {
+        readPosition = position;
+      }
+      return pending;
+    }
+
+    /**
+     * Releases the mapping now instead of when the buffer is garbage collected, which would keep a
+     * deleted segment on disk and in the address space until then. The buffer must not be used
+     * afterwards.
+     */
+    void unmap() {
+      if (UNMAPPER != null) {
+        try {
+          UNMAPPER.invoke(buffer);
+        } catch (Throwable e) {
+          // left to the garbage collector
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns a handle which frees a mapped buffer, Unsafe.invokeCleaner on Java 9 and later and the
+   * cleaner of the buffer on Java 8, or null if neither is accessible.
+   */
+  private static MethodHandle unmapper() {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      try {
+        MethodHandle invokeCleaner = lookup.findVirtual(unsafeClass, "invokeCleaner",
+            MethodType.methodType(void.class, ByteBuffer.class));
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        return invokeCleaner.bindTo(theUnsafe.get(null))
+            .asType(MethodType.methodType(void.class, MappedByteBuffer.class));
+      } catch (NoSuchMethodException e) {
+        Class<?> directBuffer = Class.forName("sun.nio.ch.DirectBuffer");
+        Class<?> cleanerClass = Class.forName("sun.misc.Cleaner");
+        MethodHandle cleaner = lookup.findVirtual(directBuffer, "cleaner",
+            MethodType.methodType(cleanerClass));
+        MethodHandle clean = lookup.findVirtual(cleanerClass, "clean",
+            MethodType.methodType(void.class));
+        return MethodHandles.filterReturnValue(cleaner, clean)
+            .asType(MethodType.methodType(void.class, MappedByteBuffer.class));
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+}
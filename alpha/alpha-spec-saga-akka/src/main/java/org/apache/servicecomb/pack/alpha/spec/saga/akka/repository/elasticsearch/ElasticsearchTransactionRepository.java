@@ -25,14 +25,28 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ElasticsearchProperties;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
-import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
 import org.elasticsearch.search.aggregations.bucket.terms.ParsedStringTerms;
@@ -41,11 +55,13 @@ import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.BulkFailureException;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
 import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
 import org.springframework.data.elasticsearch.core.query.Query;
 
@@ -55,40 +71,118 @@ public class ElasticsearchTransactionRepository implements TransactionRepository
   public static final String INDEX_NAME = "alpha_global_transaction";
   public static final String INDEX_TYPE = "alpha_global_transaction_type";
   private static final long SCROLL_TIMEOUT = 3000;
+  private static final long CLOSE_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
   private final ElasticsearchRestTemplate template;
   private final MetricsService metricsService;
   private final ObjectMapper mapper = new ObjectMapper();
-  private int batchSize;
-  private int batchSizeCounter;
-  private int refreshTime;
-  private final List<IndexQuery> queries = new ArrayList<>();
-  private final Object lock = new Object();
+  private final int batchSize;
+  private final long batchBytes;
+  private final int maxRetries;
+  private final int retryBackoff;
+  private final Queue<IndexQuery> queries = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final AtomicLong pendingBytes = new AtomicLong();
+  private final AtomicInteger inflight = new AtomicInteger();
+  private final int maxPending;
+  private final Semaphore pendingPermits;
+  private final int concurrentRequests;
+  private final Semaphore bulkPermits;
+  private final ExecutorService bulkExecutor;
+  private final ScheduledExecutorService scheduler;
+  private final ScheduledFuture<?> refresh;
+  private volatile boolean closed;
 
   public ElasticsearchTransactionRepository(ElasticsearchProperties elasticsearchProperties,
       ElasticsearchRestTemplate elasticsearchRestTemplate, MetricsService metricsService) {
     this.template = elasticsearchRestTemplate;
     this.batchSize = elasticsearchProperties.getBatchSize();
-    this.refreshTime = elasticsearchProperties.getRefreshTime();
+    this.batchBytes = elasticsearchProperties.getBatchBytes();
+    this.maxRetries = elasticsearchProperties.getMaxRetries();
+    this.retryBackoff = elasticsearchProperties.getRetryBackoff();
     this.metricsService = metricsService;
-    if (this.refreshTime > 0) {
-      new Thread(new RefreshTimer(), "elasticsearch-repository-refresh").start();
-    }
+    this.maxPending = elasticsearchProperties.getMaxPending() > 0
+        ? elasticsearchProperties.getMaxPending() : Integer.MAX_VALUE;
+    this.pendingPermits = new Semaphore(maxPending);
+    this.concurrentRequests = Math.max(1, elasticsearchProperties.getConcurrentRequests());
+    this.bulkPermits = new Semaphore(concurrentRequests);
+    this.bulkExecutor = Executors.newFixedThreadPool(concurrentRequests,
+        daemonThreadFactory("elasticsearch-repository-bulk"));
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        daemonThreadFactory("elasticsearch-repository-refresh"));
+    int refreshTime = elasticsearchProperties.getRefreshTime();
+    this.refresh = refreshTime > 0
+        ? scheduler.scheduleWithFixedDelay(() -> flush(true), refreshTime, refreshTime,
+            TimeUnit.MILLISECONDS)
+        : null;
     if (!this.template.indexExists(INDEX_NAME)) {
       this.template.createIndex(INDEX_NAME);
     }
   }
 
+  /**
+   * Queues the transaction and returns without waiting for Elasticsearch. A bulk request is sent
+   * by one of the bulk threads when the queue reaches batch-size or batch-bytes, otherwise the
+   * refresh timer sends it. No index refresh is forced, the documents become searchable after the
+   * refresh_interval of the index.
+   *
+   * @throws RejectedExecutionException when max-pending documents are queued or being sent, or
+   *     the repository is closed
+   */
   @Override
   public void send(GlobalTransaction transaction) throws Exception {
-    synchronized (lock) {
-      long begin = System.currentTimeMillis();
-      queries.add(convert(transaction));
-      batchSizeCounter++;
-      metricsService.metrics().doRepositoryReceived();
-      if (batchSize == 0 || batchSizeCounter == batchSize) {
-        save(begin);
-        batchSizeCounter = 0;
+    IndexQuery query = convert(transaction);
+    if (closed || !pendingPermits.tryAcquire()) {
+      throw new RejectedExecutionException(closed
+          ? "Elasticsearch repository is closed"
+          : "Elasticsearch repository has " + maxPending + " pending documents");
+    }
+    metricsService.metrics().doRepositoryReceived();
+    pendingBytes.addAndGet(query.getSource().length());
+    metricsService.metrics().setRepositoryPending(pendingCount.incrementAndGet());
+    queries.offer(query);
+    if (isBatchFull()) {
+      flush(false);
+    }
+  }
+
+  /**
+   * Sends the queued documents, waits for the bulk requests and their retries and stops the bulk
+   * threads, called by Spring on shutdown. Documents that are not sent within the close timeout
+   * are counted as rejected.
+   */
+  public void close() {
+    closed = true;
+    if (refresh != null) {
+      refresh.cancel(false);
+    }
+    long deadline = System.nanoTime() + CLOSE_TIMEOUT;
+    try {
+      while (pendingCount.get() > 0
+          && bulkPermits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        List<IndexQuery> batch = drain();
+        if (batch.isEmpty()) {
+          bulkPermits.release();
+          break;
+        }
+        metricsService.metrics().setRepositoryInflight(inflight.incrementAndGet());
+        execute(batch, 0);
       }
+      // a bulk request holds its permit until it and its retries are completed
+      if (bulkPermits.tryAcquire(concurrentRequests, deadline - System.nanoTime(),
+          TimeUnit.NANOSECONDS)) {
+        bulkPermits.release(concurrentRequests);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    scheduler.shutdownNow();
+    bulkExecutor.shutdownNow();
+    int unsent = maxPending - pendingPermits.availablePermits();
+    if (unsent > 0) {
+      LOG.error("Elasticsearch repository closed with {} unsent documents", unsent);
+      metricsService.metrics().doRepositoryRejected(unsent);
+      metricsService.metrics().setRepositoryPending(0);
+      metricsService.metrics().setRepositoryInflight(0);
     }
   }
 
@@ -145,6 +239,72 @@ public class ElasticsearchTransactionRepository implements TransactionRepository
     return pagingGlobalTransactions;
   }
 
+  @Override
+  public PagingGlobalTransactions getGlobalTransactions(GlobalTransactionQuery query) {
+    long start = System.currentTimeMillis();
+    List<GlobalTransaction> globalTransactions = new ArrayList<>();
+    PagingGlobalTransactions.Builder builder = PagingGlobalTransactions.builder()
+        .size(query.getSize()).total(query.isTrackTotalHits() ? 0 : -1);
+    try {
+      if (this.template.indexOps(IndexCoordinates.of(INDEX_NAME)).exists()) {
+        NativeSearchQuery searchQuery = new NativeSearchQueryBuilder()
+            .withQuery(filter(query))
+            .withSort(SortBuilders.fieldSort("beginTime").order(SortOrder.DESC).unmappedType("date"))
+            .withSort(SortBuilders.fieldSort("globalTxId.keyword").order(SortOrder.DESC).unmappedType("keyword"))
+            .withPageable(PageRequest.of(0, query.getSize()))
+            .build();
+        searchQuery.setTrackTotalHits(query.isTrackTotalHits());
+        SearchHits<GlobalTransactionDocument> result = this.template.search(searchQuery, GlobalTransactionDocument.class);
+        result.forEach(hit -> globalTransactions.add(hit.getContent()));
+        if (query.isTrackTotalHits()) {
+          builder.total(result.getTotalHits());
+        }
+        if (result.getSearchHits().size() == query.getSize()) {
+          List<Object> sortValues = result.getSearchHit(query.getSize() - 1).getSortValues();
+          builder.cursor(GlobalTransactionQuery.cursor(((Number) sortValues.get(0)).longValue(),
+              String.valueOf(sortValues.get(1))));
+        }
+      } else {
+        LOG.warn("[alpha_global_transaction] index not exist");
+      }
+    } catch (Exception ex) {
+      LOG.error(ex.getMessage(), ex);
+    }
+    return builder.globalTransactions(globalTransactions)
+        .elapsed(System.currentTimeMillis() - start).build();
+  }
+
+  // Spring Data Elasticsearch 4.0 can't pass search_after, the cursor is applied as a range on the sort keys instead
+  private BoolQueryBuilder filter(GlobalTransactionQuery query) {
+    BoolQueryBuilder filter = QueryBuilders.boolQuery();
+    if (query.getState() != null) {
+      filter.filter(QueryBuilders.termQuery("state.keyword", query.getState()));
+    }
+    if (query.getServiceName() != null) {
+      filter.filter(QueryBuilders.termQuery("serviceName.keyword", query.getServiceName()));
+    }
+    if (query.getBeginTimeFrom() != null || query.getBeginTimeTo() != null) {
+      RangeQueryBuilder beginTime = QueryBuilders.rangeQuery("beginTime");
+      if (query.getBeginTimeFrom() != null) {
+        beginTime.gte(query.getBeginTimeFrom().getTime());
+      }
+      if (query.getBeginTimeTo() != null) {
+        beginTime.lt(query.getBeginTimeTo().getTime());
+      }
+      filter.filter(beginTime);
+    }
+    if (query.getCursor() != null) {
+      long beginTime = query.getCursorBeginTime();
+      filter.filter(QueryBuilders.boolQuery()
+          .should(QueryBuilders.rangeQuery("beginTime").lt(beginTime))
+          .should(QueryBuilders.boolQuery()
+              .filter(QueryBuilders.termQuery("beginTime", beginTime))
+              .filter(QueryBuilders.rangeQuery("globalTxId.keyword").lt(query.getCursorGlobalTxId())))
+          .minimumShouldMatch(1));
+    }
+    return filter;
+  }
+
   public Map<String, Long> getTransactionStatistics() {
     Map<String, Long> statistics = new HashMap<>();
 
@@ -163,22 +323,6 @@ public class ElasticsearchTransactionRepository implements TransactionRepository
     return statistics;
   }
 
-  @Override
-  public List<GlobalTransaction> getSlowGlobalTransactionsTopN(int n) {
-    List<GlobalTransaction> globalTransactions = new ArrayList();
-    Query query = new NativeSearchQueryBuilder()
-        .withSearchType(SearchType.DFS_QUERY_THEN_FETCH)
-        .withQuery(QueryBuilders.matchAllQuery())
-        .withSort(SortBuilders.fieldSort("durationTime").order(SortOrder.DESC))
-        .withPageable(PageRequest.of(0,n))
-        .build();
-    SearchHits<GlobalTransactionDocument> result = this.template.search(query,GlobalTransactionDocument.class);
-    result.forEach(hit -> {
-      globalTransactions.add(hit.getContent());
-    });
-    return globalTransactions;
-  }
-
   private IndexQuery convert(GlobalTransaction transaction) throws JsonProcessingException {
     IndexQuery indexQuery = new IndexQuery();
     indexQuery.setId(transaction.getGlobalTxId());
@@ -186,42 +330,142 @@ public class ElasticsearchTransactionRepository implements TransactionRepository
     return indexQuery;
   }
 
-  private void save(long begin) {
-    template.bulkIndex(queries, IndexCoordinates.of(INDEX_NAME));
-    template.indexOps(IndexCoordinates.of(INDEX_NAME)).refresh();
-    metricsService.metrics().doRepositoryAccepted(queries.size());
-    long end = System.currentTimeMillis();
-    metricsService.metrics().doRepositoryAvgTime((end - begin) / queries.size());
+  private boolean isBatchFull() {
+    return batchSize <= 0 || pendingCount.get() >= batchSize
+        || batchBytes > 0 && pendingBytes.get() >= batchBytes;
+  }
+
+  /**
+   * Hands queued documents to the bulk threads while a bulk permit is free. When all permits are
+   * taken the documents stay queued and are sent by the next bulk that completes.
+   */
+  private void flush(boolean all) {
+    while (pendingCount.get() > 0 && bulkPermits.tryAcquire()) {
+      List<IndexQuery> batch = drain();
+      if (batch.isEmpty()) {
+        bulkPermits.release();
+        return;
+      }
+      metricsService.metrics().setRepositoryInflight(inflight.incrementAndGet());
+      if (!execute(batch, 0)) {
+        return;
+      }
+      if (!all && !isBatchFull()) {
+        return;
+      }
+    }
+  }
+
+  private List<IndexQuery> drain() {
+    List<IndexQuery> batch = new ArrayList<>();
+    long bytes = 0;
+    IndexQuery query;
+    while ((batchSize <= 0 || batch.size() < batchSize)
+        && (batchBytes <= 0 || bytes < batchBytes)
+        && (query = queries.poll()) != null) {
+      batch.add(query);
+      bytes += query.getSource().length();
+    }
+    pendingBytes.addAndGet(-bytes);
+    metricsService.metrics().setRepositoryPending(pendingCount.addAndGet(-batch.size()));
+    return batch;
+  }
+
+  /**
+   * Runs a bulk request on a bulk thread, the caller has taken a bulk permit for it.
+   */
+  private boolean execute(List<IndexQuery> batch, int retries) {
+    try {
+      bulkExecutor.execute(() -> bulk(batch, retries));
+      return true;
+    } catch (RejectedExecutionException e) {
+      completed();
+      rejected(batch, e);
+      return false;
+    }
+  }
+
+  private void bulk(List<IndexQuery> batch, int retries) {
+    long begin = System.currentTimeMillis();
+    boolean retrying = false;
+    try {
+      template.bulkIndex(batch, IndexCoordinates.of(INDEX_NAME));
+      accepted(batch.size(), begin);
+    } catch (BulkFailureException e) {
+      Map<String, String> failedDocuments = e.getFailedDocuments();
+      List<IndexQuery> failed = batch.stream()
+          .filter(query -> failedDocuments.containsKey(query.getId()))
+          .collect(Collectors.toList());
+      accepted(batch.size() - failed.size(), begin);
+      retrying = retry(failed, retries, e);
+    } catch (Exception e) {
+      retrying = retry(batch, retries, e);
+    } finally {
+      if (!retrying) {
+        completed();
+      }
+    }
+  }
+
+  private void completed() {
+    metricsService.metrics().setRepositoryInflight(inflight.decrementAndGet());
+    bulkPermits.release();
+    if (!closed && isBatchFull()) {
+      flush(false);
+    }
+  }
+
+  private void accepted(int size, long begin) {
+    pendingPermits.release(size);
+    if (size > 0) {
+      metricsService.metrics().doRepositoryAccepted(size);
+      metricsService.metrics().doRepositoryAvgTime((System.currentTimeMillis() - begin) / size);
+    }
     if (LOG.isDebugEnabled()) {
-      LOG.debug("save queries={}, received={}, accepted={}", queries.size(),
+      LOG.debug("save queries={}, received={}, accepted={}", size,
           metricsService.metrics().getRepositoryReceived(),
           metricsService.metrics().getRepositoryAccepted());
     }
-    queries.clear();
   }
 
-  class RefreshTimer implements Runnable {
-
-    @Override
-    public void run() {
-      while (true) {
-        try {
-          synchronized (lock) {
-            if (!queries.isEmpty()) {
-              save(System.currentTimeMillis());
-            }
-          }
-        } catch (Exception e) {
-          LOG.error(e.getMessage(), e);
-        } finally {
-          try {
-            Thread.sleep(refreshTime);
-          } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            LOG.error(e.getMessage(), e);
-          }
-        }
-      }
+  /**
+   * Schedules the failed documents for another bulk request, which keeps the permit of the failed
+   * one, so retries count against concurrent-requests.
+   *
+   * @return true if the retry is scheduled and owns the bulk permit
+   */
+  private boolean retry(List<IndexQuery> failed, int retries, Exception cause) {
+    if (failed.isEmpty()) {
+      return false;
+    }
+    if (retries >= maxRetries) {
+      rejected(failed, cause);
+      return false;
+    }
+    long delay = (long) retryBackoff << retries;
+    LOG.warn("Bulk request failed for {} documents, retry in {} ms", failed.size(), delay, cause);
+    metricsService.metrics().doRepositoryRetried(failed.size());
+    try {
+      scheduler.schedule(() -> execute(failed, retries + 1), delay, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (RejectedExecutionException e) {
+      rejected(failed, cause);
+      return false;
     }
   }
+
+  private void rejected(List<IndexQuery> failed, Exception cause) {
+    pendingPermits.release(failed.size());
+    LOG.error("Bulk request rejected {} documents", failed.size(), cause);
+    metricsService.metrics().doRepositoryRejected(failed.size());
+  }
+
+  private static ThreadFactory daemonThreadFactory(String name) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
 }
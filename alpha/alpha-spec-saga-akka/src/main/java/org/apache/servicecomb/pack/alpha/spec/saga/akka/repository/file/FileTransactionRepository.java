@@ -0,0 +1,366 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.file;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.FileRepositoryProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores ended transactions in a local log of segment files for deployments without
+ * Elasticsearch. Records are appended to the newest segment, which is rolled when it reaches
+ * segment-size. Only the index is kept in memory, it is rebuilt by scanning the segments on
+ * start. Segments older than retention are deleted, and segments whose records were mostly
+ * replaced by later records of the same transaction are compacted into the newest segment.
+ */
+public class FileTransactionRepository implements TransactionRepository {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final Comparator<IndexEntry> BEGIN_TIME_DESC = Comparator
+      .comparingLong(IndexEntry::getBeginTime).reversed()
+      .thenComparing(IndexEntry::getGlobalTxId, Comparator.reverseOrder());
+  private final Path dir;
+  private final long segmentSize;
+  private final long retention;
+  private final double compactionRatio;
+  private final MetricsService metricsService;
+  private final TreeMap<Long, LogSegment> segments = new TreeMap<>();
+  private final Map<String, IndexEntry> entries = new HashMap<>();
+  private final NavigableSet<IndexEntry> byBeginTime = new TreeSet<>(BEGIN_TIME_DESC);
+  private final Map<String, NavigableSet<IndexEntry>> byState = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ScheduledExecutorService scheduler;
+  private LogSegment activeSegment;
+
+  public FileTransactionRepository(FileRepositoryProperties fileProperties,
+      MetricsService metricsService) throws IOException {
+    this.dir = Files.createDirectories(Paths.get(fileProperties.getDir()));
+    this.segmentSize = fileProperties.getSegmentSize();
+    this.retention = fileProperties.getRetention().toMillis();
+    this.compactionRatio = fileProperties.getCompactionRatio();
+    this.metricsService = metricsService;
+    load();
+    long interval = fileProperties.getMaintenanceInterval().toMillis();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "file-repository-maintenance");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (interval > 0) {
+      scheduler.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public void send(GlobalTransaction transaction) throws Exception {
+    long begin = System.currentTimeMillis();
+    metricsService.metrics().doRepositoryReceived();
+    byte[] record = GlobalTransactionCodec.encode(transaction);
+    IndexEntry entry = GlobalTransactionCodec.decodeIndexEntry(record);
+    lock.writeLock().lock();
+    try {
+      if (activeSegment.getSize() > 0
+          && activeSegment.getSize() + LogSegment.HEADER_BYTES + record.length > segmentSize) {
+        roll();
+      }
+      entry.locate(activeSegment, activeSegment.append(record), record.length);
+      index(entry);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    metricsService.metrics().doRepositoryAccepted();
+    metricsService.metrics().doRepositoryAvgTime(System.currentTimeMillis() - begin);
+  }
+
+  @Override
+  public GlobalTransaction getGlobalTransactionByGlobalTxId(String globalTxId) throws Exception {
+    lock.readLock().lock();
+    try {
+      IndexEntry entry = entries.get(globalTxId);
+      return entry == null ? null : read(entry);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public PagingGlobalTransactions getGlobalTransactions(int page, int size) throws Exception {
+    return getGlobalTransactions(null, page, size);
+  }
+
+  @Override
+  public PagingGlobalTransactions getGlobalTransactions(String state, int page, int size)
+      throws Exception {
+    long start = System.currentTimeMillis();
+    List<GlobalTransaction> globalTransactions = new ArrayList<>();
+    long total;
+    lock.readLock().lock();
+    try {
+      NavigableSet<IndexEntry> matches = state != null && state.trim().length() > 0
+          ? byState.getOrDefault(state, new TreeSet<>(BEGIN_TIME_DESC)) : byBeginTime;
+      total = matches.size();
+      Iterator<IndexEntry> iterator = matches.iterator();
+      for (long skip = (long) page * size; skip > 0 && iterator.hasNext(); skip--) {
+        iterator.next();
+      }
+      while (globalTransactions.size() < size && iterator.hasNext()) {
+        globalTransactions.add(read(iterator.next()));
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return PagingGlobalTransactions.builder().page(page).size(size).total(total)
+        .globalTransactions(globalTransactions).elapsed(System.currentTimeMillis() - start)
+        .build();
+  }
+
+  @Override
+  public PagingGlobalTransactions getGlobalTransactions(GlobalTransactionQuery query)
+      throws Exception {
+    long start = System.currentTimeMillis();
+    List<GlobalTransaction> globalTransactions = new ArrayList<>();
+    long total = -1;
+    String cursor = null;
+    lock.readLock().lock();
+    try {
+      if (query.isTrackTotalHits()) {
+        total = matches(query, false).stream().filter(entry -> matches(query, entry)).count();
+      }
+      IndexEntry last = null;
+      Iterator<IndexEntry> iterator = matches(query, true).iterator();
+      while (globalTransactions.size() < query.getSize() && iterator.hasNext()) {
+        IndexEntry entry = iterator.next();
+        if (matches(query, entry)) {
+          globalTransactions.add(read(entry));
+          last = entry;
+        }
+      }
+      if (last != null && globalTransactions.size() == query.getSize()) {
+        cursor = GlobalTransactionQuery.cursor(last.getBeginTime(), last.getGlobalTxId());
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return PagingGlobalTransactions.builder().size(query.getSize()).total(total).cursor(cursor)
+        .globalTransactions(globalTransactions).elapsed(System.currentTimeMillis() - start)
+        .build();
+  }
+
+  @Override
+  public Map<String, Long> getTransactionStatistics() {
+    lock.readLock().lock();
+    try {
+      return byState.entrySet().stream()
+          .collect(Collectors.toMap(Map.Entry::getKey, e -> (long) e.getValue().size()));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Deletes the segments older than retention and compacts the segments with few live records.
+   */
+  public void maintain() {
+    lock.writeLock().lock();
+    try {
+      long expired = System.currentTimeMillis() - retention;
+      for (LogSegment segment : new ArrayList<>(segments.values())) {
+        if (segment == activeSegment) {
+          continue;
+        }
+        if (retention > 0 && segment.getLastAppendTime() < expired) {
+          deleteSegment(segment);
+        } else if (segment.getLiveBytes() < segment.getSize() * compactionRatio) {
+          compact(segment, expired);
+        }
+      }
+    } catch (IOException e) {
+      LOG.error("Failed to maintain transaction log segments", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Stops the maintenance and closes the segments, called by Spring on shutdown.
+   */
+  public void close() {
+    scheduler.shutdownNow();
+    lock.writeLock().lock();
+    try {
+      for (LogSegment segment : segments.values()) {
+        segment.close();
+      }
+    } catch (IOException e) {
+      LOG.error("Failed to close transaction log segments", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void load() throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      List<Long> ids = files.map(file -> file.getFileName().toString())
+          .filter(name -> name.endsWith(LogSegment.SUFFIX))
+          .map(name -> Long.parseLong(name.substring(0, name.length() - LogSegment.SUFFIX.length())))
+          .sorted()
+          .collect(Collectors.toList());
+      for (long id : ids) {
+        LogSegment segment = LogSegment.open(dir, id);
+        segments.put(id, segment);
+        segment.scan((record, position) -> {
+          IndexEntry entry = GlobalTransactionCodec.decodeIndexEntry(record);
+          entry.locate(segment, position, record.length);
+          index(entry);
+        });
+      }
+    }
+    if (segments.isEmpty()) {
+      segments.put(0L, LogSegment.open(dir, 0L));
+    }
+    activeSegment = segments.lastEntry().getValue();
+    LOG.info("Loaded {} transactions from {} segments in {}", entries.size(), segments.size(),
+        dir);
+  }
+
+  private void roll() throws IOException {
+    activeSegment.force();
+    activeSegment = LogSegment.open(dir, activeSegment.getId() + 1);
+    segments.put(activeSegment.getId(), activeSegment);
+  }
+
+  private void index(IndexEntry entry) {
+    IndexEntry replaced = entries.put(entry.getGlobalTxId(), entry);
+    if (replaced != null) {
+      unindex(replaced);
+    }
+    byBeginTime.add(entry);
+    byState.computeIfAbsent(entry.getState(), state -> new TreeSet<>(BEGIN_TIME_DESC)).add(entry);
+    entry.getSegment().addLiveBytes(LogSegment.HEADER_BYTES + entry.getLength());
+  }
+
+  private void unindex(IndexEntry entry) {
+    byBeginTime.remove(entry);
+    NavigableSet<IndexEntry> stateEntries = byState.get(entry.getState());
+    if (stateEntries != null) {
+      stateEntries.remove(entry);
+      if (stateEntries.isEmpty()) {
+        byState.remove(entry.getState());
+      }
+    }
+    entry.getSegment().addLiveBytes(-(LogSegment.HEADER_BYTES + entry.getLength()));
+  }
+
+  private void deleteSegment(LogSegment segment) throws IOException {
+    Iterator<IndexEntry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      IndexEntry entry = iterator.next();
+      if (entry.getSegment() == segment) {
+        iterator.remove();
+        unindex(entry);
+      }
+    }
+    segments.remove(segment.getId());
+    segment.delete();
+    LOG.info("Deleted transaction log segment {} older than retention", segment.getId());
+  }
+
+  private void compact(LogSegment segment, long expired) throws IOException {
+    List<IndexEntry> live = entries.values().stream()
+        .filter(entry -> entry.getSegment() == segment)
+        .sorted(Comparator.comparingLong(IndexEntry::getPosition))
+        .collect(Collectors.toList());
+    for (IndexEntry entry : live) {
+      // moved records get a new segment age, drop the ones that ended before retention
+      if (retention > 0 && entry.getBeginTime() + entry.getDurationTime() < expired) {
+        entries.remove(entry.getGlobalTxId());
+        unindex(entry);
+        continue;
+      }
+      byte[] record = segment.read(entry.getPosition(), entry.getLength());
+      if (activeSegment.getSize() > 0
+          && activeSegment.getSize() + LogSegment.HEADER_BYTES + record.length > segmentSize) {
+        roll();
+      }
+      entry.locate(activeSegment, activeSegment.append(record), record.length);
+      activeSegment.addLiveBytes(LogSegment.HEADER_BYTES + record.length);
+    }
+    activeSegment.force();
+    segments.remove(segment.getId());
+    segment.delete();
+    LOG.info("Compacted transaction log segment {}, moved {} transactions", segment.getId(),
+        live.size());
+  }
+
+  // entries of the state within the beginTime range of the query, after the cursor if any
+  private NavigableSet<IndexEntry> matches(GlobalTransactionQuery query, boolean afterCursor) {
+    NavigableSet<IndexEntry> matches = query.getState() != null
+        ? byState.getOrDefault(query.getState(), new TreeSet<>(BEGIN_TIME_DESC)) : byBeginTime;
+    // an empty globalTxId sorts after every entry of the same beginTime
+    IndexEntry upper = new IndexEntry("", null, null, query.getBeginTimeTo() != null
+        ? query.getBeginTimeTo().getTime() : Long.MAX_VALUE, 0);
+    IndexEntry lower = new IndexEntry("", null, null, query.getBeginTimeFrom() != null
+        ? query.getBeginTimeFrom().getTime() : Long.MIN_VALUE, 0);
+    if (afterCursor && query.getCursor() != null) {
+      IndexEntry cursor = new IndexEntry(query.getCursorGlobalTxId(), null, null,
+          query.getCursorBeginTime(), 0);
+      if (BEGIN_TIME_DESC.compare(cursor, upper) > 0) {
+        upper = cursor;
+      }
+    }
+    if (BEGIN_TIME_DESC.compare(upper, lower) >= 0) {
+      return new TreeSet<>(BEGIN_TIME_DESC);
+    }
+    return matches.subSet(upper, false, lower, true);
+  }
+
+  private boolean matches(GlobalTransactionQuery query, IndexEntry entry) {
+    return query.getServiceName() == null || query.getServiceName().equals(entry.getServiceName());
+  }
+
+  private GlobalTransaction read(IndexEntry entry) throws IOException {
+    return GlobalTransactionCodec
+        .decode(entry.getSegment().read(entry.getPosition(), entry.getLength()));
+  }
+}
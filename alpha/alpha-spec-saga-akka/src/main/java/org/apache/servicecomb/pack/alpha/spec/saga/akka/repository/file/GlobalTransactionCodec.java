@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.file;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BinaryInput;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BinaryOutput;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.SagaSubTransaction;
+
+/**
+ * Binary format of the {@link GlobalTransaction} records in the transaction log. The indexed
+ * fields come first so that the index can be rebuilt without decoding whole records.
+ */
+final class GlobalTransactionCodec {
+
+  static final byte VERSION = 1;
+
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte INT = 2;
+  private static final byte LONG = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte BOOLEAN = 5;
+  private static final byte LIST = 6;
+  private static final byte MAP = 7;
+
+  private GlobalTransactionCodec() {
+  }
+
+  static byte[] encode(GlobalTransaction transaction) {
+    BinaryOutput out = new BinaryOutput();
+    out.writeByte(VERSION);
+    out.writeString(transaction.getGlobalTxId());
+    out.writeString(transaction.getServiceName());
+    out.writeString(transaction.getState());
+    out.writeDate(transaction.getBeginTime());
+    out.writeDate(transaction.getEndTime());
+    out.writeEnum(transaction.getType());
+    out.writeString(transaction.getInstanceId());
+    out.writeBoolean(transaction.getSubTxSize() != null);
+    if (transaction.getSubTxSize() != null) {
+      out.writeInt(transaction.getSubTxSize());
+    }
+    out.writeEnum(transaction.getSuspendedType());
+    List<SagaSubTransaction> subTransactions = transaction.getSubTransactions();
+    out.writeVarInt(subTransactions == null ? 0 : subTransactions.size());
+    if (subTransactions != null) {
+      for (SagaSubTransaction subTransaction : subTransactions) {
+        out.writeString(subTransaction.getLocalTxId());
+        out.writeString(subTransaction.getParentTxId());
+        out.writeDate(subTransaction.getBeginTime());
+        out.writeDate(subTransaction.getEndTime());
+        out.writeEnum(subTransaction.getState());
+      }
+    }
+    List<Map<String, Object>> events = transaction.getEvents();
+    out.writeVarInt(events.size());
+    for (Map<String, Object> event : events) {
+      writeValue(out, event);
+    }
+    return out.toByteArray();
+  }
+
+  @SuppressWarnings("unchecked")
+  static GlobalTransaction decode(byte[] bytes) {
+    BinaryInput in = new BinaryInput(bytes);
+    checkVersion(in);
+    GlobalTransaction.Builder builder = GlobalTransaction.builder()
+        .globalTxId(in.readString())
+        .serviceName(in.readString())
+        .state(in.readString())
+        .beginTime(in.readDate())
+        .endTime(in.readDate())
+        .type(in.readEnum(TransactionType.class))
+        .instanceId(in.readString());
+    if (in.readBoolean()) {
+      builder.subTxSize(in.readInt());
+    }
+    builder.suspendedType(in.readEnum(SuspendedType.class));
+    int subTxSize = in.readVarInt();
+    List<SagaSubTransaction> subTransactions = new ArrayList<>(subTxSize);
+    for (int i = 0; i < subTxSize; i++) {
+      subTransactions.add(SagaSubTransaction.builder()
+          .localTxId(in.readString())
+          .parentTxId(in.readString())
+          .beginTime(in.readDate())
+          .endTime(in.readDate())
+          .state(in.readEnum(TxState.class))
+          .build());
+    }
+    int eventSize = in.readVarInt();
+    List<Map<String, Object>> events = new ArrayList<>(eventSize);
+    for (int i = 0; i < eventSize; i++) {
+      events.add((Map<String, Object>) readValue(in));
+    }
+    return builder.subTransactions(subTransactions).eventMaps(events).build();
+  }
+
+  /**
+   * Decodes only the indexed fields of a record.
+   */
+  static IndexEntry decodeIndexEntry(byte[] bytes) {
+    BinaryInput in = new BinaryInput(bytes);
+    checkVersion(in);
+    String globalTxId = in.readString();
+    String serviceName = in.readString();
+    String state = in.readString();
+    long beginTime = in.readTime();
+    long endTime = in.readTime();
+    return new IndexEntry(globalTxId, serviceName, state, beginTime, endTime - beginTime);
+  }
+
+  private static void checkVersion(BinaryInput in) {
+    byte version = in.readByte();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported transaction record version " + version);
+    }
+  }
+
+  private static void writeValue(BinaryOutput out, Object value) {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Integer) {
+      out.writeByte(INT);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeLong(Double.doubleToLongBits((Double) value));
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      out.writeByte(LIST);
+      out.writeVarInt(list.size());
+      list.forEach(element -> writeValue(out, element));
+    } else if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      out.writeByte(MAP);
+      out.writeVarInt(map.size());
+      map.forEach((key, element) -> {
+        out.writeString(String.valueOf(key));
+        writeValue(out, element);
+      });
+    } else {
+      out.writeByte(STRING);
+      out.writeString(value.toString());
+    }
+  }
+
+  private static Object readValue(BinaryInput in) {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case STRING:
+        return in.readString();
+      case INT:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case DOUBLE:
+        return Double.longBitsToDouble(in.readLong());
+      case BOOLEAN:
+        return in.readBoolean();
+      case LIST:
+        int listSize = in.readVarInt();
+        List<Object> list = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+          list.add(readValue(in));
+        }
+        return list;
+      case MAP:
+        int mapSize = in.readVarInt();
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < mapSize; i++) {
+          map.put(in.readString(), readValue(in));
+        }
+        return map;
+      default:
+        throw new IllegalArgumentException("Unknown value tag " + tag);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.file;
+
+/**
+ * Index of a transaction record in the log, the fields are guarded by the lock of
+ * {@link FileTransactionRepository}.
+ */
+final class IndexEntry {
+
+  private final String globalTxId;
+  private final String serviceName;
+  private final String state;
+  private final long beginTime;
+  private final long durationTime;
+  private LogSegment segment;
+  private long position;
+  private int length;
+
+  IndexEntry(String globalTxId, String serviceName, String state, long beginTime,
+      long durationTime) {
+    this.globalTxId = globalTxId;
+    this.serviceName = serviceName;
+    this.state = state;
+    this.beginTime = beginTime;
+    this.durationTime = durationTime;
+  }
+
+  String getGlobalTxId() {
+    return globalTxId;
+  }
+
+  String getServiceName() {
+    return serviceName;
+  }
+
+  String getState() {
+    return state;
+  }
+
+  long getBeginTime() {
+    return beginTime;
+  }
+
+  long getDurationTime() {
+    return durationTime;
+  }
+
+  LogSegment getSegment() {
+    return segment;
+  }
+
+  long getPosition() {
+    return position;
+  }
+
+  int getLength() {
+    return length;
+  }
+
+  void locate(LogSegment segment, long position, int length) {
+    this.segment = segment;
+    this.position = position;
+    this.length = length;
+  }
+}
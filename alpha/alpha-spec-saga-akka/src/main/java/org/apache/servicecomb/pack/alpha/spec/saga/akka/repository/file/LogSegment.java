@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of transaction records, each written as its length, the CRC32 of its bytes and
+ * its bytes.
+ */
+final class LogSegment {
+
+  static final String SUFFIX = ".log";
+  static final int HEADER_BYTES = 8;
+  private final long id;
+  private final Path path;
+  private final FileChannel channel;
+  private long size;
+  private long liveBytes;
+  private long lastAppendTime;
+
+  private LogSegment(long id, Path path) throws IOException {
+    this.id = id;
+    this.path = path;
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    this.size = channel.size();
+    this.lastAppendTime = Files.getLastModifiedTime(path).toMillis();
+  }
+
+  static LogSegment open(Path dir, long id) throws IOException {
+    return new LogSegment(id, dir.resolve(String.format("%020d%s", id, SUFFIX)));
+  }
+
+  long getId() {
+    return id;
+  }
+
+  long getSize() {
+    return size;
+  }
+
+  long getLiveBytes() {
+    return liveBytes;
+  }
+
+  long getLastAppendTime() {
+    return lastAppendTime;
+  }
+
+  void addLiveBytes(long bytes) {
+    liveBytes += bytes;
+  }
+
+  /**
+   * Appends a record and returns its position.
+   */
+  long append(byte[] record) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + record.length);
+    buffer.putInt(record.length).putInt(crc(record)).put(record).flip();
+    long position = size;
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, position + buffer.position());
+    }
+    size += HEADER_BYTES + record.length;
+    lastAppendTime = System.currentTimeMillis();
+    return position;
+  }
+
+  byte[] read(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    readFully(buffer, position + HEADER_BYTES);
+    return buffer.array();
+  }
+
+  /**
+   * Reads all records in order and truncates the segment after the last complete record, which
+   * drops a record partially written before a crash.
+   */
+  void scan(RecordConsumer consumer) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    long position = 0;
+    while (position + HEADER_BYTES <= size) {
+      header.clear();
+      readFully(header, position);
+      int length = header.getInt(0);
+      if (length <= 0 || position + HEADER_BYTES + length > size) {
+        break;
+      }
+      byte[] record = read(position, length);
+      if (crc(record) != header.getInt(4)) {
+        break;
+      }
+      consumer.accept(record, position);
+      position += HEADER_BYTES + length;
+    }
+    if (position < size) {
+      channel.truncate(position);
+      size = position;
+    }
+  }
+
+  void force() throws IOException {
+    channel.force(false);
+  }
+
+  void delete() throws IOException {
+    channel.close();
+    Files.deleteIfExists(path);
+  }
+
+  void close() throws IOException {
+    channel.force(false);
+    channel.close();
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of " + path);
+      }
+    }
+  }
+
+  private static int crc(byte[] record) {
+    CRC32 crc = new CRC32();
+    crc.update(record, 0, record.length);
+    return (int) crc.getValue();
+  }
+
+  interface RecordConsumer {
+
+    void accept(byte[] record, long position) throws IOException;
+  }
+}
@@ -0,0 +1,340 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.serialization;
+
+import akka.serialization.SerializerWithStringManifest;
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckFailedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxCompensateAckSucceedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BaseEventCodec;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BinaryInput;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.codec.BinaryOutput;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.CompensateAckTimeoutEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedCheckEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaEventBatch;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.AddTxEventDomain;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.SagaEndedDomain;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.SagaStartedDomain;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.UpdateTxEventDomain;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionActor;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaData;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaEventLog;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.TxEntity;
+
+/**
+ * Serializer of the messages the saga actors persist and exchange through cluster sharding:
+ * the saga events, the domain events written to the journal and the {@link SagaData} snapshots,
+ * as well as the slow transaction queries the alpha nodes send each other.
+ *
+ * <p>Every payload but the plain events starts with a schema version. New fields are only
+ * appended and read when present, so the journal written by an older release can be replayed.
+ * The events themselves are written with {@link BaseEventCodec}, which carries its own version.
+ * The identifier and the manifests are stored with each journal entry and must never change.
+ * Nodes of the releases before this serializer cannot read its messages, see reference.conf.
+ */
+public class SagaSerializer extends SerializerWithStringManifest {
+
+  public static final int IDENTIFIER = 1210;
+
+  private static final byte SCHEMA_VERSION = 1;
+
+  static final String EVENT_MANIFEST = "E";
+  static final String EVENT_BATCH_MANIFEST = "EB";
+  static final String SAGA_STARTED_MANIFEST = "SS";
+  static final String ADD_TX_MANIFEST = "AT";
+  static final String UPDATE_TX_MANIFEST = "UT";
+  static final String SAGA_ENDED_MANIFEST = "SE";
+  static final String SAGA_DATA_MANIFEST = "SD";
+  static final String SLOW_TRANSACTION_QUERY_MANIFEST = "SQ";
+  static final String SLOW_TRANSACTION_REPLY_MANIFEST = "SR";
+
+  private final BaseEventCodec codec = new BaseEventCodec();
+
+  @Override
+  public int identifier() {
+    return IDENTIFIER;
+  }
+
+  @Override
+  public String manifest(Object o) {
+    if (o instanceof BaseEvent) {
+      return EVENT_MANIFEST;
+    } else if (o instanceof SagaEventBatch) {
+      return EVENT_BATCH_MANIFEST;
+    } else if (o instanceof SagaStartedDomain) {
+      return SAGA_STARTED_MANIFEST;
+    } else if (o instanceof AddTxEventDomain) {
+      return ADD_TX_MANIFEST;
+    } else if (o instanceof UpdateTxEventDomain) {
+      return UPDATE_TX_MANIFEST;
+    } else if (o instanceof SagaEndedDomain) {
+      return SAGA_ENDED_MANIFEST;
+    } else if (o instanceof SagaData) {
+      return SAGA_DATA_MANIFEST;
+    } else if (o instanceof SlowTransactionActor.Query) {
+      return SLOW_TRANSACTION_QUERY_MANIFEST;
+    } else if (o instanceof SlowTransactionActor.Reply) {
+      return SLOW_TRANSACTION_REPLY_MANIFEST;
+    }
+    throw new IllegalArgumentException("Cannot serialize " + o.getClass().getName());
+  }
+
+  @Override
+  public byte[] toBinary(Object o) {
+    if (o instanceof BaseEvent) {
+      return codec.encode((BaseEvent) o);
+    }
+    BinaryOutput out = new BinaryOutput();
+    out.writeByte(SCHEMA_VERSION);
+    if (o instanceof SagaEventBatch) {
+      List<BaseEvent> events = ((SagaEventBatch) o).getEvents();
+      out.writeVarInt(events.size());
+      events.forEach(event -> out.writeBytes(codec.encode(event)));
+    } else if (o instanceof SagaStartedDomain) {
+      out.writeBytes(codec.encode(((SagaStartedDomain) o).getEvent()));
+    } else if (o instanceof AddTxEventDomain) {
+      out.writeBytes(codec.encode(((AddTxEventDomain) o).getEvent()));
+    } else if (o instanceof UpdateTxEventDomain) {
+      out.writeBytes(codec.encode(((UpdateTxEventDomain) o).getEvent()));
+    } else if (o instanceof SagaEndedDomain) {
+      SagaEndedDomain domain = (SagaEndedDomain) o;
+      out.writeBytes(domain.getEvent() != null ? codec.encode(domain.getEvent()) : null);
+      out.writeEnum(domain.getState());
+      out.writeEnum(domain.getSuspendedType());
+    } else if (o instanceof SagaData) {
+      writeSagaData(out, (SagaData) o);
+    } else if (o instanceof SlowTransactionActor.Query) {
+      SlowTransactionActor.Query query = (SlowTransactionActor.Query) o;
+      out.writeString(query.getServiceName());
+      out.writeVarInt(query.getSize());
+    } else if (o instanceof SlowTransactionActor.Reply) {
+      List<SlowTransaction> transactions = ((SlowTransactionActor.Reply) o).getTransactions();
+      out.writeVarInt(transactions.size());
+      transactions.forEach(transaction -> writeSlowTransaction(out, transaction));
+    } else {
+      throw new IllegalArgumentException("Cannot serialize " + o.getClass().getName());
+    }
+    return out.toByteArray();
+  }
+
+  @Override
+  public Object fromBinary(byte[] bytes, String manifest) throws NotSerializableException {
+    try {
+      if (EVENT_MANIFEST.equals(manifest)) {
+        return codec.decode(bytes);
+      }
+      BinaryInput in = new BinaryInput(bytes);
+      // only the first schema exists yet, later versions branch on it
+      in.readByte();
+      switch (manifest) {
+        case EVENT_BATCH_MANIFEST:
+          int size = in.readVarInt();
+          List<BaseEvent> events = new ArrayList<>(size);
+          for (int i = 0; i < size; i++) {
+            events.add(codec.decode(in.readBytes()));
+          }
+          return new SagaEventBatch(events);
+        case SAGA_STARTED_MANIFEST:
+          return new SagaStartedDomain((SagaStartedEvent) codec.decode(in.readBytes()));
+        case ADD_TX_MANIFEST:
+          return new AddTxEventDomain((TxStartedEvent) codec.decode(in.readBytes()));
+        case UPDATE_TX_MANIFEST:
+          return updateTxEventDomain(codec.decode(in.readBytes()));
+        case SAGA_ENDED_MANIFEST:
+          byte[] event = in.readBytes();
+          return new SagaEndedDomain(event != null ? codec.decode(event) : null,
+              in.readEnum(SagaActorState.class), in.readEnum(SuspendedType.class));
+        case SAGA_DATA_MANIFEST:
+          return readSagaData(in);
+        case SLOW_TRANSACTION_QUERY_MANIFEST:
+          return new SlowTransactionActor.Query(in.readString(), in.readVarInt());
+        case SLOW_TRANSACTION_REPLY_MANIFEST:
+          int count = in.readVarInt();
+          List<SlowTransaction> transactions = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            transactions.add(readSlowTransaction(in));
+          }
+          return new SlowTransactionActor.Reply(transactions);
+        default:
+          throw new NotSerializableException("Unknown manifest " + manifest);
+      }
+    } catch (IllegalArgumentException | ClassCastException e) {
+      throw new NotSerializableException(
+          "Cannot deserialize " + manifest + ": " + e.getMessage());
+    }
+  }
+
+  private void writeSagaData(BinaryOutput out, SagaData data) {
+    out.writeString(data.getServiceName());
+    out.writeString(data.getInstanceId());
+    out.writeString(data.getGlobalTxId());
+    out.writeDate(data.getBeginTime());
+    out.writeDate(data.getEndTime());
+    out.writeDate(data.getExpirationTime());
+    out.writeEnum(data.getSuspendedType());
+    out.writeBoolean(data.isTerminated());
+    out.writeEnum(data.getLastState());
+    out.writeLong(data.getCompensationRunningCounter().get());
+    out.writeVarInt(data.getTxEntities().size());
+    data.getTxEntities().forEach((localTxId, txEntity) -> writeTxEntity(out, txEntity));
+    out.writeVarInt(data.getEvents().size());
+    data.getEvents().forEach(event -> out.writeBytes(codec.encode(event)));
+    out.writeVarInt(data.getEventLog().getMaxEvents());
+    out.writeLong(data.getEventLog().getDroppedEvents());
+  }
+
+  private SagaData readSagaData(BinaryInput in) {
+    SagaData data = SagaData.builder().build();
+    data.setServiceName(in.readString());
+    data.setInstanceId(in.readString());
+    data.setGlobalTxId(in.readString());
+    data.setBeginTime(in.readDate());
+    data.setEndTime(in.readDate());
+    data.setExpirationTime(in.readDate());
+    data.setSuspendedType(in.readEnum(SuspendedType.class));
+    data.setTerminated(in.readBoolean());
+    data.setLastState(in.readEnum(SagaActorState.class));
+    data.getCompensationRunningCounter().set(in.readLong());
+    int entities = in.readVarInt();
+    for (int i = 0; i < entities; i++) {
+      TxEntity txEntity = readTxEntity(in);
+      data.getTxEntities().put(txEntity.getLocalTxId(), txEntity);
+    }
+    int size = in.readVarInt();
+    List<BaseEvent> events = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      events.add(codec.decode(in.readBytes()));
+    }
+    if (in.hasRemaining()) {
+      data.setEventLog(new SagaEventLog(in.readVarInt()));
+      data.getEventLog().setDroppedEvents(in.readLong());
+    }
+    events.forEach(data::logEvent);
+    // the entities share the payloads of their started events as they do before serialization
+    data.getTxEntities().forEach((localTxId, txEntity) -> {
+      byte[] payloads = data.getEventLog().startedPayloads(localTxId);
+      if (payloads != null && Arrays.equals(payloads, txEntity.getPayloads())) {
+        txEntity.setPayloads(payloads);
+      }
+    });
+    return data;
+  }
+
+  private static void writeSlowTransaction(BinaryOutput out, SlowTransaction slowTransaction) {
+    GlobalTransaction transaction = slowTransaction.toGlobalTransaction();
+    out.writeString(transaction.getGlobalTxId());
+    out.writeEnum(transaction.getType());
+    out.writeString(transaction.getServiceName());
+    out.writeString(transaction.getInstanceId());
+    out.writeDate(transaction.getBeginTime());
+    out.writeDate(transaction.getEndTime());
+    out.writeString(transaction.getState());
+    out.writeBoolean(transaction.getSubTxSize() != null);
+    if (transaction.getSubTxSize() != null) {
+      out.writeVarInt(transaction.getSubTxSize());
+    }
+    out.writeEnum(transaction.getSuspendedType());
+  }
+
+  private static SlowTransaction readSlowTransaction(BinaryInput in) {
+    GlobalTransaction.Builder transaction = GlobalTransaction.builder()
+        .globalTxId(in.readString())
+        .type(in.readEnum(TransactionType.class))
+        .serviceName(in.readString())
+        .instanceId(in.readString())
+        .beginTime(in.readDate())
+        .endTime(in.readDate())
+        .state(in.readString());
+    if (in.readBoolean()) {
+      transaction.subTxSize(in.readVarInt());
+    }
+    return SlowTransaction.of(transaction
+        .suspendedType(in.readEnum(SuspendedType.class))
+        .build());
+  }
+
+  private static void writeTxEntity(BinaryOutput out, TxEntity txEntity) {
+    out.writeString(txEntity.getServiceName());
+    out.writeString(txEntity.getInstanceId());
+    out.writeString(txEntity.getGlobalTxId());
+    out.writeString(txEntity.getParentTxId());
+    out.writeString(txEntity.getLocalTxId());
+    out.writeDate(txEntity.getBeginTime());
+    out.writeDate(txEntity.getEndTime());
+    out.writeEnum(txEntity.getState());
+    out.writeString(txEntity.getCompensationMethod());
+    out.writeBytes(txEntity.getPayloads());
+    out.writeBytes(txEntity.getThrowablePayLoads());
+    out.writeInt(txEntity.getReverseRetries());
+    out.writeInt(txEntity.getReverseTimeout());
+    out.writeInt(txEntity.getRetryDelayInMilliseconds());
+    out.writeInt(txEntity.getRetriesCounter().get());
+  }
+
+  private static TxEntity readTxEntity(BinaryInput in) {
+    TxEntity txEntity = TxEntity.builder()
+        .serviceName(in.readString())
+        .instanceId(in.readString())
+        .globalTxId(in.readString())
+        .parentTxId(in.readString())
+        .localTxId(in.readString())
+        .beginTime(in.readDate())
+        .endTime(in.readDate())
+        .state(in.readEnum(TxState.class))
+        .compensationMethod(in.readString())
+        .payloads(in.readBytes())
+        .throwablePayLoads(in.readBytes())
+        .reverseRetries(in.readInt())
+        .reverseTimeout(in.readInt())
+        .retryDelayInMilliseconds(in.readInt())
+        .build();
+    txEntity.getRetriesCounter().set(in.readInt());
+    return txEntity;
+  }
+
+  private static UpdateTxEventDomain updateTxEventDomain(BaseEvent event) {
+    if (event instanceof TxEndedEvent) {
+      return new UpdateTxEventDomain((TxEndedEvent) event);
+    } else if (event instanceof TxAbortedEvent) {
+      return new UpdateTxEventDomain((TxAbortedEvent) event);
+    } else if (event instanceof TxCompensateAckSucceedEvent) {
+      return new UpdateTxEventDomain((TxCompensateAckSucceedEvent) event);
+    } else if (event instanceof TxCompensateAckFailedEvent) {
+      return new UpdateTxEventDomain((TxCompensateAckFailedEvent) event);
+    } else if (event instanceof CompensateAckTimeoutEvent) {
+      return new UpdateTxEventDomain((CompensateAckTimeoutEvent) event);
+    } else if (event instanceof ComponsitedCheckEvent) {
+      return new UpdateTxEventDomain((ComponsitedCheckEvent) event);
+    }
+    throw new IllegalArgumentException("Unexpected tx event " + event.getType());
+  }
+}
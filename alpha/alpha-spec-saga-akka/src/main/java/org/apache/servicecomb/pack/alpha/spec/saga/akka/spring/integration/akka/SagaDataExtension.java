@@ -29,6 +29,7 @@ import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransac
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.SagaSubTransaction;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionTracker;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaData;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepositoryChannel;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka.SagaDataExtension.SagaDataExt;
@@ -50,6 +51,7 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
     private final ConcurrentHashMap<String, SagaData> sagaDataMap = new ConcurrentHashMap();
     private MetricsService metricsService;
     private TransactionRepositoryChannel repositoryChannel;
+    private SlowTransactionTracker slowTransactionTracker;
 
     public void putSagaData(String globalTxId, SagaData sagaData) {
       sagaDataMap.put(globalTxId, sagaData);
@@ -88,6 +90,11 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
           .events(sagaData.getEvents())
           .suspendedType(sagaData.getSuspendedType())
           .build();
+      this.metricsService.metrics().doSagaData(sagaData.estimateHeapBytes(),
+          sagaData.getEventLog().getDroppedEvents());
+      if (slowTransactionTracker != null) {
+        slowTransactionTracker.offer(record);
+      }
       repositoryChannel.send(record);
       sagaDataMap.remove(globalTxId);
     }
@@ -114,6 +121,18 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
       this.metricsService.metrics().doSagaAvgTime(time);
     }
 
+    public void doRecovered(int events, long time) {
+      this.metricsService.metrics().doActorRecovered(events, time);
+    }
+
+    public void doSnapshotSaved() {
+      this.metricsService.metrics().doActorSnapshotSaved();
+    }
+
+    public void doJournalFlushed() {
+      this.metricsService.metrics().doActorJournalFlushed();
+    }
+
     public void setMetricsService(
         MetricsService metricsService) {
       this.metricsService = metricsService;
@@ -123,5 +142,10 @@ public class SagaDataExtension extends AbstractExtensionId<SagaDataExt> {
         TransactionRepositoryChannel repositoryChannel) {
       this.repositoryChannel = repositoryChannel;
     }
+
+    public void setSlowTransactionTracker(
+        SlowTransactionTracker slowTransactionTracker) {
+      this.slowTransactionTracker = slowTransactionTracker;
+    }
   }
 }
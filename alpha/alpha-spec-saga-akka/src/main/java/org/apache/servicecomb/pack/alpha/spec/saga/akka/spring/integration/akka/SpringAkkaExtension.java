@@ -20,11 +20,12 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka
 import static org.apache.servicecomb.pack.common.EventType.TxCompensateEvent;
 
 import akka.actor.AbstractExtensionId;
+import akka.actor.ActorSystem;
+import akka.actor.Cancellable;
 import akka.actor.ExtendedActorSystem;
 import akka.actor.Extension;
 import java.lang.invoke.MethodHandles;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
@@ -34,6 +35,7 @@ import org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka.
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
+import scala.concurrent.duration.Duration;
 
 public class SpringAkkaExtension extends AbstractExtensionId<SpringExt> {
 
@@ -42,26 +44,39 @@ public class SpringAkkaExtension extends AbstractExtensionId<SpringExt> {
 
   @Override
   public SpringExt createExtension(ExtendedActorSystem system) {
-    return new SpringExt();
+    return new SpringExt(system);
   }
 
   public static class SpringExt implements Extension {
 
     private static final String omegaCallbackBeanName = "omegaCallback";
+    private final ActorSystem system;
     private volatile ApplicationContext applicationContext;
     private OmegaCallback omegaCallback;
 
-    public void compensate(TxEntity txEntity)
-        throws InterruptedException, ExecutionException, TimeoutException {
-      if (txEntity.getReverseTimeout() > 0) {
-        CompletableFuture.runAsync(() -> doCompensate(txEntity))
-            .get(txEntity.getReverseTimeout(), TimeUnit.SECONDS);
-      } else {
-        doCompensate(txEntity);
+    public SpringExt(ActorSystem system) {
+      this.system = system;
+    }
+
+    /**
+     * Dispatches the compensation and returns at once. The future completes when omega acks it
+     * and fails with a {@link TimeoutException} once the entity's reverse timeout has elapsed.
+     */
+    public CompletableFuture<Void> compensate(TxEntity txEntity) {
+      CompletableFuture<Void> future = doCompensate(txEntity);
+      if (txEntity.getReverseTimeout() > 0 && !future.isDone()) {
+        Cancellable timeout = system.scheduler().scheduleOnce(
+            Duration.create(txEntity.getReverseTimeout(), TimeUnit.SECONDS),
+            () -> future.completeExceptionally(new TimeoutException(
+                "Compensation of " + txEntity.getLocalTxId() + " was not acknowledged within "
+                    + txEntity.getReverseTimeout() + " seconds")),
+            system.dispatcher());
+        future.whenComplete((v, e) -> timeout.cancel());
       }
+      return future;
     }
 
-    private void doCompensate(TxEntity txEntity) {
+    private CompletableFuture<Void> doCompensate(TxEntity txEntity) {
       if (applicationContext != null) {
         if (applicationContext.containsBean(omegaCallbackBeanName)) {
           omegaCallback = applicationContext.getBean(omegaCallbackBeanName, OmegaCallback.class);
@@ -74,13 +89,14 @@ public class SpringAkkaExtension extends AbstractExtensionId<SpringExt> {
               TxCompensateEvent.name(),
               txEntity.getCompensationMethod(),
               txEntity.getPayloads());
-          omegaCallback.compensate(event);
+          return omegaCallback.compensateAsync(event);
         } else {
           LOG.warn("Spring Bean {} doesn't exist in ApplicationContext", omegaCallbackBeanName);
         }
       } else {
         LOG.warn("Spring ApplicationContext is null");
       }
+      return CompletableFuture.completedFuture(null);
     }
 
     public void initialize(ApplicationContext applicationContext) {
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.servicecomb.pack.alpha.spec.saga.akka;
+
+import static org.apache.servicecomb.pack.common.EventType.TxCompensateEvent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.grpc.stub.StreamObserver;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateAckFailedException;
+import org.apache.servicecomb.pack.alpha.core.exception.CompensateConnectException;
+import org.apache.servicecomb.pack.alpha.core.fsm.CompensateAckType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
+import org.junit.Test;
+
+public class GrpcOmegaCallbackTest {
+
+  @SuppressWarnings("unchecked")
+  private final StreamObserver<GrpcCompensateCommand> observer = mock(StreamObserver.class);
+  private final String globalTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void routeAcksToTheCompensationTheyBelongTo() throws Exception {
+    GrpcOmegaCallback callback = new GrpcOmegaCallback(observer, 2);
+    CompletableFuture<Void> first = callback.compensateAsync(compensateEvent("local-1"));
+    CompletableFuture<Void> second = callback.compensateAsync(compensateEvent("local-2"));
+
+    verify(observer, times(2)).onNext(any(GrpcCompensateCommand.class));
+
+    callback.getAck(globalTxId, "local-2", CompensateAckType.Failed);
+    assertThat(first.isDone(), is(false));
+    assertThat(causeOf(second) instanceof CompensateAckFailedException, is(true));
+
+    callback.getAck(globalTxId, "local-1", CompensateAckType.Succeed);
+    assertThat(first.isDone() && !first.isCompletedExceptionally(), is(true));
+    assertThat(callback.isWaiting(), is(false));
+  }
+
+  @Test
+  public void queueCompensationsBeyondMaxInflight() {
+    GrpcOmegaCallback callback = new GrpcOmegaCallback(observer, 1);
+    CompletableFuture<Void> first = callback.compensateAsync(compensateEvent("local-1"));
+    CompletableFuture<Void> second = callback.compensateAsync(compensateEvent("local-2"));
+
+    verify(observer, times(1)).onNext(any(GrpcCompensateCommand.class));
+
+    callback.getAck(globalTxId, "local-1", CompensateAckType.Succeed);
+    assertThat(first.isDone(), is(true));
+    assertThat(second.isDone(), is(false));
+    verify(observer, times(2)).onNext(any(GrpcCompensateCommand.class));
+  }
+
+  @Test
+  public void failOutstandingCompensationsOnDisconnect() throws Exception {
+    GrpcOmegaCallback callback = new GrpcOmegaCallback(observer, 1);
+    CompletableFuture<Void> first = callback.compensateAsync(compensateEvent("local-1"));
+    CompletableFuture<Void> second = callback.compensateAsync(compensateEvent("local-2"));
+
+    callback.disconnect();
+
+    assertThat(causeOf(first) instanceof CompensateConnectException, is(true));
+    assertThat(causeOf(second) instanceof CompensateConnectException, is(true));
+    assertThat(callback.isWaiting(), is(false));
+  }
+
+  private TxEvent compensateEvent(String localTxId) {
+    return new TxEvent("service", "instance", globalTxId, localTxId, globalTxId,
+        TxCompensateEvent.name(), "compensate", new byte[0]);
+  }
+
+  private static Throwable causeOf(CompletableFuture<Void> future) throws InterruptedException {
+    try {
+      future.get();
+      return null;
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.apache.servicecomb.pack.alpha.core.fsm.channel.ActorEventChannel;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCorrelatedTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventAckBatch;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
+import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+public class GrpcSagaEventServiceTest {
+
+  private final ActorEventChannel actorEventChannel = mock(ActorEventChannel.class);
+  @SuppressWarnings("unchecked")
+  private final ServerCallStreamObserver<GrpcTxEventAckBatch> responseObserver =
+      mock(ServerCallStreamObserver.class);
+  private final GrpcSagaEventService service = new GrpcSagaEventService(actorEventChannel,
+      new HashMap<>(), ServerMeta.newBuilder().build(), 1);
+  private final String globalTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void completesTheStreamAfterTheAcksOfPendingBatches() {
+    CompletableFuture<Void> first = new CompletableFuture<>();
+    CompletableFuture<Void> second = new CompletableFuture<>();
+    when(actorEventChannel.sendAsync(any(BaseEvent.class))).thenReturn(first, second);
+
+    StreamObserver<GrpcTxEventBatch> requestObserver = service.onTxEventStream(responseObserver);
+    requestObserver.onNext(batchOf(1L));
+    requestObserver.onNext(batchOf(2L));
+    requestObserver.onCompleted();
+    verify(responseObserver, never()).onCompleted();
+
+    second.complete(null);
+    first.complete(null);
+
+    ArgumentCaptor<GrpcTxEventAckBatch> acks = ArgumentCaptor.forClass(GrpcTxEventAckBatch.class);
+    InOrder inOrder = inOrder(responseObserver);
+    inOrder.verify(responseObserver).onNext(acks.capture());
+    inOrder.verify(responseObserver).onNext(acks.capture());
+    inOrder.verify(responseObserver).onCompleted();
+    assertThat(acks.getAllValues().get(0).getAcks(0).getCorrelationId(), is(2L));
+    assertThat(acks.getAllValues().get(1).getAcks(0).getCorrelationId(), is(1L));
+  }
+
+  @Test
+  public void readsTheNextBatchOnceAcksAreSent() {
+    CompletableFuture<Void> sent = new CompletableFuture<>();
+    when(actorEventChannel.sendAsync(any(BaseEvent.class))).thenReturn(sent);
+
+    StreamObserver<GrpcTxEventBatch> requestObserver = service.onTxEventStream(responseObserver);
+    verify(responseObserver).disableAutoInboundFlowControl();
+    requestObserver.onNext(batchOf(1L));
+    verify(responseObserver, never()).request(1);
+
+    sent.complete(null);
+    verify(responseObserver).request(1);
+  }
+
+  private GrpcTxEventBatch batchOf(long correlationId) {
+    return GrpcTxEventBatch.newBuilder()
+        .addEvents(GrpcCorrelatedTxEvent.newBuilder()
+            .setCorrelationId(correlationId)
+            .setEvent(GrpcTxEvent.newBuilder()
+                .setServiceName("service")
+                .setInstanceId("instance")
+                .setGlobalTxId(globalTxId)
+                .setLocalTxId(globalTxId)
+                .setType(EventType.SagaStartedEvent.name())))
+        .build();
+  }
+}
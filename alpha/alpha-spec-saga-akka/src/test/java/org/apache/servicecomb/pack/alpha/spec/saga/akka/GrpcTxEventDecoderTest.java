@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.protobuf.ByteString;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.junit.Test;
+
+public class GrpcTxEventDecoderTest {
+
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void decodesSagaStartedEvent() {
+    GrpcTxEvent message = GrpcTxEvent.newBuilder()
+        .setType(EventType.SagaStartedEvent.name())
+        .setServiceName("service")
+        .setInstanceId("instance")
+        .setGlobalTxId(globalTxId)
+        .setTimeout(30)
+        .build();
+    long decodeTime = System.currentTimeMillis();
+
+    SagaStartedEvent event = (SagaStartedEvent) decode(message);
+
+    assertThat(event.getServiceName(), is("service"));
+    assertThat(event.getInstanceId(), is("instance"));
+    assertThat(event.getGlobalTxId(), is(globalTxId));
+    assertThat(event.getTimeout(), is(30));
+    assertTrue(event.getCreateTimeMillis() >= decodeTime);
+  }
+
+  @Test
+  public void decodesTxStartedEventWithoutParent() {
+    GrpcTxEvent message = GrpcTxEvent.newBuilder()
+        .setType(EventType.TxStartedEvent.name())
+        .setGlobalTxId(globalTxId)
+        .setLocalTxId(localTxId)
+        .setCompensationMethod("compensate")
+        .setReverseRetries(3)
+        .setRetryDelayInMilliseconds(500)
+        .setPayloads(ByteString.copyFrom(new byte[] {1, 2}))
+        .build();
+
+    TxStartedEvent event = (TxStartedEvent) decode(message);
+
+    assertThat(event.getParentTxId(), is(nullValue()));
+    assertThat(event.getLocalTxId(), is(localTxId));
+    assertThat(event.getCompensationMethod(), is("compensate"));
+    assertThat(event.getReverseRetries(), is(3));
+    assertThat(event.getRetryDelayInMilliseconds(), is(500));
+    assertArrayEquals(event.getPayloads(), new byte[] {1, 2});
+  }
+
+  @Test
+  public void decodesTxAbortedEvent() {
+    GrpcTxEvent message = GrpcTxEvent.newBuilder()
+        .setType(EventType.TxAbortedEvent.name())
+        .setGlobalTxId(globalTxId)
+        .setParentTxId(globalTxId)
+        .setLocalTxId(localTxId)
+        .setPayloads(ByteString.copyFrom(new byte[] {3}))
+        .build();
+
+    Object decoded = decode(message);
+
+    assertThat(decoded, instanceOf(TxAbortedEvent.class));
+    TxAbortedEvent event = (TxAbortedEvent) decoded;
+    assertThat(event.getParentTxId(), is(globalTxId));
+    assertArrayEquals(event.getPayloads(), new byte[] {3});
+  }
+
+  @Test
+  public void ignoresUnknownAndUnhandledTypes() {
+    assertThat(GrpcTxEventDecoder.typeOf(GrpcTxEvent.newBuilder().setType("Unknown").build()),
+        is(nullValue()));
+    assertThat(decode(GrpcTxEvent.newBuilder()
+        .setType(EventType.TxCompensateEvent.name()).build()), is(nullValue()));
+  }
+
+  private static Object decode(GrpcTxEvent message) {
+    return GrpcTxEventDecoder.decode(GrpcTxEventDecoder.typeOf(message), message);
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import akka.cluster.sharding.ShardRegion;
+import java.util.Arrays;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaShardRegionActor.SagaMessageExtractor;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ShardingProperties.ShardHash;
+import org.junit.Test;
+
+public class SagaMessageExtractorTest {
+
+  private final SagaMessageExtractor extractor = new SagaMessageExtractor(20, ShardHash.MURMUR3);
+
+  @Test
+  public void routesEventAndEntityStartOfTheSameSagaToTheSameShard() {
+    String globalTxId = UUID.randomUUID().toString();
+    BaseEvent event = SagaStartedEvent.builder().globalTxId(globalTxId).build();
+
+    assertThat(extractor.entityId(event), is(globalTxId));
+    assertThat(extractor.shardId(event), is(extractor.shardIdOf(globalTxId)));
+    assertThat(extractor.shardId(new ShardRegion.StartEntity(globalTxId)),
+        is(extractor.shardIdOf(globalTxId)));
+  }
+
+  @Test
+  public void hasNoEntityForBatchOfSeveralSagas() {
+    SagaEventBatch batch = new SagaEventBatch(Arrays.asList(
+        SagaStartedEvent.builder().globalTxId(UUID.randomUUID().toString()).build(),
+        SagaStartedEvent.builder().globalTxId(UUID.randomUUID().toString()).build()));
+
+    assertThat(extractor.entityId(batch), is(nullValue()));
+    assertThat(extractor.shardId(batch), is(nullValue()));
+  }
+
+  @Test
+  public void spreadsGlobalTransactionsEvenlyOverAllShards() {
+    int[] shardSizes = new int[20];
+    for (int i = 0; i < 20000; i++) {
+      int shard = Integer.parseInt(extractor.shardIdOf(UUID.randomUUID().toString()));
+      shardSizes[shard]++;
+    }
+    for (int shardSize : shardSizes) {
+      // 1000 on average
+      assertThat(shardSize > 800 && shardSize < 1200, is(true));
+    }
+  }
+
+  @Test
+  public void neverPicksNegativeShard() {
+    // String.hashCode() of this id is Integer.MIN_VALUE
+    String globalTxId = "polygenelubricants";
+    for (int numberOfShards = 1; numberOfShards < 50; numberOfShards++) {
+      int shard = Integer.parseInt(
+          new SagaMessageExtractor(numberOfShards, ShardHash.MURMUR3).shardIdOf(globalTxId));
+      assertThat(shard >= 0 && shard < numberOfShards, is(true));
+    }
+  }
+
+  @Test
+  public void keepsShardIdsOfEarlierReleasesWithHashCode() {
+    SagaMessageExtractor hashCodeExtractor = new SagaMessageExtractor(10, ShardHash.HASH_CODE);
+    for (String globalTxId : new String[] {UUID.randomUUID().toString(), "polygenelubricants"}) {
+      assertThat(hashCodeExtractor.shardIdOf(globalTxId),
+          is(String.valueOf(globalTxId.hashCode() % 10)));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNonPositiveNumberOfShards() {
+    new SagaMessageExtractor(0, ShardHash.MURMUR3);
+  }
+}
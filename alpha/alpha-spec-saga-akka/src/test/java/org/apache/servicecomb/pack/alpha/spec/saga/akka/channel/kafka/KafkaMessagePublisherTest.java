@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.kafka;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.kafka.common.KafkaException;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ChannelKafkaProperties;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+public class KafkaMessagePublisherTest {
+
+  @SuppressWarnings("unchecked")
+  private final KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+  private final SettableListenableFuture<SendResult<String, byte[]>> firstSend =
+      new SettableListenableFuture<>();
+  private final SettableListenableFuture<SendResult<String, byte[]>> secondSend =
+      new SettableListenableFuture<>();
+  private KafkaMessagePublisher publisher;
+
+  @Before
+  public void setUp() {
+    ChannelKafkaProperties kafkaProperties = new ChannelKafkaProperties();
+    kafkaProperties.setTopic("saga-events");
+    kafkaProperties.setMaxInflight(1);
+    publisher = new KafkaMessagePublisher(kafkaProperties, kafkaTemplate);
+    when(kafkaTemplate.send(eq("saga-events"), anyString(), any(byte[].class)))
+        .thenReturn(firstSend)
+        .thenReturn(secondSend);
+  }
+
+  @Test
+  public void completesOnceKafkaAcknowledgedTheEvent() {
+    CompletableFuture<Void> published = publisher.publishAsync(event()).toCompletableFuture();
+    assertThat(published.isDone(), is(false));
+
+    firstSend.set(null);
+    assertThat(published.isDone() && !published.isCompletedExceptionally(), is(true));
+  }
+
+  @Test
+  public void rejectsEventsBeyondMaxInflightAtOnce() throws Exception {
+    CompletableFuture<Void> first = publisher.publishAsync(event()).toCompletableFuture();
+    CompletableFuture<Void> rejected = publisher.publishAsync(event()).toCompletableFuture();
+
+    assertThat(first.isDone(), is(false));
+    assertThat(causeOf(rejected) instanceof RejectedExecutionException, is(true));
+
+    firstSend.set(null);
+    CompletableFuture<Void> second = publisher.publishAsync(event()).toCompletableFuture();
+    secondSend.set(null);
+    assertThat(second.isDone() && !second.isCompletedExceptionally(), is(true));
+  }
+
+  @Test
+  public void releasesTheSlotOfFailedEvents() throws Exception {
+    CompletableFuture<Void> first = publisher.publishAsync(event()).toCompletableFuture();
+    firstSend.setException(new KafkaException("broker is gone"));
+    assertThat(causeOf(first) instanceof KafkaException, is(true));
+
+    CompletableFuture<Void> second = publisher.publishAsync(event()).toCompletableFuture();
+    assertThat(second.isDone(), is(false));
+  }
+
+  private BaseEvent event() {
+    return SagaStartedEvent.builder().globalTxId(UUID.randomUUID().toString()).build();
+  }
+
+  private static Throwable causeOf(CompletableFuture<Void> future) throws InterruptedException {
+    try {
+      future.get();
+      return null;
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+}
@@ -21,8 +21,7 @@ import static org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integratio
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.junit.Assert.assertNull;
 
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
@@ -32,11 +31,13 @@ import akka.persistence.fsm.PersistentFSM.CurrentState;
 import akka.testkit.javadsl.TestKit;
 import com.typesafe.config.ConfigFactory;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActor;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
@@ -44,6 +45,9 @@ import org.apache.servicecomb.pack.alpha.spec.saga.akka.util.SagaEventSender;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaData;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ElasticsearchProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.LazyPersistenceProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SagaDataProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SnapshotProperties;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepositoryChannel;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.channel.DefaultTransactionRepositoryChannel;
@@ -56,12 +60,9 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
-import org.springframework.data.elasticsearch.core.IndexOperations;
-import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
 
 @RunWith(MockitoJUnitRunner.class)
 public class SagaActorTest {
@@ -111,7 +112,6 @@ public class SagaActorTest {
 
   @Before
   public void before(){
-    when(template.indexOps(ArgumentMatchers.any(IndexCoordinates.class))).thenReturn(mock(IndexOperations.class));
 
     TransactionRepository repository = new ElasticsearchTransactionRepository(elasticsearchProperties, template, metricsService);
     TransactionRepositoryChannel repositoryChannel = new DefaultTransactionRepositoryChannel(repository, metricsService);
@@ -127,6 +127,21 @@ public class SagaActorTest {
     return UUID.randomUUID().toString();
   }
 
+  private static SnapshotProperties snapshotProperties(int eventInterval,
+      SagaActorState... states) {
+    SnapshotProperties snapshotProperties = new SnapshotProperties();
+    snapshotProperties.setEventInterval(eventInterval);
+    snapshotProperties.setStates(Arrays.asList(states));
+    return snapshotProperties;
+  }
+
+  private static LazyPersistenceProperties lazyPersistenceProperties() {
+    LazyPersistenceProperties lazyPersistenceProperties = new LazyPersistenceProperties();
+    lazyPersistenceProperties.setEnabled(true);
+    lazyPersistenceProperties.setMaxAge(Duration.ofMinutes(1));
+    return lazyPersistenceProperties;
+  }
+
   /**
    * 1. SagaStartedEvent-1
    * 2. TxStartedEvent-11
@@ -214,8 +229,9 @@ public class SagaActorTest {
       final String localTxId_2 = UUID.randomUUID().toString();
       final String localTxId_3 = UUID.randomUUID().toString();
 
+      // replays the journal, both actors are alive here and a snapshot would race the recovery
       String persistenceId = genPersistenceId();
-      ActorRef saga = system.actorOf(SagaActor.props(persistenceId));
+      ActorRef saga = system.actorOf(SagaActor.props(persistenceId, snapshotProperties(0)));
       watch(saga);
       saga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
       List<BaseEvent> eventListFirst = SagaEventSender.successfulFirstHalfEvents(globalTxId, localTxId_1, localTxId_2, localTxId_3);
@@ -242,7 +258,8 @@ public class SagaActorTest {
           SagaActorState.PARTIALLY_ACTIVE);
 
       //expectTerminated(fsm);
-      ActorRef recoveredSaga = system.actorOf(SagaActor.props(persistenceId), "recoveredSaga");
+      ActorRef recoveredSaga = system.actorOf(SagaActor.props(persistenceId, snapshotProperties(0)),
+          "recoveredSaga");
       watch(recoveredSaga);
       recoveredSaga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
       List<BaseEvent> eventListSecond = SagaEventSender.successfulSecondHalfEvents(globalTxId, localTxId_1, localTxId_2, localTxId_3);
@@ -285,6 +302,165 @@ public class SagaActorTest {
     }};
   }
 
+  /**
+   * 1. SagaStartedEvent-1
+   * 2. TxStartedEvent-11
+   * 3. TxEndedEvent-11
+   * 4. TxStartedEvent-12
+   * snapshot, stop and recover
+   * 5. TxEndedEvent-12
+   * 4. TxStartedEvent-13
+   * 5. TxEndedEvent-13
+   * 6. SagaEndedEvent-1
+   */
+  @Test
+  public void successfulRecoveryFromSnapshotTest() {
+    new TestKit(system) {{
+      final String globalTxId = UUID.randomUUID().toString();
+      final String localTxId_1 = UUID.randomUUID().toString();
+      final String localTxId_2 = UUID.randomUUID().toString();
+      final String localTxId_3 = UUID.randomUUID().toString();
+      final SnapshotProperties snapshotProperties = snapshotProperties(0,
+          SagaActorState.PARTIALLY_COMMITTED);
+      final long snapshotSaved = metricsService.metrics().getActorSnapshotSaved();
+      final long recovered = metricsService.metrics().getActorRecovered();
+      final long recoveredEvents = metricsService.metrics().getActorRecoveredEvents();
+
+      String persistenceId = genPersistenceId();
+      ActorRef saga = system.actorOf(SagaActor.props(persistenceId, snapshotProperties));
+      watch(saga);
+      List<BaseEvent> eventListFirst = SagaEventSender.successfulFirstHalfEvents(globalTxId, localTxId_1, localTxId_2, localTxId_3);
+      eventListFirst.stream().forEach(event -> {
+        saga.tell(event, getRef());
+      });
+      awaitCond(() -> metricsService.metrics().getActorSnapshotSaved() > snapshotSaved);
+      system.stop(saga);
+      expectTerminated(saga);
+
+      ActorRef recoveredSaga = system.actorOf(SagaActor.props(persistenceId, snapshotProperties));
+      watch(recoveredSaga);
+      recoveredSaga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
+      List<BaseEvent> eventListSecond = SagaEventSender.successfulSecondHalfEvents(globalTxId, localTxId_1, localTxId_2, localTxId_3);
+      eventListSecond.stream().forEach(event -> {
+        recoveredSaga.tell(event, getRef());
+      });
+
+      CurrentState currentState = expectMsgClass(PersistentFSM.CurrentState.class);
+      assertEquals(SagaActorState.PARTIALLY_ACTIVE, currentState.state());
+      // the journal is deleted up to the snapshot, at most the last event is replayed
+      assertEquals(recovered + 1, metricsService.metrics().getActorRecovered());
+      assertThat(metricsService.metrics().getActorRecoveredEvents() - recoveredEvents <= 1, is(true));
+
+      PersistentFSM.Transition transition = expectMsgClass(PersistentFSM.Transition.class);
+      assertSagaTransition(transition, recoveredSaga, SagaActorState.PARTIALLY_ACTIVE,
+          SagaActorState.PARTIALLY_COMMITTED);
+
+      transition = expectMsgClass(PersistentFSM.Transition.class);
+      assertSagaTransition(transition, recoveredSaga, SagaActorState.PARTIALLY_COMMITTED,
+          SagaActorState.PARTIALLY_ACTIVE);
+
+      transition = expectMsgClass(PersistentFSM.Transition.class);
+      assertSagaTransition(transition, recoveredSaga, SagaActorState.PARTIALLY_ACTIVE,
+          SagaActorState.PARTIALLY_COMMITTED);
+
+      transition = expectMsgClass(PersistentFSM.Transition.class);
+      assertSagaTransition(transition, recoveredSaga, SagaActorState.PARTIALLY_COMMITTED,
+          SagaActorState.COMMITTED);
+
+      Terminated terminated = expectMsgClass(Terminated.class);
+      assertEquals(terminated.getActor(), recoveredSaga);
+
+      SagaData sagaData = SAGA_DATA_EXTENSION_PROVIDER.get(system).getLastSagaData();
+      assertEquals(sagaData.getGlobalTxId(), globalTxId);
+      assertEquals(sagaData.getTxEntities().size(), 3);
+      sagaData.getTxEntities().forEach((k, v) -> {
+        assertEquals(v.getState(), TxState.COMMITTED);
+      });
+      assertEquals(sagaData.getEvents().size(), eventListFirst.size() + eventListSecond.size());
+    }};
+  }
+
+  /**
+   * 1. SagaStartedEvent-1
+   * 2. TxStartedEvent-11
+   * 3. TxEndedEvent-11
+   * 4. TxStartedEvent-12
+   * stop and recover
+   */
+  @Test
+  public void lazyPersistenceWithoutFailureTest() {
+    new TestKit(system) {{
+      final String globalTxId = UUID.randomUUID().toString();
+      final String localTxId_1 = UUID.randomUUID().toString();
+      final String localTxId_2 = UUID.randomUUID().toString();
+      final String localTxId_3 = UUID.randomUUID().toString();
+      final long journalFlushed = metricsService.metrics().getActorJournalFlushed();
+
+      String persistenceId = genPersistenceId();
+      ActorRef saga = system.actorOf(
+          SagaActor.props(persistenceId, snapshotProperties(0), lazyPersistenceProperties()));
+      watch(saga);
+      saga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
+      SagaEventSender.successfulFirstHalfEvents(globalTxId, localTxId_1, localTxId_2, localTxId_3)
+          .forEach(event -> saga.tell(event, getRef()));
+
+      expectMsgClass(PersistentFSM.CurrentState.class);
+      for (int i = 0; i < 4; i++) {
+        expectMsgClass(PersistentFSM.Transition.class);
+      }
+      system.stop(saga);
+      expectTerminated(saga);
+
+      // nothing was written to the journal
+      ActorRef recoveredSaga = system.actorOf(
+          SagaActor.props(persistenceId, snapshotProperties(0), lazyPersistenceProperties()));
+      recoveredSaga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
+      CurrentState currentState = expectMsgClass(PersistentFSM.CurrentState.class);
+      assertEquals(SagaActorState.IDLE, currentState.state());
+      assertEquals(journalFlushed, metricsService.metrics().getActorJournalFlushed());
+      system.stop(recoveredSaga);
+    }};
+  }
+
+  /**
+   * 1. SagaStartedEvent-1
+   * 2. TxStartedEvent-11
+   * 3. TxAbortedEvent-11
+   * stop and recover
+   */
+  @Test
+  public void lazyPersistenceFlushedOnFailureTest() {
+    new TestKit(system) {{
+      final String globalTxId = UUID.randomUUID().toString();
+      final String localTxId_1 = UUID.randomUUID().toString();
+      final long journalFlushed = metricsService.metrics().getActorJournalFlushed();
+
+      String persistenceId = genPersistenceId();
+      ActorRef saga = system.actorOf(
+          SagaActor.props(persistenceId, snapshotProperties(0), lazyPersistenceProperties()));
+      watch(saga);
+      saga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
+      SagaEventSender.firstTxAbortedEvents(globalTxId, localTxId_1).subList(0, 3)
+          .forEach(event -> saga.tell(event, getRef()));
+
+      expectMsgClass(PersistentFSM.CurrentState.class);
+      expectMsgClass(PersistentFSM.Transition.class);
+      expectMsgClass(PersistentFSM.Transition.class);
+      PersistentFSM.Transition transition = expectMsgClass(PersistentFSM.Transition.class);
+      assertSagaTransition(transition, saga, SagaActorState.PARTIALLY_ACTIVE, SagaActorState.FAILED);
+      assertEquals(journalFlushed + 1, metricsService.metrics().getActorJournalFlushed());
+      system.stop(saga);
+      expectTerminated(saga);
+
+      ActorRef recoveredSaga = system.actorOf(
+          SagaActor.props(persistenceId, snapshotProperties(0), lazyPersistenceProperties()));
+      recoveredSaga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
+      CurrentState currentState = expectMsgClass(PersistentFSM.CurrentState.class);
+      assertEquals(SagaActorState.FAILED, currentState.state());
+      system.stop(recoveredSaga);
+    }};
+  }
+
   /**
    * 1. SagaStartedEvent-1
    * 2. TxStartedEvent-11
@@ -399,6 +575,44 @@ public class SagaActorTest {
     }};
   }
 
+  /**
+   * 1. SagaStartedEvent-1
+   * 2. TxStartedEvent-11
+   * 3. TxEndedEvent-11
+   * 4. TxStartedEvent-12
+   * 5. TxAbortedEvent-12
+   * 6. TxCompensateAckSucceedEvent-11
+   * 7. SagaAbortedEvent-1
+   */
+  @Test
+  public void releasePayloadsTest() {
+    new TestKit(system) {{
+      final String globalTxId = UUID.randomUUID().toString();
+      final String localTxId_1 = UUID.randomUUID().toString();
+      final String localTxId_2 = UUID.randomUUID().toString();
+
+      SagaDataProperties sagaDataProperties = new SagaDataProperties();
+      sagaDataProperties.setReleasePayloads(true);
+      ActorRef saga = system.actorOf(SagaActor.props(genPersistenceId(), snapshotProperties(0),
+          new LazyPersistenceProperties(), sagaDataProperties));
+      watch(saga);
+
+      List<BaseEvent> eventList = SagaEventSender.middleTxAbortedEvents(globalTxId, localTxId_1, localTxId_2);
+      eventList.stream()
+          .filter(event -> event instanceof TxStartedEvent)
+          .forEach(event -> ((TxStartedEvent) event).setPayloads(new byte[] {1}));
+      eventList.forEach(event -> saga.tell(event, getRef()));
+
+      expectTerminated(saga);
+      SagaData sagaData = SAGA_DATA_EXTENSION_PROVIDER.get(system).getLastSagaData();
+      assertEquals(sagaData.getLastState(), SagaActorState.COMPENSATED);
+      assertNull(sagaData.getTxEntities().get(localTxId_1).getPayloads());
+      assertNull(sagaData.getTxEntities().get(localTxId_2).getPayloads());
+      assertNull(sagaData.getEventLog().startedPayloads(localTxId_1));
+      assertNull(sagaData.getEventLog().startedPayloads(localTxId_2));
+    }};
+  }
+
   @Test
   public void middleTxAbortedAndRetryCompensationEvents() {
     new TestKit(system) {{
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut;
+
+import static org.apache.servicecomb.pack.alpha.spec.saga.akka.spring.integration.akka.SagaDataExtension.SAGA_DATA_EXTENSION_PROVIDER;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.cluster.Cluster;
+import akka.cluster.sharding.ClusterSharding;
+import akka.cluster.sharding.ShardRegion;
+import akka.persistence.fsm.PersistentFSM;
+import akka.persistence.fsm.PersistentFSM.CurrentState;
+import akka.testkit.javadsl.TestKit;
+import com.typesafe.config.ConfigFactory;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActor;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaShardRegionActor;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaData;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.LazyPersistenceProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SagaDataProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ShardingProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SnapshotProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.util.SagaEventSender;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SagaShardHandOffTest {
+
+  static ActorSystem system;
+
+  static MetricsService metricsService = new MetricsService();
+
+  private static Map<String, Object> getClusterConfig() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("akka.actor.provider", "cluster");
+    map.put("akka.remote.netty.tcp.hostname", "127.0.0.1");
+    map.put("akka.remote.netty.tcp.port", 0);
+    map.put("akka.cluster.jmx.multi-mbeans-in-same-jvm", "on");
+    map.put("akka.persistence.journal.plugin", "akka.persistence.journal.inmem");
+    map.put("akka.persistence.snapshot-store.plugin", "akka.persistence.snapshot-store.local");
+    map.put("akka.persistence.snapshot-store.local.dir", "target/example/snapshots");
+    return map;
+  }
+
+  @BeforeClass
+  public static void setup() {
+    system = ActorSystem.create("SagaShardHandOffTest", ConfigFactory.parseMap(getClusterConfig()));
+    SAGA_DATA_EXTENSION_PROVIDER.get(system).setMetricsService(metricsService);
+    Cluster cluster = Cluster.get(system);
+    cluster.join(cluster.selfAddress());
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    TestKit.shutdownActorSystem(system);
+    system = null;
+  }
+
+  private static LazyPersistenceProperties lazyPersistenceProperties() {
+    LazyPersistenceProperties lazyPersistenceProperties = new LazyPersistenceProperties();
+    lazyPersistenceProperties.setEnabled(true);
+    lazyPersistenceProperties.setMaxAge(Duration.ofMinutes(1));
+    return lazyPersistenceProperties;
+  }
+
+  /**
+   * 1. SagaStartedEvent-1
+   * 2. TxStartedEvent-11
+   * 3. TxEndedEvent-11
+   * 4. TxStartedEvent-12
+   * hand off the shard and recover
+   */
+  @Test
+  public void flushesLazySagaOnHandOffTest() {
+    new TestKit(system) {{
+      final String globalTxId = UUID.randomUUID().toString();
+      final String localTxId_1 = UUID.randomUUID().toString();
+      final String localTxId_2 = UUID.randomUUID().toString();
+      final String localTxId_3 = UUID.randomUUID().toString();
+      final long journalFlushed = metricsService.metrics().getActorJournalFlushed();
+
+      ActorRef sagaShardRegionActor = system.actorOf(Props.create(SagaShardRegionActor.class,
+          new ShardingProperties(), new SnapshotProperties(), lazyPersistenceProperties(),
+          new SagaDataProperties(), metricsService));
+      SagaEventSender.successfulFirstHalfEvents(globalTxId, localTxId_1, localTxId_2, localTxId_3)
+          .forEach(event -> sagaShardRegionActor.tell(event, ActorRef.noSender()));
+      await().atMost(10, TimeUnit.SECONDS).until(() -> {
+        SagaData sagaData = SAGA_DATA_EXTENSION_PROVIDER.get(system).getLastSagaData();
+        return sagaData != null && sagaData.getLastState() == SagaActorState.PARTIALLY_ACTIVE;
+      });
+      assertEquals(journalFlushed, metricsService.metrics().getActorJournalFlushed());
+
+      // a graceful shutdown of the region hands off all of its shards
+      ActorRef sagaActorRegion = ClusterSharding.get(system)
+          .shardRegion(SagaActor.class.getSimpleName());
+      watch(sagaActorRegion);
+      sagaActorRegion.tell(ShardRegion.gracefulShutdownInstance(), getRef());
+      expectTerminated(Duration.ofSeconds(10), sagaActorRegion);
+      assertEquals(journalFlushed + 1, metricsService.metrics().getActorJournalFlushed());
+
+      // the entity id is the persistence id of the saga actor
+      ActorRef recoveredSaga = system.actorOf(
+          SagaActor.props(globalTxId, new SnapshotProperties(), lazyPersistenceProperties()));
+      recoveredSaga.tell(new PersistentFSM.SubscribeTransitionCallBack(getRef()), getRef());
+      CurrentState currentState = expectMsgClass(PersistentFSM.CurrentState.class);
+      assertEquals(SagaActorState.PARTIALLY_ACTIVE, currentState.state());
+      system.stop(recoveredSaga);
+    }};
+  }
+}
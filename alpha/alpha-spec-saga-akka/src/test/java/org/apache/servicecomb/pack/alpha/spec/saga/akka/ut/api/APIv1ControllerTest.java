@@ -17,7 +17,9 @@
 
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.api;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -43,16 +45,19 @@ import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.SagaSubTransaction;
 import org.apache.servicecomb.pack.alpha.core.metrics.AlphaMetricsEndpoint;
 import org.apache.servicecomb.pack.alpha.core.metrics.MetricsBean;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.api.SagaAkkaAPIv1Controller;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionService;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
@@ -85,6 +90,9 @@ public class APIv1ControllerTest {
   @Autowired
   TransactionRepository transactionRepository;
 
+  @Autowired
+  SlowTransactionService slowTransactionService;
+
   @Test
   public void metricsTest() throws Exception {
     MetricsBean metricsBean = new MetricsBean();
@@ -312,6 +320,53 @@ public class APIv1ControllerTest {
         .andReturn();
   }
 
+  @Test
+  public void searchTransactionTest() throws Exception {
+    List<GlobalTransaction> globalTransactions = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      globalTransactions.add(GlobalTransaction.builder()
+          .globalTxId(UUID.randomUUID().toString())
+          .state(SagaActorState.COMMITTED.name())
+          .beginTime(new Date())
+          .endTime(new Date())
+          .events(new ArrayList<>())
+          .subTransactions(new ArrayList<>())
+          .build());
+    }
+    String cursor = GlobalTransactionQuery.cursor(1000, "globalTxId");
+    String nextCursor = GlobalTransactionQuery.cursor(500, "globalTxId");
+    ArgumentCaptor<GlobalTransactionQuery> query = ArgumentCaptor
+        .forClass(GlobalTransactionQuery.class);
+    when(transactionRepository.getGlobalTransactions(query.capture())).thenReturn(
+        PagingGlobalTransactions.builder()
+            .size(2)
+            .total(-1)
+            .cursor(nextCursor)
+            .globalTransactions(globalTransactions)
+            .build());
+    mockMvc.perform(get("/alpha/api/v1/transaction/search")
+        .param("state", SagaActorState.COMMITTED.name())
+        .param("serviceName", "serviceName-1")
+        .param("beginTimeFrom", "100")
+        .param("beginTimeTo", "2000")
+        .param("size", "2")
+        .param("cursor", cursor))
+        .andExpect(status().isOk())
+        .andExpect(
+            MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.total").value(-1))
+        .andExpect(jsonPath("$.cursor").value(nextCursor))
+        .andExpect(jsonPath("$.globalTransactions", hasSize(2)))
+        .andReturn();
+    assertThat(query.getValue().getState(), is(SagaActorState.COMMITTED.name()));
+    assertThat(query.getValue().getServiceName(), is("serviceName-1"));
+    assertThat(query.getValue().getBeginTimeFrom(), is(new Date(100)));
+    assertThat(query.getValue().getBeginTimeTo(), is(new Date(2000)));
+    assertThat(query.getValue().getSize(), is(2));
+    assertThat(query.getValue().getCursor(), is(cursor));
+    assertThat(query.getValue().isTrackTotalHits(), is(false));
+  }
+
   @Test
   public void transactionStatisticsTest() throws Exception {
     Map<String, Long> statistics = new HashMap<>();
@@ -340,12 +395,18 @@ public class APIv1ControllerTest {
           .subTransactions(new ArrayList<>())
           .build());
     }
-    when(transactionRepository.getSlowGlobalTransactionsTopN(10)).thenReturn(globalTransactions);
+    when(slowTransactionService.getSlowTransactions(null, 10)).thenReturn(globalTransactions);
     mockMvc.perform(get("/alpha/api/v1/transaction/slow"))
         .andExpect(status().isOk())
         .andExpect(
             MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
         .andExpect(jsonPath("$", hasSize(10)))
         .andReturn();
+    when(slowTransactionService.getSlowTransactions("serviceName-1", 5))
+        .thenReturn(globalTransactions.subList(0, 5));
+    mockMvc.perform(get("/alpha/api/v1/transaction/slow?serviceName=serviceName-1&size=5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(5)))
+        .andReturn();
   }
 }
@@ -23,6 +23,7 @@ import org.apache.servicecomb.pack.alpha.spec.saga.akka.api.SagaAkkaAPIv1Control
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.api.SagaAkkaAPIv1Impl;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.AlphaMetricsEndpointImpl;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionService;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
@@ -43,6 +44,9 @@ public class TestConfiguration {
   @MockBean
   TransactionRepository transactionRepository;
 
+  @MockBean
+  SlowTransactionService slowTransactionService;
+
   @Bean
   AlphaMetricsEndpoint alphaMetricsEndpoint(){
     return new AlphaMetricsEndpointImpl();
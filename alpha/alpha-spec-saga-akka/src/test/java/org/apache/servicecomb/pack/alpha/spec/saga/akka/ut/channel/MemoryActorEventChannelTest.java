@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.channel;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.channel.memory.MemoryActorEventChannel;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.junit.After;
+import org.junit.Test;
+
+public class MemoryActorEventChannelTest {
+
+  private final MetricsService metricsService = new MetricsService();
+
+  private final MemoryActorEventChannel channel =
+      new MemoryActorEventChannel(metricsService, 1024, 4, "blocking");
+
+  @After
+  public void tearDown() {
+    channel.stop();
+  }
+
+  @Test
+  public void keepsTheOrderOfEventsOfEachSaga() {
+    List<String> globalTxIds = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      globalTxIds.add(UUID.randomUUID().toString());
+    }
+    Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+    AtomicInteger receivedCount = new AtomicInteger();
+    channel.start(events -> events.forEach(event -> {
+      received.computeIfAbsent(event.getGlobalTxId(), k -> new ArrayList<>())
+          .add(Integer.valueOf(event.getLocalTxId()));
+      receivedCount.incrementAndGet();
+    }), 8);
+
+    for (int i = 0; i < 100; i++) {
+      for (String globalTxId : globalTxIds) {
+        channel.send(eventOf(globalTxId, String.valueOf(i)));
+      }
+    }
+
+    await().atMost(5, SECONDS).until(() -> receivedCount.get() == 5000);
+    for (String globalTxId : globalTxIds) {
+      List<Integer> localTxIds = received.get(globalTxId);
+      assertThat(localTxIds.size(), is(100));
+      for (int i = 0; i < 100; i++) {
+        assertThat(localTxIds.get(i), is(i));
+      }
+    }
+    assertThat(metricsService.metrics().getEventAccepted(), is(5000L));
+  }
+
+  @Test
+  public void buffersEventsUntilStarted() {
+    for (int i = 0; i < 10; i++) {
+      channel.send(eventOf(UUID.randomUUID().toString(), String.valueOf(i)));
+    }
+    assertThat(channel.getQueueDepth(), is(10L));
+
+    AtomicInteger receivedCount = new AtomicInteger();
+    channel.start(events -> receivedCount.addAndGet(events.size()), 100);
+
+    await().atMost(5, SECONDS).until(() -> receivedCount.get() == 10);
+    await().atMost(5, SECONDS).until(() -> channel.getQueueDepth() == 0L);
+    assertThat(channel.getPartitionCount(), is(4));
+  }
+
+  @Test
+  public void completesTheAsyncSendOnceTheEventIsBuffered() throws Exception {
+    channel.sendAsync(eventOf(UUID.randomUUID().toString(), "0"))
+        .toCompletableFuture().get(5, SECONDS);
+
+    assertThat(channel.getQueueDepth(), is(1L));
+    assertThat(metricsService.metrics().getEventReceived(), is(1L));
+    assertThat(metricsService.metrics().getEventAccepted(), is(1L));
+  }
+
+  private BaseEvent eventOf(String globalTxId, String localTxId) {
+    return TxStartedEvent.builder()
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .build();
+  }
+}
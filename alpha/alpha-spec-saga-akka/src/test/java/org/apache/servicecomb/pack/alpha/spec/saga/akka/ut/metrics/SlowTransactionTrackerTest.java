@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionTracker;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.SlowTransactionProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SlowTransactionTrackerTest {
+
+  private SlowTransactionProperties properties;
+  private long now;
+
+  @Before
+  public void before() {
+    properties = new SlowTransactionProperties();
+    properties.setSize(3);
+    properties.setWindow(Duration.ofMinutes(1));
+    // one window more than used, so that the test passes when the minute moves on meanwhile
+    properties.setWindows(3);
+    now = System.currentTimeMillis() / 60000 * 60000;
+  }
+
+  @Test
+  public void keepSlowestTransactionsTest() {
+    SlowTransactionTracker tracker = new SlowTransactionTracker(properties);
+    for (int i = 0; i < 10; i++) {
+      tracker.offer(transaction("globalTxId-" + i, i % 2 == 0 ? "service-a" : "service-b",
+          now, i * 10));
+    }
+
+    assertThat(globalTxIds(tracker.top(null, 10)),
+        is(Arrays.asList("globalTxId-9", "globalTxId-8", "globalTxId-7")));
+    assertThat(globalTxIds(tracker.top(null, 2)),
+        is(Arrays.asList("globalTxId-9", "globalTxId-8")));
+    assertThat(globalTxIds(tracker.top("service-a", 10)),
+        is(Arrays.asList("globalTxId-8", "globalTxId-6", "globalTxId-4")));
+    assertThat(tracker.top("service-c", 10).isEmpty(), is(true));
+    assertThat(tracker.top(null, 1).get(0).getDurationTime(), is(90L));
+  }
+
+  @Test
+  public void mergeLiveWindowsTest() {
+    SlowTransactionTracker tracker = new SlowTransactionTracker(properties);
+    tracker.offer(transaction("globalTxId-0", "service-a", now, 10));
+    tracker.offer(transaction("globalTxId-1", "service-a", now - 60000, 30));
+    tracker.offer(transaction("globalTxId-2", "service-a", now - 60000, 20));
+    // ended before the oldest live window
+    tracker.offer(transaction("globalTxId-3", "service-a", now - 180000, 100));
+    tracker.offer(transaction("globalTxId-4", "service-a", now - 600000, 100));
+
+    assertThat(globalTxIds(tracker.top(null, 10)),
+        is(Arrays.asList("globalTxId-1", "globalTxId-2", "globalTxId-0")));
+  }
+
+  private List<String> globalTxIds(List<SlowTransaction> transactions) {
+    return transactions.stream().map(SlowTransaction::getGlobalTxId)
+        .collect(Collectors.toList());
+  }
+
+  private GlobalTransaction transaction(String globalTxId, String serviceName, long endTime,
+      long durationTime) {
+    return GlobalTransaction.builder()
+        .type(TransactionType.SAGA)
+        .serviceName(serviceName)
+        .instanceId("instanceId")
+        .globalTxId(globalTxId)
+        .beginTime(new Date(endTime - durationTime))
+        .endTime(new Date(endTime))
+        .state(SagaActorState.COMMITTED.name())
+        .subTxSize(0)
+        .subTransactions(Collections.emptyList())
+        .build();
+  }
+}
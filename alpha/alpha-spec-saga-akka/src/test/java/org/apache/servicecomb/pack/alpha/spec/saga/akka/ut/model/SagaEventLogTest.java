@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.model;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.base.BaseEvent;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaData;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaEventLog;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.TxEntity;
+import org.junit.Test;
+
+public class SagaEventLogTest {
+
+  private final String globalTxId = UUID.randomUUID().toString();
+
+  @Test
+  public void keepsAllEventsWithoutCap() {
+    SagaEventLog eventLog = new SagaEventLog();
+    List<BaseEvent> events = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      BaseEvent event = txEndedEvent(String.valueOf(i));
+      events.add(event);
+      eventLog.add(event);
+    }
+    assertThat(eventLog.asList(), is(events));
+    assertThat(eventLog.getDroppedEvents(), is(0L));
+  }
+
+  @Test
+  public void dropsOldestEventsBeyondCap() {
+    SagaEventLog eventLog = new SagaEventLog(10);
+    List<BaseEvent> events = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      BaseEvent event = txEndedEvent(String.valueOf(i));
+      events.add(event);
+      eventLog.add(event);
+    }
+    assertThat(eventLog.asList(), is(events.subList(15, 25)));
+    assertThat(eventLog.getDroppedEvents(), is(15L));
+  }
+
+  @Test
+  public void releasesPayloadsOfStartedEvent() {
+    String localTxId = UUID.randomUUID().toString();
+    SagaEventLog eventLog = new SagaEventLog();
+    eventLog.add(TxStartedEvent.builder().globalTxId(globalTxId).localTxId(localTxId)
+        .payloads(new byte[] {1, 2}).build());
+    eventLog.add(txEndedEvent(localTxId));
+
+    assertArrayEquals(eventLog.startedPayloads(localTxId), new byte[] {1, 2});
+    eventLog.releasePayloads(localTxId);
+    assertThat(eventLog.startedPayloads(localTxId), is(nullValue()));
+  }
+
+  @Test
+  public void countsSharedPayloadsOnce() {
+    String localTxId = UUID.randomUUID().toString();
+    byte[] payloads = new byte[1024];
+    SagaData shared = sagaData(localTxId, payloads, payloads);
+    SagaData copied = sagaData(localTxId, payloads, payloads.clone());
+    assertTrue(copied.estimateHeapBytes() - shared.estimateHeapBytes() >= payloads.length);
+  }
+
+  private SagaData sagaData(String localTxId, byte[] eventPayloads, byte[] entityPayloads) {
+    SagaData data = SagaData.builder().globalTxId(globalTxId).build();
+    data.logEvent(TxStartedEvent.builder().globalTxId(globalTxId).localTxId(localTxId)
+        .payloads(eventPayloads).build());
+    data.getTxEntities().put(localTxId, TxEntity.builder().globalTxId(globalTxId)
+        .localTxId(localTxId).payloads(entityPayloads).build());
+    return data;
+  }
+
+  private BaseEvent txEndedEvent(String localTxId) {
+    return TxEndedEvent.builder().globalTxId(globalTxId).localTxId(localTxId).build();
+  }
+}
@@ -17,6 +17,9 @@
 
 package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.model;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.Iterables;
@@ -26,6 +29,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.TxEntities;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.TxEntity;
 import org.junit.Test;
@@ -52,4 +56,66 @@ public class TxEntitiesTest {
     });
     assertTrue(Iterables.elementsEqual(entities, reverseEntities));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void countsEntitiesByState() {
+    TxEntities txEntities = new TxEntities();
+    TxEntity t1 = TxEntity.builder().localTxId("t1").state(TxState.ACTIVE).build();
+    TxEntity t2 = TxEntity.builder().localTxId("t2").state(TxState.ACTIVE).build();
+    txEntities.put(t1.getLocalTxId(), t1);
+    txEntities.put(t2.getLocalTxId(), t2);
+    assertEquals(2, txEntities.count(TxState.ACTIVE));
+    assertFalse(txEntities.hasCommittedTx());
+
+    t1.setState(TxState.COMMITTED);
+    t2.setState(TxState.COMMITTED);
+    assertTrue(txEntities.hasCommittedTx());
+    assertEquals(0, txEntities.count(TxState.ACTIVE));
+
+    t1.setState(TxState.COMPENSATION_SENT);
+    assertTrue(txEntities.hasCompensationSentTx());
+    t1.setState(TxState.COMPENSATED_SUCCEED);
+    t2.setState(TxState.COMPENSATION_SENT);
+    t2.setState(TxState.COMPENSATED_SUCCEED);
+    assertFalse(txEntities.hasCommittedTx());
+    assertFalse(txEntities.hasCompensationSentTx());
+    assertEquals(2, txEntities.count(TxState.COMPENSATED_SUCCEED));
+  }
+
+  @Test
+  public void countsCompensationFailuresWithRetriesLeft() {
+    TxEntities txEntities = new TxEntities();
+    TxEntity txEntity = TxEntity.builder().localTxId("t1").state(TxState.COMMITTED)
+        .reverseRetries(2).build();
+    txEntities.put(txEntity.getLocalTxId(), txEntity);
+
+    txEntity.setState(TxState.COMPENSATION_SENT);
+    txEntity.getRetriesCounter().incrementAndGet();
+    txEntity.setState(TxState.COMPENSATED_FAILED);
+    assertTrue(txEntities.hasCompensationFailedTx());
+
+    txEntity.setState(TxState.COMPENSATION_SENT);
+    txEntity.getRetriesCounter().incrementAndGet();
+    txEntity.setState(TxState.COMPENSATED_FAILED);
+    assertFalse(txEntities.hasCompensationFailedTx());
+    assertEquals(1, txEntities.count(TxState.COMPENSATED_FAILED));
+  }
+
+  @Test
+  public void replacesEntityInPlace() {
+    TxEntities txEntities = new TxEntities();
+    for (int i = 0; i < 20; i++) {
+      txEntities.put("t" + i, TxEntity.builder().localTxId("t" + i).state(TxState.COMMITTED).build());
+    }
+    TxEntity replacement = TxEntity.builder().localTxId("t5").state(TxState.FAILED).build();
+    txEntities.put("t5", replacement);
+
+    List<String> keys = new ArrayList<>();
+    txEntities.forEach((k, v) -> keys.add(k));
+    assertEquals(20, keys.size());
+    assertEquals("t5", keys.get(5));
+    assertSame(replacement, txEntities.get("t5"));
+    assertEquals(19, txEntities.count(TxState.COMMITTED));
+    assertEquals(1, txEntities.count(TxState.FAILED));
+  }
+}
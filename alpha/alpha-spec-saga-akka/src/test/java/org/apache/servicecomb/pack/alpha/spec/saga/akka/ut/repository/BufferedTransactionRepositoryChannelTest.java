@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.repository;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ElasticsearchProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.RepositoryChannelProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.channel.BufferedTransactionRepositoryChannel;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.elasticsearch.ElasticsearchTransactionRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+
+public class BufferedTransactionRepositoryChannelTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final List<String> persisted = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicBoolean available = new AtomicBoolean(true);
+  private TransactionRepository repository;
+  private MetricsService metricsService;
+  private RepositoryChannelProperties channelProperties;
+
+  @Before
+  public void before() throws Exception {
+    repository = mock(TransactionRepository.class);
+    doAnswer(invocation -> {
+      if (!available.get()) {
+        throw new IllegalStateException("repository unavailable");
+      }
+      persisted.add(invocation.<GlobalTransaction>getArgument(0).getGlobalTxId());
+      return null;
+    }).when(repository).send(any(GlobalTransaction.class));
+    metricsService = new MetricsService();
+    channelProperties = new RepositoryChannelProperties();
+    channelProperties.setName("buffered");
+    channelProperties.setQueueSize(10);
+    channelProperties.setSpillDir(folder.newFolder("spill").getPath());
+    channelProperties.setSegmentSize(4096);
+    channelProperties.setRetryInterval(50);
+  }
+
+  @Test
+  public void sendDoesNotWaitForRepositoryTest() throws Exception {
+    CountDownLatch repositoryLatch = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      repositoryLatch.await();
+      persisted.add(invocation.<GlobalTransaction>getArgument(0).getGlobalTxId());
+      return null;
+    }).when(repository).send(any(GlobalTransaction.class));
+    BufferedTransactionRepositoryChannel channel = new BufferedTransactionRepositoryChannel(
+        repository, metricsService, channelProperties);
+    List<String> globalTxIds = globalTxIds(20);
+    globalTxIds.forEach(globalTxId -> channel.send(transaction(globalTxId)));
+    // one transaction is blocked in the writer, the queue is full and the others are spilled
+    assertTrue(metricsService.metrics().getRepositoryChannelSpillBytes() > 0);
+
+    repositoryLatch.countDown();
+    await().atMost(5, SECONDS).until(() -> persisted.size() == globalTxIds.size());
+    assertEquals(persisted, globalTxIds);
+    assertEquals(metricsService.metrics().getRepositoryChannelQueueDepth(), 0);
+    await().atMost(1, SECONDS)
+        .until(() -> metricsService.metrics().getRepositoryChannelSpillBytes() == 0);
+    channel.close();
+  }
+
+  @Test
+  public void replaySpilledTransactionsInOrderTest() throws Exception {
+    available.set(false);
+    BufferedTransactionRepositoryChannel channel = new BufferedTransactionRepositoryChannel(
+        repository, metricsService, channelProperties);
+    List<String> globalTxIds = globalTxIds(50);
+    channel.send(transaction(globalTxIds.get(0)));
+    await().atMost(1, SECONDS)
+        .until(() -> metricsService.metrics().getRepositoryChannelSpillBytes() > 0);
+    globalTxIds.stream().skip(1).forEach(globalTxId -> channel.send(transaction(globalTxId)));
+
+    available.set(true);
+    await().atMost(5, SECONDS).until(() -> persisted.size() == globalTxIds.size());
+    assertEquals(persisted, globalTxIds);
+    assertTrue(metricsService.metrics().getRepositoryChannelAvgLag() > 0);
+    channel.close();
+  }
+
+  @Test
+  public void replaySpilledTransactionsAfterRestartTest() throws Exception {
+    available.set(false);
+    BufferedTransactionRepositoryChannel channel = new BufferedTransactionRepositoryChannel(
+        repository, metricsService, channelProperties);
+    List<String> globalTxIds = globalTxIds(5);
+    globalTxIds.forEach(globalTxId -> channel.send(transaction(globalTxId)));
+    channel.close();
+
+    available.set(true);
+    BufferedTransactionRepositoryChannel restarted = new BufferedTransactionRepositoryChannel(
+        repository, metricsService, channelProperties);
+    await().atMost(5, SECONDS).until(() -> persisted.size() == globalTxIds.size());
+    assertEquals(persisted, globalTxIds);
+    restarted.close();
+  }
+
+  @Test
+  public void spillWhenElasticsearchRepositoryIsFullTest() throws Exception {
+    CountDownLatch bulkLatch = new CountDownLatch(1);
+    ElasticsearchRestTemplate template = mock(ElasticsearchRestTemplate.class);
+    when(template.bulkIndex(anyList(), any(IndexCoordinates.class))).thenAnswer(invocation -> {
+      bulkLatch.await();
+      invocation.<List<IndexQuery>>getArgument(0)
+          .forEach(query -> persisted.add(query.getId()));
+      return Collections.emptyList();
+    });
+    ElasticsearchProperties elasticsearchProperties = new ElasticsearchProperties();
+    elasticsearchProperties.setBatchSize(5);
+    elasticsearchProperties.setRefreshTime(100);
+    elasticsearchProperties.setConcurrentRequests(1);
+    elasticsearchProperties.setMaxPending(5);
+    ElasticsearchTransactionRepository elasticsearchRepository =
+        new ElasticsearchTransactionRepository(elasticsearchProperties, template, metricsService);
+    BufferedTransactionRepositoryChannel channel = new BufferedTransactionRepositoryChannel(
+        elasticsearchRepository, metricsService, channelProperties);
+    List<String> globalTxIds = globalTxIds(50);
+    globalTxIds.forEach(globalTxId -> channel.send(transaction(globalTxId)));
+    // the repository rejects transactions beyond max-pending, they wait in the queue and the
+    // spill file instead of the heap of the repository
+    assertTrue(metricsService.metrics().getRepositoryChannelSpillBytes() > 0);
+    await().atMost(1, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryReceived() == 5);
+
+    bulkLatch.countDown();
+    await().atMost(5, SECONDS).until(() -> persisted.size() == globalTxIds.size());
+    assertEquals(persisted, globalTxIds);
+    await().atMost(1, SECONDS)
+        .until(() -> metricsService.metrics().getRepositoryChannelSpillBytes() == 0);
+    channel.close();
+    elasticsearchRepository.close();
+  }
+
+  private List<String> globalTxIds(int size) {
+    return IntStream.range(0, size).mapToObj(i -> "globalTxId-" + i)
+        .collect(Collectors.toList());
+  }
+
+  private GlobalTransaction transaction(String globalTxId) {
+    return GlobalTransaction.builder()
+        .type(TransactionType.SAGA)
+        .serviceName("serviceName")
+        .instanceId("instanceId")
+        .globalTxId(globalTxId)
+        .beginTime(new Date(System.currentTimeMillis() - 10))
+        .endTime(new Date())
+        .state(SagaActorState.COMMITTED.name())
+        .subTxSize(0)
+        .subTransactions(new ArrayList<>())
+        .events(new ArrayList<>())
+        .build();
+  }
+}
@@ -20,40 +20,61 @@ package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.repository;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertEquals;
-import static org.mockito.Mockito.mock;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.ElasticsearchProperties;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.TransactionRepository;
 import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.elasticsearch.ElasticsearchTransactionRepository;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.elasticsearch.GlobalTransactionDocument;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.elasticsearch.BulkFailureException;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
 import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHitsImpl;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
 import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ElasticsearchTransactionRepositoryTest {
 
   @Mock
   ElasticsearchRestTemplate template;
+  @Mock
+  IndexOperations indexOperations;
   MetricsService metricsService;
 
   @Before
   public void before() {
-    when(template.indexOps(ArgumentMatchers.any(IndexCoordinates.class))).thenReturn(mock(
-        IndexOperations.class));
     metricsService = new MetricsService();
   }
 
@@ -80,7 +101,8 @@ public class ElasticsearchTransactionRepositoryTest {
           .build();
       repository.send(transaction);
     }
-    assertEquals(metricsService.metrics().getRepositoryAccepted(), size);
+    await().atMost(2, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == size);
     assertEquals(metricsService.metrics().getRepositoryAccepted(),
         metricsService.metrics().getRepositoryReceived());
 
@@ -111,7 +133,8 @@ public class ElasticsearchTransactionRepositoryTest {
           .build();
       repository.send(transaction);
     }
-    assertEquals(metricsService.metrics().getRepositoryAccepted(), size);
+    await().atMost(2, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == size);
     assertEquals(metricsService.metrics().getRepositoryAccepted(),
         metricsService.metrics().getRepositoryReceived());
 
@@ -147,4 +170,231 @@ public class ElasticsearchTransactionRepositoryTest {
     assertEquals(metricsService.metrics().getRepositoryAccepted(), size);
 
   }
+
+  @Test
+  public void sendDoesNotWaitForBulkTest() throws Exception {
+    CountDownLatch bulkLatch = new CountDownLatch(1);
+    when(template.bulkIndex(ArgumentMatchers.anyList(), ArgumentMatchers.any(IndexCoordinates.class)))
+        .thenAnswer(invocation -> {
+          bulkLatch.await();
+          return Collections.emptyList();
+        });
+    int size = 100;
+    ElasticsearchProperties elasticsearchProperties = new ElasticsearchProperties();
+    elasticsearchProperties.setBatchSize(10);
+    elasticsearchProperties.setRefreshTime(0);
+    elasticsearchProperties.setConcurrentRequests(2);
+    TransactionRepository repository = new ElasticsearchTransactionRepository(elasticsearchProperties,
+        template, metricsService);
+    for (int i = 0; i < size; i++) {
+      repository.send(transaction(UUID.randomUUID().toString()));
+    }
+    // two bulk requests are blocked, the others stay queued until they complete
+    assertEquals(metricsService.metrics().getRepositoryInflight(), 2);
+    assertEquals(metricsService.metrics().getRepositoryPending(), size - 20);
+    assertEquals(metricsService.metrics().getRepositoryAccepted(), 0);
+
+    bulkLatch.countDown();
+    await().atMost(2, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == size);
+    assertEquals(metricsService.metrics().getRepositoryPending(), 0);
+    // documents become searchable after the refresh_interval of the index
+    verify(template, never()).indexOps(ArgumentMatchers.any(IndexCoordinates.class));
+  }
+
+  @Test
+  public void retryRejectedDocumentsTest() throws Exception {
+    String rejectedGlobalTxId = UUID.randomUUID().toString();
+    AtomicInteger bulks = new AtomicInteger();
+    when(template.bulkIndex(ArgumentMatchers.anyList(), ArgumentMatchers.any(IndexCoordinates.class)))
+        .thenAnswer(invocation -> {
+          if (bulks.incrementAndGet() < 3) {
+            throw new BulkFailureException("rejected",
+                Collections.singletonMap(rejectedGlobalTxId, "es_rejected_execution_exception"));
+          }
+          return Collections.emptyList();
+        });
+    ElasticsearchProperties elasticsearchProperties = new ElasticsearchProperties();
+    elasticsearchProperties.setBatchSize(2);
+    elasticsearchProperties.setRefreshTime(0);
+    elasticsearchProperties.setRetryBackoff(10);
+    TransactionRepository repository = new ElasticsearchTransactionRepository(elasticsearchProperties,
+        template, metricsService);
+    repository.send(transaction(UUID.randomUUID().toString()));
+    repository.send(transaction(rejectedGlobalTxId));
+
+    await().atMost(2, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == 2);
+    assertEquals(metricsService.metrics().getRepositoryRetried(), 2);
+    assertEquals(metricsService.metrics().getRepositoryRejected(), 0);
+  }
+
+  @Test
+  public void rejectAfterMaxRetriesTest() throws Exception {
+    when(template.bulkIndex(ArgumentMatchers.anyList(), ArgumentMatchers.any(IndexCoordinates.class)))
+        .thenThrow(new IllegalStateException("elasticsearch unavailable"));
+    ElasticsearchProperties elasticsearchProperties = new ElasticsearchProperties();
+    elasticsearchProperties.setBatchSize(0);
+    elasticsearchProperties.setRefreshTime(0);
+    elasticsearchProperties.setMaxRetries(2);
+    elasticsearchProperties.setRetryBackoff(10);
+    TransactionRepository repository = new ElasticsearchTransactionRepository(elasticsearchProperties,
+        template, metricsService);
+    repository.send(transaction(UUID.randomUUID().toString()));
+
+    await().atMost(2, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryRejected() == 1);
+    assertEquals(metricsService.metrics().getRepositoryRetried(), 2);
+    assertEquals(metricsService.metrics().getRepositoryAccepted(), 0);
+  }
+
+  @Test
+  public void rejectWhenMaxPendingReachedTest() throws Exception {
+    CountDownLatch bulkLatch = new CountDownLatch(1);
+    when(template.bulkIndex(ArgumentMatchers.anyList(), ArgumentMatchers.any(IndexCoordinates.class)))
+        .thenAnswer(invocation -> {
+          bulkLatch.await();
+          return Collections.emptyList();
+        });
+    ElasticsearchProperties elasticsearchProperties = new ElasticsearchProperties();
+    elasticsearchProperties.setBatchSize(10);
+    elasticsearchProperties.setRefreshTime(0);
+    elasticsearchProperties.setConcurrentRequests(1);
+    elasticsearchProperties.setMaxPending(20);
+    TransactionRepository repository = new ElasticsearchTransactionRepository(elasticsearchProperties,
+        template, metricsService);
+    // documents being sent count against max-pending as well as queued documents
+    for (int i = 0; i < 20; i++) {
+      repository.send(transaction(UUID.randomUUID().toString()));
+    }
+    try {
+      repository.send(transaction(UUID.randomUUID().toString()));
+      fail("send should be rejected when max-pending documents are pending");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+    assertEquals(metricsService.metrics().getRepositoryReceived(), 20);
+
+    bulkLatch.countDown();
+    await().atMost(2, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == 20);
+    repository.send(transaction(UUID.randomUUID().toString()));
+    assertEquals(metricsService.metrics().getRepositoryReceived(), 21);
+  }
+
+  @Test
+  public void retryHoldsBulkPermitTest() throws Exception {
+    String failedGlobalTxId = UUID.randomUUID().toString();
+    String nextGlobalTxId = UUID.randomUUID().toString();
+    List<String> bulks = new CopyOnWriteArrayList<>();
+    when(template.bulkIndex(ArgumentMatchers.anyList(), ArgumentMatchers.any(IndexCoordinates.class)))
+        .thenAnswer(invocation -> {
+          List<IndexQuery> queries = invocation.getArgument(0);
+          bulks.add(queries.get(0).getId());
+          if (bulks.size() == 1) {
+            throw new IllegalStateException("elasticsearch unavailable");
+          }
+          return Collections.emptyList();
+        });
+    ElasticsearchProperties elasticsearchProperties = new ElasticsearchProperties();
+    elasticsearchProperties.setBatchSize(1);
+    elasticsearchProperties.setRefreshTime(0);
+    elasticsearchProperties.setConcurrentRequests(1);
+    elasticsearchProperties.setRetryBackoff(200);
+    TransactionRepository repository = new ElasticsearchTransactionRepository(elasticsearchProperties,
+        template, metricsService);
+    repository.send(transaction(failedGlobalTxId));
+    await().atMost(2, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryRetried() == 1);
+    repository.send(transaction(nextGlobalTxId));
+
+    await().atMost(2, SECONDS).until(
+        () -> metricsService.metrics().getRepositoryAccepted() == 2);
+    // the next bulk waits for the permit held by the retry
+    assertEquals(Arrays.asList(failedGlobalTxId, failedGlobalTxId, nextGlobalTxId), bulks);
+    assertEquals(metricsService.metrics().getRepositoryInflight(), 0);
+  }
+
+  @Test
+  public void closeSendsQueuedDocumentsAndRetriesTest() throws Exception {
+    AtomicInteger bulks = new AtomicInteger();
+    when(template.bulkIndex(ArgumentMatchers.anyList(), ArgumentMatchers.any(IndexCoordinates.class)))
+        .thenAnswer(invocation -> {
+          if (bulks.incrementAndGet() == 1) {
+            throw new IllegalStateException("elasticsearch unavailable");
+          }
+          return Collections.emptyList();
+        });
+    ElasticsearchProperties elasticsearchProperties = new ElasticsearchProperties();
+    elasticsearchProperties.setBatchSize(100);
+    elasticsearchProperties.setRefreshTime(0);
+    elasticsearchProperties.setRetryBackoff(100);
+    ElasticsearchTransactionRepository repository = new ElasticsearchTransactionRepository(
+        elasticsearchProperties, template, metricsService);
+    for (int i = 0; i < 5; i++) {
+      repository.send(transaction(UUID.randomUUID().toString()));
+    }
+    assertEquals(metricsService.metrics().getRepositoryPending(), 5);
+
+    repository.close();
+    assertEquals(metricsService.metrics().getRepositoryAccepted(), 5);
+    assertEquals(metricsService.metrics().getRepositoryRetried(), 5);
+    assertEquals(metricsService.metrics().getRepositoryRejected(), 0);
+    assertEquals(metricsService.metrics().getRepositoryPending(), 0);
+    assertEquals(metricsService.metrics().getRepositoryInflight(), 0);
+    try {
+      repository.send(transaction(UUID.randomUUID().toString()));
+      fail("send should be rejected after close");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void queryTransactionsWithCursorTest() throws Exception {
+    when(template.indexOps(ArgumentMatchers.any(IndexCoordinates.class))).thenReturn(indexOperations);
+    when(indexOperations.exists()).thenReturn(true);
+    ArgumentCaptor<NativeSearchQuery> query = ArgumentCaptor.forClass(NativeSearchQuery.class);
+    when(template.search(query.capture(), ArgumentMatchers.eq(GlobalTransactionDocument.class)))
+        .thenReturn(new SearchHitsImpl<>(5, TotalHitsRelation.EQUAL_TO, 0, null,
+            Arrays.asList(hit("globalTxId-4", 2000), hit("globalTxId-3", 1000)), null));
+    TransactionRepository repository = new ElasticsearchTransactionRepository(
+        new ElasticsearchProperties(), template, metricsService);
+
+    PagingGlobalTransactions paging = repository.getGlobalTransactions(
+        GlobalTransactionQuery.builder()
+            .state(SagaActorState.COMMITTED.name())
+            .size(2)
+            .cursor(GlobalTransactionQuery.cursor(3000, "globalTxId-5"))
+            .trackTotalHits(true)
+            .build());
+    assertEquals(paging.getTotal(), 5);
+    assertEquals(paging.getGlobalTransactions().size(), 2);
+    assertEquals(paging.getCursor(), GlobalTransactionQuery.cursor(1000, "globalTxId-3"));
+    assertTrue(query.getValue().getTrackTotalHits());
+    assertNull(query.getValue().getFilter());
+    String filter = query.getValue().getQuery().toString();
+    assertTrue(filter.contains("state.keyword"));
+    assertTrue(filter.contains("globalTxId-5"));
+  }
+
+  private SearchHit<GlobalTransactionDocument> hit(String globalTxId, long beginTime) {
+    return new SearchHit<>(globalTxId, 0, new Object[] {beginTime, globalTxId}, null,
+        new GlobalTransactionDocument());
+  }
+
+  private GlobalTransaction transaction(String globalTxId) {
+    return GlobalTransaction.builder()
+        .type(TransactionType.SAGA)
+        .serviceName("serviceName")
+        .instanceId("instanceId")
+        .globalTxId(globalTxId)
+        .beginTime(new Date())
+        .endTime(new Date())
+        .state(SagaActorState.COMMITTED.name())
+        .subTxSize(0)
+        .subTransactions(new ArrayList<>())
+        .events(new ArrayList<>())
+        .build();
+  }
 }
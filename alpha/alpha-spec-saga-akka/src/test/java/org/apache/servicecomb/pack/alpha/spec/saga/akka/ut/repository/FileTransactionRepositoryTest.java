@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.repository;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.SagaSubTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.MetricsService;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.properties.FileRepositoryProperties;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.file.FileTransactionRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileTransactionRepositoryTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private FileRepositoryProperties fileProperties;
+  private MetricsService metricsService;
+
+  @Before
+  public void before() throws Exception {
+    fileProperties = new FileRepositoryProperties();
+    fileProperties.setDir(folder.newFolder("transactions").getPath());
+    fileProperties.setMaintenanceInterval(Duration.ZERO);
+    metricsService = new MetricsService();
+  }
+
+  @Test
+  public void queryTransactionsTest() throws Exception {
+    FileTransactionRepository repository = new FileTransactionRepository(fileProperties,
+        metricsService);
+    GlobalTransaction transaction = transaction("globalTxId-0", 1000, 50,
+        SagaActorState.SUSPENDED);
+    repository.send(transaction);
+    repository.send(transaction("globalTxId-1", 2000, 300, SagaActorState.COMMITTED));
+    repository.send(transaction("globalTxId-2", 3000, 10, SagaActorState.COMMITTED));
+    repository.send(transaction("globalTxId-3", 4000, 200, SagaActorState.COMPENSATED));
+
+    GlobalTransaction found = repository.getGlobalTransactionByGlobalTxId("globalTxId-0");
+    assertThat(found.getServiceName(), is(transaction.getServiceName()));
+    assertThat(found.getInstanceId(), is(transaction.getInstanceId()));
+    assertThat(found.getType(), is(transaction.getType()));
+    assertThat(found.getState(), is(transaction.getState()));
+    assertThat(found.getBeginTime(), is(transaction.getBeginTime()));
+    assertThat(found.getEndTime(), is(transaction.getEndTime()));
+    assertThat(found.getDurationTime(), is(50L));
+    assertThat(found.getSubTxSize(), is(1));
+    assertThat(found.getSuspendedType(), is(SuspendedType.TIMEOUT));
+    assertThat(found.getSubTransactions().get(0).getLocalTxId(), is("localTxId"));
+    assertThat(found.getSubTransactions().get(0).getState(), is(TxState.COMMITTED));
+    assertThat(found.getEvents(), is(transaction.getEvents()));
+    assertNull(repository.getGlobalTransactionByGlobalTxId("unknown"));
+
+    PagingGlobalTransactions paging = repository.getGlobalTransactions(0, 3);
+    assertThat(paging.getTotal(), is(4L));
+    assertThat(globalTxIds(paging.getGlobalTransactions()),
+        is(Arrays.asList("globalTxId-3", "globalTxId-2", "globalTxId-1")));
+    paging = repository.getGlobalTransactions(1, 3);
+    assertThat(globalTxIds(paging.getGlobalTransactions()),
+        is(Collections.singletonList("globalTxId-0")));
+    paging = repository.getGlobalTransactions(SagaActorState.COMMITTED.name(), 0, 10);
+    assertThat(paging.getTotal(), is(2L));
+    assertThat(globalTxIds(paging.getGlobalTransactions()),
+        is(Arrays.asList("globalTxId-2", "globalTxId-1")));
+
+    Map<String, Long> statistics = repository.getTransactionStatistics();
+    assertThat(statistics.get(SagaActorState.COMMITTED.name()), is(2L));
+    assertThat(statistics.get(SagaActorState.COMPENSATED.name()), is(1L));
+    assertThat(statistics.get(SagaActorState.SUSPENDED.name()), is(1L));
+    assertThat(metricsService.metrics().getRepositoryAccepted(), is(4L));
+    repository.close();
+  }
+
+  @Test
+  public void queryTransactionsWithCursorTest() throws Exception {
+    FileTransactionRepository repository = new FileTransactionRepository(fileProperties,
+        metricsService);
+    for (int i = 0; i < 6; i++) {
+      repository.send(transaction("globalTxId-" + i, 1000 + i / 2 * 1000, 50,
+          i % 2 == 0 ? SagaActorState.COMMITTED : SagaActorState.COMPENSATED));
+    }
+
+    GlobalTransactionQuery.Builder query = GlobalTransactionQuery.builder()
+        .beginTimeFrom(new Date(1000))
+        .beginTimeTo(new Date(3000))
+        .size(2);
+    PagingGlobalTransactions paging = repository.getGlobalTransactions(
+        query.trackTotalHits(true).build());
+    assertThat(paging.getTotal(), is(4L));
+    assertThat(globalTxIds(paging.getGlobalTransactions()),
+        is(Arrays.asList("globalTxId-3", "globalTxId-2")));
+    assertThat(paging.getCursor(), is(GlobalTransactionQuery.cursor(2000, "globalTxId-2")));
+    paging = repository.getGlobalTransactions(
+        query.trackTotalHits(false).cursor(paging.getCursor()).build());
+    assertThat(paging.getTotal(), is(-1L));
+    assertThat(globalTxIds(paging.getGlobalTransactions()),
+        is(Arrays.asList("globalTxId-1", "globalTxId-0")));
+    paging = repository.getGlobalTransactions(query.cursor(paging.getCursor()).build());
+    assertTrue(paging.getGlobalTransactions().isEmpty());
+    assertNull(paging.getCursor());
+
+    paging = repository.getGlobalTransactions(GlobalTransactionQuery.builder()
+        .state(SagaActorState.COMMITTED.name())
+        .serviceName("serviceName")
+        .beginTimeTo(new Date(3000))
+        .trackTotalHits(true)
+        .build());
+    assertThat(paging.getTotal(), is(2L));
+    assertThat(globalTxIds(paging.getGlobalTransactions()),
+        is(Arrays.asList("globalTxId-2", "globalTxId-0")));
+    assertNull(paging.getCursor());
+    assertTrue(repository.getGlobalTransactions(GlobalTransactionQuery.builder()
+        .serviceName("unknown").build()).getGlobalTransactions().isEmpty());
+    repository.close();
+  }
+
+  @Test
+  public void reloadIndexTest() throws Exception {
+    FileTransactionRepository repository = new FileTransactionRepository(fileProperties,
+        metricsService);
+    repository.send(transaction("globalTxId-0", 1000, 50, SagaActorState.SUSPENDED));
+    repository.send(transaction("globalTxId-1", 2000, 50, SagaActorState.SUSPENDED));
+    // a later record of the same transaction replaces the earlier one
+    repository.send(transaction("globalTxId-0", 1000, 80, SagaActorState.COMPENSATED));
+    repository.close();
+    // a record partially written before a crash is dropped
+    Path segment = Files.list(folder.getRoot().toPath().resolve("transactions")).findFirst().get();
+    try (FileOutputStream out = new FileOutputStream(segment.toFile(), true)) {
+      out.write(new byte[] {0, 0, 1, 0, 1, 2, 3});
+    }
+
+    repository = new FileTransactionRepository(fileProperties, metricsService);
+    assertThat(repository.getGlobalTransactions(0, 10).getTotal(), is(2L));
+    assertThat(repository.getGlobalTransactionByGlobalTxId("globalTxId-0").getState(),
+        is(SagaActorState.COMPENSATED.name()));
+    assertThat(repository.getTransactionStatistics().get(SagaActorState.SUSPENDED.name()),
+        is(1L));
+    repository.send(transaction("globalTxId-2", 3000, 50, SagaActorState.COMMITTED));
+    assertThat(repository.getGlobalTransactions(0, 10).getTotal(), is(3L));
+    repository.close();
+  }
+
+  @Test
+  public void compactSegmentsTest() throws Exception {
+    fileProperties.setSegmentSize(1024);
+    FileTransactionRepository repository = new FileTransactionRepository(fileProperties,
+        metricsService);
+    for (int i = 0; i < 20; i++) {
+      repository.send(transaction("globalTxId-" + i, 1000 + i, 50, SagaActorState.SUSPENDED));
+    }
+    for (int i = 0; i < 20; i++) {
+      if (i % 5 != 0) {
+        repository.send(transaction("globalTxId-" + i, 1000 + i, 50, SagaActorState.COMMITTED));
+      }
+    }
+    File dir = folder.getRoot().toPath().resolve("transactions").toFile();
+    long sizeBefore = Arrays.stream(dir.listFiles()).mapToLong(File::length).sum();
+
+    repository.maintain();
+    long sizeAfter = Arrays.stream(dir.listFiles()).mapToLong(File::length).sum();
+    assertTrue(sizeAfter < sizeBefore);
+    assertThat(repository.getGlobalTransactions(0, 100).getTotal(), is(20L));
+    assertThat(repository.getTransactionStatistics().get(SagaActorState.SUSPENDED.name()),
+        is(4L));
+    assertThat(repository.getGlobalTransactionByGlobalTxId("globalTxId-5").getState(),
+        is(SagaActorState.SUSPENDED.name()));
+    repository.close();
+
+    repository = new FileTransactionRepository(fileProperties, metricsService);
+    assertThat(repository.getGlobalTransactions(0, 100).getTotal(), is(20L));
+    assertThat(repository.getTransactionStatistics().get(SagaActorState.COMMITTED.name()),
+        is(16L));
+    repository.close();
+  }
+
+  @Test
+  public void deleteSegmentsAfterRetentionTest() throws Exception {
+    fileProperties.setSegmentSize(1024);
+    fileProperties.setRetention(Duration.ofMillis(1));
+    FileTransactionRepository repository = new FileTransactionRepository(fileProperties,
+        metricsService);
+    for (int i = 0; i < 20; i++) {
+      repository.send(transaction("globalTxId-" + i, 1000 + i, 50, SagaActorState.COMMITTED));
+    }
+    Thread.sleep(10);
+
+    repository.maintain();
+    // only the transactions in the newest segment are kept
+    long total = repository.getGlobalTransactions(0, 100).getTotal();
+    assertTrue(total > 0 && total < 20);
+    assertThat(folder.getRoot().toPath().resolve("transactions").toFile().listFiles().length,
+        is(1));
+    assertThat(repository.getGlobalTransactionByGlobalTxId("globalTxId-19").getGlobalTxId(),
+        is("globalTxId-19"));
+    assertNull(repository.getGlobalTransactionByGlobalTxId("globalTxId-0"));
+    repository.close();
+  }
+
+  private List<String> globalTxIds(List<GlobalTransaction> transactions) {
+    return transactions.stream().map(GlobalTransaction::getGlobalTxId)
+        .collect(Collectors.toList());
+  }
+
+  private GlobalTransaction transaction(String globalTxId, long beginTime, long durationTime,
+      SagaActorState state) {
+    return GlobalTransaction.builder()
+        .type(TransactionType.SAGA)
+        .serviceName("serviceName")
+        .instanceId("instanceId")
+        .globalTxId(globalTxId)
+        .beginTime(new Date(beginTime))
+        .endTime(new Date(beginTime + durationTime))
+        .state(state.name())
+        .subTxSize(1)
+        .suspendedType(SuspendedType.TIMEOUT)
+        .subTransactions(Collections.singletonList(SagaSubTransaction.builder()
+            .localTxId("localTxId")
+            .parentTxId(globalTxId)
+            .beginTime(new Date(beginTime))
+            .endTime(new Date(beginTime + durationTime))
+            .state(TxState.COMMITTED)
+            .build()))
+        .events(Arrays.asList(
+            SagaStartedEvent.builder().serviceName("serviceName").instanceId("instanceId")
+                .globalTxId(globalTxId).timeout(30).build(),
+            TxStartedEvent.builder().serviceName("serviceName").instanceId("instanceId")
+                .globalTxId(globalTxId).parentTxId(globalTxId).localTxId("localTxId")
+                .compensationMethod("compensate").payloads(new byte[] {1, 2, 3}).build()))
+        .build();
+  }
+}
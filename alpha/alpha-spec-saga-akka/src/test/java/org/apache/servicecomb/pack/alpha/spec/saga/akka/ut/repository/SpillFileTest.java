@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.repository;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.repository.channel.SpillFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpillFileTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private Path dir;
+
+  @Before
+  public void before() throws Exception {
+    dir = folder.newFolder("spill").toPath();
+  }
+
+  @Test
+  public void replayInOrderAcrossSegments() throws Exception {
+    SpillFile spillFile = new SpillFile(dir, 64);
+    for (int i = 0; i < 10; i++) {
+      spillFile.append(new byte[] {(byte) i, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+    }
+    assertEquals(spillFile.pendingBytes(), 10 * 14);
+    assertTrue(Files.list(dir).count() > 1);
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(spillFile.peek()[0], i);
+      spillFile.commit();
+    }
+    assertNull(spillFile.peek());
+    assertTrue(spillFile.isEmpty());
+    // consumed segments are deleted
+    assertEquals(Files.list(dir).count(), 1);
+  }
+
+  @Test
+  public void unmapDeletedSegments() throws Exception {
+    Path maps = Paths.get("/proc/self/maps");
+    assumeTrue(Files.isReadable(maps));
+    SpillFile spillFile = new SpillFile(dir, 64);
+    for (int i = 0; i < 10; i++) {
+      spillFile.append(new byte[] {(byte) i, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+    }
+    for (int i = 0; i < 10; i++) {
+      spillFile.peek();
+      spillFile.commit();
+    }
+    assertNull(spillFile.peek());
+    assertFalse(mapped(maps, "(deleted)"));
+
+    spillFile.close();
+    assertFalse(mapped(maps, ".spill"));
+  }
+
+  @Test
+  public void appendRecordLargerThanSegment() throws Exception {
+    SpillFile spillFile = new SpillFile(dir, 16);
+    byte[] record = new byte[100];
+    record[99] = 1;
+    spillFile.append(new byte[] {1});
+    spillFile.append(record);
+
+    assertArrayEquals(spillFile.peek(), new byte[] {1});
+    spillFile.commit();
+    assertArrayEquals(spillFile.peek(), record);
+  }
+
+  @Test
+  public void skipConsumedRecordsAfterReopen() throws Exception {
+    SpillFile spillFile = new SpillFile(dir, 64);
+    for (int i = 0; i < 10; i++) {
+      spillFile.append(new byte[] {(byte) i});
+    }
+    for (int i = 0; i < 4; i++) {
+      spillFile.peek();
+      spillFile.commit();
+    }
+    spillFile.close();
+
+    SpillFile reopened = new SpillFile(dir, 64);
+    assertEquals(reopened.pendingBytes(), 6 * 5);
+    reopened.append(new byte[] {10});
+    for (int i = 4; i <= 10; i++) {
+      assertArrayEquals(reopened.peek(), new byte[] {(byte) i});
+      reopened.commit();
+    }
+    assertNull(reopened.peek());
+  }
+
+  private boolean mapped(Path maps, String suffix) throws Exception {
+    try (Stream<String> lines = Files.lines(maps)) {
+      return lines.anyMatch(line -> line.contains(dir.toString()) && line.endsWith(suffix));
+    }
+  }
+}
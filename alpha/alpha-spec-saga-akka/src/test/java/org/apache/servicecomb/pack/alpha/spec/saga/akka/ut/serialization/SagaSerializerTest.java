@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.akka.ut.serialization;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import akka.actor.ActorSystem;
+import akka.serialization.Serialization;
+import akka.serialization.SerializationExtension;
+import akka.testkit.javadsl.TestKit;
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.UUID;
+import org.apache.servicecomb.pack.alpha.core.fsm.SuspendedType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TransactionType;
+import org.apache.servicecomb.pack.alpha.core.fsm.TxState;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.SagaStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxAbortedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxEndedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.TxStartedEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.event.internal.ComponsitedCheckEvent;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaActorState;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.SagaEventBatch;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.AddTxEventDomain;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.SagaEndedDomain;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.SagaStartedDomain;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.domain.UpdateTxEventDomain;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransaction;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.metrics.SlowTransactionActor;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.SagaData;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.model.TxEntity;
+import org.apache.servicecomb.pack.alpha.spec.saga.akka.serialization.SagaSerializer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SagaSerializerTest {
+
+  private static ActorSystem system;
+
+  private final SagaSerializer serializer = new SagaSerializer();
+  private final String globalTxId = UUID.randomUUID().toString();
+  private final String localTxId = UUID.randomUUID().toString();
+
+  @BeforeClass
+  public static void setup() {
+    system = ActorSystem.create("SagaSerializerTest");
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    TestKit.shutdownActorSystem(system);
+    system = null;
+  }
+
+  @Test
+  public void bindsSagaMessagesToTheSerializer() {
+    Serialization serialization = SerializationExtension.get(system);
+    SagaStartedEvent event = sagaStartedEvent();
+
+    assertThat(serialization.findSerializerFor(event).identifier(), is(SagaSerializer.IDENTIFIER));
+    assertThat(serialization.findSerializerFor(new SagaStartedDomain(event)).identifier(),
+        is(SagaSerializer.IDENTIFIER));
+    assertThat(serialization.findSerializerFor(SagaData.builder().build()).identifier(),
+        is(SagaSerializer.IDENTIFIER));
+    assertThat(serialization.findSerializerFor(new SagaEventBatch(Arrays.asList(event)))
+        .identifier(), is(SagaSerializer.IDENTIFIER));
+    assertThat(serialization.findSerializerFor(new SlowTransactionActor.Query("service", 10))
+        .identifier(), is(SagaSerializer.IDENTIFIER));
+    assertThat(serialization.findSerializerFor(new SlowTransactionActor.Reply(new ArrayList<>()))
+        .identifier(), is(SagaSerializer.IDENTIFIER));
+  }
+
+  @Test
+  public void serializesSlowTransactionMessages() throws Exception {
+    SlowTransactionActor.Query query = roundTrip(new SlowTransactionActor.Query("service", 10));
+    assertThat(query.getServiceName(), is("service"));
+    assertThat(query.getSize(), is(10));
+
+    SlowTransaction slowTransaction = SlowTransaction.of(GlobalTransaction.builder()
+        .type(TransactionType.SAGA)
+        .serviceName("service")
+        .instanceId("instance")
+        .globalTxId(globalTxId)
+        .beginTime(new Date(1000L))
+        .endTime(new Date(4000L))
+        .state(SagaActorState.SUSPENDED.name())
+        .subTxSize(2)
+        .subTransactions(new ArrayList<>())
+        .suspendedType(SuspendedType.TIMEOUT)
+        .build());
+    SlowTransactionActor.Reply reply = roundTrip(
+        new SlowTransactionActor.Reply(Arrays.asList(slowTransaction)));
+    assertThat(reply.getTransactions().size(), is(1));
+    GlobalTransaction transaction = reply.getTransactions().get(0).toGlobalTransaction();
+    assertThat(transaction.getGlobalTxId(), is(globalTxId));
+    assertThat(transaction.getType(), is(TransactionType.SAGA));
+    assertThat(transaction.getServiceName(), is("service"));
+    assertThat(transaction.getInstanceId(), is("instance"));
+    assertThat(transaction.getDurationTime(), is(3000L));
+    assertThat(transaction.getState(), is(SagaActorState.SUSPENDED.name()));
+    assertThat(transaction.getSubTxSize(), is(2));
+    assertThat(transaction.getSuspendedType(), is(SuspendedType.TIMEOUT));
+  }
+
+  @Test
+  public void serializesDomainEvents() throws Exception {
+    SagaStartedDomain sagaStarted = roundTrip(new SagaStartedDomain(sagaStartedEvent()));
+    assertThat(sagaStarted.getEvent().getGlobalTxId(), is(globalTxId));
+    assertThat(sagaStarted.getExpirationTime(), is(new Date(31000L)));
+
+    AddTxEventDomain addTx = roundTrip(new AddTxEventDomain(TxStartedEvent.builder()
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .compensationMethod("compensate")
+        .reverseRetries(3)
+        .reverseTimeout(10)
+        .retryDelayInMilliseconds(200)
+        .payloads(new byte[] {1, 2})
+        .build()));
+    assertThat(addTx.getState(), is(TxState.ACTIVE));
+    assertThat(addTx.getCompensationMethod(), is("compensate"));
+    assertThat(addTx.getReverseRetries(), is(3));
+    assertThat(addTx.getReverseTimeout(), is(10));
+    assertThat(addTx.getRetryDelayInMilliseconds(), is(200));
+    assertArrayEquals(addTx.getPayloads(), new byte[] {1, 2});
+
+    UpdateTxEventDomain aborted = roundTrip(new UpdateTxEventDomain(TxAbortedEvent.builder()
+        .globalTxId(globalTxId)
+        .localTxId(localTxId)
+        .payloads(new byte[] {3})
+        .build()));
+    assertThat(aborted.getLocalTxId(), is(localTxId));
+    assertThat(aborted.getState(), is(TxState.FAILED));
+    assertArrayEquals(aborted.getThrowablePayLoads(), new byte[] {3});
+
+    UpdateTxEventDomain checked = roundTrip(new UpdateTxEventDomain(ComponsitedCheckEvent.builder()
+        .globalTxId(globalTxId)
+        .localTxId(localTxId)
+        .preState(TxState.COMPENSATED_SUCCEED)
+        .build()));
+    assertThat(checked.getEvent(), instanceOf(ComponsitedCheckEvent.class));
+    assertThat(checked.getState(), is(TxState.COMPENSATED_SUCCEED));
+
+    SagaEndedDomain timeout = roundTrip(
+        new SagaEndedDomain(null, SagaActorState.SUSPENDED, SuspendedType.TIMEOUT));
+    assertThat(timeout.getEvent(), is(nullValue()));
+    assertThat(timeout.getState(), is(SagaActorState.SUSPENDED));
+    assertThat(timeout.getSuspendedType(), is(SuspendedType.TIMEOUT));
+  }
+
+  @Test
+  public void serializesSagaData() throws Exception {
+    SagaData data = SagaData.builder()
+        .serviceName("service")
+        .instanceId("instance")
+        .globalTxId(globalTxId)
+        .beginTime(new Date(1000L))
+        .expirationTime(new Date(31000L))
+        .suspendedType(SuspendedType.COMPENSATE_FAILED)
+        .build();
+    data.setLastState(SagaActorState.COMPENSATED);
+    data.getCompensationRunningCounter().set(2);
+    TxEntity txEntity = TxEntity.builder()
+        .globalTxId(globalTxId)
+        .parentTxId(globalTxId)
+        .localTxId(localTxId)
+        .beginTime(new Date(2000L))
+        .endTime(new Date(3000L))
+        .state(TxState.COMPENSATED_FAILED)
+        .compensationMethod("compensate")
+        .payloads(new byte[] {4})
+        .reverseRetries(3)
+        .build();
+    txEntity.getRetriesCounter().set(1);
+    data.getTxEntities().put(localTxId, txEntity);
+    data.logEvent(sagaStartedEvent());
+    data.logEvent(TxEndedEvent.builder().globalTxId(globalTxId).localTxId(localTxId).build());
+
+    SagaData restored = roundTrip(data);
+
+    assertThat(restored.getServiceName(), is("service"));
+    assertThat(restored.getInstanceId(), is("instance"));
+    assertThat(restored.getGlobalTxId(), is(globalTxId));
+    assertThat(restored.getBeginTime(), is(new Date(1000L)));
+    assertThat(restored.getEndTime(), is(nullValue()));
+    assertThat(restored.getTimeout(), is(30000L));
+    assertThat(restored.getSuspendedType(), is(SuspendedType.COMPENSATE_FAILED));
+    assertThat(restored.getLastState(), is(SagaActorState.COMPENSATED));
+    assertThat(restored.getCompensationRunningCounter().get(), is(2L));
+    TxEntity restoredEntity = restored.getTxEntities().get(localTxId);
+    assertThat(restoredEntity.getState(), is(TxState.COMPENSATED_FAILED));
+    assertThat(restoredEntity.getEndTime(), is(new Date(3000L)));
+    assertThat(restoredEntity.getCompensationMethod(), is("compensate"));
+    assertThat(restoredEntity.getReverseRetries(), is(3));
+    assertThat(restoredEntity.getRetriesCounter().get(), is(1));
+    assertArrayEquals(restoredEntity.getPayloads(), new byte[] {4});
+    assertThat(restored.getEvents().size(), is(2));
+    assertThat(restored.getEvents().get(1), instanceOf(TxEndedEvent.class));
+  }
+
+  @Test
+  public void serializesCappedEventLogSharingPayloads() throws Exception {
+    SagaData data = SagaData.builder().globalTxId(globalTxId).maxEvents(2).build();
+    data.getTxEntities().put(localTxId, TxEntity.builder()
+        .globalTxId(globalTxId)
+        .localTxId(localTxId)
+        .state(TxState.COMMITTED)
+        .payloads(new byte[] {4})
+        .build());
+    data.logEvent(sagaStartedEvent());
+    data.logEvent(TxStartedEvent.builder().globalTxId(globalTxId).localTxId(localTxId)
+        .payloads(new byte[] {4}).build());
+    data.logEvent(TxEndedEvent.builder().globalTxId(globalTxId).localTxId(localTxId).build());
+
+    SagaData restored = roundTrip(data);
+
+    assertThat(restored.getEventLog().getMaxEvents(), is(2));
+    assertThat(restored.getEventLog().getDroppedEvents(), is(1L));
+    assertThat(restored.getEvents().size(), is(2));
+    assertThat(restored.getEvents().get(0), instanceOf(TxStartedEvent.class));
+    assertSame(((TxStartedEvent) restored.getEvents().get(0)).getPayloads(),
+        restored.getTxEntities().get(localTxId).getPayloads());
+  }
+
+  @Test(expected = NotSerializableException.class)
+  public void rejectsUnknownManifest() throws Exception {
+    serializer.fromBinary(new byte[] {1}, "unknown");
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T roundTrip(T message) throws NotSerializableException {
+    return (T) serializer.fromBinary(serializer.toBinary(message), serializer.manifest(message));
+  }
+
+  private SagaStartedEvent sagaStartedEvent() {
+    return SagaStartedEvent.builder()
+        .serviceName("service")
+        .instanceId("instance")
+        .globalTxId(globalTxId)
+        .createTime(new Date(1000L))
+        .timeout(30)
+        .build();
+  }
+}
@@ -21,6 +21,7 @@ import java.lang.invoke.MethodHandles;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import org.apache.servicecomb.pack.alpha.core.CommandRepository;
+import org.apache.servicecomb.pack.alpha.core.EventCoordinator;
 import org.apache.servicecomb.pack.alpha.core.EventScanner;
 import org.apache.servicecomb.pack.alpha.core.NodeStatus;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
@@ -45,7 +46,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -82,31 +85,95 @@ public class AlphaSpecSagaDbAutoConfiguration {
     return new SpringTxTimeoutRepository(timeoutRepo);
   }
 
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  TxStatsAggregator txStatsAggregator(TxEventEnvelopeRepository eventRepo,
+      GlobalTxArchiveRepository archiveRepo, SpecSagaDbProperties specSagaDbProperties) {
+    return new TxStatsAggregator(eventRepo, archiveRepo,
+        specSagaDbProperties.getStats().getRefreshInterval().toMillis(),
+        specSagaDbProperties.getStats().getReconcileInterval().toMillis());
+  }
+
+  @Bean
+  SagaTransactionsController sagaTransactionsController(TxEventEnvelopeRepository eventRepo,
+      TxStatsAggregator txStats) {
+    return new SagaTransactionsController(eventRepo, txStats);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  TxStateProjection txStateProjection(TxEventEnvelopeRepository eventRepo,
+      GlobalTxStateRepository globalTxStateRepo, LocalTxStateRepository localTxStateRepo,
+      TxStateMarkRepository markRepo, TxStatsAggregator txStats,
+      SpecSagaDbProperties specSagaDbProperties, NodeStatus nodeStatus) {
+    return new TxStateProjection(eventRepo, globalTxStateRepo, localTxStateRepo, markRepo, txStats,
+        DatabaseDriver.fromJdbcUrl(specSagaDbProperties.getDatasource().getUrl()), nodeStatus,
+        specSagaDbProperties.getState().getMarkInterval().toMillis());
+  }
+
   @Bean
-  TxEventRepository springTxEventRepository(TxEventEnvelopeRepository eventRepo) {
-    return new SpringTxEventRepository(eventRepo);
+  TxEventRepository springTxEventRepository(TxEventEnvelopeRepository eventRepo,
+      TxStateProjection stateProjection) {
+    return new SpringTxEventRepository(eventRepo, stateProjection);
   }
 
   @Bean
   TxConsistentService txConsistentService(
       @Value("${alpha.event.pollingInterval:500}") int eventPollingInterval,
       @Value("${alpha.event.scanner.enabled:true}") boolean eventScannerEnabled,
+      @Value("${alpha.event.scanner.pageSize:100}") int eventScannerPageSize,
+      @Value("${alpha.event.coordinator.enabled:false}") boolean eventCoordinatorEnabled,
+      @Value("${alpha.event.coordinator.pageSize:100}") int catchUpPageSize,
+      @Value("${alpha.event.coordinator.catchUpInterval:30000}") int catchUpInterval,
+      @Value("${alpha.cluster.master.enabled:false}") boolean clusterEnabled,
       ScheduledExecutorService scheduler,
       TxEventRepository eventRepository,
       CommandRepository commandRepository,
       TxTimeoutRepository timeoutRepository,
       OmegaCallback omegaCallback,
-      NodeStatus nodeStatus) {
+      NodeStatus nodeStatus,
+      MetricsService metricsService) {
+    if (eventCoordinatorEnabled) {
+      // the coordinator only sees the events received by its own node
+      if (clusterEnabled && catchUpInterval <= 0) {
+        throw new IllegalStateException(
+            "alpha.event.coordinator.catchUpInterval must be positive in cluster mode");
+      }
+      EventCoordinator eventCoordinator = new EventCoordinator(scheduler,
+          eventRepository, commandRepository, timeoutRepository,
+          omegaCallback, eventPollingInterval, catchUpPageSize, catchUpInterval, nodeStatus);
+      eventCoordinator.run();
+      LOG.info("Starting the EventCoordinator.");
+      return new TxConsistentService(eventRepository, eventCoordinator);
+    }
     if (eventScannerEnabled) {
       new EventScanner(scheduler,
           eventRepository, commandRepository, timeoutRepository,
-          omegaCallback, eventPollingInterval, nodeStatus).run();
+          omegaCallback, eventPollingInterval, eventScannerPageSize, nodeStatus,
+          metricsService.metrics()).run();
       LOG.info("Starting the EventScanner.");
     }
     TxConsistentService consistentService = new TxConsistentService(eventRepository);
     return consistentService;
   }
 
+  @Bean
+  GlobalTxArchiveStore globalTxArchiveStore(GlobalTxStateRepository globalTxStateRepo,
+      LocalTxStateRepository localTxStateRepo, TxEventEnvelopeRepository eventRepo,
+      CommandEntityRepository commandRepo, TxTimeoutEntityRepository timeoutRepo,
+      GlobalTxArchiveRepository archiveRepo) {
+    return new GlobalTxArchiveStore(globalTxStateRepo, localTxStateRepo, eventRepo, commandRepo,
+        timeoutRepo, archiveRepo);
+  }
+
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  @ConditionalOnProperty(value = "alpha.spec.saga.db.archive.enabled", havingValue = "true")
+  SagaArchiver sagaArchiver(GlobalTxArchiveStore archiveStore,
+      SpecSagaDbProperties specSagaDbProperties, NodeStatus nodeStatus,
+      MetricsService metricsService) {
+    LOG.info("Starting the SagaArchiver.");
+    return new SagaArchiver(archiveStore, specSagaDbProperties.getArchive(), nodeStatus,
+        metricsService.metrics());
+  }
+
   @Bean
   GrpcTxEventEndpointImpl grpcTxEventEndpoint(TxConsistentService txConsistentService,
       Map<String, Map<String, OmegaCallback>> omegaCallbacks) {
@@ -142,7 +209,8 @@ public class AlphaSpecSagaDbAutoConfiguration {
 
   @Bean
   @Profile("test")
-  AlphaEventController alphaEventController(TxEventEnvelopeRepository eventRepository){
-    return new AlphaEventController(eventRepository);
+  AlphaEventController alphaEventController(TxEventEnvelopeRepository eventRepository,
+      GlobalTxStateRepository globalTxStateRepository, LocalTxStateRepository localTxStateRepository){
+    return new AlphaEventController(eventRepository, globalTxStateRepository, localTxStateRepository);
   }
 }
\ No newline at end of file
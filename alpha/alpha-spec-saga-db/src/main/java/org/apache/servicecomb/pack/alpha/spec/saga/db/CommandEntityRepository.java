@@ -53,8 +53,35 @@ public interface CommandEntityRepository extends CrudRepository<Command, Long> {
       @Param("globalTxId") String globalTxId,
       @Param("localTxId") String localTxId);
 
+  // local tx ids are unique across global transactions, so matching both lists hits exactly the given pairs
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.Command c "
+      + "SET c.status = :toStatus "
+      + "WHERE c.globalTxId IN :globalTxIds "
+      + "  AND c.localTxId IN :localTxIds "
+      + "  AND c.status = :fromStatus")
+  void updateStatusByGlobalTxIdInAndLocalTxIdIn(
+      @Param("fromStatus") String fromStatus,
+      @Param("toStatus") String toStatus,
+      @Param("globalTxIds") List<String> globalTxIds,
+      @Param("localTxIds") List<String> localTxIds);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.Command c "
+      + "SET c.status = :status "
+      + "WHERE c.globalTxId IN :globalTxIds "
+      + "  AND c.localTxId IN :localTxIds")
+  void updateStatusByGlobalTxIdInAndLocalTxIdIn(
+      @Param("status") String status,
+      @Param("globalTxIds") List<String> globalTxIds,
+      @Param("localTxIds") List<String> localTxIds);
+
   List<Command> findByGlobalTxIdAndStatus(String globalTxId, String status);
 
+  List<Command> findByGlobalTxId(String globalTxId);
+
   // TODO: 2018/1/18 we assumed compensation will never fail. if all service instances are not reachable, we have to set up retry mechanism for pending commands
   @Lock(LockModeType.OPTIMISTIC)
   @Query(value = "SELECT * FROM Command AS c "
@@ -64,6 +91,11 @@ public interface CommandEntityRepository extends CrudRepository<Command, Long> {
       + " WHERE c1.status = 'NEW' "
       + " GROUP BY c1.globalTxId "
       + " HAVING MAX( CASE c2.status WHEN 'PENDING' THEN 1 ELSE 0 END ) = 0) "
-      + "ORDER BY c.eventId ASC LIMIT 1", nativeQuery = true)
-  List<Command> findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc();
+      + "ORDER BY c.eventId ASC LIMIT ?1", nativeQuery = true)
+  List<Command> findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc(int limit);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM org.apache.servicecomb.pack.alpha.core.Command t WHERE t.globalTxId IN ?1")
+  int deleteByGlobalTxIdIn(List<String> globalTxIds);
 }
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Compact record of an ended global transaction whose events were removed by the
+ * {@link SagaArchiver}.
+ */
+@Entity
+@Table(name = "GlobalTxArchive")
+public class GlobalTxArchive {
+
+  public static final String COMMITTED = "COMMITTED";
+  public static final String COMPENSATED = "COMPENSATED";
+  public static final String FAILED = "FAILED";
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long surrogateId;
+
+  private String globalTxId;
+  private String serviceName;
+  private String instanceId;
+  private String state;
+  private long eventCount;
+  private Date creationTime;
+  private Date endTime;
+  private Date archivedTime;
+
+  GlobalTxArchive() {
+  }
+
+  GlobalTxArchive(GlobalTxState globalTxState, long eventCount) {
+    this.globalTxId = globalTxState.globalTxId();
+    this.serviceName = globalTxState.serviceName();
+    this.instanceId = globalTxState.instanceId();
+    this.state = stateOf(globalTxState);
+    this.eventCount = eventCount;
+    this.creationTime = globalTxState.creationTime();
+    this.endTime = globalTxState.lastModified();
+    this.archivedTime = new Date();
+  }
+
+  private static String stateOf(GlobalTxState globalTxState) {
+    if (!globalTxState.isAborted() && !globalTxState.isCompensated()) {
+      return COMMITTED;
+    }
+    if (globalTxState.isAborted() && globalTxState.isCompensated()) {
+      return COMPENSATED;
+    }
+    return FAILED;
+  }
+
+  public String globalTxId() {
+    return globalTxId;
+  }
+
+  public String serviceName() {
+    return serviceName;
+  }
+
+  public String instanceId() {
+    return instanceId;
+  }
+
+  public String state() {
+    return state;
+  }
+
+  public long eventCount() {
+    return eventCount;
+  }
+
+  public Date creationTime() {
+    return creationTime;
+  }
+
+  public Date endTime() {
+    return endTime;
+  }
+
+  public Date archivedTime() {
+    return archivedTime;
+  }
+
+  @Override
+  public String toString() {
+    return "GlobalTxArchive{" +
+        "globalTxId='" + globalTxId + '\'' +
+        ", serviceName='" + serviceName + '\'' +
+        ", instanceId='" + instanceId + '\'' +
+        ", state='" + state + '\'' +
+        ", eventCount=" + eventCount +
+        ", creationTime=" + creationTime +
+        ", endTime=" + endTime +
+        '}';
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.transaction.Transactional;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Moves one batch of ended global transactions into the {@link GlobalTxArchive} table and deletes
+ * their events, commands, timeouts and state rows in the same transaction.
+ */
+public class GlobalTxArchiveStore {
+
+  private final GlobalTxStateRepository globalTxStateRepo;
+  private final LocalTxStateRepository localTxStateRepo;
+  private final TxEventEnvelopeRepository eventRepo;
+  private final CommandEntityRepository commandRepo;
+  private final TxTimeoutEntityRepository timeoutRepo;
+  private final GlobalTxArchiveRepository archiveRepo;
+
+  GlobalTxArchiveStore(GlobalTxStateRepository globalTxStateRepo,
+      LocalTxStateRepository localTxStateRepo,
+      TxEventEnvelopeRepository eventRepo,
+      CommandEntityRepository commandRepo,
+      TxTimeoutEntityRepository timeoutRepo,
+      GlobalTxArchiveRepository archiveRepo) {
+    this.globalTxStateRepo = globalTxStateRepo;
+    this.localTxStateRepo = localTxStateRepo;
+    this.eventRepo = eventRepo;
+    this.commandRepo = commandRepo;
+    this.timeoutRepo = timeoutRepo;
+    this.archiveRepo = archiveRepo;
+  }
+
+  /**
+   * Archives at most {@code batchSize} global transactions which ended before the given time,
+   * oldest first.
+   *
+   * @return the archived transactions, a batch shorter than {@code batchSize} means there is
+   * nothing left to archive
+   */
+  @Transactional
+  public List<GlobalTxArchive> archive(Date endedBefore, int batchSize) {
+    List<GlobalTxState> globalTxStates = globalTxStateRepo
+        .findEndedBefore(endedBefore, PageRequest.of(0, batchSize));
+    if (globalTxStates.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> globalTxIds = globalTxStates.stream()
+        .map(GlobalTxState::globalTxId)
+        .collect(Collectors.toList());
+
+    Map<String, Long> eventCounts = new HashMap<>();
+    for (Object[] row : eventRepo.countByGlobalTxIdIn(globalTxIds)) {
+      eventCounts.put((String) row[0], ((Number) row[1]).longValue());
+    }
+    List<GlobalTxArchive> archives = new ArrayList<>(globalTxStates.size());
+    for (GlobalTxState globalTxState : globalTxStates) {
+      archives.add(new GlobalTxArchive(globalTxState,
+          eventCounts.getOrDefault(globalTxState.globalTxId(), 0L)));
+    }
+    archiveRepo.saveAll(archives);
+
+    eventRepo.deleteByGlobalTxIdIn(globalTxIds);
+    commandRepo.deleteByGlobalTxIdIn(globalTxIds);
+    timeoutRepo.deleteByGlobalTxIdIn(globalTxIds);
+    localTxStateRepo.deleteByGlobalTxIdIn(globalTxIds);
+    globalTxStateRepo.deleteByGlobalTxIdIn(globalTxIds);
+    return archives;
+  }
+}
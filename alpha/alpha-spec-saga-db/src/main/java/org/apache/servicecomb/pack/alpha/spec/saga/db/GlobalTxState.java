@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+
+/**
+ * Projection of the {@link TxEvent}s of a global transaction, maintained on write so that the
+ * scanner and the stats endpoints can look up transactions by their state flags instead of
+ * correlating the events.
+ */
+@Entity
+@Table(name = "GlobalTxState")
+public class GlobalTxState {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long surrogateId;
+
+  private String globalTxId;
+  private String serviceName;
+  private String instanceId;
+  private long startedEventId;
+  private boolean subTxEnded;
+  private boolean aborted;
+  private boolean compensated;
+  private boolean ended;
+  private Date creationTime;
+  private Date lastModified;
+
+  GlobalTxState() {
+  }
+
+  GlobalTxState(TxEvent sagaStartedEvent) {
+    this.globalTxId = sagaStartedEvent.globalTxId();
+    this.serviceName = sagaStartedEvent.serviceName();
+    this.instanceId = sagaStartedEvent.instanceId();
+    this.startedEventId = sagaStartedEvent.id();
+    this.creationTime = sagaStartedEvent.creationTime();
+    this.lastModified = new Date();
+  }
+
+  public String globalTxId() {
+    return globalTxId;
+  }
+
+  public String serviceName() {
+    return serviceName;
+  }
+
+  public String instanceId() {
+    return instanceId;
+  }
+
+  public long startedEventId() {
+    return startedEventId;
+  }
+
+  public Date creationTime() {
+    return creationTime;
+  }
+
+  public Date lastModified() {
+    return lastModified;
+  }
+
+  public boolean isSubTxEnded() {
+    return subTxEnded;
+  }
+
+  public boolean isAborted() {
+    return aborted;
+  }
+
+  public boolean isCompensated() {
+    return compensated;
+  }
+
+  public boolean isEnded() {
+    return ended;
+  }
+
+  @Override
+  public String toString() {
+    return "GlobalTxState{" +
+        "globalTxId='" + globalTxId + '\'' +
+        ", serviceName='" + serviceName + '\'' +
+        ", instanceId='" + instanceId + '\'' +
+        ", startedEventId=" + startedEventId +
+        ", subTxEnded=" + subTxEnded +
+        ", aborted=" + aborted +
+        ", compensated=" + compensated +
+        ", ended=" + ended +
+        '}';
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import javax.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+public interface GlobalTxStateRepository extends CrudRepository<GlobalTxState, Long> {
+
+  Optional<GlobalTxState> findByGlobalTxId(String globalTxId);
+
+  @Transactional
+  @Modifying
+  @Query(value = "INSERT INTO GlobalTxState "
+      + "(globalTxId, serviceName, instanceId, startedEventId, creationTime, lastModified) "
+      + "VALUES (?1, ?2, ?3, ?4, ?5, CURRENT_TIMESTAMP) "
+      + "ON CONFLICT (globalTxId) DO NOTHING", nativeQuery = true)
+  int insertIfAbsentOnPostgreSql(String globalTxId, String serviceName, String instanceId,
+      long startedEventId, Date creationTime);
+
+  @Transactional
+  @Modifying
+  @Query(value = "INSERT IGNORE INTO GlobalTxState "
+      + "(globalTxId, serviceName, instanceId, startedEventId, creationTime, lastModified) "
+      + "VALUES (?1, ?2, ?3, ?4, ?5, CURRENT_TIMESTAMP)", nativeQuery = true)
+  int insertIfAbsentOnMySql(String globalTxId, String serviceName, String instanceId,
+      long startedEventId, Date creationTime);
+
+  @Transactional
+  @Modifying
+  @Query(value = "MERGE INTO GlobalTxState g "
+      + "USING (VALUES (CAST(?1 AS VARCHAR(36)), CAST(?2 AS VARCHAR(36)), CAST(?3 AS VARCHAR(36)), "
+      + "  CAST(?4 AS BIGINT), CAST(?5 AS TIMESTAMP))) "
+      + "  AS v (globalTxId, serviceName, instanceId, startedEventId, creationTime) "
+      + "ON g.globalTxId = v.globalTxId "
+      + "WHEN NOT MATCHED THEN INSERT "
+      + "(globalTxId, serviceName, instanceId, startedEventId, creationTime, lastModified) "
+      + "VALUES (v.globalTxId, v.serviceName, v.instanceId, v.startedEventId, v.creationTime, "
+      + "  CURRENT_TIMESTAMP)", nativeQuery = true)
+  int insertIfAbsent(String globalTxId, String serviceName, String instanceId,
+      long startedEventId, Date creationTime);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE GlobalTxState g "
+      + "SET g.subTxEnded = true, g.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE g.globalTxId = ?1")
+  void updateSubTxEnded(String globalTxId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE GlobalTxState g "
+      + "SET g.aborted = true, g.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE g.globalTxId = ?1 "
+      + "  AND g.aborted = false "
+      + "  AND g.ended = false")
+  int updateAbortedIfPending(String globalTxId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE GlobalTxState g "
+      + "SET g.aborted = true, g.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE g.globalTxId = ?1")
+  void updateAborted(String globalTxId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE GlobalTxState g "
+      + "SET g.compensated = true, g.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE g.globalTxId = ?1")
+  void updateCompensated(String globalTxId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE GlobalTxState g "
+      + "SET g.ended = true, g.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE g.globalTxId = ?1")
+  void updateEnded(String globalTxId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE GlobalTxState g "
+      + "SET g.ended = true, g.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE g.globalTxId = ?1 "
+      + "  AND g.ended = false "
+      + "  AND g.aborted = ?2 "
+      + "  AND g.compensated = ?3")
+  int updateEnded(String globalTxId, boolean aborted, boolean compensated);
+
+  @Query("SELECT g FROM GlobalTxState g "
+      + "WHERE g.ended = true "
+      + "  AND g.lastModified < ?1 "
+      + "ORDER BY g.lastModified ASC")
+  List<GlobalTxState> findEndedBefore(Date lastModified, Pageable pageable);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM GlobalTxState t WHERE t.globalTxId IN ?1")
+  int deleteByGlobalTxIdIn(List<String> globalTxIds);
+}
@@ -26,14 +26,18 @@ import io.grpc.stub.StreamObserver;
 import java.lang.invoke.MethodHandles;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import org.apache.servicecomb.pack.alpha.core.OmegaCallback;
 import org.apache.servicecomb.pack.alpha.core.TxConsistentService;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.core.grpc.GrpcTxEventStreamObserver;
 import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
 import org.apache.servicecomb.pack.contract.grpc.GrpcCompensateCommand;
 import org.apache.servicecomb.pack.contract.grpc.GrpcServiceConfig;
 import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventAckBatch;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
 import org.apache.servicecomb.pack.contract.grpc.ServerMeta;
 import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
 import org.slf4j.Logger;
@@ -95,7 +99,18 @@ class GrpcTxEventEndpointImpl extends TxEventServiceImplBase {
 
   @Override
   public void onTxEvent(GrpcTxEvent message, StreamObserver<GrpcAck> responseObserver) {
-    boolean ok = txConsistentService.handle(new TxEvent(
+    responseObserver.onNext(handleTxEvent(message) ? ALLOW : REJECT);
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public StreamObserver<GrpcTxEventBatch> onTxEventStream(StreamObserver<GrpcTxEventAckBatch> responseObserver) {
+    return new GrpcTxEventStreamObserver(responseObserver,
+        message -> CompletableFuture.completedFuture(handleTxEvent(message)));
+  }
+
+  private boolean handleTxEvent(GrpcTxEvent message) {
+    return txConsistentService.handle(new TxEvent(
         message.getServiceName(),
         message.getInstanceId(),
         new Date(),
@@ -109,9 +124,6 @@ class GrpcTxEventEndpointImpl extends TxEventServiceImplBase {
         message.getForwardRetries(),
         message.getPayloads().toByteArray()
     ));
-
-    responseObserver.onNext(ok ? ALLOW : REJECT);
-    responseObserver.onCompleted();
   }
 
   @Override
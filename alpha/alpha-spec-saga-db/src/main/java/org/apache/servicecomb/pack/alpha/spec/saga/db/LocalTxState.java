@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+
+/**
+ * Projection of the {@link TxEvent}s of a sub transaction, see {@link GlobalTxState}.
+ */
+@Entity
+@Table(name = "LocalTxState")
+public class LocalTxState {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long surrogateId;
+
+  private String globalTxId;
+  private String localTxId;
+  // the first started event, which is the one to time out and to compensate
+  private long startedEventId;
+  private long lastEventId;
+  private Date expiryTime;
+  private int retries;
+  // any event other than a started one arrived, the sub transaction can no longer time out
+  private boolean settled;
+  private boolean ended;
+  // the last abort was not superseded by a retry
+  private boolean aborted;
+  private boolean compensated;
+  private Date lastModified;
+
+  LocalTxState() {
+  }
+
+  LocalTxState(TxEvent startedEvent) {
+    this.globalTxId = startedEvent.globalTxId();
+    this.localTxId = startedEvent.localTxId();
+    this.startedEventId = startedEvent.id();
+    this.lastEventId = startedEvent.id();
+    this.expiryTime = startedEvent.expiryTime();
+    this.retries = startedEvent.retries();
+    this.lastModified = new Date();
+  }
+
+  public String globalTxId() {
+    return globalTxId;
+  }
+
+  public String localTxId() {
+    return localTxId;
+  }
+
+  public long startedEventId() {
+    return startedEventId;
+  }
+
+  public long lastEventId() {
+    return lastEventId;
+  }
+
+  public int retries() {
+    return retries;
+  }
+
+  public boolean isSettled() {
+    return settled;
+  }
+
+  public boolean isEnded() {
+    return ended;
+  }
+
+  public boolean isAborted() {
+    return aborted;
+  }
+
+  public boolean isCompensated() {
+    return compensated;
+  }
+
+  @Override
+  public String toString() {
+    return "LocalTxState{" +
+        "globalTxId='" + globalTxId + '\'' +
+        ", localTxId='" + localTxId + '\'' +
+        ", startedEventId=" + startedEventId +
+        ", lastEventId=" + lastEventId +
+        ", expiryTime=" + expiryTime +
+        ", retries=" + retries +
+        ", settled=" + settled +
+        ", ended=" + ended +
+        ", aborted=" + aborted +
+        ", compensated=" + compensated +
+        '}';
+  }
+}
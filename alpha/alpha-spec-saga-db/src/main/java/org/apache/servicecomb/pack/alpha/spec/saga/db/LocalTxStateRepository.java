@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import java.util.Date;
+import java.util.List;
+import javax.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+public interface LocalTxStateRepository extends CrudRepository<LocalTxState, Long> {
+
+  @Transactional
+  @Modifying
+  @Query(value = "INSERT INTO LocalTxState "
+      + "(globalTxId, localTxId, startedEventId, lastEventId, expiryTime, retries, lastModified) "
+      + "VALUES (?1, ?2, ?3, ?3, ?4, ?5, CURRENT_TIMESTAMP) "
+      + "ON CONFLICT (globalTxId, localTxId) DO UPDATE "
+      + "SET retries = LEAST(LocalTxState.retries, EXCLUDED.retries), aborted = FALSE, "
+      + "  lastEventId = EXCLUDED.lastEventId, lastModified = CURRENT_TIMESTAMP", nativeQuery = true)
+  void upsertStartedOnPostgreSql(String globalTxId, String localTxId, long eventId, Date expiryTime,
+      int retries);
+
+  @Transactional
+  @Modifying
+  @Query(value = "INSERT INTO LocalTxState "
+      + "(globalTxId, localTxId, startedEventId, lastEventId, expiryTime, retries, lastModified) "
+      + "VALUES (?1, ?2, ?3, ?3, ?4, ?5, CURRENT_TIMESTAMP) "
+      + "ON DUPLICATE KEY UPDATE "
+      + "retries = LEAST(retries, VALUES(retries)), aborted = FALSE, "
+      + "  lastEventId = VALUES(lastEventId), lastModified = CURRENT_TIMESTAMP", nativeQuery = true)
+  void upsertStartedOnMySql(String globalTxId, String localTxId, long eventId, Date expiryTime,
+      int retries);
+
+  @Transactional
+  @Modifying
+  @Query(value = "MERGE INTO LocalTxState l "
+      + "USING (VALUES (CAST(?1 AS VARCHAR(36)), CAST(?2 AS VARCHAR(36)), CAST(?3 AS BIGINT), "
+      + "  CAST(?4 AS TIMESTAMP), CAST(?5 AS INT))) "
+      + "  AS v (globalTxId, localTxId, eventId, expiryTime, retries) "
+      + "ON l.globalTxId = v.globalTxId AND l.localTxId = v.localTxId "
+      + "WHEN MATCHED THEN UPDATE "
+      + "SET retries = LEAST(l.retries, v.retries), aborted = FALSE, "
+      + "  lastEventId = v.eventId, lastModified = CURRENT_TIMESTAMP "
+      + "WHEN NOT MATCHED THEN INSERT "
+      + "(globalTxId, localTxId, startedEventId, lastEventId, expiryTime, retries, lastModified) "
+      + "VALUES (v.globalTxId, v.localTxId, v.eventId, v.eventId, v.expiryTime, v.retries, "
+      + "  CURRENT_TIMESTAMP)", nativeQuery = true)
+  void upsertStarted(String globalTxId, String localTxId, long eventId, Date expiryTime,
+      int retries);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE LocalTxState l "
+      + "SET l.settled = true, l.ended = true, l.lastEventId = ?3, l.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE l.globalTxId = ?1 "
+      + "  AND l.localTxId = ?2")
+  void updateEnded(String globalTxId, String localTxId, long eventId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE LocalTxState l "
+      + "SET l.settled = true, l.aborted = true, l.lastEventId = ?3, l.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE l.globalTxId = ?1 "
+      + "  AND l.localTxId = ?2")
+  void updateAborted(String globalTxId, String localTxId, long eventId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE LocalTxState l "
+      + "SET l.settled = true, l.compensated = true, l.lastEventId = ?3, l.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE l.globalTxId = ?1 "
+      + "  AND l.localTxId = ?2")
+  void updateCompensated(String globalTxId, String localTxId, long eventId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE LocalTxState l "
+      + "SET l.settled = true, l.lastEventId = ?3, l.lastModified = CURRENT_TIMESTAMP "
+      + "WHERE l.globalTxId = ?1 "
+      + "  AND l.localTxId = ?2")
+  void updateSettled(String globalTxId, String localTxId, long eventId);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM LocalTxState t WHERE t.globalTxId IN ?1")
+  int deleteByGlobalTxIdIn(List<String> globalTxIds);
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.apache.servicecomb.pack.alpha.core.NodeStatus;
+import org.apache.servicecomb.pack.alpha.core.metrics.MetricsBean;
+import org.apache.servicecomb.pack.alpha.spec.saga.db.properties.ArchiveProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically moves the global transactions which ended longer than the retention ago out of the
+ * event tables, see {@link GlobalTxArchiveStore}. Only the master node archives, in batches of
+ * bounded size with a pause between them so that the event tables are not locked for long.
+ */
+public class SagaArchiver {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  private final GlobalTxArchiveStore archiveStore;
+
+  private final ArchiveProperties properties;
+
+  private final NodeStatus nodeStatus;
+
+  private final MetricsBean metrics;
+
+  public SagaArchiver(GlobalTxArchiveStore archiveStore, ArchiveProperties properties,
+      NodeStatus nodeStatus, MetricsBean metrics) {
+    this.archiveStore = archiveStore;
+    this.properties = properties;
+    this.nodeStatus = nodeStatus;
+    this.metrics = metrics;
+  }
+
+  public void start() {
+    long interval = properties.getInterval().toMillis();
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        archive();
+      } catch (Exception e) {
+        LOG.error("Failed to archive ended global transactions", e);
+      }
+    }, interval, interval, MILLISECONDS);
+  }
+
+  public void shutdown() {
+    scheduler.shutdown();
+  }
+
+  int archive() throws InterruptedException {
+    int archived = 0;
+    Date endedBefore = new Date(System.currentTimeMillis() - properties.getRetention().toMillis());
+    for (int batch = 0; batch < properties.getMaxBatchesPerRun() && nodeStatus.isMaster(); batch++) {
+      if (batch > 0) {
+        Thread.sleep(properties.getBatchDelay().toMillis());
+      }
+      long beginTime = System.currentTimeMillis();
+      List<GlobalTxArchive> archives = archiveStore.archive(endedBefore, properties.getBatchSize());
+      metrics.doArchiveAvgTime(System.currentTimeMillis() - beginTime);
+      metrics.doArchived(archives.size(),
+          (int) archives.stream().mapToLong(GlobalTxArchive::eventCount).sum());
+      archived += archives.size();
+      if (archives.size() < properties.getBatchSize()) {
+        break;
+      }
+    }
+    if (archived > 0) {
+      LOG.info("Archived {} global transactions ended before {}", archived, endedBefore);
+    }
+    return archived;
+  }
+}
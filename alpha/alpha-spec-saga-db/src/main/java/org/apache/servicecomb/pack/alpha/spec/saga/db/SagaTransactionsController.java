@@ -42,8 +42,11 @@ public class SagaTransactionsController {
 
   private final TxEventEnvelopeRepository eventRepository;
 
-  SagaTransactionsController(TxEventEnvelopeRepository eventRepository) {
+  private final TxStatsAggregator txStats;
+
+  SagaTransactionsController(TxEventEnvelopeRepository eventRepository, TxStatsAggregator txStats) {
     this.eventRepository = eventRepository;
+    this.txStats = txStats;
   }
 
   @GetMapping(value = "/stats")
@@ -68,10 +71,7 @@ public class SagaTransactionsController {
             "updatedAt": 1540450937
         }
          */
-    Stats oStats = new Stats(eventRepository.findTotalCountOfTransactions(), eventRepository.findCountOfPendingEvents(),
-        eventRepository.findCountOfCommittedEvents(), eventRepository.findCountOfCompensatingEvents(),
-        eventRepository.findCountOfRollBackedEvents());
-    return ResponseEntity.ok(oStats);
+    return ResponseEntity.ok(txStats.stats());
   }
 
 
@@ -103,29 +103,30 @@ public class SagaTransactionsController {
             }
         ]
          */
-    Iterable<TxEvent> events;
+    Iterable<TxEvent> events = txStats.recent(status, count);
 
     List<SagaTransactionsController.TxEventVo> eventVos = new LinkedList<>();
-    switch (status) {
-      case "PENDING":
-        events = eventRepository.findPendingEvents(PageRequest.of(0, count));
-        events.forEach(event -> eventVos.add(new SagaTransactionsController.TxEventVo(event)));
-        break;
-      case "COMMITTED":
-        events = eventRepository.findCommittedEvents(PageRequest.of(0, count));
-        events.forEach(event -> eventVos.add(new SagaTransactionsController.TxEventVo(event)));
-        break;
-      case "COMPENSATING":
-        events = eventRepository.findCompensatingEvents(PageRequest.of(0, count));
-        events.forEach(event -> eventVos.add(new SagaTransactionsController.TxEventVo(event)));
-        break;
-      case "ROLLBACKED":
-        events = eventRepository.findRollBackedEvents(PageRequest.of(0, count));
-        events.forEach(event -> eventVos.add(new SagaTransactionsController.TxEventVo(event)));
-        break;
-      default:
-        LOG.info("Unknown Status");
+    if (events == null) {
+      // not cached, either an unknown status or more than the cached recent transactions
+      switch (status) {
+        case "PENDING":
+          events = eventRepository.findPendingEvents(PageRequest.of(0, count));
+          break;
+        case "COMMITTED":
+          events = eventRepository.findCommittedEvents(PageRequest.of(0, count));
+          break;
+        case "COMPENSATING":
+          events = eventRepository.findCompensatingEvents(PageRequest.of(0, count));
+          break;
+        case "ROLLBACKED":
+          events = eventRepository.findRollBackedEvents(PageRequest.of(0, count));
+          break;
+        default:
+          LOG.info("Unknown Status");
+          events = Collections.emptyList();
+      }
     }
+    events.forEach(event -> eventVos.add(new SagaTransactionsController.TxEventVo(event)));
     return ResponseEntity.ok(eventVos);
   }
 
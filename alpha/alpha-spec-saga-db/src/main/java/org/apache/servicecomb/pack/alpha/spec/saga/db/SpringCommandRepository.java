@@ -18,9 +18,11 @@
 package org.apache.servicecomb.pack.alpha.spec.saga.db;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import javax.transaction.Transactional;
 import org.apache.servicecomb.pack.alpha.core.Command;
 import org.apache.servicecomb.pack.alpha.core.CommandRepository;
@@ -43,48 +45,93 @@ public class SpringCommandRepository implements CommandRepository {
 
   @Override
   public void saveCompensationCommands(String globalTxId) {
+    saveCompensationCommands(Collections.singletonList(globalTxId));
+  }
+
+  @Override
+  public void saveCompensationCommands(List<String> globalTxIds) {
     List<TxEvent> events = eventRepository
-        .findStartedEventsWithMatchingEndedButNotCompensatedEvents(globalTxId);
+        .findStartedEventsWithMatchingEndedButNotCompensatedEvents(globalTxIds);
 
-    Map<String, Command> commands = new LinkedHashMap<>();
+    Map<String, TxEvent> startedEvents = new LinkedHashMap<>();
 
     for (TxEvent event : events) {
-      commands.computeIfAbsent(event.localTxId(), k -> new Command(event));
+      startedEvents.putIfAbsent(event.globalTxId() + "/" + event.localTxId(), event);
     }
 
-    for (Command command : commands.values()) {
-      LOG.info("Saving compensation command {}", command);
-      try {
-        commandRepository.save(command);
-      } catch (Exception e) {
-        LOG.warn("Failed to save some command {}", command);
-      }
-      LOG.info("Saved compensation command {}", command);
+    if (startedEvents.isEmpty()) {
+      return;
+    }
+    List<Command> commands = startedEvents.values().stream().map(Command::new).collect(Collectors.toList());
+    LOG.info("Saving {} compensation commands", commands.size());
+    try {
+      commandRepository.saveAll(commands);
+      LOG.info("Saved {} compensation commands", commands.size());
+    } catch (Exception e) {
+      // some commands were saved already, fall back to save fresh ones one by one
+      startedEvents.values().forEach(event -> save(new Command(event)));
     }
   }
 
+  private void save(Command command) {
+    LOG.info("Saving compensation command {}", command);
+    try {
+      commandRepository.save(command);
+    } catch (Exception e) {
+      LOG.warn("Failed to save some command {}", command);
+    }
+    LOG.info("Saved compensation command {}", command);
+  }
+
   @Override
   public void markCommandAsDone(String globalTxId, String localTxId) {
     commandRepository.updateStatusByGlobalTxIdAndLocalTxId(TaskStatus.DONE.name(), globalTxId, localTxId);
   }
 
+  @Override
+  public void markCommandAsPending(String globalTxId, String localTxId) {
+    commandRepository.updateStatusByGlobalTxIdAndLocalTxId(TaskStatus.NEW.name(),
+        TaskStatus.PENDING.name(), globalTxId, localTxId);
+  }
+
+  @Override
+  public void markCommandAsNew(String globalTxId, String localTxId) {
+    commandRepository.updateStatusByGlobalTxIdAndLocalTxId(TaskStatus.PENDING.name(),
+        TaskStatus.NEW.name(), globalTxId, localTxId);
+  }
+
+  @Override
+  public void markCommandsAsDone(List<TxEvent> compensatedEvents) {
+    if (!compensatedEvents.isEmpty()) {
+      commandRepository.updateStatusByGlobalTxIdInAndLocalTxIdIn(TaskStatus.DONE.name(),
+          compensatedEvents.stream().map(TxEvent::globalTxId).distinct().collect(Collectors.toList()),
+          compensatedEvents.stream().map(TxEvent::localTxId).distinct().collect(Collectors.toList()));
+    }
+  }
+
   @Override
   public List<Command> findUncompletedCommands(String globalTxId) {
     return commandRepository.findByGlobalTxIdAndStatus(globalTxId, TaskStatus.NEW.name());
   }
 
+  @Override
+  public List<Command> findCommands(String globalTxId) {
+    return commandRepository.findByGlobalTxId(globalTxId);
+  }
+
   @Transactional
   @Override
-  public List<Command> findFirstCommandToCompensate() {
+  public List<Command> findCommandsToCompensate(int pageSize) {
     List<Command> commands = commandRepository
-        .findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc();
-
-    commands.forEach(command ->
-        commandRepository.updateStatusByGlobalTxIdAndLocalTxId(
-            TaskStatus.NEW.name(),
-            TaskStatus.PENDING.name(),
-            command.globalTxId(),
-            command.localTxId()));
+        .findFirstGroupByGlobalTxIdWithoutPendingOrderByIdDesc(pageSize);
+
+    if (!commands.isEmpty()) {
+      commandRepository.updateStatusByGlobalTxIdInAndLocalTxIdIn(
+          TaskStatus.NEW.name(),
+          TaskStatus.PENDING.name(),
+          commands.stream().map(Command::globalTxId).distinct().collect(Collectors.toList()),
+          commands.stream().map(Command::localTxId).distinct().collect(Collectors.toList()));
+    }
 
     return commands;
   }
@@ -19,22 +19,27 @@ package org.apache.servicecomb.pack.alpha.spec.saga.db;
 
 import java.util.List;
 import java.util.Optional;
+import javax.transaction.Transactional;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
 import org.apache.servicecomb.pack.alpha.core.TxEventRepository;
 import org.apache.servicecomb.pack.common.EventType;
 import org.springframework.data.domain.PageRequest;
 
 class SpringTxEventRepository implements TxEventRepository {
-  private static final PageRequest SINGLE_TX_EVENT_REQUEST = PageRequest.of(0, 1);
   private final TxEventEnvelopeRepository eventRepo;
+  private final TxStateProjection stateProjection;
 
-  SpringTxEventRepository(TxEventEnvelopeRepository eventRepo) {
+  SpringTxEventRepository(TxEventEnvelopeRepository eventRepo, TxStateProjection stateProjection) {
     this.eventRepo = eventRepo;
+    this.stateProjection = stateProjection;
   }
 
+  @Transactional
   @Override
   public void save(TxEvent event) {
-    eventRepo.save(event);
+    // flushed to get the event id, which the state tables refer to
+    eventRepo.saveAndFlush(event);
+    stateProjection.apply(event);
   }
 
   @Override
@@ -43,8 +48,8 @@ class SpringTxEventRepository implements TxEventRepository {
   }
 
   @Override
-  public List<TxEvent> findTimeoutEvents() {
-    return eventRepo.findTimeoutEvents(SINGLE_TX_EVENT_REQUEST);
+  public List<TxEvent> findTimeoutEvents(int pageSize) {
+    return eventRepo.findTimeoutEvents(PageRequest.of(0, pageSize));
   }
 
   @Override
@@ -58,13 +63,19 @@ class SpringTxEventRepository implements TxEventRepository {
   }
 
   @Override
-  public List<TxEvent> findFirstUncompensatedEventByIdGreaterThan(long id, String type) {
-    return eventRepo.findFirstByTypeAndSurrogateIdGreaterThan(type, id, SINGLE_TX_EVENT_REQUEST);
+  public List<TxEvent> findUncompensatedEventsByIdGreaterThan(long id, String type, int pageSize) {
+    return eventRepo.findFirstByTypeAndSurrogateIdGreaterThan(type, id, PageRequest.of(0, pageSize));
   }
 
   @Override
-  public Optional<TxEvent> findFirstCompensatedEventByIdGreaterThan(long id) {
-    return eventRepo.findFirstByTypeAndSurrogateIdGreaterThan(EventType.TxCompensatedEvent.name(), id);
+  public List<TxEvent> findCompensatedEventsByIdGreaterThan(long id, int pageSize) {
+    return eventRepo.findByTypeAndSurrogateIdGreaterThanOrderBySurrogateIdAsc(
+        EventType.TxCompensatedEvent.name(), id, PageRequest.of(0, pageSize));
+  }
+
+  @Override
+  public List<TxEvent> findOpenTransactionEventsByIdGreaterThan(long id, int pageSize) {
+    return eventRepo.findOpenTransactionEventsBySurrogateIdGreaterThan(id, PageRequest.of(0, pageSize));
   }
 
   @Override
@@ -19,6 +19,7 @@ package org.apache.servicecomb.pack.alpha.spec.saga.db;
 
 import java.lang.invoke.MethodHandles;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.transaction.Transactional;
 import org.apache.servicecomb.pack.alpha.core.TaskStatus;
 import org.apache.servicecomb.pack.alpha.core.TxTimeout;
@@ -45,6 +46,16 @@ public class SpringTxTimeoutRepository implements TxTimeoutRepository {
     }
   }
 
+  @Override
+  public void saveAll(List<TxTimeout> timeouts) {
+    try {
+      timeoutRepo.saveAll(timeouts);
+    } catch (Exception e) {
+      // the timeouts not saved yet are found again by the next scan
+      LOG.warn("Failed to save {} timeouts", timeouts.size(), e);
+    }
+  }
+
   @Override
   public void markTimeoutAsDone() {
     timeoutRepo.updateStatusOfFinishedTx();
@@ -52,10 +63,13 @@ public class SpringTxTimeoutRepository implements TxTimeoutRepository {
 
   @Transactional
   @Override
-  public List<TxTimeout> findFirstTimeout() {
-    List<TxTimeout> timeoutEvents = timeoutRepo.findFirstTimeoutTxOrderByExpireTimeAsc(PageRequest.of(0, 1));
-    timeoutEvents.forEach(event -> timeoutRepo
-        .updateStatusByGlobalTxIdAndLocalTxId(TaskStatus.PENDING.name(), event.globalTxId(), event.localTxId()));
+  public List<TxTimeout> findTimeouts(int pageSize) {
+    List<TxTimeout> timeoutEvents = timeoutRepo.findFirstTimeoutTxOrderByExpireTimeAsc(PageRequest.of(0, pageSize));
+    if (!timeoutEvents.isEmpty()) {
+      timeoutRepo.updateStatusByGlobalTxIdInAndLocalTxIdIn(TaskStatus.PENDING.name(),
+          timeoutEvents.stream().map(TxTimeout::globalTxId).distinct().collect(Collectors.toList()),
+          timeoutEvents.stream().map(TxTimeout::localTxId).distinct().collect(Collectors.toList()));
+    }
     return timeoutEvents;
   }
 }
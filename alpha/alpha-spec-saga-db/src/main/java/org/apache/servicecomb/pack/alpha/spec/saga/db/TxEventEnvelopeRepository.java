@@ -22,37 +22,34 @@ import java.util.Optional;
 import javax.transaction.Transactional;
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
 
-public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long> {
+public interface TxEventEnvelopeRepository extends JpaRepository<TxEvent, Long> {
   List<TxEvent> findByGlobalTxId(String globalTxId);
 
-  @Query("SELECT t FROM TxEvent t "
-      + "WHERE t.type = 'TxAbortedEvent' AND NOT EXISTS( "
-      + "  SELECT t1.globalTxId FROM TxEvent t1"
-      + "  WHERE t1.globalTxId = t.globalTxId "
-      + "    AND t1.type IN ('TxEndedEvent', 'SagaEndedEvent')) AND NOT EXISTS ( "
-      + "  SELECT t3.globalTxId FROM TxEvent t3 "
-      + "  WHERE t3.globalTxId = t.globalTxId "
-      + "    AND t3.localTxId = t.localTxId "
-      + "    AND t3.surrogateId != t.surrogateId "
-      + "    AND t3.creationTime > t.creationTime) AND (("
-      + "SELECT MIN(t2.retries) FROM TxEvent t2 "
-      + "WHERE t2.globalTxId = t.globalTxId "
-      + "  AND t2.localTxId = t.localTxId "
-      + "  AND t2.type = 'TxStartedEvent') = 0 "
-      + "OR t.globalTxId = t.localTxId)")
+  List<TxEvent> findBySurrogateIdGreaterThanOrderBySurrogateIdAsc(long surrogateId, Pageable pageable);
+
+  @Query("SELECT MAX(t.surrogateId) FROM TxEvent t")
+  Long findMaxSurrogateId();
+
+  @Query("SELECT t FROM TxEvent t, LocalTxState l, GlobalTxState g "
+      + "WHERE l.aborted = true "
+      + "  AND t.surrogateId = l.lastEventId "
+      + "  AND t.type = 'TxAbortedEvent' "
+      + "  AND g.globalTxId = l.globalTxId "
+      + "  AND g.ended = false "
+      + "  AND g.subTxEnded = false "
+      + "  AND (l.retries = 0 OR l.globalTxId = l.localTxId)")
   Optional<List<TxEvent>> findFirstAbortedGlobalTxByType();
 
-  @Query("SELECT t FROM TxEvent t "
-      + "WHERE t.type IN ('TxStartedEvent', 'SagaStartedEvent') "
-      + "  AND t.expiryTime < CURRENT_TIMESTAMP AND NOT EXISTS( "
-      + "  SELECT t1.globalTxId FROM TxEvent t1 "
-      + "  WHERE t1.globalTxId = t.globalTxId "
-      + "    AND t1.localTxId = t.localTxId "
-      + "    AND t1.type != t.type"
+  @Query("SELECT t FROM TxEvent t, LocalTxState l "
+      + "WHERE l.settled = false "
+      + "  AND l.expiryTime < CURRENT_TIMESTAMP "
+      + "  AND t.surrogateId = l.startedEventId AND NOT EXISTS ( "
+      + "  SELECT t2.eventId FROM TxTimeout t2 "
+      + "  WHERE t2.eventId = t.surrogateId"
       + ")")
   List<TxEvent> findTimeoutEvents(Pageable pageable);
 
@@ -73,44 +70,45 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
       + "    AND t1.type IN ('TxStartedEvent', 'SagaStartedEvent') ) = 0 ")
   List<TxEvent> findByEventGlobalTxIdAndEventType(String globalTxId, String type);
 
-  @Query("SELECT t FROM TxEvent t "
-      + "WHERE t.globalTxId = ?1 AND t.type = 'TxStartedEvent' AND EXISTS ( "
-      + "  SELECT t1.globalTxId"
-      + "  FROM TxEvent t1 "
-      + "  WHERE t1.globalTxId = ?1 "
-      + "  AND t1.localTxId = t.localTxId "
-      + "  AND t1.type = 'TxEndedEvent'"
-      + ") AND NOT EXISTS ( "
-      + "  SELECT t2.globalTxId"
-      + "  FROM TxEvent t2 "
-      + "  WHERE t2.globalTxId = ?1 "
-      + "  AND t2.localTxId = t.localTxId "
-      + "  AND t2.type = 'TxCompensatedEvent') "
+  @Query("SELECT t FROM TxEvent t, LocalTxState l "
+      + "WHERE l.globalTxId = ?1 "
+      + "  AND l.ended = true "
+      + "  AND l.compensated = false "
+      + "  AND t.surrogateId = l.startedEventId "
+      + "  AND t.type = 'TxStartedEvent' "
       + "ORDER BY t.surrogateId ASC")
   List<TxEvent> findStartedEventsWithMatchingEndedButNotCompensatedEvents(String globalTxId);
 
-  @Query("SELECT t FROM TxEvent t "
-      + "WHERE t.type = ?1 AND t.surrogateId > ?2 AND EXISTS ( "
-      + "  SELECT t1.globalTxId FROM TxEvent t1 "
-      + "  WHERE t1.globalTxId = t.globalTxId "
-      + "    AND t1.type = 'TxAbortedEvent' AND NOT EXISTS ( "
-      + "    SELECT t2.globalTxId FROM TxEvent t2 "
-      + "    WHERE t2.globalTxId = t1.globalTxId "
-      + "      AND t2.localTxId = t1.localTxId "
-      + "      AND t2.type = 'TxStartedEvent' "
-      + "      AND t2.creationTime > t1.creationTime)) AND NOT EXISTS ( "
-      + "  SELECT t3.globalTxId FROM TxEvent t3 "
-      + "  WHERE t3.globalTxId = t.globalTxId "
-      + "    AND t3.localTxId = t.localTxId "
-      + "    AND t3.type = 'TxCompensatedEvent') AND ( "
-      + "  SELECT MIN(t4.retries) FROM TxEvent t4 "
-      + "  WHERE t4.globalTxId = t.globalTxId "
-      + "    AND t4.localTxId = t.localTxId "
-      + "    AND t4.type = 'TxStartedEvent' ) = 0 "
+  @Query("SELECT t FROM TxEvent t, LocalTxState l "
+      + "WHERE l.globalTxId IN ?1 "
+      + "  AND l.ended = true "
+      + "  AND l.compensated = false "
+      + "  AND t.surrogateId = l.startedEventId "
+      + "  AND t.type = 'TxStartedEvent' "
+      + "ORDER BY t.surrogateId ASC")
+  List<TxEvent> findStartedEventsWithMatchingEndedButNotCompensatedEvents(List<String> globalTxIds);
+
+  @Query("SELECT t FROM TxEvent t, LocalTxState l "
+      + "WHERE t.type = ?1 AND t.surrogateId > ?2 "
+      + "  AND l.globalTxId = t.globalTxId "
+      + "  AND l.localTxId = t.localTxId "
+      + "  AND l.compensated = false "
+      + "  AND l.retries = 0 AND EXISTS ( "
+      + "  SELECT l1.globalTxId FROM LocalTxState l1 "
+      + "  WHERE l1.globalTxId = t.globalTxId "
+      + "    AND l1.aborted = true) "
       + "ORDER BY t.surrogateId ASC")
   List<TxEvent> findFirstByTypeAndSurrogateIdGreaterThan(String type, long surrogateId, Pageable pageable);
 
-  Optional<TxEvent> findFirstByTypeAndSurrogateIdGreaterThan(String type, long surrogateId);
+  List<TxEvent> findByTypeAndSurrogateIdGreaterThanOrderBySurrogateIdAsc(String type, long surrogateId, Pageable pageable);
+
+  @Query("SELECT t FROM TxEvent t "
+      + "WHERE t.surrogateId > ?1 AND NOT EXISTS ( "
+      + "  SELECT g.globalTxId FROM GlobalTxState g "
+      + "  WHERE g.globalTxId = t.globalTxId "
+      + "    AND g.ended = true) "
+      + "ORDER BY t.surrogateId ASC")
+  List<TxEvent> findOpenTransactionEventsBySurrogateIdGreaterThan(long surrogateId, Pageable pageable);
 
   @Query("SELECT t FROM TxEvent t "
       + "WHERE t.type = ?1 AND EXISTS ( "
@@ -124,141 +122,85 @@ public interface TxEventEnvelopeRepository extends CrudRepository<TxEvent, Long>
 
   List<TxEvent> findByServiceName(String serviceName);
 
-  @Query("SELECT count(t) FROM TxEvent t" +
-      " WHERE t.type = 'SagaStartedEvent' " +
-      "AND NOT EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxAbortedEvent'))")
+  @Query("SELECT count(g) FROM GlobalTxState g " +
+      "WHERE g.ended = false AND g.aborted = true")
   int findCountOfCompensatingEvents();
 
-  @Query("SELECT t FROM TxEvent t" +
-      " WHERE t.type = 'SagaStartedEvent' " +
-      "AND NOT EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxAbortedEvent')) " +
-      "ORDER BY t.surrogateId DESC")
+  @Query("SELECT t FROM TxEvent t, GlobalTxState g " +
+      "WHERE t.surrogateId = g.startedEventId " +
+      "AND g.ended = false AND g.aborted = true " +
+      "ORDER BY g.startedEventId DESC")
   List<TxEvent> findCompensatingEvents();
 
-  @Query("SELECT t FROM TxEvent t" +
-      " WHERE t.type = 'SagaStartedEvent' " +
-      "AND NOT EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxAbortedEvent')) " +
-      "ORDER BY t.surrogateId DESC")
+  @Query("SELECT t FROM TxEvent t, GlobalTxState g " +
+      "WHERE t.surrogateId = g.startedEventId " +
+      "AND g.ended = false AND g.aborted = true " +
+      "ORDER BY g.startedEventId DESC")
   List<TxEvent> findCompensatingEvents(Pageable pageable);
 
-  @Query("SELECT count(t) FROM TxEvent t " +
-      "WHERE t.type = 'SagaStartedEvent' " +
-      "AND NOT EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxAbortedEvent', 'TxCompensatedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent'))\n")
+  @Query("SELECT count(g) FROM GlobalTxState g " +
+      "WHERE g.ended = true AND g.aborted = false AND g.compensated = false")
   int findCountOfCommittedEvents();
 
-
-  @Query("SELECT t FROM TxEvent t " +
-      "WHERE t.type = 'SagaStartedEvent' " +
-      "AND NOT EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxAbortedEvent', 'TxCompensatedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "ORDER BY t.surrogateId DESC")
+  @Query("SELECT t FROM TxEvent t, GlobalTxState g " +
+      "WHERE t.surrogateId = g.startedEventId " +
+      "AND g.ended = true AND g.aborted = false AND g.compensated = false " +
+      "ORDER BY g.startedEventId DESC")
   List<TxEvent> findCommittedEvents();
 
-  @Query("SELECT t FROM TxEvent t " +
-      "WHERE t.type = 'SagaStartedEvent' " +
-      "AND NOT EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxAbortedEvent', 'TxCompensatedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "ORDER BY t.surrogateId DESC")
+  @Query("SELECT t FROM TxEvent t, GlobalTxState g " +
+      "WHERE t.surrogateId = g.startedEventId " +
+      "AND g.ended = true AND g.aborted = false AND g.compensated = false " +
+      "ORDER BY g.startedEventId DESC")
   List<TxEvent> findCommittedEvents(Pageable pageable);
 
-  @Query("SELECT count(t) FROM TxEvent t " +
-      "WHERE t.type = 'SagaStartedEvent' " +
-      "AND NOT EXISTS(  SELECT t1.globalTxId " +
-      "FROM TxEvent t1 WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent'))\n")
+  @Query("SELECT count(g) FROM GlobalTxState g " +
+      "WHERE g.ended = false")
   int findCountOfPendingEvents();
 
-
-  @Query("SELECT t FROM TxEvent t " +
-      "WHERE t.type = 'SagaStartedEvent' " +
-      "AND NOT EXISTS(  SELECT t1.globalTxId " +
-      "FROM TxEvent t1 WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "ORDER BY t.surrogateId DESC")
+  @Query("SELECT t FROM TxEvent t, GlobalTxState g " +
+      "WHERE t.surrogateId = g.startedEventId " +
+      "AND g.ended = false " +
+      "ORDER BY g.startedEventId DESC")
   List<TxEvent> findPendingEvents();
 
-  @Query("SELECT t FROM TxEvent t " +
-      "WHERE t.type = 'SagaStartedEvent' " +
-      "AND NOT EXISTS(  SELECT t1.globalTxId " +
-      "FROM TxEvent t1 WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "ORDER BY t.surrogateId DESC")
+  @Query("SELECT t FROM TxEvent t, GlobalTxState g " +
+      "WHERE t.surrogateId = g.startedEventId " +
+      "AND g.ended = false " +
+      "ORDER BY g.startedEventId DESC")
   List<TxEvent> findPendingEvents(Pageable pageable);
 
-  @Query("SELECT count(t) FROM TxEvent t " +
-      "WHERE t.type = 'SagaStartedEvent' " +
-      "AND EXISTS(  SELECT t1.globalTxId " +
-      "FROM TxEvent t1 WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxAbortedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM " +
-      "TxEvent t1 WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxCompensatedEvent'))\n")
+  @Query("SELECT count(g) FROM GlobalTxState g " +
+      "WHERE g.ended = true AND g.aborted = true AND g.compensated = true")
   int findCountOfRollBackedEvents();
 
-  @Query("SELECT t FROM TxEvent t " +
-      "WHERE t.type = 'SagaStartedEvent' " +
-      "AND EXISTS(  SELECT t1.globalTxId " +
-      "FROM TxEvent t1 WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxAbortedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM " +
-      "TxEvent t1 WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxCompensatedEvent')) " +
-      "ORDER BY t.surrogateId DESC")
+  @Query("SELECT t FROM TxEvent t, GlobalTxState g " +
+      "WHERE t.surrogateId = g.startedEventId " +
+      "AND g.ended = true AND g.aborted = true AND g.compensated = true " +
+      "ORDER BY g.startedEventId DESC")
   List<TxEvent> findRollBackedEvents();
 
-  @Query("SELECT t FROM TxEvent t " +
-      "WHERE t.type = 'SagaStartedEvent' " +
-      "AND EXISTS(  SELECT t1.globalTxId " +
-      "FROM TxEvent t1 WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxAbortedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM " +
-      "TxEvent t1 WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('SagaEndedEvent')) " +
-      "AND EXISTS(  SELECT t1.globalTxId FROM TxEvent t1 " +
-      "WHERE t1.globalTxId = t.globalTxId  " +
-      "AND t1.type IN ('TxCompensatedEvent')) " +
-      "ORDER BY t.surrogateId DESC")
+  @Query("SELECT t FROM TxEvent t, GlobalTxState g " +
+      "WHERE t.surrogateId = g.startedEventId " +
+      "AND g.ended = true AND g.aborted = true AND g.compensated = true " +
+      "ORDER BY g.startedEventId DESC")
   List<TxEvent> findRollBackedEvents(Pageable pageable);
 
-  @Query("SELECT count(DISTINCT t.globalTxId) FROM TxEvent t")
+  @Query("SELECT count(g) FROM GlobalTxState g")
   int findTotalCountOfTransactions();
 
   @Transactional
   @Modifying(clearAutomatically = true)
   @Query("DELETE FROM TxEvent WHERE surrogateId = ?1 ")
   void deleteBySurrogateId(Long surrogateId);
+
+  @Query("SELECT t.globalTxId, count(t) FROM TxEvent t "
+      + "WHERE t.globalTxId IN ?1 "
+      + "GROUP BY t.globalTxId")
+  List<Object[]> countByGlobalTxIdIn(List<String> globalTxIds);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM TxEvent t WHERE t.globalTxId IN ?1")
+  int deleteByGlobalTxIdIn(List<String> globalTxIds);
 }
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import java.util.Date;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The last {@link org.apache.servicecomb.pack.alpha.core.TxEvent} known to be applied to the state
+ * tables, see {@link TxStateProjection#replay}.
+ */
+@Entity
+@Table(name = "TxStateMark")
+public class TxStateMark {
+
+  @Id
+  private String name;
+
+  private long lastEventId;
+  private Date lastModified;
+
+  TxStateMark() {
+  }
+
+  TxStateMark(String name, long lastEventId) {
+    this.name = name;
+    this.lastEventId = lastEventId;
+    this.lastModified = new Date();
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public long lastEventId() {
+    return lastEventId;
+  }
+
+  @Override
+  public String toString() {
+    return "TxStateMark{" +
+        "name='" + name + '\'' +
+        ", lastEventId=" + lastEventId +
+        ", lastModified=" + lastModified +
+        '}';
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import static org.apache.servicecomb.pack.common.EventType.SagaEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.SagaStartedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxAbortedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxCompensatedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxEndedEvent;
+import static org.apache.servicecomb.pack.common.EventType.TxStartedEvent;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.apache.servicecomb.pack.alpha.core.NodeStatus;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Maintains {@link GlobalTxState} and {@link LocalTxState} from the saved {@link TxEvent}s. Applying
+ * the events again in the order they were saved gives the same state, which is what {@link #replay}
+ * relies on.
+ * <p>
+ * The rows are created with the upsert statement of the database, so that concurrent events of
+ * one transaction cannot both try to insert the same row.
+ * <p>
+ * The events are applied in the transaction saving them. Only the master node replays the events
+ * saved after the stored mark, in the background, and afterwards moves the mark forward
+ * periodically, so that a restart after a crash only replays the events of the last interval.
+ */
+class TxStateProjection {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final int REPLAY_PAGE_SIZE = 1000;
+
+  static final String MARK_NAME = "TxStateProjection";
+
+  // aborted and compensated flags of an ending global transaction, committed ones first
+  private static final boolean[][] ENDED_FLAGS = {
+      {false, false}, {true, true}, {true, false}, {false, true}};
+
+  private final TxEventEnvelopeRepository eventRepo;
+  private final GlobalTxStateRepository globalTxStateRepo;
+  private final LocalTxStateRepository localTxStateRepo;
+  private final TxStateMarkRepository markRepo;
+  private final TxStatsAggregator txStats;
+  private final DatabaseDriver databaseDriver;
+  private final NodeStatus nodeStatus;
+  private final long markInterval;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  // set once this node replayed up to the last saved event, only then the mark may skip ahead
+  private volatile boolean replayed;
+
+  TxStateProjection(TxEventEnvelopeRepository eventRepo, GlobalTxStateRepository globalTxStateRepo,
+      LocalTxStateRepository localTxStateRepo, TxStateMarkRepository markRepo,
+      TxStatsAggregator txStats, DatabaseDriver databaseDriver, NodeStatus nodeStatus,
+      long markInterval) {
+    this.eventRepo = eventRepo;
+    this.globalTxStateRepo = globalTxStateRepo;
+    this.localTxStateRepo = localTxStateRepo;
+    this.markRepo = markRepo;
+    this.txStats = txStats;
+    this.databaseDriver = databaseDriver;
+    this.nodeStatus = nodeStatus;
+    this.markInterval = markInterval;
+  }
+
+  void start() {
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        if (!nodeStatus.isMaster()) {
+          return;
+        }
+        if (replayed) {
+          markLastEvent();
+        } else {
+          replay();
+          replayed = true;
+        }
+      } catch (Exception e) {
+        LOG.error("Failed to replay the events into the transaction state tables", e);
+      }
+    }, 0, markInterval, MILLISECONDS);
+  }
+
+  void apply(TxEvent event) {
+    String globalTxId = event.globalTxId();
+    String localTxId = event.localTxId();
+    String type = event.type();
+    if (SagaStartedEvent.name().equals(type)) {
+      start(event);
+      if (insertIfAbsent(event) > 0) {
+        afterCommit(txStats::onSagaStarted);
+      }
+    } else if (TxStartedEvent.name().equals(type)) {
+      start(event);
+    } else if (TxEndedEvent.name().equals(type)) {
+      localTxStateRepo.updateEnded(globalTxId, localTxId, event.id());
+      globalTxStateRepo.updateSubTxEnded(globalTxId);
+    } else if (TxAbortedEvent.name().equals(type)) {
+      localTxStateRepo.updateAborted(globalTxId, localTxId, event.id());
+      if (globalTxStateRepo.updateAbortedIfPending(globalTxId) > 0) {
+        afterCommit(txStats::onAborted);
+      } else {
+        globalTxStateRepo.updateAborted(globalTxId);
+      }
+    } else if (TxCompensatedEvent.name().equals(type)) {
+      localTxStateRepo.updateCompensated(globalTxId, localTxId, event.id());
+      globalTxStateRepo.updateCompensated(globalTxId);
+    } else if (SagaEndedEvent.name().equals(type)) {
+      localTxStateRepo.updateSettled(globalTxId, localTxId, event.id());
+      end(globalTxId);
+    } else {
+      localTxStateRepo.updateSettled(globalTxId, localTxId, event.id());
+    }
+  }
+
+  /**
+   * Ends the global transaction with an update matching its flags, trying the most common flags
+   * first, so that the stats learn the state it ended in without reading the row.
+   */
+  private void end(String globalTxId) {
+    for (boolean[] flags : ENDED_FLAGS) {
+      boolean aborted = flags[0];
+      boolean compensated = flags[1];
+      if (globalTxStateRepo.updateEnded(globalTxId, aborted, compensated) > 0) {
+        afterCommit(() -> txStats.onEnded(aborted, compensated));
+        return;
+      }
+    }
+    // ended already, or its flags changed in between, the stats catch up at the next reconcile
+    globalTxStateRepo.updateEnded(globalTxId);
+  }
+
+  /**
+   * Counts the transition only once the transaction saving the event committed, or at once when
+   * replaying outside of a transaction.
+   */
+  private void afterCommit(Runnable counter) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+              counter.run();
+            }
+          });
+    } else {
+      counter.run();
+    }
+  }
+
+  private int insertIfAbsent(TxEvent event) {
+    switch (databaseDriver) {
+      case POSTGRESQL:
+        return globalTxStateRepo.insertIfAbsentOnPostgreSql(event.globalTxId(), event.serviceName(),
+            event.instanceId(), event.id(), event.creationTime());
+      case MYSQL:
+      case MARIADB:
+        return globalTxStateRepo.insertIfAbsentOnMySql(event.globalTxId(), event.serviceName(),
+            event.instanceId(), event.id(), event.creationTime());
+      default:
+        return globalTxStateRepo.insertIfAbsent(event.globalTxId(), event.serviceName(),
+            event.instanceId(), event.id(), event.creationTime());
+    }
+  }
+
+  private void start(TxEvent event) {
+    switch (databaseDriver) {
+      case POSTGRESQL:
+        localTxStateRepo.upsertStartedOnPostgreSql(event.globalTxId(), event.localTxId(), event.id(),
+            event.expiryTime(), event.retries());
+        break;
+      case MYSQL:
+      case MARIADB:
+        localTxStateRepo.upsertStartedOnMySql(event.globalTxId(), event.localTxId(), event.id(),
+            event.expiryTime(), event.retries());
+        break;
+      default:
+        localTxStateRepo.upsertStarted(event.globalTxId(), event.localTxId(), event.id(),
+            event.expiryTime(), event.retries());
+    }
+  }
+
+  /**
+   * Applies the events saved after the stored mark, e.g. those saved before the tables were
+   * introduced, until it catches up with the events being saved. The mark moves forward after each
+   * page, so an interrupted replay resumes where it stopped.
+   */
+  void replay() {
+    long nextEventId = markRepo.findById(MARK_NAME).map(TxStateMark::lastEventId).orElse(0L);
+    long count = 0;
+    List<TxEvent> events;
+    while (!(events = eventRepo.findBySurrogateIdGreaterThanOrderBySurrogateIdAsc(
+        nextEventId, PageRequest.of(0, REPLAY_PAGE_SIZE))).isEmpty()) {
+      events.forEach(this::apply);
+      nextEventId = events.get(events.size() - 1).id();
+      count += events.size();
+      mark(nextEventId);
+    }
+    if (count > 0) {
+      LOG.info("Replayed {} events into the transaction state tables", count);
+    }
+  }
+
+  void shutdown() {
+    scheduler.shutdown();
+    if (replayed) {
+      markLastEvent();
+    }
+  }
+
+  /**
+   * Moves the mark to the last saved event. The events saved since the replay caught up were
+   * applied in the transaction saving them, so the next start does not need to replay them.
+   */
+  void markLastEvent() {
+    Long lastEventId = eventRepo.findMaxSurrogateId();
+    if (lastEventId != null) {
+      mark(lastEventId);
+    }
+  }
+
+  private void mark(long lastEventId) {
+    if (markRepo.updateLastEventId(MARK_NAME, lastEventId) == 0 && !markRepo.existsById(MARK_NAME)) {
+      try {
+        markRepo.save(new TxStateMark(MARK_NAME, lastEventId));
+      } catch (RuntimeException e) {
+        // a former master stored the mark first
+        markRepo.updateLastEventId(MARK_NAME, lastEventId);
+      }
+    }
+  }
+}
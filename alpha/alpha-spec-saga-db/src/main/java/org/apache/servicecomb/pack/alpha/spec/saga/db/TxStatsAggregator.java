@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.spec.saga.db.model.Stats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * In memory transaction statistics for the /saga endpoints. The counters are moved by
+ * {@link TxStateProjection} once the transaction of a state transition committed, and reconciled
+ * with the database every reconcile interval, which also picks up the transitions seen by other
+ * alpha instances. The totals include the transactions moved to {@link GlobalTxArchive} by the
+ * {@link SagaArchiver}. The recent transactions are a snapshot taken every refresh interval, which is
+ * much shorter as it only reads the first page of each status.
+ */
+class TxStatsAggregator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  static final String PENDING = "PENDING";
+  static final String COMMITTED = "COMMITTED";
+  static final String COMPENSATING = "COMPENSATING";
+  static final String ROLLBACKED = "ROLLBACKED";
+
+  // the dashboard shows at most 15 recent transactions
+  static final int RECENT_SIZE = 15;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  private final TxEventEnvelopeRepository eventRepository;
+
+  private final GlobalTxArchiveRepository archiveRepository;
+
+  private final long refreshInterval;
+
+  private final long reconcileInterval;
+
+  private final AtomicInteger total = new AtomicInteger();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicInteger committed = new AtomicInteger();
+  private final AtomicInteger compensating = new AtomicInteger();
+  private final AtomicInteger rollbacked = new AtomicInteger();
+
+  private volatile boolean reconciled;
+
+  private volatile Map<String, List<TxEvent>> recent;
+
+  TxStatsAggregator(TxEventEnvelopeRepository eventRepository,
+      GlobalTxArchiveRepository archiveRepository, long refreshInterval, long reconcileInterval) {
+    this.eventRepository = eventRepository;
+    this.archiveRepository = archiveRepository;
+    this.refreshInterval = refreshInterval;
+    this.reconcileInterval = reconcileInterval;
+  }
+
+  void start() {
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        reconcile();
+      } catch (Exception e) {
+        LOG.error("Failed to reconcile the transaction statistics", e);
+      }
+    }, 0, reconcileInterval, MILLISECONDS);
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (Exception e) {
+        LOG.error("Failed to refresh the recent transactions", e);
+      }
+    }, 0, refreshInterval, MILLISECONDS);
+  }
+
+  void shutdown() {
+    scheduler.shutdown();
+  }
+
+  synchronized void reconcile() {
+    // archived transactions have ended, so they are never pending or compensating
+    total.set(eventRepository.findTotalCountOfTransactions()
+        + archiveRepository.findTotalCountOfArchives());
+    pending.set(eventRepository.findCountOfPendingEvents());
+    committed.set(eventRepository.findCountOfCommittedEvents()
+        + archiveRepository.findCountOfArchivesByState(GlobalTxArchive.COMMITTED));
+    compensating.set(eventRepository.findCountOfCompensatingEvents());
+    rollbacked.set(eventRepository.findCountOfRollBackedEvents()
+        + archiveRepository.findCountOfArchivesByState(GlobalTxArchive.COMPENSATED));
+    reconciled = true;
+  }
+
+  synchronized void refresh() {
+    PageRequest page = PageRequest.of(0, RECENT_SIZE);
+    Map<String, List<TxEvent>> snapshot = new HashMap<>();
+    snapshot.put(PENDING, eventRepository.findPendingEvents(page));
+    snapshot.put(COMMITTED, eventRepository.findCommittedEvents(page));
+    snapshot.put(COMPENSATING, eventRepository.findCompensatingEvents(page));
+    snapshot.put(ROLLBACKED, eventRepository.findRollBackedEvents(page));
+    recent = snapshot;
+  }
+
+  Stats stats() {
+    if (!reconciled) {
+      reconcile();
+    }
+    return new Stats(total.get(), pending.get(), committed.get(), compensating.get(),
+        rollbacked.get());
+  }
+
+  /**
+   * @return the most recent transactions of the given status as of the last refresh, or
+   * {@code null} if the status is unknown or more than {@link #RECENT_SIZE} are requested
+   */
+  List<TxEvent> recent(String status, int count) {
+    if (count > RECENT_SIZE) {
+      return null;
+    }
+    ensureRefreshed();
+    List<TxEvent> events = recent.get(status);
+    if (events == null) {
+      return null;
+    }
+    return Collections.unmodifiableList(events.subList(0, Math.min(count, events.size())));
+  }
+
+  private void ensureRefreshed() {
+    if (recent == null) {
+      refresh();
+    }
+  }
+
+  void onSagaStarted() {
+    total.incrementAndGet();
+    pending.incrementAndGet();
+  }
+
+  void onAborted() {
+    compensating.incrementAndGet();
+  }
+
+  /**
+   * @param aborted whether the global transaction was aborted when it ended
+   * @param compensated whether it was compensated when it ended
+   */
+  void onEnded(boolean aborted, boolean compensated) {
+    pending.decrementAndGet();
+    if (aborted) {
+      compensating.decrementAndGet();
+      if (compensated) {
+        rollbacked.incrementAndGet();
+      }
+    } else if (!compensated) {
+      committed.incrementAndGet();
+    }
+  }
+}
@@ -41,6 +41,18 @@ public interface TxTimeoutEntityRepository extends CrudRepository<TxTimeout, Lon
       @Param("globalTxId") String globalTxId,
       @Param("localTxId") String localTxId);
 
+  // local tx ids are unique across global transactions, so matching both lists hits exactly the given pairs
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE org.apache.servicecomb.pack.alpha.core.TxTimeout t "
+      + "SET t.status = :status "
+      + "WHERE t.globalTxId IN :globalTxIds "
+      + "  AND t.localTxId IN :localTxIds")
+  void updateStatusByGlobalTxIdInAndLocalTxIdIn(
+      @Param("status") String status,
+      @Param("globalTxIds") List<String> globalTxIds,
+      @Param("localTxIds") List<String> localTxIds);
+
   @Lock(LockModeType.OPTIMISTIC)
   @Query("SELECT t FROM TxTimeout AS t "
       + "WHERE t.status = 'NEW' "
@@ -59,4 +71,9 @@ public interface TxTimeoutEntityRepository extends CrudRepository<TxTimeout, Lon
       + "    AND t1.type != t.type"
       + ")")
   void updateStatusOfFinishedTx();
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM org.apache.servicecomb.pack.alpha.core.TxTimeout t WHERE t.globalTxId IN ?1")
+  int deleteByGlobalTxIdIn(List<String> globalTxIds);
 }
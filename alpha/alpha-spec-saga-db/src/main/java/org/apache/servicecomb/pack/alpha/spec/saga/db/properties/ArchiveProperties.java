@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db.properties;
+
+import java.time.Duration;
+
+public class ArchiveProperties {
+
+  // set true to archive ended global transactions, default value false
+  private boolean enabled = false;
+
+  // ended global transactions are kept at least this long, default value 7 days
+  private Duration retention = Duration.ofDays(7);
+
+  // delay between two archive runs, default value 60 seconds
+  private Duration interval = Duration.ofSeconds(60);
+
+  // global transactions archived in one database transaction, default value 100
+  private int batchSize = 100;
+
+  // upper bound of batches in one archive run, default value 10
+  private int maxBatchesPerRun = 10;
+
+  // pause between two batches of the same run, default value 100 milliseconds
+  private Duration batchDelay = Duration.ofMillis(100);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getRetention() {
+    return retention;
+  }
+
+  public void setRetention(Duration retention) {
+    this.retention = retention;
+  }
+
+  public Duration getInterval() {
+    return interval;
+  }
+
+  public void setInterval(Duration interval) {
+    this.interval = interval;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getMaxBatchesPerRun() {
+    return maxBatchesPerRun;
+  }
+
+  public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+    this.maxBatchesPerRun = maxBatchesPerRun;
+  }
+
+  public Duration getBatchDelay() {
+    return batchDelay;
+  }
+
+  public void setBatchDelay(Duration batchDelay) {
+    this.batchDelay = batchDelay;
+  }
+}
@@ -25,6 +25,9 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "alpha.spec.saga.db")
 public class SpecSagaDbProperties {
   private DataSourceProperties datasource;
+  private ArchiveProperties archive = new ArchiveProperties();
+  private StatsProperties stats = new StatsProperties();
+  private StateProperties state = new StateProperties();
 
   public DataSourceProperties getDatasource() {
     return datasource;
@@ -33,4 +36,28 @@ public class SpecSagaDbProperties {
   public void setDatasource(DataSourceProperties datasource) {
     this.datasource = datasource;
   }
-}
\ No newline at end of file
+
+  public ArchiveProperties getArchive() {
+    return archive;
+  }
+
+  public void setArchive(ArchiveProperties archive) {
+    this.archive = archive;
+  }
+
+  public StatsProperties getStats() {
+    return stats;
+  }
+
+  public void setStats(StatsProperties stats) {
+    this.stats = stats;
+  }
+
+  public StateProperties getState() {
+    return state;
+  }
+
+  public void setState(StateProperties state) {
+    this.state = state;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db.properties;
+
+import java.time.Duration;
+
+public class StateProperties {
+
+  // interval of moving the replay mark of the transaction state tables forward on the master
+  // node, a restart after a crash replays the events saved in at most this interval,
+  // default value 10 seconds
+  private Duration markInterval = Duration.ofSeconds(10);
+
+  public Duration getMarkInterval() {
+    return markInterval;
+  }
+
+  public void setMarkInterval(Duration markInterval) {
+    this.markInterval = markInterval;
+  }
+}
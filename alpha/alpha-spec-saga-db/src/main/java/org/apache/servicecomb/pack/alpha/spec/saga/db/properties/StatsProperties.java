@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db.properties;
+
+import java.time.Duration;
+
+public class StatsProperties {
+
+  // interval of reloading the /saga/recent transactions, default value 10 seconds
+  private Duration refreshInterval = Duration.ofSeconds(10);
+
+  // interval of reconciling the /saga/stats counters with the database, which is where the
+  // transactions handled by other alpha instances are counted, default value 5 minutes
+  private Duration reconcileInterval = Duration.ofMinutes(5);
+
+  public Duration getRefreshInterval() {
+    return refreshInterval;
+  }
+
+  public void setRefreshInterval(Duration refreshInterval) {
+    this.refreshInterval = refreshInterval;
+  }
+
+  public Duration getReconcileInterval() {
+    return reconcileInterval;
+  }
+
+  public void setReconcileInterval(Duration reconcileInterval) {
+    this.reconcileInterval = reconcileInterval;
+  }
+}
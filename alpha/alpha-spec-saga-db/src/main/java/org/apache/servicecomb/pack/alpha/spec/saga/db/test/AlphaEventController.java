@@ -23,6 +23,8 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.servicecomb.pack.alpha.core.TxEvent;
+import org.apache.servicecomb.pack.alpha.spec.saga.db.GlobalTxStateRepository;
+import org.apache.servicecomb.pack.alpha.spec.saga.db.LocalTxStateRepository;
 import org.apache.servicecomb.pack.alpha.spec.saga.db.TxEventEnvelopeRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,9 +46,15 @@ public class AlphaEventController {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private final TxEventEnvelopeRepository eventRepository;
+  private final GlobalTxStateRepository globalTxStateRepository;
+  private final LocalTxStateRepository localTxStateRepository;
 
-  public AlphaEventController(TxEventEnvelopeRepository eventRepository) {
+  public AlphaEventController(TxEventEnvelopeRepository eventRepository,
+      GlobalTxStateRepository globalTxStateRepository,
+      LocalTxStateRepository localTxStateRepository) {
     this.eventRepository = eventRepository;
+    this.globalTxStateRepository = globalTxStateRepository;
+    this.localTxStateRepository = localTxStateRepository;
   }
 
   @GetMapping(value = "/events")
@@ -64,6 +72,8 @@ public class AlphaEventController {
   @DeleteMapping("/events")
   public ResponseEntity<String> clear() {
     eventRepository.deleteAll();
+    globalTxStateRepository.deleteAll();
+    localTxStateRepository.deleteAll();
     return ResponseEntity.ok("All events deleted");
   }
 
@@ -54,6 +54,15 @@ public class AlphaEventControllerTest {
   @MockBean
   private TxEventEnvelopeRepository eventRepository;
 
+  @MockBean
+  private GlobalTxStateRepository globalTxStateRepository;
+
+  @MockBean
+  private LocalTxStateRepository localTxStateRepository;
+
+  @MockBean
+  private GlobalTxArchiveRepository archiveRepository;
+
   @Before
   public void setUp() throws Exception {
     when(eventRepository.findAll()).thenReturn(singletonList(someEvent));
@@ -62,6 +62,15 @@ public class SagaTransactionsControllerTest {
   @MockBean
   private TxEventEnvelopeRepository eventRepository;
 
+  @MockBean
+  private GlobalTxStateRepository globalTxStateRepository;
+
+  @MockBean
+  private LocalTxStateRepository localTxStateRepository;
+
+  @MockBean
+  private GlobalTxArchiveRepository archiveRepository;
+
   @Before
   public void setUp() throws Exception {
     when(eventRepository.findAll()).thenReturn(singletonList(someEvent));
@@ -74,17 +83,18 @@ public class SagaTransactionsControllerTest {
     // Populate events for /recent API's
     eventStarted = new LinkedList<>();
     eventStarted.add(populateEvents(TxStartedEvent.name()));
-    when(eventRepository.findPendingEvents(PageRequest.of(0, 5))).thenReturn(eventStarted);
-    when(eventRepository.findCompensatingEvents(PageRequest.of(0, 5))).thenReturn(eventStarted);
+    when(eventRepository.findPendingEvents(PageRequest.of(0, TxStatsAggregator.RECENT_SIZE))).thenReturn(eventStarted);
+    when(eventRepository.findCompensatingEvents(PageRequest.of(0, TxStatsAggregator.RECENT_SIZE))).thenReturn(eventStarted);
 
     eventCompensated = new LinkedList<>();
     eventCompensated.add(populateEvents(TxCompensatedEvent.name()));
-    when(eventRepository.findRollBackedEvents(PageRequest.of(0, 5))).thenReturn(eventCompensated);
+    when(eventRepository.findRollBackedEvents(PageRequest.of(0, TxStatsAggregator.RECENT_SIZE))).thenReturn(eventCompensated);
 
     eventCommitted = new LinkedList<>();
     eventCommitted.add(populateEvents(TxEndedEvent.name()));
     eventCommitted.add(populateEvents(SagaEndedEvent.name()));
-    when(eventRepository.findCommittedEvents(PageRequest.of(0, 5))).thenReturn(eventCommitted);
+    when(eventRepository.findCommittedEvents(PageRequest.of(0, TxStatsAggregator.RECENT_SIZE))).thenReturn(eventCommitted);
+    when(eventRepository.findCommittedEvents(PageRequest.of(0, 20))).thenReturn(eventCommitted);
 
     // Populate events for /transactions
     pendingTransactions = new LinkedList<>();
@@ -139,6 +149,12 @@ public class SagaTransactionsControllerTest {
     mockMvc.perform(get("/saga/recent?status=COMMITTED&count=5"))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(2)));
+    mockMvc.perform(get("/saga/recent?status=COMMITTED&count=1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)));
+    mockMvc.perform(get("/saga/recent?status=COMMITTED&count=20"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)));
     mockMvc.perform(get("/saga/recent?status=COMPENSATING&count=5"))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(1)));
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.alpha.spec.saga.db;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.servicecomb.pack.alpha.spec.saga.db.model.Stats;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+
+public class TxStatsAggregatorTest {
+
+  private final TxEventEnvelopeRepository eventRepository = mock(TxEventEnvelopeRepository.class);
+
+  private final GlobalTxArchiveRepository archiveRepository = mock(GlobalTxArchiveRepository.class);
+
+  private final TxStatsAggregator txStats =
+      new TxStatsAggregator(eventRepository, archiveRepository, 1000, 60000);
+
+  @Before
+  public void setUp() {
+    when(eventRepository.findTotalCountOfTransactions()).thenReturn(10);
+    when(eventRepository.findCountOfPendingEvents()).thenReturn(4);
+    when(eventRepository.findCountOfCommittedEvents()).thenReturn(3);
+    when(eventRepository.findCountOfCompensatingEvents()).thenReturn(1);
+    when(eventRepository.findCountOfRollBackedEvents()).thenReturn(2);
+    txStats.reconcile();
+  }
+
+  @Test
+  public void countsCommittedSaga() {
+    txStats.onSagaStarted();
+    assertStats(11, 5, 3, 1, 2);
+
+    txStats.onEnded(false, false);
+    assertStats(11, 4, 4, 1, 2);
+  }
+
+  @Test
+  public void countsCompensatedSaga() {
+    txStats.onSagaStarted();
+    txStats.onAborted();
+    assertStats(11, 5, 3, 2, 2);
+
+    txStats.onEnded(true, true);
+    assertStats(11, 4, 3, 1, 3);
+  }
+
+  @Test
+  public void reconcilesWithDatabase() {
+    txStats.onSagaStarted();
+    txStats.reconcile();
+    assertStats(10, 4, 3, 1, 2);
+  }
+
+  @Test
+  public void countsArchivedTransactions() {
+    when(archiveRepository.findTotalCountOfArchives()).thenReturn(5);
+    when(archiveRepository.findCountOfArchivesByState(GlobalTxArchive.COMMITTED)).thenReturn(3);
+    when(archiveRepository.findCountOfArchivesByState(GlobalTxArchive.COMPENSATED)).thenReturn(1);
+    txStats.reconcile();
+    assertStats(15, 4, 6, 1, 3);
+  }
+
+  @Test
+  public void refreshesRecentTransactionsWithoutCounting() {
+    txStats.refresh();
+    txStats.stats();
+    verify(eventRepository, times(1)).findTotalCountOfTransactions();
+    verify(eventRepository, times(1)).findPendingEvents(any(Pageable.class));
+  }
+
+  private void assertStats(int total, int pending, int committed, int compensating, int rollbacked) {
+    Stats stats = txStats.stats();
+    assertThat(stats.getTotalTransactions(), is(total));
+    assertThat(stats.getPendingTransactions(), is(pending));
+    assertThat(stats.getCommittedTransactions(), is(committed));
+    assertThat(stats.getCompensatingTransactions(), is(compensating));
+    assertThat(stats.getRollbackTransactions(), is(rollbacked));
+  }
+}
@@ -9,12 +9,15 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 class WebConfiguration implements WebMvcConfigurer {
 
   @Bean
-  AlphaEventController alphaEventController(TxEventEnvelopeRepository eventRepository) {
-    return new AlphaEventController(eventRepository);
+  AlphaEventController alphaEventController(TxEventEnvelopeRepository eventRepository,
+      GlobalTxStateRepository globalTxStateRepository, LocalTxStateRepository localTxStateRepository) {
+    return new AlphaEventController(eventRepository, globalTxStateRepository, localTxStateRepository);
   }
 
   @Bean
-  SagaTransactionsController sagaTransactionsController(TxEventEnvelopeRepository eventRepository){
-    return new SagaTransactionsController(eventRepository);
+  SagaTransactionsController sagaTransactionsController(TxEventEnvelopeRepository eventRepository,
+      GlobalTxArchiveRepository archiveRepository){
+    return new SagaTransactionsController(eventRepository,
+        new TxStatsAggregator(eventRepository, archiveRepository, 1000, 60000));
   }
 }
\ No newline at end of file
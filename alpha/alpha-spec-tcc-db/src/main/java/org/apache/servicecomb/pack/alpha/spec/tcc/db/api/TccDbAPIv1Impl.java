@@ -22,6 +22,7 @@ import java.util.Map;
 import javax.transaction.NotSupportedException;
 import org.apache.servicecomb.pack.alpha.core.api.APIv1;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.apache.servicecomb.pack.alpha.core.metrics.AlphaMetrics;
 import org.apache.servicecomb.pack.alpha.core.metrics.AlphaMetricsEndpoint;
@@ -50,6 +51,11 @@ public class TccDbAPIv1Impl implements APIv1 {
     throw new NotSupportedException();
   }
 
+  @Override
+  public PagingGlobalTransactions getTransactions(GlobalTransactionQuery query) throws Exception {
+    throw new NotSupportedException();
+  }
+
   @Override
   public Map<String, Long> getTransactionStatistics() throws Exception {
     throw new NotSupportedException();
@@ -59,4 +65,10 @@ public class TccDbAPIv1Impl implements APIv1 {
   public List<GlobalTransaction> getSlowTransactions(int size) throws Exception {
     throw new NotSupportedException();
   }
+
+  @Override
+  public List<GlobalTransaction> getSlowTransactions(String serviceName, int size)
+      throws Exception {
+    throw new NotSupportedException();
+  }
 }
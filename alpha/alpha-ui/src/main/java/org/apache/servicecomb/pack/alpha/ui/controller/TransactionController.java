@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import org.apache.servicecomb.pack.alpha.core.api.APIv1;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransaction;
+import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.GlobalTransactionQuery;
 import org.apache.servicecomb.pack.alpha.core.fsm.repository.model.PagingGlobalTransactions;
 import org.apache.servicecomb.pack.alpha.core.metrics.AlphaMetrics;
 import org.apache.servicecomb.pack.alpha.ui.vo.DataTablesRequestDTO;
@@ -71,10 +72,24 @@ public class TransactionController {
   public DataTablesResponseDTO sagaList(@ModelAttribute DataTablesRequestDTO dataTablesRequestDTO)
       throws Exception {
     List<TransactionRowDTO> data = new ArrayList<>();
-    PagingGlobalTransactions pagingGlobalTransactions = apiv1
-        .getTransactions(dataTablesRequestDTO.getState(),
-            dataTablesRequestDTO.getStart() / dataTablesRequestDTO.getLength(),
-            dataTablesRequestDTO.getLength());
+    PagingGlobalTransactions pagingGlobalTransactions;
+    if (dataTablesRequestDTO.getStart() > 0 && dataTablesRequestDTO.getCursor() == null) {
+      // a page reached without passing through the previous one has no cursor
+      pagingGlobalTransactions = apiv1
+          .getTransactions(dataTablesRequestDTO.getState(),
+              dataTablesRequestDTO.getStart() / dataTablesRequestDTO.getLength(),
+              dataTablesRequestDTO.getLength());
+    } else {
+      // the total is counted for the first page only and sent back by the browser afterwards
+      pagingGlobalTransactions = apiv1.getTransactions(GlobalTransactionQuery.builder()
+          .state(dataTablesRequestDTO.getState())
+          .size(dataTablesRequestDTO.getLength())
+          .cursor(dataTablesRequestDTO.getCursor())
+          .trackTotalHits(dataTablesRequestDTO.getTotal() == null)
+          .build());
+    }
+    long total = pagingGlobalTransactions.getTotal() >= 0 ? pagingGlobalTransactions.getTotal()
+        : dataTablesRequestDTO.getTotal();
     pagingGlobalTransactions.getGlobalTransactions().forEach(globalTransaction -> {
       data.add(TransactionRowDTO.builder()
           .serviceName(globalTransaction.getServiceName())
@@ -89,9 +104,10 @@ public class TransactionController {
     });
     return DataTablesResponseDTO.builder()
         .draw(dataTablesRequestDTO.getDraw())
-        .recordsTotal(pagingGlobalTransactions.getTotal())
-        .recordsFiltered(pagingGlobalTransactions.getTotal())
+        .recordsTotal(total)
+        .recordsFiltered(total)
         .data(data)
+        .cursor(pagingGlobalTransactions.getCursor())
         .build();
   }
 
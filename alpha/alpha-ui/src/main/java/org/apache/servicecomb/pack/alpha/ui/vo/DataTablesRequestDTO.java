@@ -29,6 +29,8 @@ public class DataTablesRequestDTO {
   private int length;
   private String query;
   private String state;
+  private String cursor;
+  private Long total;
 
   public int getDraw() {
     return draw;
@@ -85,4 +87,20 @@ public class DataTablesRequestDTO {
   public void setState(String state) {
     this.state = state;
   }
+
+  public String getCursor() {
+    return cursor;
+  }
+
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
+
+  public Long getTotal() {
+    return total;
+  }
+
+  public void setTotal(Long total) {
+    this.total = total;
+  }
 }
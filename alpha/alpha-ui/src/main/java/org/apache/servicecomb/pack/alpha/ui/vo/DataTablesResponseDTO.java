@@ -25,6 +25,7 @@ public class DataTablesResponseDTO {
   private long recordsTotal;
   private long recordsFiltered;
   private List<TransactionRowDTO> data = new ArrayList<>();
+  private String cursor;
 
   public int getDraw() {
     return draw;
@@ -42,6 +43,10 @@ public class DataTablesResponseDTO {
     return data;
   }
 
+  public String getCursor() {
+    return cursor;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -52,6 +57,7 @@ public class DataTablesResponseDTO {
     private long recordsTotal;
     private long recordsFiltered;
     private List<TransactionRowDTO> data = new ArrayList<>();
+    private String cursor;
 
     private Builder() {
     }
@@ -76,12 +82,18 @@ public class DataTablesResponseDTO {
       return this;
     }
 
+    public Builder cursor(String cursor) {
+      this.cursor = cursor;
+      return this;
+    }
+
     public DataTablesResponseDTO build() {
       DataTablesResponseDTO dataTablesResponseDTO = new DataTablesResponseDTO();
       dataTablesResponseDTO.recordsTotal = this.recordsTotal;
       dataTablesResponseDTO.recordsFiltered = this.recordsFiltered;
       dataTablesResponseDTO.draw = this.draw;
       dataTablesResponseDTO.data = this.data;
+      dataTablesResponseDTO.cursor = this.cursor;
       return dataTablesResponseDTO;
     }
   }
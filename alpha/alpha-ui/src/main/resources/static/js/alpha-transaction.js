@@ -17,6 +17,11 @@
 
 $(document).ready(function () {
 
+  // cursor of the page starting at each row, returned by the previous page
+  var cursors = {};
+  var total;
+  var nextStart;
+
   function datatablesRequest(data) {
     for (var i = 0; i < data.columns.length; i++) {
       column = data.columns[i];
@@ -34,13 +39,26 @@ $(document).ready(function () {
     if($('select[name="state_select"]').find('option:selected').text() != 'ALL'){
       data.state = $('select[name="state_select"]').find('option:selected').text()
     }
+
+    // the first page counts the total again, later pages reuse it
+    if (data.start == 0) {
+      cursors = {};
+      total = undefined;
+    }
+    if (cursors[data.start]) {
+      data.cursor = cursors[data.start];
+    }
+    if (total !== undefined) {
+      data.total = total;
+    }
+    nextStart = data.start + data.length;
   }
 
   var transaction_table = $('#dataTable').DataTable({
-    pagingType: "simple_numbers",
+    pagingType: "simple",
     info: true,
     filter: false,
-    lengthMenu: [[10, 25, 50, -1], [10, 25, 50, "All"]],
+    lengthMenu: [[10, 25, 50], [10, 25, 50]],
     processing: true,
     serverSide: true,
     order: [[4, "desc"]],
@@ -49,6 +67,13 @@ $(document).ready(function () {
       type: 'POST',
       data: function (data) {
         datatablesRequest(data);
+      },
+      dataSrc: function (json) {
+        if (json.cursor) {
+          cursors[nextStart] = json.cursor;
+        }
+        total = json.recordsTotal;
+        return json.data;
       }
     },
     language: {
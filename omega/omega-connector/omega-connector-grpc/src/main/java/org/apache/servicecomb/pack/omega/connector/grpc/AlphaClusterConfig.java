@@ -26,6 +26,8 @@ import org.apache.servicecomb.pack.omega.transaction.tcc.TccMessageHandler;
 
 public class AlphaClusterConfig {
 
+  public static final int DEFAULT_EVENT_STREAM_BATCH_SIZE = 64;
+
   private List<String> addresses;
 
   private boolean enableSSL;
@@ -46,6 +48,10 @@ public class AlphaClusterConfig {
 
   private TccMessageHandler tccMessageHandler;
 
+  private boolean enableEventStream;
+
+  private int eventStreamBatchSize = DEFAULT_EVENT_STREAM_BATCH_SIZE;
+
   /**
    * @deprecated Use {@link Builder} instead.
    */
@@ -69,7 +75,9 @@ public class AlphaClusterConfig {
       MessageSerializer messageSerializer,
       MessageDeserializer messageDeserializer,
       MessageHandler messageHandler,
-      TccMessageHandler tccMessageHandler) {
+      TccMessageHandler tccMessageHandler,
+      boolean enableEventStream,
+      int eventStreamBatchSize) {
     this.addresses = addresses;
     this.enableSSL = enableSSL;
     this.enableMutualAuth = enableMutualAuth;
@@ -80,6 +88,8 @@ public class AlphaClusterConfig {
     this.messageDeserializer = messageDeserializer;
     this.messageHandler = messageHandler;
     this.tccMessageHandler = tccMessageHandler;
+    this.enableEventStream = enableEventStream;
+    this.eventStreamBatchSize = eventStreamBatchSize;
   }
 
   public static Builder builder() {
@@ -98,6 +108,8 @@ public class AlphaClusterConfig {
     private MessageDeserializer messageDeserializer;
     private MessageHandler messageHandler;
     private TccMessageHandler tccMessageHandler;
+    private boolean enableEventStream;
+    private int eventStreamBatchSize = DEFAULT_EVENT_STREAM_BATCH_SIZE;
 
     public Builder addresses(List<String> addresses) {
       this.addresses = addresses;
@@ -149,6 +161,16 @@ public class AlphaClusterConfig {
       return this;
     }
 
+    public Builder enableEventStream(boolean enableEventStream) {
+      this.enableEventStream = enableEventStream;
+      return this;
+    }
+
+    public Builder eventStreamBatchSize(int eventStreamBatchSize) {
+      this.eventStreamBatchSize = eventStreamBatchSize;
+      return this;
+    }
+
 
     public AlphaClusterConfig build() {
       return new AlphaClusterConfig(this.addresses,
@@ -160,7 +182,9 @@ public class AlphaClusterConfig {
           this.messageSerializer,
           this.messageDeserializer,
           messageHandler,
-          tccMessageHandler);
+          tccMessageHandler,
+          enableEventStream,
+          eventStreamBatchSize);
     }
   }
 
@@ -203,4 +227,12 @@ public class AlphaClusterConfig {
   public TccMessageHandler getTccMessageHandler() {
     return tccMessageHandler;
   }
+
+  public boolean isEnableEventStream() {
+    return enableEventStream;
+  }
+
+  public int getEventStreamBatchSize() {
+    return eventStreamBatchSize;
+  }
 }
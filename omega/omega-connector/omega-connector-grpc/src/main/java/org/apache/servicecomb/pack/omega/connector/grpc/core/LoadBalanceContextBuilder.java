@@ -37,6 +37,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import javax.net.ssl.SSLException;
 
 import org.apache.servicecomb.pack.omega.connector.grpc.saga.GrpcSagaClientMessageSender;
+import org.apache.servicecomb.pack.omega.connector.grpc.saga.GrpcSagaStreamClientMessageSender;
 import org.apache.servicecomb.pack.omega.connector.grpc.AlphaClusterConfig;
 import org.apache.servicecomb.pack.omega.connector.grpc.tcc.GrpcTccClientMessageSender;
 import org.apache.servicecomb.pack.omega.context.ServiceConfig;
@@ -107,6 +108,19 @@ public class LoadBalanceContextBuilder {
             clusterConfig.getTccMessageHandler(),
             loadContext);
       case SAGA:
+        if (clusterConfig.isEnableEventStream()) {
+          return new GrpcSagaStreamClientMessageSender(
+              address,
+              channel,
+              clusterConfig.getMessageSerializer(),
+              clusterConfig.getMessageDeserializer(),
+              serviceConfig,
+              clusterConfig.getMessageHandler(),
+              loadContext,
+              clusterConfig.getEventStreamBatchSize(),
+              timeoutSeconds
+          );
+        }
         return new GrpcSagaClientMessageSender(
             address,
             channel,
@@ -98,7 +98,7 @@ public class GrpcSagaClientMessageSender implements SagaMessageSender {
     return new AlphaResponse(grpcAck.getAborted());
   }
 
-  private GrpcTxEvent convertEvent(TxEvent event) {
+  protected GrpcTxEvent convertEvent(TxEvent event) {
     ByteString payloads = ByteString.copyFrom(serializer.serialize(event.payloads()));
 
     Builder builder = GrpcTxEvent.newBuilder()
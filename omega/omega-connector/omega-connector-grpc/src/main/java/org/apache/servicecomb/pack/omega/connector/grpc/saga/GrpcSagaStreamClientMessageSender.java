@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.StreamObserver;
+import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCorrelatedAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCorrelatedTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventAckBatch;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceStub;
+import org.apache.servicecomb.pack.omega.connector.grpc.core.LoadBalanceContext;
+import org.apache.servicecomb.pack.omega.context.ServiceConfig;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
+import org.apache.servicecomb.pack.omega.transaction.MessageDeserializer;
+import org.apache.servicecomb.pack.omega.transaction.MessageHandler;
+import org.apache.servicecomb.pack.omega.transaction.MessageSerializer;
+import org.apache.servicecomb.pack.omega.transaction.OmegaException;
+import org.apache.servicecomb.pack.omega.transaction.TxEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends saga events over a single long-lived OnTxEventStream call instead of one unary call per
+ * event. Concurrent senders are pipelined: each event is tagged with a correlation id, events
+ * queued while a batch is being written are flushed together in the next batch, and every
+ * caller blocks only until the ack carrying its own correlation id comes back, at most the
+ * sending timeout.
+ *
+ * <p>When the stream breaks, only the callers whose events were written to it fail, so they can
+ * resend them through another alpha. Events still queued are written to the next stream.
+ */
+public class GrpcSagaStreamClientMessageSender extends GrpcSagaClientMessageSender {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final TxEventServiceStub streamEventService;
+
+  private final int maxBatchSize;
+
+  private final int timeoutSeconds;
+
+  private final AtomicLong correlationIds = new AtomicLong();
+
+  private final Map<Long, PendingAck> pendingAcks = new ConcurrentHashMap<>();
+
+  private final Queue<GrpcCorrelatedTxEvent> outgoingEvents = new ConcurrentLinkedQueue<>();
+
+  private final AtomicBoolean flushing = new AtomicBoolean();
+
+  private volatile EventStream currentStream;
+
+  public GrpcSagaStreamClientMessageSender(
+      String address,
+      ManagedChannel channel,
+      MessageSerializer serializer,
+      MessageDeserializer deserializer,
+      ServiceConfig serviceConfig,
+      MessageHandler handler,
+      LoadBalanceContext loadContext,
+      int maxBatchSize,
+      int timeoutSeconds) {
+    super(address, channel, serializer, deserializer, serviceConfig, handler, loadContext);
+    this.streamEventService = TxEventServiceGrpc.newStub(channel);
+    this.maxBatchSize = maxBatchSize;
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  @Override
+  public void close() {
+    EventStream stream = currentStream;
+    currentStream = null;
+    if (stream != null) {
+      try {
+        stream.observer.onCompleted();
+      } catch (Exception e) {
+        LOG.warn("Failed to complete event stream to alpha at {}", target(), e);
+      }
+    }
+    outgoingEvents.clear();
+    OmegaException cause = new OmegaException("Event stream to alpha at " + target() + " is closed");
+    for (PendingAck pending : pendingAcks.values()) {
+      pending.ack.setException(cause);
+    }
+  }
+
+  @Override
+  public AlphaResponse send(TxEvent event) {
+    long correlationId = correlationIds.incrementAndGet();
+    PendingAck pending = new PendingAck();
+    pendingAcks.put(correlationId, pending);
+    GrpcCorrelatedTxEvent correlatedEvent = GrpcCorrelatedTxEvent.newBuilder()
+        .setCorrelationId(correlationId)
+        .setEvent(convertEvent(event))
+        .build();
+    outgoingEvents.offer(correlatedEvent);
+    try {
+      flush();
+      return pending.ack.get(timeoutSeconds, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      outgoingEvents.remove(correlatedEvent);
+      Thread.currentThread().interrupt();
+      throw new OmegaException("Failed to send event " + event + " due to interruption", e);
+    } catch (TimeoutException e) {
+      outgoingEvents.remove(correlatedEvent);
+      throw new IllegalStateException("Timed out after " + timeoutSeconds
+          + " seconds waiting for the ack of event " + event + " from alpha at " + target(), e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to send event " + event + " to alpha at " + target(),
+          e.getCause());
+    } finally {
+      pendingAcks.remove(correlationId);
+    }
+  }
+
+  // Whoever wins the flushing flag writes everything queued so far, so events enqueued by other
+  // threads during a write are picked up by the next batch rather than waiting for their own call.
+  private void flush() {
+    while (!outgoingEvents.isEmpty() && flushing.compareAndSet(false, true)) {
+      try {
+        GrpcTxEventBatch.Builder batch = GrpcTxEventBatch.newBuilder();
+        GrpcCorrelatedTxEvent next;
+        while (batch.getEventsCount() < maxBatchSize && (next = outgoingEvents.poll()) != null) {
+          batch.addEvents(next);
+        }
+        if (batch.getEventsCount() > 0) {
+          write(batch.build());
+        }
+      } finally {
+        flushing.set(false);
+      }
+    }
+  }
+
+  private void write(GrpcTxEventBatch batch) {
+    EventStream stream = eventStream();
+    // the events belong to this stream before they are written, so a failure of the stream while
+    // writing them fails their callers
+    for (GrpcCorrelatedTxEvent event : batch.getEventsList()) {
+      PendingAck pending = pendingAcks.get(event.getCorrelationId());
+      if (pending != null) {
+        pending.stream = stream;
+      }
+    }
+    try {
+      stream.observer.onNext(batch);
+    } catch (RuntimeException e) {
+      resetStream(stream, e);
+    }
+    if (stream.failure != null) {
+      failPendingAcks(stream);
+    }
+  }
+
+  private EventStream eventStream() {
+    EventStream stream = currentStream;
+    if (stream == null) {
+      stream = new EventStream();
+      stream.observer = streamEventService.onTxEventStream(new AckStreamObserver(stream));
+      currentStream = stream;
+    }
+    return stream;
+  }
+
+  // callbacks of a stream that has been replaced are ignored
+  private void resetStream(EventStream stream, Throwable cause) {
+    synchronized (stream) {
+      if (stream.failure != null) {
+        return;
+      }
+      stream.failure = cause;
+    }
+    if (currentStream == stream) {
+      currentStream = null;
+    }
+    LOG.error("Event stream to alpha at {} failed, events written to it will be resent", target(),
+        cause);
+    failPendingAcks(stream);
+  }
+
+  private void failPendingAcks(EventStream stream) {
+    for (PendingAck pending : pendingAcks.values()) {
+      if (pending.stream == stream) {
+        pending.ack.setException(stream.failure);
+      }
+    }
+  }
+
+  private static final class PendingAck {
+
+    private final SettableFuture<AlphaResponse> ack = SettableFuture.create();
+
+    // the stream the event was written to, null while the event is queued
+    private volatile EventStream stream;
+  }
+
+  private static final class EventStream {
+
+    private volatile StreamObserver<GrpcTxEventBatch> observer;
+
+    private volatile Throwable failure;
+  }
+
+  private class AckStreamObserver implements StreamObserver<GrpcTxEventAckBatch> {
+
+    private final EventStream stream;
+
+    AckStreamObserver(EventStream stream) {
+      this.stream = stream;
+    }
+
+    @Override
+    public void onNext(GrpcTxEventAckBatch batch) {
+      for (GrpcCorrelatedAck ack : batch.getAcksList()) {
+        PendingAck pending = pendingAcks.get(ack.getCorrelationId());
+        if (pending != null && pending.stream == stream) {
+          pending.ack.set(new AlphaResponse(ack.getAck().getAborted()));
+        }
+      }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      resetStream(stream, t);
+    }
+
+    @Override
+    public void onCompleted() {
+      resetStream(stream, new OmegaException("Event stream was completed by alpha at " + target()));
+    }
+  }
+}
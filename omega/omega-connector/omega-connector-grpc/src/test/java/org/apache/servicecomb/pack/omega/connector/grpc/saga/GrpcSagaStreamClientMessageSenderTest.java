@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.servicecomb.pack.omega.connector.grpc.saga;
+
+import static com.seanyinx.github.unit.scaffolding.Randomness.uniquify;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.grpc.testing.GrpcCleanupRule;
+import io.grpc.util.MutableHandlerRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.servicecomb.pack.common.EventType;
+import org.apache.servicecomb.pack.contract.grpc.GrpcAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCorrelatedAck;
+import org.apache.servicecomb.pack.contract.grpc.GrpcCorrelatedTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEvent;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventAckBatch;
+import org.apache.servicecomb.pack.contract.grpc.GrpcTxEventBatch;
+import org.apache.servicecomb.pack.contract.grpc.TxEventServiceGrpc.TxEventServiceImplBase;
+import org.apache.servicecomb.pack.omega.context.ServiceConfig;
+import org.apache.servicecomb.pack.omega.transaction.AlphaResponse;
+import org.apache.servicecomb.pack.omega.transaction.MessageDeserializer;
+import org.apache.servicecomb.pack.omega.transaction.MessageHandler;
+import org.apache.servicecomb.pack.omega.transaction.MessageSerializer;
+import org.apache.servicecomb.pack.omega.transaction.TxEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class GrpcSagaStreamClientMessageSenderTest {
+  @Rule
+  public final GrpcCleanupRule grpcCleanup = new GrpcCleanupRule();
+  private final MutableHandlerRegistry serviceRegistry = new MutableHandlerRegistry();
+
+  private final String globalTxId = uniquify("globalTxId");
+  private final String localTxId = uniquify("localTxId");
+  private final String parentTxId = uniquify("parentTxId");
+
+  private final MessageSerializer serializer = new MessageSerializer() {
+    @Override
+    public byte[] serialize(Object[] objects) {
+      return objects[0].toString().getBytes();
+    }
+  };
+
+  private final List<GrpcTxEvent> received = new ArrayList<>();
+  private GrpcSagaStreamClientMessageSender sender;
+
+  @Before
+  public void setUp() throws Exception {
+    String serverName = InProcessServerBuilder.generateName();
+    grpcCleanup.register(InProcessServerBuilder.forName(serverName)
+        .fallbackHandlerRegistry(serviceRegistry).directExecutor().build().start());
+    ManagedChannel channel = grpcCleanup.register(
+        InProcessChannelBuilder.forName(serverName).directExecutor().build());
+
+    sender = new GrpcSagaStreamClientMessageSender(uniquify("address"), channel, serializer,
+        mock(MessageDeserializer.class), new ServiceConfig(uniquify("service")),
+        mock(MessageHandler.class), null, 8, 1);
+  }
+
+  @After
+  public void tearDown() {
+    sender.close();
+  }
+
+  @Test
+  public void acksAreCorrelatedWithTheirEvents() {
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public StreamObserver<GrpcTxEventBatch> onTxEventStream(
+          final StreamObserver<GrpcTxEventAckBatch> responseObserver) {
+        return new StreamObserver<GrpcTxEventBatch>() {
+          @Override
+          public void onNext(GrpcTxEventBatch batch) {
+            GrpcTxEventAckBatch.Builder acks = GrpcTxEventAckBatch.newBuilder();
+            for (GrpcCorrelatedTxEvent event : batch.getEventsList()) {
+              received.add(event.getEvent());
+              boolean aborted = "reject".equals(event.getEvent().getCompensationMethod());
+              acks.addAcks(GrpcCorrelatedAck.newBuilder()
+                  .setCorrelationId(event.getCorrelationId())
+                  .setAck(GrpcAck.newBuilder().setAborted(aborted)));
+            }
+            responseObserver.onNext(acks.build());
+          }
+
+          @Override
+          public void onError(Throwable t) {
+          }
+
+          @Override
+          public void onCompleted() {
+            responseObserver.onCompleted();
+          }
+        };
+      }
+    });
+
+    AlphaResponse accepted = sender.send(newEvent("compensate"));
+    AlphaResponse rejected = sender.send(newEvent("reject"));
+
+    assertThat(accepted.aborted(), is(false));
+    assertThat(rejected.aborted(), is(true));
+    assertThat(received.size(), is(2));
+    assertThat(received.get(0).getGlobalTxId(), is(globalTxId));
+    assertThat(received.get(1).getCompensationMethod(), is("reject"));
+  }
+
+  @Test
+  public void pendingSendFailsWhenStreamBreaks() {
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public StreamObserver<GrpcTxEventBatch> onTxEventStream(
+          final StreamObserver<GrpcTxEventAckBatch> responseObserver) {
+        return new StreamObserver<GrpcTxEventBatch>() {
+          @Override
+          public void onNext(GrpcTxEventBatch batch) {
+            responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+          }
+
+          @Override
+          public void onError(Throwable t) {
+          }
+
+          @Override
+          public void onCompleted() {
+          }
+        };
+      }
+    });
+
+    try {
+      sender.send(newEvent("compensate"));
+      fail("Expected the send to fail once the stream is broken");
+    } catch (IllegalStateException e) {
+      assertThat(Status.fromThrowable(e.getCause()).getCode(), is(Status.Code.UNAVAILABLE));
+    }
+  }
+
+  @Test
+  public void sendTimesOutWithoutAck() {
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public StreamObserver<GrpcTxEventBatch> onTxEventStream(
+          final StreamObserver<GrpcTxEventAckBatch> responseObserver) {
+        return new StreamObserver<GrpcTxEventBatch>() {
+          @Override
+          public void onNext(GrpcTxEventBatch batch) {
+          }
+
+          @Override
+          public void onError(Throwable t) {
+          }
+
+          @Override
+          public void onCompleted() {
+            responseObserver.onCompleted();
+          }
+        };
+      }
+    });
+
+    try {
+      sender.send(newEvent("compensate"));
+      fail("Expected the send to time out without an ack");
+    } catch (IllegalStateException e) {
+      assertThat(e.getCause(), instanceOf(TimeoutException.class));
+    }
+  }
+
+  @Test
+  public void queuedEventsAreWrittenToTheNextStream() throws Exception {
+    final AtomicInteger streams = new AtomicInteger();
+    final List<List<String>> receivedByStream = Collections.synchronizedList(new ArrayList<List<String>>());
+    final CountDownLatch firstBatchWritten = new CountDownLatch(1);
+    final CountDownLatch secondEventQueued = new CountDownLatch(1);
+    serviceRegistry.addService(new TxEventServiceImplBase() {
+      @Override
+      public StreamObserver<GrpcTxEventBatch> onTxEventStream(
+          final StreamObserver<GrpcTxEventAckBatch> responseObserver) {
+        final boolean first = streams.incrementAndGet() == 1;
+        final List<String> streamReceived = Collections.synchronizedList(new ArrayList<String>());
+        receivedByStream.add(streamReceived);
+        return new StreamObserver<GrpcTxEventBatch>() {
+          @Override
+          public void onNext(GrpcTxEventBatch batch) {
+            GrpcTxEventAckBatch.Builder acks = GrpcTxEventAckBatch.newBuilder();
+            for (GrpcCorrelatedTxEvent event : batch.getEventsList()) {
+              streamReceived.add(event.getEvent().getCompensationMethod());
+              acks.addAcks(GrpcCorrelatedAck.newBuilder()
+                  .setCorrelationId(event.getCorrelationId())
+                  .setAck(GrpcAck.newBuilder().setAborted(false)));
+            }
+            if (first) {
+              firstBatchWritten.countDown();
+              try {
+                secondEventQueued.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+            } else {
+              responseObserver.onNext(acks.build());
+            }
+          }
+
+          @Override
+          public void onError(Throwable t) {
+          }
+
+          @Override
+          public void onCompleted() {
+            responseObserver.onCompleted();
+          }
+        };
+      }
+    });
+
+    final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    Thread firstSender = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          sender.send(newEvent("first"));
+        } catch (IllegalStateException e) {
+          firstFailure.set(e);
+        }
+      }
+    });
+    firstSender.start();
+    firstBatchWritten.await();
+
+    final AtomicReference<AlphaResponse> secondResponse = new AtomicReference<>();
+    final Thread secondSender = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        secondResponse.set(sender.send(newEvent("second")));
+      }
+    });
+    secondSender.start();
+    // the second event is queued while the first batch is being written
+    await().until(new Callable<Boolean>() {
+      @Override
+      public Boolean call() {
+        return secondSender.getState() == Thread.State.TIMED_WAITING;
+      }
+    });
+    secondEventQueued.countDown();
+    firstSender.join();
+    secondSender.join();
+
+    // only the event written to the broken stream fails, the queued one is sent once on the next
+    assertThat(Status.fromThrowable(firstFailure.get().getCause()).getCode(), is(Status.Code.UNAVAILABLE));
+    assertThat(secondResponse.get().aborted(), is(false));
+    assertThat(receivedByStream.get(0), is(Collections.singletonList("first")));
+    assertThat(receivedByStream.get(1), is(Collections.singletonList("second")));
+  }
+
+  private TxEvent newEvent(String compensationMethod) {
+    return new TxEvent(EventType.TxStartedEvent, globalTxId, localTxId, parentTxId,
+        compensationMethod, 0, "", 0, 0, 0, 0, 0, "blah");
+  }
+}
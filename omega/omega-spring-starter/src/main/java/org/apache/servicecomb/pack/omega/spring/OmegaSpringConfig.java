@@ -94,6 +94,8 @@ class OmegaSpringConfig {
       @Value("${alpha.cluster.ssl.cert:client.crt}") String cert,
       @Value("${alpha.cluster.ssl.key:client.pem}") String key,
       @Value("${alpha.cluster.ssl.certChain:ca.crt}") String certChain,
+      @Value("${alpha.cluster.stream.enable:false}") boolean enableEventStream,
+      @Value("${alpha.cluster.stream.batchSize:64}") int eventStreamBatchSize,
       @Lazy AlphaClusterDiscovery alphaClusterDiscovery,
       @Lazy MessageHandler handler,
       @Lazy TccMessageHandler tccMessageHandler) {
@@ -111,6 +113,8 @@ class OmegaSpringConfig {
         .messageSerializer(messageFormat)
         .messageHandler(handler)
         .tccMessageHandler(tccMessageHandler)
+        .enableEventStream(enableEventStream)
+        .eventStreamBatchSize(eventStreamBatchSize)
         .build();
     return clusterConfig;
   }